@@ -0,0 +1,42 @@
+package org.example.carshop.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Runs the benchmarks selected by the usual JMH command line and publishes the results as JSON
+ * to {@code results/<label>.json}, where the label is given by the {@code benchmark.label} system property
+ * (e.g. the commit hash) and defaults to "latest". Results of two commits can then be compared file by file.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLine);
+        if (commandLine.getResult().hasValue()) {
+            new Runner(builder.build()).run();
+            return;
+        }
+        Path results = Path.of("results");
+        Files.createDirectories(results);
+        Path file = results.resolve(System.getProperty("benchmark.label", "latest") + ".json");
+        Options options = builder
+                .resultFormat(ResultFormatType.JSON)
+                .result(file.toString())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.carshop.benchmark;
+
+import org.example.carshop.model.Car;
+import org.example.carshop.repository.CarRepository;
+import org.example.carshop.repository.CarStore;
+import org.example.carshop.repository.CompactCarRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded {@link CarStore} lookups and writes on the map-based and the compact backends.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CarRepositoryBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"map", "compact"})
+    public String backend;
+
+    private CarStore repository;
+    private int nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = "compact".equals(backend) ? new CompactCarRepository() : new CarRepository(new HashMap<>());
+        Random random = Fixtures.random();
+        for (int id = 1; id <= size; id++) {
+            repository.addCar(Fixtures.car(id, random));
+        }
+        nextId = size + 1;
+    }
+
+    @Benchmark
+    public Collection<Car> filterByBrand() {
+        return repository.filterCars(Fixtures.brand(randomInt(Fixtures.BRANDS)), null, null, null);
+    }
+
+    @Benchmark
+    public Collection<Car> filterByBrandModelYear() {
+        int brand = randomInt(Fixtures.BRANDS);
+        return repository.filterCars(Fixtures.brand(brand), Fixtures.model(brand, randomInt(Fixtures.MODELS_PER_BRAND)),
+                Integer.toString(Fixtures.FIRST_YEAR + randomInt(Fixtures.YEARS)), null);
+    }
+
+    @Benchmark
+    public Collection<Car> filterAvailableByModel() {
+        int brand = randomInt(Fixtures.BRANDS);
+        return repository.filterCars(null, Fixtures.model(brand, randomInt(Fixtures.MODELS_PER_BRAND)), null, true);
+    }
+
+    @Benchmark
+    public Car findCarById() {
+        return repository.findCarById(1 + randomInt(size));
+    }
+
+    @Benchmark
+    public void updateCar() {
+        repository.updateCar(Fixtures.car(1 + randomInt(size), ThreadLocalRandom.current()));
+    }
+
+    @Benchmark
+    public void addAndRemoveCar() {
+        int id = nextId++;
+        repository.addCar(Fixtures.car(id, ThreadLocalRandom.current()));
+        repository.removeCarById(id);
+    }
+
+    private static int randomInt(int bound) {
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.carshop.benchmark;
+
+import org.example.carshop.model.Car;
+import org.example.carshop.model.enums.ReservationResult;
+import org.example.carshop.repository.CarRepository;
+import org.example.carshop.repository.CarStore;
+import org.example.carshop.repository.CompactCarRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CarStore} lookups and writes from several threads on the thread-safe backends.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class CarRepositoryConcurrentBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"concurrent", "compact"})
+    public String backend;
+
+    private CarStore repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = "compact".equals(backend)
+                ? new CompactCarRepository()
+                : new CarRepository(new ConcurrentHashMap<>());
+        Random random = Fixtures.random();
+        for (int id = 1; id <= size; id++) {
+            repository.addCar(Fixtures.car(id, random));
+        }
+    }
+
+    @Benchmark
+    public Collection<Car> filterByBrandModelYear() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int brand = random.nextInt(Fixtures.BRANDS);
+        return repository.filterCars(Fixtures.brand(brand), Fixtures.model(brand, random.nextInt(Fixtures.MODELS_PER_BRAND)),
+                Integer.toString(Fixtures.FIRST_YEAR + random.nextInt(Fixtures.YEARS)), null);
+    }
+
+    @Benchmark
+    public void updateCar() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        repository.updateCar(Fixtures.car(1 + random.nextInt(size), random));
+    }
+
+    @Benchmark
+    public ReservationResult reserveAndReleaseCar() {
+        int id = 1 + ThreadLocalRandom.current().nextInt(size);
+        ReservationResult result = repository.reserveCar(id);
+        if (result == ReservationResult.RESERVED) {
+            repository.releaseCar(id);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.carshop.benchmark;
+
+import org.example.carshop.model.Car;
+import org.example.carshop.model.Request;
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.RequestStatus;
+import org.example.carshop.model.enums.RequestType;
+import org.example.carshop.model.enums.UserRole;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * Deterministic generator of benchmark data, so that runs of different commits work on the same entities.
+ */
+final class Fixtures {
+    static final int BRANDS = 40;
+    static final int MODELS_PER_BRAND = 10;
+    static final int FIRST_YEAR = 1990;
+    static final int YEARS = 35;
+    static final LocalDate FIRST_DAY = LocalDate.of(2022, 1, 1);
+    static final int DAYS = 3 * 365;
+
+    private static final RequestStatus[] OPEN_STATUSES = {
+            RequestStatus.NEW, RequestStatus.PENDING, RequestStatus.IN_PROGRESS
+    };
+
+    private Fixtures() {
+    }
+
+    static Random random() {
+        return new Random(42);
+    }
+
+    static String brand(int index) {
+        return "Brand" + index;
+    }
+
+    static String model(int brand, int index) {
+        return "Model" + brand + "-" + index;
+    }
+
+    static Car car(int id, Random random) {
+        int brand = random.nextInt(BRANDS);
+        return new Car(id, model(brand, random.nextInt(MODELS_PER_BRAND)), brand(brand),
+                Integer.toString(FIRST_YEAR + random.nextInt(YEARS)), random.nextBoolean() ? "Новый" : "Б/у",
+                random.nextInt(4) != 0);
+    }
+
+    static String username(int index) {
+        return "user" + index;
+    }
+
+    static User user(int index) {
+        UserRole role = index % 100 == 0 ? UserRole.MANAGER : UserRole.CLIENT;
+        return new User(username(index), "password" + index, "Full Name " + index, role);
+    }
+
+    static Request request(User user, int carId, Random random) {
+        LocalDateTime creationTime = FIRST_DAY.plusDays(random.nextInt(DAYS)).atTime(9 + random.nextInt(10), 0);
+        RequestType type = random.nextBoolean() ? RequestType.ORDER : RequestType.MAINTENANCE;
+        Request request = new Request(user, carId, creationTime, null, type, RequestStatus.NEW);
+        request.setRequestStatus(OPEN_STATUSES[random.nextInt(OPEN_STATUSES.length)]);
+        return request;
+    }
+
+    static LocalDate day(Random random) {
+        return FIRST_DAY.plusDays(random.nextInt(DAYS));
+    }
+}
@@ -0,0 +1,155 @@
+package org.example.carshop.benchmark;
+
+import org.example.carshop.model.Request;
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.RequestStatus;
+import org.example.carshop.model.enums.RequestType;
+import org.example.carshop.repository.BlockIdGenerator;
+import org.example.carshop.repository.RequestRepository;
+import org.example.carshop.repository.SequentialIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RequestRepository} filters and writes. The single-threaded methods run against a repository
+ * over a {@link HashMap}, the concurrent ones against one over a {@link ConcurrentHashMap}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestRepositoryBenchmark {
+
+    /**
+     * Repository filled with requests of {@code size / 20} users for {@code size / 10} cars.
+     */
+    @State(Scope.Benchmark)
+    public abstract static class Data {
+
+        @Param({"1000", "10000", "100000", "1000000", "10000000"})
+        public int size;
+
+        RequestRepository repository;
+        User[] users;
+        int cars;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            repository = createRepository();
+            Random random = Fixtures.random();
+            users = new User[Math.max(10, size / 20)];
+            for (int i = 0; i < users.length; i++) {
+                users[i] = Fixtures.user(i);
+            }
+            cars = Math.max(10, size / 10);
+            for (int i = 0; i < size; i++) {
+                repository.addRequest(Fixtures.request(users[random.nextInt(users.length)], 1 + random.nextInt(cars), random));
+            }
+        }
+
+        abstract RequestRepository createRepository();
+
+        User randomUser() {
+            return users[ThreadLocalRandom.current().nextInt(users.length)];
+        }
+
+        Request randomRequest() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            return Fixtures.request(randomUser(), 1 + random.nextInt(cars), random);
+        }
+    }
+
+    public static class SingleThreaded extends Data {
+        @Override
+        RequestRepository createRepository() {
+            return new RequestRepository(new HashMap<>(), new SequentialIdGenerator());
+        }
+    }
+
+    public static class Concurrent extends Data {
+        @Override
+        RequestRepository createRepository() {
+            return new RequestRepository(new ConcurrentHashMap<>(), new BlockIdGenerator());
+        }
+    }
+
+    @Benchmark
+    public Collection<Request> filterByDate(SingleThreaded data) {
+        return data.repository.filterRequestsByDateAndType(Fixtures.day(ThreadLocalRandom.current()), RequestType.ORDER);
+    }
+
+    @Benchmark
+    public Collection<Request> filterByCar(SingleThreaded data) {
+        return data.repository.filterRequestsByCarAndType(1 + ThreadLocalRandom.current().nextInt(data.cars),
+                RequestType.MAINTENANCE);
+    }
+
+    @Benchmark
+    public Collection<Request> filterByUser(SingleThreaded data) {
+        return data.repository.filterRequestsByUserAndType(data.randomUser(), null);
+    }
+
+    @Benchmark
+    public Collection<Request> filterByStatus(SingleThreaded data) {
+        return data.repository.filterRequestsByRequestStatusAndType(RequestStatus.PENDING, RequestType.ORDER);
+    }
+
+    @Benchmark
+    public void addAndRemoveRequest(SingleThreaded data) {
+        Request request = data.randomRequest();
+        data.repository.addRequest(request);
+        data.repository.removeRequestById(request.getId());
+    }
+
+    @Benchmark
+    public void updateRequest(SingleThreaded data) {
+        Request request = data.randomRequest();
+        request.setId(1 + ThreadLocalRandom.current().nextInt(data.size));
+        data.repository.updateRequest(request);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Collection<Request> filterByUserConcurrent(Concurrent data) {
+        return data.repository.filterRequestsByUserAndType(data.randomUser(), RequestType.ORDER);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void addAndRemoveRequestConcurrent(Concurrent data) {
+        Request request = data.randomRequest();
+        data.repository.addRequest(request);
+        data.repository.removeRequestById(request.getId());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void changeStatusConcurrent(Concurrent data) {
+        Request request = data.randomRequest();
+        data.repository.addRequest(request);
+        RequestStatus next;
+        while ((next = request.getRequestStatus().next()) != null) {
+            data.repository.changeRequestStatus(request.getId(), next);
+        }
+        data.repository.removeRequestById(request.getId());
+    }
+}
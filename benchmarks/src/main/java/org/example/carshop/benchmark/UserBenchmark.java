@@ -0,0 +1,91 @@
+package org.example.carshop.benchmark;
+
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.UserRole;
+import org.example.carshop.repository.UserRepository;
+import org.example.carshop.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UserRepository} filters and writes and {@link UserService#login} over a thread-safe repository,
+ * from one thread and from several.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserBenchmark {
+    private static final List<UserRole> STAFF = List.of(UserRole.MANAGER, UserRole.ADMIN);
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private UserRepository repository;
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new UserRepository(new ConcurrentHashMap<>());
+        userService = new UserService(repository);
+        for (int i = 0; i < size; i++) {
+            repository.registerUser(Fixtures.user(i));
+        }
+    }
+
+    @Benchmark
+    public Collection<User> filterUsersByName() {
+        return repository.filterUsers(Fixtures.username(ThreadLocalRandom.current().nextInt(size)), null);
+    }
+
+    @Benchmark
+    public Collection<User> filterStaff() {
+        return repository.filterUsers(null, STAFF);
+    }
+
+    @Benchmark
+    public boolean login() {
+        return userService.login(randomCredentials());
+    }
+
+    @Benchmark
+    public void updateUser() {
+        repository.updateUser(Fixtures.user(ThreadLocalRandom.current().nextInt(size)));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean loginConcurrent() {
+        return userService.login(randomCredentials());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void updateUserConcurrent() {
+        repository.updateUser(Fixtures.user(ThreadLocalRandom.current().nextInt(size)));
+    }
+
+    private User randomCredentials() {
+        User user = Fixtures.user(ThreadLocalRandom.current().nextInt(size));
+        return new User(user.getUsername(), user.getPassword());
+    }
+}
@@ -9,6 +9,8 @@ import org.example.carshop.factory.CarshopServiceFactory;
 import org.example.carshop.factory.CarshopFactory;
 import org.example.carshop.factory.UserConsoleFactory;
 import org.example.carshop.factory.UserServiceFactory;
+import org.example.carshop.persistence.Durability;
+import org.example.carshop.persistence.StorageEngine;
 import org.example.carshop.repository.RequestRepository;
 import org.example.carshop.repository.CarRepository;
 import org.example.carshop.repository.UserRepository;
@@ -16,19 +18,28 @@ import org.example.carshop.service.RequestService;
 import org.example.carshop.service.CarShopService;
 import org.example.carshop.service.UserService;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 public class Main {
-    public static void main(String[] args) {
-        CarshopFactory<UserRepository> userRepositoryFactory = new UserRepositoryFactory();
-        CarshopFactory<RequestRepository> requestRepositoryFactory = new RequestRepositoryFactory();
-        CarshopFactory<UserService> userServiceFactory = new UserServiceFactory(userRepositoryFactory);
-        CarshopFactory<UserConsole> userConsoleFactory = getUserConsoleCarshopFactory(requestRepositoryFactory, userServiceFactory);
+    public static void main(String[] args) throws IOException {
+        Path dataDir = Path.of(System.getProperty("carshop.dataDir", "data"));
+        Durability durability = Durability.parse(System.getProperty("carshop.syncIntervalMillis", "0"));
+        long snapshotIntervalMillis = Long.parseLong(System.getProperty("carshop.snapshotIntervalMillis", "600000"));
+
+        try (StorageEngine storage = StorageEngine.open(dataDir, durability, snapshotIntervalMillis)) {
+            CarshopFactory<UserRepository> userRepositoryFactory = new UserRepositoryFactory(storage);
+            CarshopFactory<RequestRepository> requestRepositoryFactory = new RequestRepositoryFactory(storage);
+            CarshopFactory<UserService> userServiceFactory = new UserServiceFactory(userRepositoryFactory);
+            CarshopFactory<UserConsole> userConsoleFactory = getUserConsoleCarshopFactory(storage, requestRepositoryFactory, userServiceFactory);
 
-        UserConsole userConsole = userConsoleFactory.create();
-        userConsole.runStartCommands();
+            UserConsole userConsole = userConsoleFactory.create();
+            userConsole.runStartCommands();
+        }
     }
 
-    private static CarshopFactory<UserConsole> getUserConsoleCarshopFactory(CarshopFactory<RequestRepository> requestRepositoryFactory, CarshopFactory<UserService> userServiceFactory) {
-        CarshopFactory<CarRepository> carRepositoryFactory = new CarRepositoryFactory();
+    private static CarshopFactory<UserConsole> getUserConsoleCarshopFactory(StorageEngine storage, CarshopFactory<RequestRepository> requestRepositoryFactory, CarshopFactory<UserService> userServiceFactory) {
+        CarshopFactory<CarRepository> carRepositoryFactory = new CarRepositoryFactory(storage);
         CarshopFactory<CarShopService> carShopServiceFactory = new CarshopServiceFactory(carRepositoryFactory);
         CarshopFactory<RequestService> requestServiceFactory = new RequestServiceFactory(requestRepositoryFactory);
         return new UserConsoleFactory(userServiceFactory, carShopServiceFactory, requestServiceFactory);
@@ -0,0 +1,62 @@
+package org.example.carshop;
+
+import org.example.carshop.factory.CarRepositoryFactory;
+import org.example.carshop.factory.CarshopServiceFactory;
+import org.example.carshop.factory.RequestRepositoryFactory;
+import org.example.carshop.factory.RequestServiceFactory;
+import org.example.carshop.factory.UserRepositoryFactory;
+import org.example.carshop.factory.UserServiceFactory;
+import org.example.carshop.in.ConsoleServer;
+import org.example.carshop.in.ConsoleSessionHost;
+import org.example.carshop.in.http.ApiServer;
+import org.example.carshop.metrics.MetricsRegistry;
+import org.example.carshop.metrics.PrometheusExporter;
+import org.example.carshop.persistence.Durability;
+import org.example.carshop.persistence.StorageEngine;
+import org.example.carshop.service.CarShopService;
+import org.example.carshop.service.RequestService;
+import org.example.carshop.service.ReservationService;
+import org.example.carshop.service.UserService;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+
+/**
+ * Network entry point: serves the console over TCP, one session per connection, and the JSON API over HTTP.
+ * Both front ends share one set of services. Metrics are written to {@code metrics.prom} in the data directory
+ * in the Prometheus text format every {@code carshop.metricsIntervalMillis}, unless it is 0.
+ */
+public class ServerMain {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path dataDir = Path.of(System.getProperty("carshop.dataDir", "data"));
+        Durability durability = Durability.parse(System.getProperty("carshop.syncIntervalMillis", "0"));
+        long snapshotIntervalMillis = Long.parseLong(System.getProperty("carshop.snapshotIntervalMillis", "600000"));
+        String bindHost = System.getProperty("carshop.host", "0.0.0.0");
+        int port = Integer.parseInt(System.getProperty("carshop.port", "8023"));
+        int httpPort = Integer.parseInt(System.getProperty("carshop.httpPort", "8080"));
+        long metricsIntervalMillis = Long.parseLong(System.getProperty("carshop.metricsIntervalMillis", "15000"));
+
+        try (StorageEngine storage = StorageEngine.open(dataDir, durability, snapshotIntervalMillis)) {
+            PrometheusExporter metrics = metricsIntervalMillis > 0
+                    ? PrometheusExporter.start(MetricsRegistry.shared(), dataDir.resolve("metrics.prom"), metricsIntervalMillis)
+                    : null;
+            UserService userService = new UserServiceFactory(new UserRepositoryFactory(storage)).create();
+            CarShopService carShopService = new CarshopServiceFactory(new CarRepositoryFactory(storage)).create();
+            RequestService requestService = new RequestServiceFactory(new RequestRepositoryFactory(storage)).create();
+            ReservationService reservationService = new ReservationService(carShopService, requestService);
+
+            try (ConsoleSessionHost host = new ConsoleSessionHost(userService, carShopService, requestService, reservationService);
+                 ConsoleServer server = ConsoleServer.start(host, new InetSocketAddress(bindHost, port));
+                 ApiServer api = ApiServer.start(new InetSocketAddress(bindHost, httpPort),
+                         userService, carShopService, requestService, reservationService)) {
+                System.out.println("Сервер запущен на " + server.getAddress() + ", HTTP API на " + api.getAddress());
+                server.awaitTermination();
+            } finally {
+                if (metrics != null) {
+                    metrics.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.carshop;
+
+import org.example.carshop.factory.CarRepositoryFactory;
+import org.example.carshop.factory.RequestRepositoryFactory;
+import org.example.carshop.factory.UserRepositoryFactory;
+import org.example.carshop.persistence.Durability;
+import org.example.carshop.persistence.StorageEngine;
+import org.example.carshop.security.CredentialService;
+import org.example.carshop.service.DataTransferService;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Bulk import and export entry point: {@code import|export cars|users|requests <file>}.
+ * The storage is snapshotted after an import, so the next start does not replay the imported records from the log.
+ */
+public class TransferMain {
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3 || !args[0].equals("import") && !args[0].equals("export")) {
+            System.err.println("Использование: TransferMain import|export cars|users|requests <файл>");
+            System.exit(2);
+        }
+        Path dataDir = Path.of(System.getProperty("carshop.dataDir", "data"));
+        Durability durability = Durability.parse(System.getProperty("carshop.syncIntervalMillis", "0"));
+        boolean isImport = args[0].equals("import");
+        Path file = Path.of(args[2]);
+
+        try (StorageEngine storage = StorageEngine.open(dataDir, durability)) {
+            DataTransferService transfer = new DataTransferService(new CarRepositoryFactory(storage).create(),
+                    new UserRepositoryFactory(storage).create(), new RequestRepositoryFactory(storage).create(),
+                    CredentialService.shared());
+            long started = System.nanoTime();
+            long count = switch (args[1]) {
+                case "cars" -> isImport ? transfer.importCars(file) : transfer.exportCars(file);
+                case "users" -> isImport ? transfer.importUsers(file) : transfer.exportUsers(file);
+                case "requests" -> isImport ? transfer.importRequests(file) : transfer.exportRequests(file);
+                default -> throw new IllegalArgumentException("Неизвестный тип данных: " + args[1]);
+            };
+            if (isImport) {
+                storage.snapshot();
+            }
+            System.out.printf("%s: %d записей за %d мс%n", isImport ? "Импортировано" : "Экспортировано", count,
+                    (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+}
@@ -1,16 +1,49 @@
 package org.example.carshop.factory;
 
 import org.example.carshop.model.Car;
+import org.example.carshop.persistence.StorageEngine;
 import org.example.carshop.repository.CarRepository;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Фабрика для создания объектов типа CarRepository.
  * Реализует интерфейс CarshopFactory для создания экземпляров репозитория автомобилей.
  */
 public class CarRepositoryFactory implements CarshopFactory<CarRepository> {
+    private final boolean concurrent;
+    private final StorageEngine storage;
+
+    /**
+     * Создает фабрику однопоточных репозиториев на основе {@link HashMap}.
+     */
+    public CarRepositoryFactory() {
+        this(false);
+    }
+
+    /**
+     * Создает фабрику репозиториев автомобилей.
+     *
+     * @param concurrent если true, репозиторий строится на основе {@link ConcurrentHashMap}
+     *                   и может использоваться несколькими потоками одновременно
+     */
+    public CarRepositoryFactory(boolean concurrent) {
+        this.concurrent = concurrent;
+        this.storage = null;
+    }
+
+    /**
+     * Создает фабрику многопоточных репозиториев, хранящих автомобили в {@link StorageEngine}.
+     * Все изменения репозитория записываются в журнал хранилища.
+     *
+     * @param storage открытое хранилище данных
+     */
+    public CarRepositoryFactory(StorageEngine storage) {
+        this.concurrent = true;
+        this.storage = storage;
+    }
 
     /**
      * Создает и возвращает новый экземпляр CarRepository с пустым начальным маппингом автомобилей.
@@ -19,7 +52,10 @@ public class CarRepositoryFactory implements CarshopFactory<CarRepository> {
      */
     @Override
     public CarRepository create() {
-        Map<Integer, Car> carsHashMap = new HashMap<>();
+        if (storage != null) {
+            return new CarRepository(storage.getCars(), storage);
+        }
+        Map<Integer, Car> carsHashMap = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
         return new CarRepository(carsHashMap);
     }
 }
@@ -1,7 +1,7 @@
 package org.example.carshop.factory;
 
 import lombok.RequiredArgsConstructor;
-import org.example.carshop.repository.CarRepository;
+import org.example.carshop.repository.CarStore;
 import org.example.carshop.service.CarShopService;
 
 /**
@@ -9,7 +9,7 @@ import org.example.carshop.service.CarShopService;
  */
 @RequiredArgsConstructor
 public class CarshopServiceFactory implements CarshopFactory<CarShopService> {
-    private final CarshopFactory<CarRepository> carRepositoryFactory;
+    private final CarshopFactory<? extends CarStore> carRepositoryFactory;
 
     /**
      * Создает и возвращает новый экземпляр {@link CarShopService}.
@@ -0,0 +1,44 @@
+package org.example.carshop.factory;
+
+import org.example.carshop.persistence.StorageEngine;
+import org.example.carshop.repository.CarStore;
+import org.example.carshop.repository.CompactCarRepository;
+
+/**
+ * Фабрика для создания компактных репозиториев автомобилей {@link CompactCarRepository}.
+ * Подходит для больших автопарков: автомобили хранятся в примитивных столбцах, а не в отдельных объектах.
+ * Изменения компактного репозитория не записываются в журнал, поэтому он хранит данные только в памяти.
+ */
+public class CompactCarRepositoryFactory implements CarshopFactory<CarStore> {
+
+    /**
+     * Создает фабрику компактных репозиториев, хранящих автомобили только в памяти.
+     */
+    public CompactCarRepositoryFactory() {
+        this(null);
+    }
+
+    /**
+     * Создает фабрику компактных репозиториев для заданного хранилища.
+     * Компактный репозиторий не журналирует изменения, поэтому вместе с хранилищем он потерял бы данные.
+     *
+     * @param storage хранилище данных, или null для хранения только в памяти
+     * @throws IllegalArgumentException если задано хранилище; для него нужен {@link CarRepositoryFactory}
+     */
+    public CompactCarRepositoryFactory(StorageEngine storage) {
+        if (storage != null) {
+            throw new IllegalArgumentException(
+                    "Compact car repositories are not journaled; use CarRepositoryFactory with a storage engine");
+        }
+    }
+
+    /**
+     * Создает и возвращает новый пустой экземпляр {@link CompactCarRepository}.
+     *
+     * @return новый экземпляр CompactCarRepository
+     */
+    @Override
+    public CarStore create() {
+        return new CompactCarRepository();
+    }
+}
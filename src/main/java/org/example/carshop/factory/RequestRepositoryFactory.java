@@ -1,16 +1,69 @@
 package org.example.carshop.factory;
 
 import org.example.carshop.model.Request;
+import org.example.carshop.persistence.StorageEngine;
+import org.example.carshop.repository.BlockIdGenerator;
+import org.example.carshop.repository.RequestIdGenerator;
 import org.example.carshop.repository.RequestRepository;
+import org.example.carshop.repository.SequentialIdGenerator;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * Фабрика для создания объектов типа RequestRepository.
  * Реализует интерфейс CarshopFactory для создания экземпляров репозитория заказов.
  */
 public class RequestRepositoryFactory implements CarshopFactory<RequestRepository> {
+    private final boolean concurrent;
+    private final Supplier<RequestIdGenerator> idGeneratorFactory;
+    private final StorageEngine storage;
+
+    /**
+     * Создает фабрику однопоточных репозиториев на основе {@link HashMap}.
+     */
+    public RequestRepositoryFactory() {
+        this(false);
+    }
+
+    /**
+     * Создает фабрику репозиториев заказов.
+     * Многопоточные репозитории выдают идентификаторы блоками через {@link BlockIdGenerator},
+     * однопоточные - последовательно через {@link SequentialIdGenerator}.
+     *
+     * @param concurrent если true, репозиторий строится на основе {@link ConcurrentHashMap}
+     *                   и может использоваться несколькими потоками одновременно
+     */
+    public RequestRepositoryFactory(boolean concurrent) {
+        this(concurrent, concurrent ? BlockIdGenerator::new : SequentialIdGenerator::new);
+    }
+
+    /**
+     * Создает фабрику репозиториев заказов с заданным генератором идентификаторов.
+     *
+     * @param concurrent         если true, репозиторий строится на основе {@link ConcurrentHashMap}
+     * @param idGeneratorFactory создает генератор идентификаторов для каждого нового репозитория
+     */
+    public RequestRepositoryFactory(boolean concurrent, Supplier<RequestIdGenerator> idGeneratorFactory) {
+        this.concurrent = concurrent;
+        this.idGeneratorFactory = idGeneratorFactory;
+        this.storage = null;
+    }
+
+    /**
+     * Создает фабрику многопоточных репозиториев, хранящих заказы в {@link StorageEngine}.
+     * Все изменения репозитория записываются в журнал хранилища, выполненные заказы переносятся
+     * в архив хранилища, идентификаторы выдаются через {@link BlockIdGenerator} начиная с наибольшего сохраненного.
+     *
+     * @param storage открытое хранилище данных
+     */
+    public RequestRepositoryFactory(StorageEngine storage) {
+        this.concurrent = true;
+        this.idGeneratorFactory = BlockIdGenerator::new;
+        this.storage = storage;
+    }
 
     /**
      * Создает и возвращает новый экземпляр RequestRepository.
@@ -19,7 +72,11 @@ public class RequestRepositoryFactory implements CarshopFactory<RequestRepositor
      */
     @Override
     public RequestRepository create() {
-        Map<Integer, Request> requestHashMap = new HashMap<>();
-        return new RequestRepository(requestHashMap);
+        if (storage != null) {
+            return new RequestRepository(storage.getRequests(), idGeneratorFactory.get(), storage,
+                    storage.getRequestArchive());
+        }
+        Map<Integer, Request> requestHashMap = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+        return new RequestRepository(requestHashMap, idGeneratorFactory.get());
     }
 }
@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.example.carshop.in.UserConsole;
 import org.example.carshop.service.RequestService;
 import org.example.carshop.service.CarShopService;
+import org.example.carshop.service.ReservationService;
 import org.example.carshop.service.UserService;
 
 /**
@@ -25,6 +26,7 @@ public class UserConsoleFactory implements CarshopFactory<UserConsole> {
         UserService userService = userServiceFactory.create();
         CarShopService carShopService = carShopServiceFactory.create();
         RequestService requestService = requestServiceFactory.create();
-        return new UserConsole(userService, carShopService, requestService);
+        ReservationService reservationService = new ReservationService(carShopService, requestService);
+        return new UserConsole(userService, carShopService, requestService, reservationService);
     }
 }
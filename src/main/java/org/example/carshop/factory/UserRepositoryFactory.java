@@ -1,15 +1,48 @@
 package org.example.carshop.factory;
 
 import org.example.carshop.model.User;
+import org.example.carshop.persistence.StorageEngine;
 import org.example.carshop.repository.UserRepository;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Фабрика для создания экземпляров {@link UserRepository}.
  */
 public class UserRepositoryFactory implements CarshopFactory<UserRepository> {
+    private final boolean concurrent;
+    private final StorageEngine storage;
+
+    /**
+     * Создает фабрику однопоточных репозиториев на основе {@link HashMap}.
+     */
+    public UserRepositoryFactory() {
+        this(false);
+    }
+
+    /**
+     * Создает фабрику репозиториев пользователей.
+     *
+     * @param concurrent если true, репозиторий строится на основе {@link ConcurrentHashMap}
+     *                   и может использоваться несколькими потоками одновременно
+     */
+    public UserRepositoryFactory(boolean concurrent) {
+        this.concurrent = concurrent;
+        this.storage = null;
+    }
+
+    /**
+     * Создает фабрику многопоточных репозиториев, хранящих пользователей в {@link StorageEngine}.
+     * Все изменения репозитория записываются в журнал хранилища.
+     *
+     * @param storage открытое хранилище данных
+     */
+    public UserRepositoryFactory(StorageEngine storage) {
+        this.concurrent = true;
+        this.storage = storage;
+    }
 
     /**
      * Создает и возвращает новый экземпляр {@link UserRepository}.
@@ -18,7 +51,10 @@ public class UserRepositoryFactory implements CarshopFactory<UserRepository> {
      */
     @Override
     public UserRepository create() {
-        Map<String, User> userMap = new HashMap<>();
+        if (storage != null) {
+            return new UserRepository(storage.getUsers(), storage);
+        }
+        Map<String, User> userMap = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
         return new UserRepository(userMap);
     }
 }
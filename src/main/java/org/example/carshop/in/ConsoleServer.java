@@ -0,0 +1,467 @@
+package org.example.carshop.in;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * TCP front end speaking the numbered-menu protocol of {@link UserConsole}, one console session per connection.
+ * <p>
+ * All sockets are non-blocking and served by a single selector thread, which moves received bytes into the
+ * input of a session and sends whatever the session has printed. Sessions themselves run on the threads of a
+ * {@link ConsoleSessionHost} and block only on their in-memory streams, so an idle connection costs a channel,
+ * its buffers and a parked session thread. A connection is closed once its session ends and everything printed
+ * has been sent; a client closing its side ends the session as if the input had run out.
+ * <p>
+ * Both directions are bounded per connection: a client sending more than {@value #MAX_PENDING_INPUT} bytes ahead
+ * of its session is disconnected, and a session that has printed {@value #MAX_PENDING_OUTPUT} bytes the client has
+ * not received yet waits until the selector has sent them, so a client that stops reading holds at most that much
+ * heap.
+ */
+public class ConsoleServer implements Closeable {
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final int MAX_PENDING_INPUT = 64 * 1024;
+    private static final int MAX_PENDING_OUTPUT = 256 * 1024;
+    private static final int OUTPUT_CHUNK_SIZE = 64 * 1024;
+
+    private final ConsoleSessionHost host;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    private final Thread selectorThread;
+    private volatile boolean running = true;
+
+    private ConsoleServer(ConsoleSessionHost host, InetSocketAddress address) throws IOException {
+        this.host = host;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(address);
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            serverChannel.close();
+            selector.close();
+            throw e;
+        }
+        this.selectorThread = new Thread(this::run, "carshop-console-server");
+        this.selectorThread.setDaemon(true);
+    }
+
+    /**
+     * Binds a server to the address and starts serving connections.
+     *
+     * @param host    the host running the console sessions.
+     * @param address the address to listen on; port 0 picks a free port.
+     * @return the running server.
+     * @throws IOException if the address cannot be bound.
+     */
+    public static ConsoleServer start(ConsoleSessionHost host, InetSocketAddress address) throws IOException {
+        ConsoleServer server = new ConsoleServer(host, address);
+        server.selectorThread.start();
+        return server;
+    }
+
+    /**
+     * @return the address the server listens on.
+     * @throws IOException if the server has been closed.
+     */
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    /**
+     * @return the number of open connections.
+     */
+    public int connectionCount() {
+        return connections.size();
+    }
+
+    /**
+     * Waits until the server is closed.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void awaitTermination() throws InterruptedException {
+        selectorThread.join();
+    }
+
+    /**
+     * Stops accepting connections and closes the open ones. Sessions see the end of their input.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                Connection connection;
+                while ((connection = pendingWrites.poll()) != null) {
+                    connection.updateInterest();
+                }
+                for (SelectionKey key : selector.selectedKeys()) {
+                    handle(key);
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            // The selector is unusable; fall through and release everything.
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+            closeQuietly(serverChannel);
+            closeQuietly(selector);
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isReadable()) {
+                connection.read();
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.write();
+            }
+        } catch (IOException e) {
+            connection.close();
+        }
+    }
+
+    private void accept() {
+        try {
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null) {
+                channel.configureBlocking(false);
+                Connection connection = new Connection(channel);
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                connections.add(connection);
+                host.open(connection.input, connection.output)
+                        .whenComplete((result, error) -> connection.output.finish());
+            }
+        } catch (IOException e) {
+            // A failed accept affects only that client.
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Nothing left to do.
+        }
+    }
+
+    /**
+     * One client connection with the streams of its session.
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final SessionInput input = new SessionInput();
+        private final SessionOutput output = new SessionOutput(this);
+        private SelectionKey key;
+        private ByteBuffer sending;
+
+        private Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        private void read() throws IOException {
+            readBuffer.clear();
+            int read = channel.read(readBuffer);
+            if (read < 0) {
+                input.finish();
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                return;
+            }
+            readBuffer.flip();
+            byte[] bytes = new byte[readBuffer.remaining()];
+            readBuffer.get(bytes);
+            if (!input.offer(bytes)) {
+                close();
+            }
+        }
+
+        private void write() throws IOException {
+            while (true) {
+                if (sending == null) {
+                    sending = output.poll();
+                    if (sending == null) {
+                        break;
+                    }
+                }
+                channel.write(sending);
+                if (sending.hasRemaining()) {
+                    return;
+                }
+                output.sent(sending.limit());
+                sending = null;
+            }
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            if (output.isFinished()) {
+                close();
+            }
+        }
+
+        private void updateInterest() {
+            if (key.isValid()) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            }
+        }
+
+        private void close() {
+            if (connections.remove(this)) {
+                input.finish();
+                output.abandon();
+                key.cancel();
+                closeQuietly(channel);
+            }
+        }
+    }
+
+    /**
+     * Input of a session, filled by the selector thread and read by the session thread.
+     */
+    private static final class SessionInput extends InputStream {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition readable = lock.newCondition();
+        private final Queue<byte[]> chunks = new ArrayDeque<>();
+        private int position;
+        private int pending;
+        private boolean finished;
+
+        private boolean offer(byte[] bytes) {
+            lock.lock();
+            try {
+                if (pending + bytes.length > MAX_PENDING_INPUT) {
+                    return false;
+                }
+                chunks.add(bytes);
+                pending += bytes.length;
+                readable.signal();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void finish() {
+            lock.lock();
+            try {
+                finished = true;
+                readable.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public int available() {
+            lock.lock();
+            try {
+                return pending;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            lock.lock();
+            try {
+                while (chunks.isEmpty() && !finished) {
+                    readable.await();
+                }
+                if (chunks.isEmpty()) {
+                    return -1;
+                }
+                byte[] chunk = chunks.peek();
+                int count = Math.min(length, chunk.length - position);
+                System.arraycopy(chunk, position, buffer, offset, count);
+                position += count;
+                pending -= count;
+                if (position == chunk.length) {
+                    chunks.remove();
+                    position = 0;
+                }
+                return count;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for input", e);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Output of a session, collected until flushed or a chunk is full and then handed over to the selector thread.
+     * Handing over waits while more than {@value #MAX_PENDING_OUTPUT} bytes are queued and not yet sent.
+     */
+    private final class SessionOutput extends OutputStream {
+        private final Connection connection;
+        private final Queue<ByteBuffer> flushed = new ConcurrentLinkedQueue<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition drained = lock.newCondition();
+        private byte[] buffer = new byte[256];
+        private int size;
+        private int queued;
+        private boolean abandoned;
+        private volatile boolean finished;
+
+        private SessionOutput(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public synchronized void write(int b) throws IOException {
+            ensureCapacity(1);
+            buffer[size++] = (byte) b;
+            if (size >= OUTPUT_CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        @Override
+        public synchronized void write(byte[] bytes, int offset, int length) throws IOException {
+            ensureCapacity(length);
+            System.arraycopy(bytes, offset, buffer, size, length);
+            size += length;
+            if (size >= OUTPUT_CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        /**
+         * Hands the collected output over to the selector thread, waiting for room in the queue first.
+         *
+         * @throws IOException if the connection has been closed or the session thread is interrupted.
+         */
+        @Override
+        public synchronized void flush() throws IOException {
+            if (size == 0) {
+                return;
+            }
+            ByteBuffer chunk = ByteBuffer.wrap(Arrays.copyOf(buffer, size));
+            size = 0;
+            if (buffer.length > OUTPUT_CHUNK_SIZE) {
+                buffer = new byte[OUTPUT_CHUNK_SIZE];
+            }
+            reserve(chunk.limit());
+            flushed.add(chunk);
+            requestWrite();
+        }
+
+        private void finish() {
+            try {
+                flush();
+            } catch (IOException e) {
+                // The connection is gone, so there is nobody to send the rest to.
+            }
+            finished = true;
+            requestWrite();
+        }
+
+        private boolean isFinished() {
+            return finished && flushed.isEmpty();
+        }
+
+        private ByteBuffer poll() {
+            return flushed.poll();
+        }
+
+        private void sent(int length) {
+            lock.lock();
+            try {
+                queued -= length;
+                drained.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void abandon() {
+            lock.lock();
+            try {
+                abandoned = true;
+                flushed.clear();
+                drained.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void reserve(int length) throws IOException {
+            lock.lock();
+            try {
+                while (!abandoned && queued > 0 && queued + length > MAX_PENDING_OUTPUT) {
+                    drained.await();
+                }
+                if (abandoned) {
+                    throw new IOException("Connection closed");
+                }
+                queued += length;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for the client to read", e);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void requestWrite() {
+            pendingWrites.add(connection);
+            selector.wakeup();
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.carshop.in;
+
+import org.example.carshop.service.CarShopService;
+import org.example.carshop.service.RequestService;
+import org.example.carshop.service.ReservationService;
+import org.example.carshop.service.UserService;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs many console sessions at once against one set of shared services.
+ * Every session is a {@link UserConsole} with its own input and output streams, running on a thread of its own
+ * (a virtual thread where the runtime supports it, see {@link SessionExecutors}).
+ */
+public class ConsoleSessionHost implements Closeable {
+    private final UserService userService;
+    private final CarShopService carShopService;
+    private final RequestService requestService;
+    private final ReservationService reservationService;
+    private final ExecutorService sessions = SessionExecutors.newThreadPerTaskExecutor("carshop-session-");
+    private final AtomicInteger activeSessions = new AtomicInteger();
+
+    /**
+     * Creates a host.
+     *
+     * @param userService        User service shared by all sessions.
+     * @param carShopService     Car service shared by all sessions.
+     * @param requestService     Request service shared by all sessions.
+     * @param reservationService Reservation service shared by all sessions.
+     */
+    public ConsoleSessionHost(UserService userService, CarShopService carShopService, RequestService requestService,
+                              ReservationService reservationService) {
+        this.userService = userService;
+        this.carShopService = carShopService;
+        this.requestService = requestService;
+        this.reservationService = reservationService;
+    }
+
+    /**
+     * Starts a new session.
+     * The streams stay open when the session ends; closing them is up to the caller.
+     * The session buffers its output itself and flushes it at every prompt, so the output should not be buffered.
+     *
+     * @param input  the input stream of the session.
+     * @param output the output stream of the session.
+     * @return a future completed when the user exits or the input ends.
+     */
+    public CompletableFuture<Void> open(InputStream input, OutputStream output) {
+        UserConsole console = new UserConsole(userService, carShopService, requestService, reservationService,
+                input, output);
+        activeSessions.incrementAndGet();
+        return CompletableFuture.runAsync(console::runStartCommands, sessions)
+                .whenComplete((result, error) -> activeSessions.decrementAndGet());
+    }
+
+    /**
+     * @return the number of sessions that have been started and have not ended yet.
+     */
+    public int activeSessions() {
+        return activeSessions.get();
+    }
+
+    /**
+     * Stops accepting sessions and interrupts the running ones.
+     */
+    @Override
+    public void close() {
+        sessions.shutdownNow();
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.carshop.in;
+
+import java.io.FilterInputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Input stream that flushes the console output right before a read would block waiting for the user.
+ * Output can thus stay buffered while the console is busy, and still reaches the user at every prompt.
+ * Input that is already available, such as the rest of a pasted or piped script, is read without flushing.
+ */
+class PromptFlushingInputStream extends FilterInputStream {
+    private final Flushable output;
+
+    PromptFlushingInputStream(InputStream in, Flushable output) {
+        super(in);
+        this.output = output;
+    }
+
+    @Override
+    public int read() throws IOException {
+        flushIfBlocking();
+        return super.read();
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        flushIfBlocking();
+        return super.read(buffer, offset, length);
+    }
+
+    private void flushIfBlocking() throws IOException {
+        if (in.available() == 0) {
+            try {
+                output.flush();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.carshop.in;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors running every submitted session on a thread of its own.
+ * On Java 21 and later each session gets a virtual thread, so a blocked session costs only its stack
+ * on the heap; older runtimes fall back to a cached pool of daemon platform threads.
+ * The virtual thread executor is looked up reflectively because the project is compiled for Java 17.
+ */
+public final class SessionExecutors {
+    private SessionExecutors() {
+    }
+
+    /**
+     * Creates an executor starting a new thread for every task.
+     *
+     * @param threadNamePrefix the name prefix of platform threads used when virtual threads are unavailable.
+     * @return the executor.
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String threadNamePrefix) {
+        ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+        if (virtual != null) {
+            return virtual;
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, threadNamePrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return true if the runtime supports virtual threads.
+     */
+    public static boolean virtualThreadsAvailable() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (!virtualThreadsAvailable()) {
+            return null;
+        }
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            return null;
+        }
+    }
+}
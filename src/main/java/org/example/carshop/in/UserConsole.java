@@ -1,35 +1,64 @@
 package org.example.carshop.in;
 
+import org.example.carshop.metrics.Counter;
+import org.example.carshop.metrics.Histogram;
+import org.example.carshop.metrics.MetricsRegistry;
+import org.example.carshop.model.enums.BookingResult;
 import org.example.carshop.model.enums.RequestStatus;
+import org.example.carshop.model.enums.RequestTimestamp;
 import org.example.carshop.model.enums.RequestType;
 import org.example.carshop.model.enums.UserRole;
 import org.example.carshop.model.Request;
 import org.example.carshop.model.Car;
 import org.example.carshop.model.User;
 import org.example.carshop.out.ConsoleUI;
+import org.example.carshop.out.TablePrinter;
+import org.example.carshop.repository.RequestFilter;
+import org.example.carshop.security.AuthenticatedSession;
+import org.example.carshop.service.MaintenanceScheduler;
 import org.example.carshop.service.RequestService;
 import org.example.carshop.service.CarShopService;
+import org.example.carshop.service.ReservationService;
 import org.example.carshop.service.UserService;
 
+import java.io.BufferedOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
 
 import static java.time.LocalDateTime.*;
 
 /**
  * UserConsole processes user input and manages the logic for a car store management system.
  * This class handles user registration, authorization, and navigation through various commands for users and administrators.
+ * <p>
+ * A console is one session: it keeps the current user and reads from and writes to its own streams,
+ * so any number of consoles may run concurrently against the same shared services.
  */
 public class UserConsole {
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
     private UserService userService;
     private CarShopService carShopService;
     private RequestService requestService;
-    private Scanner in = new Scanner(System.in);
+    private ReservationService reservationService;
+    private final Scanner in;
+    private final PrintStream out;
+    private final ConsoleUI ui;
+    private final TablePrinter table;
     private User currentUser;
+    private String sessionToken;
     private boolean isAuthorized = false;
 
     /**
@@ -40,16 +69,70 @@ public class UserConsole {
      * @param requestService Request service instance for managing request-related operations.
      */
     public UserConsole(UserService userService, CarShopService carShopService, RequestService requestService) {
+        this(userService, carShopService, requestService, new ReservationService(carShopService, requestService));
+    }
+
+    /**
+     * Constructs a UserConsole object with the necessary services.
+     *
+     * @param userService        User service instance for managing user-related operations.
+     * @param carShopService     Car service instance for managing car-related operations.
+     * @param requestService     Request service instance for managing request-related operations.
+     * @param reservationService Reservation service instance for ordering cars.
+     */
+    public UserConsole(UserService userService, CarShopService carShopService, RequestService requestService,
+                       ReservationService reservationService) {
+        this(userService, carShopService, requestService, reservationService,
+                System.in, Charset.defaultCharset(), System.out, stdoutCharset());
+    }
+
+    /**
+     * Constructs a UserConsole object for a session with its own input and output, both in UTF-8.
+     *
+     * @param userService        User service instance for managing user-related operations.
+     * @param carShopService     Car service instance for managing car-related operations.
+     * @param requestService     Request service instance for managing request-related operations.
+     * @param reservationService Reservation service instance for ordering cars.
+     * @param input              the input stream of the session.
+     * @param output             the output stream of the session.
+     */
+    public UserConsole(UserService userService, CarShopService carShopService, RequestService requestService,
+                       ReservationService reservationService, InputStream input, OutputStream output) {
+        this(userService, carShopService, requestService, reservationService,
+                input, StandardCharsets.UTF_8, output, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Output is collected in a large buffer and written out in bulk: whenever the buffer fills up,
+     * before the console waits for input, and when the console exits.
+     */
+    private UserConsole(UserService userService, CarShopService carShopService, RequestService requestService,
+                        ReservationService reservationService, InputStream input, Charset inputCharset,
+                        OutputStream output, Charset outputCharset) {
+        this.out = new PrintStream(new BufferedOutputStream(output, OUTPUT_BUFFER_SIZE), false, outputCharset);
+        this.in = new Scanner(new PromptFlushingInputStream(input, out), inputCharset);
+        this.ui = new ConsoleUI(out);
+        this.table = new TablePrinter(out);
         this.userService = userService;
         this.carShopService = carShopService;
         this.requestService = requestService;
+        this.reservationService = reservationService;
     }
 
     /**
      * Runs the initial commands loop of the console application.
      * Handles user registration, authorization, and main menu navigation based on user roles.
+     * Returns when the user exits or the input of the session ends.
      */
     public void runStartCommands() {
+        try {
+            runStartLoop();
+        } finally {
+            out.flush();
+        }
+    }
+
+    private void runStartLoop() {
         while (true) {
             try {
 
@@ -61,7 +144,7 @@ public class UserConsole {
                     }
                 }
 
-                ConsoleUI.printStartCommands();
+                ui.printStartCommands();
 
                 int command = in.nextInt();
                 in.nextLine();
@@ -73,14 +156,18 @@ public class UserConsole {
                         in.close();
                         return;
                     }
-                    default -> System.out.println("Неверная команда");
+                    default -> out.println("Неверная команда");
                 }
 
             } catch (InputMismatchException inputMismatchException) {
-                System.out.println("Неверный формат ввода команды. Введите корректные данные");
+                out.println("Неверный формат ввода команды. Введите корректные данные");
                 in.next();
+            } catch (NoSuchElementException endOfInput) {
+                userService.logout(sessionToken);
+                in.close();
+                return;
             } catch (DateTimeParseException dateTimeParseException) {
-                System.out.println("Некорректный формат ввода данных бронирования. Введите корректные данные");
+                out.println("Некорректный формат ввода данных бронирования. Введите корректные данные");
             }
         }
     }
@@ -90,35 +177,40 @@ public class UserConsole {
      * Prompts the user for username, password, and role selection to create a new user account.
      */
     private void registration() {
-        System.out.print("Введите имя пользователя: ");
+        out.print("Введите имя пользователя: ");
         String username = in.nextLine();
         User user = userService.findUserByName(username);
 
         if (user != null) {
-            System.out.println("Пользователь с таким username уже существует!");
+            out.println("Пользователь с таким username уже существует!");
             return;
         }
 
-        System.out.print("Введите пароль: ");
+        out.print("Введите пароль: ");
         String password = in.nextLine();
 
-        System.out.print("Введите ФИО: ");
+        out.print("Введите ФИО: ");
         String fullName = in.nextLine();
 
-        ConsoleUI.printUserRoles();
+        ui.printUserRoles();
         int userRole = in.nextInt();
         in.nextLine();
 
+        boolean registered;
         switch (userRole) {
-            case 1 -> userService.register(new User(username, password, fullName, UserRole.CLIENT));
-            case 2 -> userService.register(new User(username, password, fullName, UserRole.ADMIN));
-            case 3 -> userService.register(new User(username, password, fullName, UserRole.MANAGER));
+            case 1 -> registered = userService.registerIfAbsent(new User(username, password, fullName, UserRole.CLIENT));
+            case 2 -> registered = userService.registerIfAbsent(new User(username, password, fullName, UserRole.ADMIN));
+            case 3 -> registered = userService.registerIfAbsent(new User(username, password, fullName, UserRole.MANAGER));
             default -> {
-                System.out.println("Введена неверная комманда!");
+                out.println("Введена неверная комманда!");
                 return;
             }
         }
-        System.out.println("Регистрация прошла успешна!");
+        if (!registered) {
+            out.println("Пользователь с таким username уже существует!");
+            return;
+        }
+        out.println("Регистрация прошла успешна!");
     }
 
     /**
@@ -126,24 +218,25 @@ public class UserConsole {
      * Prompts the user for username and password to authenticate and log in to the system.
      */
     private void authorization() {
-        System.out.print("Введите имя пользователя: ");
+        out.print("Введите имя пользователя: ");
         String username = in.nextLine();
-        System.out.print("Введите пароль: ");
+        out.print("Введите пароль: ");
         String password = in.nextLine();
 
-        User user = new User(username, password);
-        if (userService.findUserByName(username) == null) {
-            System.out.println("Пользователя с таким именем не существует!");
+        AuthenticatedSession session;
+        try {
+            session = userService.authenticate(username, password);
+        } catch (RejectedExecutionException e) {
+            out.println("Сервер перегружен, повторите попытку позже.");
             return;
         }
-
-        boolean success = userService.login(user);
-        if (success) {
-            System.out.println("Авторизация прошла успешно.");
-            currentUser = userService.findUserByName(username);
+        if (session != null) {
+            out.println("Авторизация прошла успешно.");
+            currentUser = session.user();
+            sessionToken = session.token();
             isAuthorized = true;
         } else {
-            System.out.println("Неверное имя пользователя или пароль.");
+            out.println("Неверное имя пользователя или пароль.");
         }
     }
 
@@ -153,7 +246,7 @@ public class UserConsole {
     public void runCarShopAdminCommands() {
         while (isAuthorized) {
 
-            ConsoleUI.printCarShopAdminCommands();
+            ui.printCarShopAdminCommands();
 
             int command = in.nextInt();
             in.nextLine();
@@ -161,12 +254,15 @@ public class UserConsole {
                 case 1 -> runCarCommands();
                 case 2 -> runRequestCommands();
                 case 3 -> runUsersCommands();
-                case 4 -> {
+                case 4 -> printMetrics();
+                case 5 -> {
                     isAuthorized = false;
                     currentUser = null;
+                    userService.logout(sessionToken);
+                    sessionToken = null;
                     return;
                 }
-                default -> System.out.println("Неверная команда");
+                default -> out.println("Неверная команда");
             }
         }
     }
@@ -179,40 +275,97 @@ public class UserConsole {
     public void runCarShopClientCommands() {
         while (isAuthorized) {
 
-            ConsoleUI.printCarShopClientCommands();
+            ui.printCarShopClientCommands();
 
             int command = in.nextInt();
             in.nextLine();
 
             switch (command) {
-                case 1 -> printCollection(carShopService.searchCars(null, null, null, true));
-                case 2 -> printCollection(requestService.filterRequestsByUserAndType(currentUser, null));
+                case 1 -> printStream(carShopService.streamCars(null, null, null, true));
+                case 2 -> printStream(requestService.streamRequests(RequestFilter.byUser(currentUser.getUsername(), null)));
                 case 3 -> {
-                    System.out.print("Введите ID автомобиля: ");
+                    out.print("Введите ID автомобиля: ");
                     int carId = in.nextInt();
                     in.nextLine();
-                    Car car = carShopService.findCarById(carId);
-                    if (car != null && !car.isAvailable()) {
-                        System.out.println("Автомобиль не доступен к заказу");
-                        continue;
-                    } else if (car == null) {
-                        System.out.println("Автомобиль с таким ID не существует");
-                        continue;
-                    }
-                    requestService.addRequest(new Request(currentUser, carId, now(), null, RequestType.ORDER, RequestStatus.NEW));
-                    car.setAvailable(false);
-                    System.out.print("Заказ успешно добавлен!");
+                    placeOrder(carId);
                 }
                 case 4 -> {
+                    out.print("Введите ID автомобиля: ");
+                    int carId = in.nextInt();
+                    in.nextLine();
+                    LocalDateTime[] window = RequestDateTimeInput();
+                    if (window != null) {
+                        bookMaintenance(carId, window[0], window[1]);
+                    }
+                }
+                case 5 -> {
                     isAuthorized = false;
                     currentUser = null;
+                    userService.logout(sessionToken);
+                    sessionToken = null;
                 }
-                default -> System.out.println("Неверная команда");
+                default -> out.println("Неверная команда");
             }
 
         }
     }
 
+    /**
+     * Books a maintenance window of a car on behalf of the current user.
+     * If the car or every service bay is busy, the earliest free window of the same length is suggested.
+     *
+     * @param carId the ID of the car.
+     * @param start the start of the window.
+     * @param end   the end of the window.
+     */
+    private void bookMaintenance(int carId, LocalDateTime start, LocalDateTime end) {
+        BookingResult result = reservationService.bookMaintenance(currentUser, carId, start, end);
+        switch (result) {
+            case BOOKED -> out.println("Заявка на обслуживание успешно добавлена!");
+            case CAR_NOT_FOUND -> out.println("Автомобиль с таким ID не существует");
+            case INVALID_WINDOW -> out.println("Дата конца бронирования должна идти позже начала!");
+            case CAR_BUSY, NO_FREE_BAY -> {
+                out.println(result == BookingResult.CAR_BUSY
+                        ? "Автомобиль уже записан на обслуживание в это время"
+                        : "Все боксы обслуживания заняты в это время");
+                LocalDateTime next = reservationService.findNextFreeMaintenanceSlot(carId, start,
+                        Duration.between(start, end));
+                out.println("Ближайшее свободное время: "
+                        + next.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
+            }
+        }
+    }
+
+    /**
+     * Moves a maintenance request to the car and window of the edited request and reports the outcome.
+     *
+     * @param request the edited request.
+     */
+    private void rescheduleMaintenance(Request request) {
+        BookingResult result = reservationService.rescheduleMaintenance(request);
+        switch (result) {
+            case BOOKED -> out.println("Заявка на обслуживание успешно изменена!");
+            case CAR_NOT_FOUND -> out.println("Автомобиль с таким ID не существует");
+            case INVALID_WINDOW -> out.println("Дата конца бронирования должна идти позже начала!");
+            case CAR_BUSY -> out.println("Автомобиль уже записан на обслуживание в это время");
+            case NO_FREE_BAY -> out.println("Все боксы обслуживания заняты в это время");
+        }
+    }
+
+    /**
+     * Places an order for a car on behalf of the current user.
+     * Reserving the car and creating the order request happen as one atomic operation.
+     *
+     * @param carId the ID of the car to order.
+     */
+    private void placeOrder(int carId) {
+        switch (reservationService.reserveCar(currentUser, carId)) {
+            case RESERVED -> out.println("Заказ успешно добавлен!");
+            case CAR_NOT_FOUND -> out.println("Автомобиль с таким ID не существует");
+            case CAR_NOT_AVAILABLE -> out.println("Автомобиль не доступен к заказу");
+        }
+    }
+
     /**
      * Runs the commands loop for Manager operations.
      * Provides options for searching cars, requests management, viewing users info.
@@ -220,32 +373,35 @@ public class UserConsole {
     public void runCarShopManagerCommands() {
         while (isAuthorized) {
 
-            ConsoleUI.printCarShopManagerCommands();
+            ui.printCarShopManagerCommands();
 
             int command = in.nextInt();
             in.nextLine();
 
             switch (command) {
                 case 1 -> {
-                    System.out.print("Введите название модели: ");
+                    out.print("Введите название модели: ");
                     String modelName = in.nextLine();
 
-                    System.out.print("Введите название производителя: ");
+                    out.print("Введите название производителя: ");
                     String brandName = in.nextLine();
 
-                    System.out.print("Введите год производства: ");
+                    out.print("Введите год производства: ");
                     String prodYear = in.nextLine();
 
-                    printCollection(carShopService.searchCars(brandName, modelName, prodYear, null));
+                    printStream(carShopService.streamCars(brandName, modelName, prodYear, null));
 
                 }
                 case 2 -> runRequestCommands();
                 case 3 -> runUsersCommands();
-                case 4 -> {
+                case 4 -> printDashboard();
+                case 5 -> {
                     isAuthorized = false;
                     currentUser = null;
+                    userService.logout(sessionToken);
+                    sessionToken = null;
                 }
-                default -> System.out.println("Неверная команда");
+                default -> out.println("Неверная команда");
             }
 
         }
@@ -257,63 +413,63 @@ public class UserConsole {
      */
     public void runCarCommands() {
         while (true) {
-            ConsoleUI.printCarCommands();
+            ui.printCarCommands();
 
             int command = in.nextInt();
             in.nextLine();
 
             switch (command) {
                 case 1 -> {
-                    System.out.println("Добавление автомобиля");
-                    System.out.print("Введите идентификатор:");
+                    out.println("Добавление автомобиля");
+                    out.print("Введите идентификатор:");
                     int id = in.nextInt();
                     in.nextLine();
                     Car car = carShopService.findCarById(id);
 
                     if (car != null) {
-                        System.out.println("Автомобиль с таким ID уже существует!");
+                        out.println("Автомобиль с таким ID уже существует!");
                         continue;
                     }
 
-                    System.out.print("Введите название модели: ");
+                    out.print("Введите название модели: ");
                     String modelName = in.nextLine();
 
-                    System.out.print("Введите название производителя: ");
+                    out.print("Введите название производителя: ");
                     String brandName = in.nextLine();
 
-                    System.out.print("Введите год производства: ");
+                    out.print("Введите год производства: ");
                     String prodYear = in.nextLine();
 
-                    System.out.print("Введите описание текущего состояния: ");
+                    out.print("Введите описание текущего состояния: ");
                     String stateDesc = in.nextLine();
 
                     carShopService.addCar(new Car(id, modelName, brandName, prodYear, stateDesc, true));
                 }
                 case 2 -> {
-                    System.out.println("Изменение данных об автомобиле");
-                    System.out.print("Введите идентификатор: ");
+                    out.println("Изменение данных об автомобиле");
+                    out.print("Введите идентификатор: ");
                     int id = in.nextInt();
                     in.nextLine();
                     Car car = carShopService.findCarById(id);
 
                     if (car == null) {
-                        System.out.println("Автомобиль с таким ID не существует!");
+                        out.println("Автомобиль с таким ID не существует!");
                         continue;
                     }
 
-                    System.out.print("Введите название модели: ");
+                    out.print("Введите название модели: ");
                     String modelName = in.nextLine();
 
-                    System.out.print("Введите название производителя: ");
+                    out.print("Введите название производителя: ");
                     String brandName = in.nextLine();
 
-                    System.out.print("Введите год производства: ");
+                    out.print("Введите год производства: ");
                     String prodYear = in.nextLine();
 
-                    System.out.print("Введите описание текущего состояния: ");
+                    out.print("Введите описание текущего состояния: ");
                     String stateDesc = in.nextLine();
 
-                    ConsoleUI.printAvailabilityCommands();
+                    ui.printAvailabilityCommands();
                     int availableChoice = in.nextInt();
                     in.nextLine();
 
@@ -322,7 +478,7 @@ public class UserConsole {
                         case 1 -> isAvailable = false;
                         case 2 -> isAvailable = true;
                         default -> {
-                            System.out.println("Произошла ошибка");
+                            out.println("Произошла ошибка");
                             continue;
                         }
                     }
@@ -331,26 +487,26 @@ public class UserConsole {
                     carShopService.updateCar(updatedCar);
                 }
                 case 3 -> {
-                    System.out.println("Удаление автомобиля");
-                    System.out.print("Введите идентификатор: ");
+                    out.println("Удаление автомобиля");
+                    out.print("Введите идентификатор: ");
                     int id = in.nextInt();
                     in.nextLine();
 
                     Car car = carShopService.findCarById(id);
 
                     if (car != null) {
-                        System.out.println("Автомобиль с таким ID не существует!");
+                        out.println("Автомобиль с таким ID не существует!");
                         continue;
                     }
 
                     carShopService.deleteCar(id);
                 }
-                case 4 -> printCollection(carShopService.getAllCars());
+                case 4 -> printStream(carShopService.streamCars(null, null, null, null));
                 case 5 -> {
                     return;
                 }
 
-                default -> System.out.println("Неверная команда");
+                default -> out.println("Неверная команда");
             }
         }
     }
@@ -361,19 +517,19 @@ public class UserConsole {
      */
     public void runUsersCommands() {
         while (true) {
-            ConsoleUI.printUsersCommands();
+            ui.printUsersCommands();
 
             int command = in.nextInt();
             in.nextLine();
 
             switch (command) {
-                case 1 -> printCollection(userService.searchUsers(null, List.of(UserRole.CLIENT)));
-                case 2 -> printCollection(userService.searchUsers(null, Arrays.asList(UserRole.MANAGER, UserRole.ADMIN)));
+                case 1 -> printStream(userService.streamUsers(null, List.of(UserRole.CLIENT)));
+                case 2 -> printStream(userService.streamUsers(null, Arrays.asList(UserRole.MANAGER, UserRole.ADMIN)));
                 case 3 -> {
-                    System.out.print("Введите имя пользователя: ");
+                    out.print("Введите имя пользователя: ");
                     String userName = in.nextLine();
 
-                    ConsoleUI.printUserRoles();
+                    ui.printUserRoles();
                     UserRole userRole = UserRole.CLIENT;
                     int requestTypeIn = in.nextInt();
                     in.nextLine();
@@ -382,27 +538,27 @@ public class UserConsole {
                         }
                         case 2 -> userRole = UserRole.ADMIN;
                         case 3 -> userRole = UserRole.MANAGER;
-                        default -> System.out.println("Введена несуществующая команда!");
+                        default -> out.println("Введена несуществующая команда!");
                     }
-                    printCollection(userService.searchUsers(userName,List.of(userRole)));
+                    printStream(userService.streamUsers(userName, List.of(userRole)));
                 }
                 case 4 -> registration();
                 case 5 ->{
-                    System.out.print("Введите username пользователя: ");
+                    out.print("Введите username пользователя: ");
                     String username = in.nextLine();
                     User user = userService.findUserByName(username);
                     if (user == null) {
-                        System.out.println("Пользователя с таким именем не существует!");
+                        out.println("Пользователя с таким именем не существует!");
                         continue;
                     }
 
-                    System.out.print("Введите новое ФИО пользователя: ");
+                    out.print("Введите новое ФИО пользователя: ");
                     String fullName = in.nextLine();
 
-                    System.out.print("Введите новый пароль пользователя: ");
+                    out.print("Введите новый пароль пользователя: ");
                     String password = in.nextLine();
 
-                    ConsoleUI.printUserRoles();
+                    ui.printUserRoles();
                     UserRole userRole = UserRole.CLIENT;
                     int requestTypeIn = in.nextInt();
                     in.nextLine();
@@ -410,14 +566,24 @@ public class UserConsole {
                         case 1 -> {}
                         case 2 -> userRole = UserRole.ADMIN;
                         case 3 -> userRole = UserRole.MANAGER;
-                        default -> System.out.println("Введена несуществующая команда!");
+                        default -> out.println("Введена несуществующая команда!");
                     }
 
                     User updatedUser = new User(username, password, fullName, userRole);
                     userService.updateUser(updatedUser);
                 }
-                case 6 -> {return;}
-                default -> System.out.println("Неверная команда");
+                case 6 -> {
+                    out.print("Введите начало username: ");
+                    String prefix = in.nextLine();
+                    printCollection(userService.searchUsersByUsernamePrefix(prefix, null));
+                }
+                case 7 -> {
+                    out.print("Введите часть ФИО: ");
+                    String fullName = in.nextLine();
+                    printCollection(userService.searchUsersByFullName(fullName, null));
+                }
+                case 8 -> {return;}
+                default -> out.println("Неверная команда");
             }
         }
     }
@@ -431,28 +597,28 @@ public class UserConsole {
         DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
         DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
 
-        System.out.println("Введите значение даты создания заказа (в формате YYYY-MM-DD):");
+        out.println("Введите значение даты создания заказа (в формате YYYY-MM-DD):");
         String startDate = in.nextLine();
         LocalDate startLocalDate = LocalDate.parse(startDate, dateFormatter);
 
-        System.out.println("Введите значение времени создания заказа (в формате HH:MM):");
+        out.println("Введите значение времени создания заказа (в формате HH:MM):");
         String startTime = in.nextLine();
         LocalTime startLocalTime = LocalTime.parse(startTime, timeFormatter);
 
         LocalDateTime startDateTime = of(startLocalDate, startLocalTime);
 
-        System.out.println("Введите значение даты выполнения заказа (в формате YYYY-MM-DD):");
+        out.println("Введите значение даты выполнения заказа (в формате YYYY-MM-DD):");
         String endDate = in.nextLine();
         LocalDate endLocalDate = LocalDate.parse(endDate, dateFormatter);
 
-        System.out.println("Введите значение времени выполнения заказа (в формате HH:MM):");
+        out.println("Введите значение времени выполнения заказа (в формате HH:MM):");
         String endTime = in.nextLine();
         LocalTime endLocalTime = LocalTime.parse(endTime, timeFormatter);
 
         LocalDateTime endDateTime = of(endLocalDate, endLocalTime);
 
         if (startDateTime.isAfter(endDateTime)) {
-            System.out.println("Дата конца бронирования не может идти раньше начала!");
+            out.println("Дата конца бронирования не может идти раньше начала!");
             return null;
         }
         return new LocalDateTime[]{startDateTime, endDateTime};
@@ -464,15 +630,15 @@ public class UserConsole {
      */
     public void runRequestCommands() {
         while (true) {
-            ConsoleUI.printRequestCommands();
+            ui.printRequestCommands();
 
             int command = in.nextInt();
             in.nextLine();
 
             switch (command) {
-                case 1 -> printCollection(requestService.getAllRequests());
+                case 1 -> printStream(requestService.streamRequests(RequestFilter.all()));
                 case 2 -> {
-                    ConsoleUI.printRequestTypes();
+                    ui.printRequestTypes();
                     RequestType requestType = RequestType.ORDER;
                     int requestTypeIn = in.nextInt();
                     in.nextLine();
@@ -481,34 +647,34 @@ public class UserConsole {
                         case 1 -> {
                         }
                         case 2 -> requestType = RequestType.MAINTENANCE;
-                        default -> System.out.println("Введена несуществующая команда!");
+                        default -> out.println("Введена несуществующая команда!");
                     }
 
-                    ConsoleUI.printRequestFilterCommands();
+                    ui.printRequestFilterCommands();
                     int filterKindIn = in.nextInt();
                     in.nextLine();
 
                     switch (filterKindIn) {
                         case 1 -> {
                             DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-                            System.out.println("Введите дату для фильтрации заказов (в формате YYYY-MM-DD):");
+                            out.println("Введите дату для фильтрации заказов (в формате YYYY-MM-DD):");
                             String startDate = in.nextLine();
                             LocalDate startLocalDate = LocalDate.parse(startDate, dateFormatter);
-                            printCollection(requestService.filterRequestsByDateAndType(startLocalDate, requestType));
+                            printStream(requestService.streamRequests(RequestFilter.byDate(startLocalDate, requestType)));
                         }
                         case 2 -> {
-                            System.out.print("Введите имя пользователя для фильтрации заказов: ");
+                            out.print("Введите имя пользователя для фильтрации заказов: ");
                             String username = in.nextLine();
                             User filterUser = userService.findUserByName(username);
                             if (filterUser != null) {
-                                printCollection(requestService.filterRequestsByUserAndType(filterUser, requestType));
+                                printStream(requestService.streamRequests(RequestFilter.byUser(filterUser.getUsername(), requestType)));
                             } else {
-                                System.out.println("Пользователь с таким username не найден!");
+                                out.println("Пользователь с таким username не найден!");
                             }
                         }
                         case 3 -> {
-                            System.out.print("Выберите статус для фильтрации заказов: ");
-                            ConsoleUI.printRequestStatuses();
+                            out.print("Выберите статус для фильтрации заказов: ");
+                            ui.printRequestStatuses();
                             RequestStatus requestStatus = RequestStatus.NEW;
                             int requestStatusIn = in.nextInt();
                             in.nextLine();
@@ -517,45 +683,54 @@ public class UserConsole {
                                 case 2 -> requestStatus = RequestStatus.PENDING;
                                 case 3 -> requestStatus = RequestStatus.IN_PROGRESS;
                                 case 4 -> requestStatus = RequestStatus.COMPLETED;
-                                default -> System.out.println("Введена несуществующая команда!");
+                                default -> out.println("Введена несуществующая команда!");
                             }
-                            printCollection(requestService.filterRequestsByRequestStatusAndType(requestStatus, requestType));
+                            printStream(requestService.streamRequests(RequestFilter.byStatus(requestStatus, requestType)));
                         }
                         case 4 -> {
-                            System.out.print("Введите идентификатор автомобиля для фильтрации заказов: ");
+                            out.print("Введите идентификатор автомобиля для фильтрации заказов: ");
                             int carId = in.nextInt();
                             in.nextLine();
                             Car car = carShopService.findCarById(carId);
                             if (car != null) {
-                                printCollection(requestService.filterRequestsByCarAndType(carId, requestType));
+                                printStream(requestService.streamRequests(RequestFilter.byCar(carId, requestType)));
                             } else {
-                                System.out.println("Автомобиль с таким ID не найден!");
+                                out.println("Автомобиль с таким ID не найден!");
                             }
                         }
                         case 5 -> {
+                            DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+                            out.println("Введите первую дату периода (в формате YYYY-MM-DD):");
+                            LocalDate fromDate = LocalDate.parse(in.nextLine(), dateFormatter);
+                            out.println("Введите последнюю дату периода (в формате YYYY-MM-DD):");
+                            LocalDate toDate = LocalDate.parse(in.nextLine(), dateFormatter);
+                            ui.printRequestTimestamps();
+                            RequestTimestamp timestamp = null;
+                            int timestampIn = in.nextInt();
+                            in.nextLine();
+                            switch (timestampIn) {
+                                case 1 -> timestamp = RequestTimestamp.CREATION;
+                                case 2 -> timestamp = RequestTimestamp.COMPLETION;
+                                case 3 -> {}
+                                default -> out.println("Введена несуществующая команда!");
+                            }
+                            printStream(requestService.streamRequests(
+                                    RequestFilter.byDateRange(fromDate, toDate, timestamp, requestType)));
+                        }
+                        case 6 -> {
                             return;
                         }
-                        default -> System.out.println("Введена несуществующая команда!");
+                        default -> out.println("Введена несуществующая команда!");
                     }
                 }
                 case 3 -> {
-                    System.out.print("Введите ID автомобиля: ");
+                    out.print("Введите ID автомобиля: ");
                     int carId = in.nextInt();
                     in.nextLine();
-                    Car car = carShopService.findCarById(carId);
-                    if (car != null && !car.isAvailable()) {
-                        System.out.println("Автомобиль не доступен к заказу");
-                        continue;
-                    } else if (car == null) {
-                        System.out.println("Автомобиль с таким ID не существует");
-                        continue;
-                    }
-                    requestService.addRequest(new Request(currentUser, carId, now(), null, RequestType.ORDER, RequestStatus.NEW));
-                    car.setAvailable(false);
-                    System.out.print("Заказ успешно добавлен!");
+                    placeOrder(carId);
                 }
                 case 4 -> {
-                    System.out.print("Введите идентификатор: ");
+                    out.print("Введите идентификатор: ");
                     int id = in.nextInt();
                     in.nextLine();
                     Request foundRequest = requestService.findRequestById(id);
@@ -563,18 +738,18 @@ public class UserConsole {
                     if (foundRequest != null) {
                         requestService.deleteRequest(id);
                     } else {
-                        System.out.println("Заказ с таким ID не существует!");
+                        out.println("Заказ с таким ID не существует!");
                     }
                 }
                 case 5 -> {
-                    System.out.print("Введите идентификатор: ");
+                    out.print("Введите идентификатор: ");
                     int id = in.nextInt();
                     in.nextLine();
                     Request foundRequest = requestService.findRequestById(id);
 
                     if (foundRequest != null) {
-                        System.out.print("Выберите статус: ");
-                        ConsoleUI.printRequestStatuses();
+                        out.print("Выберите статус: ");
+                        ui.printRequestStatuses();
                         RequestStatus requestStatus = RequestStatus.NEW;
                         int requestStatusIn = in.nextInt();
                         in.nextLine();
@@ -583,74 +758,147 @@ public class UserConsole {
                             case 2 -> requestStatus = RequestStatus.PENDING;
                             case 3 -> requestStatus = RequestStatus.IN_PROGRESS;
                             case 4 -> requestStatus = RequestStatus.COMPLETED;
-                            default -> System.out.println("Введена несуществующая команда!");
+                            default -> out.println("Введена несуществующая команда!");
                         }
-                        foundRequest.changeStatus(requestStatus);
+                        changeRequestStatus(foundRequest, requestStatus);
                     } else {
-                        System.out.println("Заказ с таким ID не существует!");
+                        out.println("Заказ с таким ID не существует!");
                     }
                 }
                 case 6 -> {
-                    System.out.print("Введите идентификатор: ");
+                    out.print("Введите идентификатор: ");
                     int id = in.nextInt();
                     in.nextLine();
                     Request foundRequest = requestService.findRequestById(id);
                     if (foundRequest == null) {
-                        System.out.println("Заказа с таким ID не существует!");
+                        out.println("Заказа с таким ID не существует!");
                         continue;
                     }
 
-                    System.out.print("Введите username пользователя: ");
+                    out.print("Введите username пользователя: ");
                     String username = in.nextLine();
                     User user = userService.findUserByName(username);
                     if (user == null) {
-                        System.out.println("Пользователя с таким именем не существует!");
+                        out.println("Пользователя с таким именем не существует!");
                         continue;
                     }
 
-                    System.out.print("Введите ID автомобиля: ");
+                    out.print("Введите ID автомобиля: ");
                     int carId = in.nextInt();
                     in.nextLine();
                     Car car = carShopService.findCarById(carId);
                     if (car == null) {
-                        System.out.println("Автомобиль с таким ID не существует");
+                        out.println("Автомобиль с таким ID не существует");
                         continue;
                     }
 
                     LocalDateTime[] requestDateTimes = RequestDateTimeInput();
+                    if (requestDateTimes == null) {
+                        continue;
+                    }
 
-                    ConsoleUI.printRequestTypes();
+                    ui.printRequestTypes();
                     RequestType requestType = RequestType.ORDER;
                     int requestTypeIn = in.nextInt();
                     in.nextLine();
                     switch (requestTypeIn) {
                         case 1 -> {}
                         case 2 -> requestType = RequestType.MAINTENANCE;
-                        default -> System.out.println("Введена несуществующая команда!");
+                        default -> out.println("Введена несуществующая команда!");
                     }
 
-                    System.out.print("Выберите статус: ");
-                    ConsoleUI.printRequestStatuses();
-                    RequestStatus requestStatus = RequestStatus.NEW;
-                    int requestStatusIn = in.nextInt();
+                    Request updatedRequest = new Request(user, carId, requestDateTimes[0], requestDateTimes[1], requestType, foundRequest.getRequestStatus());
+                    updatedRequest.setId(id);
+                    updatedRequest.setRequestStatus(foundRequest.getRequestStatus());
+                    if (MaintenanceScheduler.occupiesWindow(updatedRequest)) {
+                        rescheduleMaintenance(updatedRequest);
+                    } else {
+                        requestService.updateRequest(updatedRequest);
+                    }
+                }
+                case 7 -> {
+                    ui.printRequestTypes();
+                    RequestType requestType = RequestType.ORDER;
+                    int requestTypeIn = in.nextInt();
                     in.nextLine();
-
-                    switch (requestStatusIn) {
+                    switch (requestTypeIn) {
                         case 1 -> {}
-                        case 2 -> requestStatus = RequestStatus.PENDING;
-                        case 3 -> requestStatus = RequestStatus.IN_PROGRESS;
-                        case 4 -> requestStatus = RequestStatus.COMPLETED;
-                        default -> System.out.println("Введена несуществующая команда!");
+                        case 2 -> requestType = RequestType.MAINTENANCE;
+                        default -> out.println("Введена несуществующая команда!");
+                    }
+                    Request claimed = requestService.claimNextRequest(requestType, RequestStatus.PENDING);
+                    if (claimed != null) {
+                        out.println("Заказ взят в работу:");
+                        printCollection(List.of(claimed));
+                    } else {
+                        out.println("Нет заказов в ожидании");
                     }
-                    requestService.addRequest(new Request(user, carId, requestDateTimes[0], requestDateTimes[1], requestType, requestStatus));
                 }
-                case 7 -> {
+                case 8 -> {
                     isAuthorized = false;
                     currentUser = null;
+                    userService.logout(sessionToken);
+                    sessionToken = null;
                     return;
                 }
-                default -> System.out.println("Неверная команда");
+                default -> out.println("Неверная команда");
+            }
+        }
+    }
+
+    /**
+     * Moves the request to the status if the lifecycle allows it and reports the outcome.
+     *
+     * @param request       the request as it was found.
+     * @param requestStatus the status to move the request to.
+     */
+    private void changeRequestStatus(Request request, RequestStatus requestStatus) {
+        switch (requestService.changeRequestStatus(request.getId(), requestStatus)) {
+            case CHANGED -> out.println("Статус заказа изменен");
+            case REQUEST_NOT_FOUND -> out.println("Заказ с таким ID не существует!");
+            case ILLEGAL_TRANSITION -> out.println("Заказ в статусе " + request.getRequestStatus()
+                    + " можно перевести только в следующий статус: "
+                    + (request.getRequestStatus().next() == null ? "нет" : request.getRequestStatus().next()));
+        }
+    }
+
+    /**
+     * Prints the numbers of requests by type and status, of available cars by brand and of requests
+     * created in the last week. The numbers are kept by the repositories, so nothing is looked up.
+     */
+    private void printDashboard() {
+        out.println("Заявки по статусам:");
+        for (RequestType requestType : RequestType.values()) {
+            out.print("  " + requestType + ":");
+            for (RequestStatus requestStatus : RequestStatus.values()) {
+                out.print(" " + requestStatus + "=" + requestService.countRequests(requestType, requestStatus));
             }
+            out.println();
+        }
+        out.println("Доступные автомобили по маркам:");
+        carShopService.countAvailableCarsByBrand().forEach((brand, count) ->
+                out.println("  " + (brand.isEmpty() ? "-" : brand) + ": " + count));
+        out.println("Заявки по дням создания за неделю:");
+        LocalDate today = LocalDate.now();
+        requestService.countRequestsByCreationDay(today.minusDays(6), today).forEach((date, count) ->
+                out.println("  " + date + ": " + count));
+    }
+
+    /**
+     * Prints the number of calls and the p50, p99, p999 and largest values of every histogram of the shared
+     * metrics registry, latencies in microseconds, followed by the counters.
+     */
+    private void printMetrics() {
+        out.printf("%-44s %10s %10s %10s %10s %10s%n", "Метрика", "Кол-во", "p50", "p99", "p999", "max");
+        for (Histogram histogram : MetricsRegistry.shared().histograms()) {
+            double scale = histogram.isLatency() ? 1e3 : 1;
+            out.printf("%-44s %10d %10.1f %10.1f %10.1f %10.1f%n",
+                    histogram.name() + (histogram.isLatency() ? ", мкс" : ""), histogram.count(),
+                    histogram.valueAtQuantile(0.5) / scale, histogram.valueAtQuantile(0.99) / scale,
+                    histogram.valueAtQuantile(0.999) / scale, histogram.max() / scale);
+        }
+        for (Counter counter : MetricsRegistry.shared().counters()) {
+            out.printf("%-44s %10d%n", counter.name(), counter.count());
         }
     }
 
@@ -660,8 +908,25 @@ public class UserConsole {
      * @param collection The Collection containing elements to print.
      */
     public void printCollection(Collection<?> collection) {
-        for (Object object : collection) {
-            System.out.println(object);
+        table.print(collection.iterator());
+    }
+
+    /**
+     * Prints the elements of a stream to the console as they are produced,
+     * so a lazily loaded result is never held in memory as a whole.
+     *
+     * @param stream The Stream of elements to print.
+     */
+    public void printStream(Stream<?> stream) {
+        table.print(stream.iterator());
+    }
+
+    private static Charset stdoutCharset() {
+        String encoding = System.getProperty("stdout.encoding", System.getProperty("sun.stdout.encoding"));
+        try {
+            return encoding == null ? Charset.defaultCharset() : Charset.forName(encoding);
+        } catch (IllegalArgumentException e) {
+            return Charset.defaultCharset();
         }
     }
 }
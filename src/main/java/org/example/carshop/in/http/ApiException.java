@@ -0,0 +1,19 @@
+package org.example.carshop.in.http;
+
+/**
+ * Failure of an API call that is reported to the client with the given HTTP status.
+ */
+class ApiException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+
+    ApiException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    int getStatus() {
+        return status;
+    }
+}
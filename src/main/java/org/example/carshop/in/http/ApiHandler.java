@@ -0,0 +1,271 @@
+package org.example.carshop.in.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.UserRole;
+import org.example.carshop.repository.Page;
+import org.example.carshop.service.UserService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Base class of the API handlers: parses parameters, authenticates callers and writes JSON responses.
+ * Any {@link ApiException} thrown by a handler becomes an error response with its status.
+ */
+abstract class ApiHandler implements HttpHandler {
+    private static final int RESPONSE_BUFFER_SIZE = 8192;
+    private static final int MAX_FORM_BYTES = 8192;
+    private static final String BEARER = "Bearer ";
+    private static final int MAX_PAGE_SIZE = 10_000;
+
+    private final UserService userService;
+
+    ApiHandler(UserService userService) {
+        this.userService = userService;
+    }
+
+    /**
+     * Handles a call.
+     *
+     * @param exchange   the exchange.
+     * @param path       the part of the request path after the context path, without leading slashes.
+     * @param parameters the query parameters, merged with form parameters of a POST body.
+     */
+    abstract void handle(HttpExchange exchange, String path, Map<String, String> parameters) throws IOException;
+
+    /**
+     * Body of a JSON response.
+     */
+    @FunctionalInterface
+    interface JsonBody {
+        void write(JsonWriter json) throws IOException;
+    }
+
+    @Override
+    public final void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                String path = exchange.getRequestURI().getPath().substring(exchange.getHttpContext().getPath().length());
+                Map<String, String> parameters = parseParameters(exchange.getRequestURI().getRawQuery());
+                if ("POST".equals(exchange.getRequestMethod())) {
+                    parameters.putAll(parseParameters(readForm(exchange.getRequestBody())));
+                }
+                handle(exchange, stripSlashes(path), parameters);
+            } catch (ApiException e) {
+                sendError(exchange, e.getStatus(), e.getMessage());
+            } catch (RuntimeException e) {
+                sendError(exchange, 500, "Internal error");
+            }
+        }
+    }
+
+    /**
+     * Streams a JSON response with the chunked transfer encoding.
+     *
+     * @param exchange the exchange.
+     * @param status   the HTTP status.
+     * @param body     writes the response body.
+     */
+    static void sendJson(HttpExchange exchange, int status, JsonBody body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, 0);
+        try (JsonWriter json = new JsonWriter(exchange.getResponseBody(), RESPONSE_BUFFER_SIZE)) {
+            body.write(json);
+        }
+    }
+
+    /**
+     * Streams a collection as a JSON array.
+     *
+     * @param exchange the exchange.
+     * @param items    the items.
+     * @param encoder  writes a single item.
+     * @param <T>      type of the items.
+     */
+    static <T> void sendArray(HttpExchange exchange, Collection<T> items, ItemEncoder<T> encoder) throws IOException {
+        sendJson(exchange, 200, json -> {
+            json.beginArray();
+            for (T item : items) {
+                encoder.write(json, item);
+            }
+            json.endArray();
+        });
+    }
+
+    /**
+     * Streams the items of a lazy stream as a JSON array, serializing each item as soon as it is loaded.
+     *
+     * @param exchange the exchange.
+     * @param items    the items.
+     * @param encoder  writes a single item.
+     * @param <T>      type of the items.
+     */
+    static <T> void sendStream(HttpExchange exchange, Stream<T> items, ItemEncoder<T> encoder) throws IOException {
+        sendJson(exchange, 200, json -> {
+            json.beginArray();
+            Iterator<T> iterator = items.iterator();
+            while (iterator.hasNext()) {
+                encoder.write(json, iterator.next());
+            }
+            json.endArray();
+        });
+    }
+
+    /**
+     * Writes a page as a JSON object with the {@code items} array and the {@code hasNext} flag.
+     *
+     * @param exchange the exchange.
+     * @param page     the page.
+     * @param encoder  writes a single item.
+     * @param <T>      type of the items.
+     */
+    static <T> void sendPage(HttpExchange exchange, Page<T> page, ItemEncoder<T> encoder) throws IOException {
+        sendJson(exchange, 200, json -> {
+            json.beginObject().name("items").beginArray();
+            for (T item : page.items()) {
+                encoder.write(json, item);
+            }
+            json.endArray().name("hasNext").value(page.hasNext()).endObject();
+        });
+    }
+
+    /**
+     * Writes a single item of a JSON array.
+     *
+     * @param <T> type of the item.
+     */
+    @FunctionalInterface
+    interface ItemEncoder<T> {
+        void write(JsonWriter json, T item) throws IOException;
+    }
+
+    /**
+     * Returns the user of the bearer token of the call.
+     *
+     * @param exchange the exchange.
+     * @param roles    the roles allowed to make the call, or empty for any role.
+     * @return the authenticated user.
+     * @throws ApiException if the token is missing or expired, or the user has none of the roles.
+     */
+    User authenticate(HttpExchange exchange, UserRole... roles) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        User user = authorization != null && authorization.startsWith(BEARER)
+                ? userService.resumeSession(authorization.substring(BEARER.length()).trim())
+                : null;
+        if (user == null) {
+            throw new ApiException(401, "Authentication required");
+        }
+        if (roles.length > 0 && !Set.of(roles).contains(user.getRole())) {
+            throw new ApiException(403, "Access denied");
+        }
+        return user;
+    }
+
+    static void requireMethod(HttpExchange exchange, String method) {
+        if (!method.equals(exchange.getRequestMethod())) {
+            throw new ApiException(405, "Method not allowed");
+        }
+    }
+
+    static String required(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new ApiException(400, "Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    static int parseInt(String name, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "Invalid integer parameter: " + name);
+        }
+    }
+
+    /**
+     * @return the {@code limit} parameter, or null if the caller wants the whole result.
+     */
+    static Integer parseLimit(Map<String, String> parameters) {
+        String value = parameters.get("limit");
+        if (value == null) {
+            return null;
+        }
+        int limit = parseInt("limit", value);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ApiException(400, "Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
+
+    static <E extends Enum<E>> E parseEnum(Class<E> type, String name, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "Invalid value of parameter " + name + ": " + value);
+        }
+    }
+
+    UserService getUserService() {
+        return userService;
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            // The response has already started; all that can be done is to cut it short.
+            return;
+        }
+        sendJson(exchange, status, json -> json.beginObject().name("error").value(message).endObject());
+    }
+
+    private static Map<String, String> parseParameters(String raw) {
+        Map<String, String> parameters = new HashMap<>();
+        if (raw == null || raw.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : raw.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            try {
+                parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw new ApiException(400, "Malformed parameter encoding");
+            }
+        }
+        return parameters;
+    }
+
+    private static String readForm(InputStream body) throws IOException {
+        byte[] bytes = body.readNBytes(MAX_FORM_BYTES + 1);
+        if (bytes.length > MAX_FORM_BYTES) {
+            throw new ApiException(413, "Request body is too large");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String stripSlashes(String path) {
+        int start = 0;
+        int end = path.length();
+        while (start < end && path.charAt(start) == '/') {
+            start++;
+        }
+        while (end > start && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        return path.substring(start, end);
+    }
+}
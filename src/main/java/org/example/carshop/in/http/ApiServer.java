@@ -0,0 +1,78 @@
+package org.example.carshop.in.http;
+
+import com.sun.net.httpserver.HttpServer;
+import org.example.carshop.in.SessionExecutors;
+import org.example.carshop.service.CarShopService;
+import org.example.carshop.service.RequestService;
+import org.example.carshop.service.ReservationService;
+import org.example.carshop.service.UserService;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * JSON-over-HTTP API of the service layer, served by the JDK's built-in HTTP server.
+ * Every call is handled on a thread of its own, virtual where the runtime supports it (see {@link SessionExecutors}),
+ * and responses are streamed as they are serialized.
+ * <ul>
+ *     <li>{@code POST /api/sessions}, {@code DELETE /api/sessions} - log in and out</li>
+ *     <li>{@code GET /api/cars}, {@code GET /api/cars/{id}} - car search</li>
+ *     <li>{@code GET /api/requests}, {@code GET /api/requests/{id}} - request filters</li>
+ *     <li>{@code POST /api/reservations} - car orders</li>
+ *     <li>{@code GET /api/users}, {@code GET /api/users/{username}} - user lookups</li>
+ * </ul>
+ */
+public class ApiServer implements Closeable {
+    private static final int BACKLOG = 1024;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private ApiServer(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    /**
+     * Binds a server to the address and starts serving calls.
+     *
+     * @param address            the address to listen on; port 0 picks a free port.
+     * @param userService        User service instance.
+     * @param carShopService     Car service instance.
+     * @param requestService     Request service instance.
+     * @param reservationService Reservation service instance.
+     * @return the running server.
+     * @throws IOException if the address cannot be bound.
+     */
+    public static ApiServer start(InetSocketAddress address, UserService userService, CarShopService carShopService,
+                                  RequestService requestService, ReservationService reservationService) throws IOException {
+        HttpServer server = HttpServer.create(address, BACKLOG);
+        server.createContext("/api/sessions", new SessionsHandler(userService));
+        server.createContext("/api/cars", new CarsHandler(userService, carShopService));
+        server.createContext("/api/requests", new RequestsHandler(userService, requestService));
+        server.createContext("/api/reservations", new ReservationsHandler(userService, reservationService));
+        server.createContext("/api/users", new UsersHandler(userService));
+        ExecutorService executor = SessionExecutors.newThreadPerTaskExecutor("carshop-http-");
+        server.setExecutor(executor);
+        server.start();
+        return new ApiServer(server, executor);
+    }
+
+    /**
+     * @return the address the server listens on.
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Stops the server, interrupting calls still in progress.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
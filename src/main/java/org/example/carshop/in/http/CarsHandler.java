@@ -0,0 +1,47 @@
+package org.example.carshop.in.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.example.carshop.model.Car;
+import org.example.carshop.service.CarShopService;
+import org.example.carshop.service.UserService;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * {@code GET /api/cars?brand=&model=&prodYear=&available=} searches cars, {@code GET /api/cars/{id}} returns one car.
+ * With {@code limit} the search returns one page of cars with IDs greater than {@code after}.
+ */
+class CarsHandler extends ApiHandler {
+    private final CarShopService carShopService;
+
+    CarsHandler(UserService userService, CarShopService carShopService) {
+        super(userService);
+        this.carShopService = carShopService;
+    }
+
+    @Override
+    void handle(HttpExchange exchange, String path, Map<String, String> parameters) throws IOException {
+        requireMethod(exchange, "GET");
+        if (!path.isEmpty()) {
+            Car car = carShopService.findCarById(parseInt("id", path));
+            if (car == null) {
+                throw new ApiException(404, "Car not found");
+            }
+            sendJson(exchange, 200, json -> JsonEncoders.writeCar(json, car));
+            return;
+        }
+        String brand = parameters.get("brand");
+        String model = parameters.get("model");
+        String prodYear = parameters.get("prodYear");
+        Boolean available = parameters.containsKey("available") ? Boolean.valueOf(parameters.get("available")) : null;
+        Integer limit = parseLimit(parameters);
+        if (limit == null) {
+            sendStream(exchange, carShopService.streamCars(brand, model, prodYear, available), JsonEncoders::writeCar);
+        } else {
+            Integer after = parameters.containsKey("after") ? parseInt("after", parameters.get("after")) : null;
+            sendPage(exchange, carShopService.searchCars(brand, model, prodYear, available, after, limit),
+                    JsonEncoders::writeCar);
+        }
+    }
+}
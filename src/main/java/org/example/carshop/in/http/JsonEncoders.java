@@ -0,0 +1,46 @@
+package org.example.carshop.in.http;
+
+import org.example.carshop.model.Car;
+import org.example.carshop.model.Request;
+import org.example.carshop.model.User;
+
+import java.io.IOException;
+
+/**
+ * JSON representations of the model classes. Passwords are never written.
+ */
+final class JsonEncoders {
+    private JsonEncoders() {
+    }
+
+    static void writeCar(JsonWriter json, Car car) throws IOException {
+        json.beginObject()
+                .name("id").value(car.getId())
+                .name("brand").value(car.getBrandName())
+                .name("model").value(car.getModelName())
+                .name("prodYear").value(car.getProdYear())
+                .name("state").value(car.getStateDesc())
+                .name("available").value(car.isAvailable())
+                .endObject();
+    }
+
+    static void writeRequest(JsonWriter json, Request request) throws IOException {
+        json.beginObject()
+                .name("id").value(request.getId())
+                .name("username").value(request.getUser() == null ? null : request.getUser().getUsername())
+                .name("carId").value(request.getCarId())
+                .name("creationTime").value(request.getCreationTime())
+                .name("completionTime").value(request.getCompletionTime())
+                .name("type").value(request.getRequestType() == null ? null : request.getRequestType().name())
+                .name("status").value(request.getRequestStatus() == null ? null : request.getRequestStatus().name())
+                .endObject();
+    }
+
+    static void writeUser(JsonWriter json, User user) throws IOException {
+        json.beginObject()
+                .name("username").value(user.getUsername())
+                .name("fullName").value(user.getFullName())
+                .name("role").value(user.getRole() == null ? null : user.getRole().name())
+                .endObject();
+    }
+}
@@ -0,0 +1,256 @@
+package org.example.carshop.in.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+/**
+ * Streaming JSON writer encoding straight into a byte buffer that is flushed to the output as it fills up,
+ * so a response of any size is written with a fixed amount of memory and no intermediate strings.
+ * Commas between values are inserted automatically; the caller is responsible for well-formed nesting.
+ */
+class JsonWriter implements Closeable {
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final int MAX_DEPTH = 32;
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private final boolean[] hasValue = new boolean[MAX_DEPTH];
+    private int position;
+    private int depth;
+    private boolean afterName;
+
+    /**
+     * Creates a writer.
+     *
+     * @param out        the stream to write to.
+     * @param bufferSize the number of bytes collected before they are written to the stream.
+     */
+    JsonWriter(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+    }
+
+    JsonWriter beginObject() throws IOException {
+        beforeValue();
+        writeByte('{');
+        open();
+        return this;
+    }
+
+    JsonWriter endObject() throws IOException {
+        depth--;
+        writeByte('}');
+        return this;
+    }
+
+    JsonWriter beginArray() throws IOException {
+        beforeValue();
+        writeByte('[');
+        open();
+        return this;
+    }
+
+    JsonWriter endArray() throws IOException {
+        depth--;
+        writeByte(']');
+        return this;
+    }
+
+    /**
+     * Writes the name of the next object member.
+     *
+     * @param name the member name; expected to be plain ASCII without characters that need escaping.
+     * @return this writer.
+     */
+    JsonWriter name(String name) throws IOException {
+        beforeValue();
+        writeByte('"');
+        for (int i = 0; i < name.length(); i++) {
+            writeByte(name.charAt(i));
+        }
+        writeByte('"');
+        writeByte(':');
+        afterName = true;
+        return this;
+    }
+
+    JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        writeByte('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writeByte('\\');
+                writeByte(c);
+            } else if (c < 0x20) {
+                writeEscaped(c);
+            } else if (c < 0x80) {
+                writeByte(c);
+            } else if (c < 0x800) {
+                writeByte(0xC0 | c >> 6);
+                writeByte(0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                writeByte(0xF0 | codePoint >> 18);
+                writeByte(0x80 | codePoint >> 12 & 0x3F);
+                writeByte(0x80 | codePoint >> 6 & 0x3F);
+                writeByte(0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                writeEscaped(c);
+            } else {
+                writeByte(0xE0 | c >> 12);
+                writeByte(0x80 | c >> 6 & 0x3F);
+                writeByte(0x80 | c & 0x3F);
+            }
+        }
+        writeByte('"');
+        return this;
+    }
+
+    JsonWriter value(long value) throws IOException {
+        beforeValue();
+        if (value < 0) {
+            writeByte('-');
+        } else {
+            value = -value;
+        }
+        // Digits are produced from the negative value so that Long.MIN_VALUE needs no special case.
+        ensureCapacity(20);
+        int start = position;
+        do {
+            buffer[position++] = (byte) ('0' - value % 10);
+            value /= 10;
+        } while (value != 0);
+        reverse(start, position - 1);
+        return this;
+    }
+
+    JsonWriter value(boolean value) throws IOException {
+        return literal(value ? "true" : "false");
+    }
+
+    JsonWriter nullValue() throws IOException {
+        return literal("null");
+    }
+
+    /**
+     * Writes a date and time as an ISO-8601 string with second precision.
+     *
+     * @param value the date and time, or null.
+     * @return this writer.
+     */
+    JsonWriter value(LocalDateTime value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        if (value.getYear() < 0 || value.getYear() > 9999) {
+            return value(value.withNano(0).toString());
+        }
+        beforeValue();
+        ensureCapacity(21);
+        buffer[position++] = '"';
+        writeDigits(value.getYear(), 4);
+        buffer[position++] = '-';
+        writeDigits(value.getMonthValue(), 2);
+        buffer[position++] = '-';
+        writeDigits(value.getDayOfMonth(), 2);
+        buffer[position++] = 'T';
+        writeDigits(value.getHour(), 2);
+        buffer[position++] = ':';
+        writeDigits(value.getMinute(), 2);
+        buffer[position++] = ':';
+        writeDigits(value.getSecond(), 2);
+        buffer[position++] = '"';
+        return this;
+    }
+
+    /**
+     * Writes the buffered bytes to the stream and flushes it.
+     */
+    void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+        out.close();
+    }
+
+    private JsonWriter literal(String literal) throws IOException {
+        beforeValue();
+        for (int i = 0; i < literal.length(); i++) {
+            writeByte(literal.charAt(i));
+        }
+        return this;
+    }
+
+    private void open() {
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("JSON nesting is deeper than " + MAX_DEPTH);
+        }
+        hasValue[depth++] = false;
+    }
+
+    private void beforeValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (hasValue[depth - 1]) {
+                writeByte(',');
+            }
+            hasValue[depth - 1] = true;
+        }
+    }
+
+    private void writeEscaped(char c) throws IOException {
+        writeByte('\\');
+        writeByte('u');
+        writeByte(HEX[c >> 12 & 0xF]);
+        writeByte(HEX[c >> 8 & 0xF]);
+        writeByte(HEX[c >> 4 & 0xF]);
+        writeByte(HEX[c & 0xF]);
+    }
+
+    private void writeDigits(int value, int width) {
+        for (int i = position + width - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += width;
+    }
+
+    private void reverse(int from, int to) {
+        while (from < to) {
+            byte b = buffer[from];
+            buffer[from++] = buffer[to];
+            buffer[to--] = b;
+        }
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (position == buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    private void ensureCapacity(int length) throws IOException {
+        if (position + length > buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.carshop.in.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.example.carshop.model.Request;
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.RequestStatus;
+import org.example.carshop.model.enums.RequestTimestamp;
+import org.example.carshop.model.enums.RequestType;
+import org.example.carshop.model.enums.UserRole;
+import org.example.carshop.repository.RequestFilter;
+import org.example.carshop.service.RequestService;
+import org.example.carshop.service.UserService;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+/**
+ * {@code GET /api/requests/{id}} returns one request. {@code GET /api/requests} filters requests by one of
+ * {@code date}, {@code carId}, {@code status} (each together with {@code type}), {@code user} (type optional)
+ * or a {@code from}-{@code to} range of dates (type and {@code timestamp} optional), and returns all requests
+ * without a filter. With {@code limit} one page of requests with IDs greater than
+ * {@code after} is returned. Available to administrators and managers.
+ */
+class RequestsHandler extends ApiHandler {
+    private final RequestService requestService;
+
+    RequestsHandler(UserService userService, RequestService requestService) {
+        super(userService);
+        this.requestService = requestService;
+    }
+
+    @Override
+    void handle(HttpExchange exchange, String path, Map<String, String> parameters) throws IOException {
+        requireMethod(exchange, "GET");
+        authenticate(exchange, UserRole.ADMIN, UserRole.MANAGER);
+        if (!path.isEmpty()) {
+            Request request = requestService.findRequestById(parseInt("id", path));
+            if (request == null) {
+                throw new ApiException(404, "Request not found");
+            }
+            sendJson(exchange, 200, json -> JsonEncoders.writeRequest(json, request));
+            return;
+        }
+        RequestFilter filter = filter(parameters);
+        Integer limit = parseLimit(parameters);
+        if (limit == null) {
+            sendStream(exchange, requestService.streamRequests(filter), JsonEncoders::writeRequest);
+        } else {
+            Integer after = parameters.containsKey("after") ? parseInt("after", parameters.get("after")) : null;
+            sendPage(exchange, requestService.findRequests(filter, after, limit), JsonEncoders::writeRequest);
+        }
+    }
+
+    private RequestFilter filter(Map<String, String> parameters) {
+        RequestType type = parseEnum(RequestType.class, "type", parameters.get("type"));
+        if (parameters.containsKey("user")) {
+            User user = getUserService().findUserByName(parameters.get("user"));
+            if (user == null) {
+                throw new ApiException(404, "User not found");
+            }
+            return RequestFilter.byUser(user.getUsername(), type);
+        }
+        if (parameters.containsKey("date")) {
+            return RequestFilter.byDate(parseDate("date", parameters.get("date")), requiredType(type));
+        }
+        if (parameters.containsKey("from") || parameters.containsKey("to")) {
+            return RequestFilter.byDateRange(parseDate("from", parameters.get("from")),
+                    parseDate("to", parameters.get("to")),
+                    parseEnum(RequestTimestamp.class, "timestamp", parameters.get("timestamp")), type);
+        }
+        if (parameters.containsKey("carId")) {
+            return RequestFilter.byCar(parseInt("carId", parameters.get("carId")), requiredType(type));
+        }
+        if (parameters.containsKey("status")) {
+            return RequestFilter.byStatus(parseEnum(RequestStatus.class, "status", parameters.get("status")),
+                    requiredType(type));
+        }
+        return RequestFilter.all();
+    }
+
+    private static RequestType requiredType(RequestType type) {
+        if (type == null) {
+            throw new ApiException(400, "Missing parameter: type");
+        }
+        return type;
+    }
+
+    private static LocalDate parseDate(String name, String value) {
+        if (value == null) {
+            throw new ApiException(400, "Missing parameter: " + name);
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new ApiException(400, "Invalid date: " + value);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.carshop.in.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.ReservationResult;
+import org.example.carshop.service.ReservationService;
+import org.example.carshop.service.UserService;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * {@code POST /api/reservations} with {@code carId} orders the car for the authenticated user.
+ */
+class ReservationsHandler extends ApiHandler {
+    private final ReservationService reservationService;
+
+    ReservationsHandler(UserService userService, ReservationService reservationService) {
+        super(userService);
+        this.reservationService = reservationService;
+    }
+
+    @Override
+    void handle(HttpExchange exchange, String path, Map<String, String> parameters) throws IOException {
+        requireMethod(exchange, "POST");
+        User user = authenticate(exchange);
+        ReservationResult result = reservationService.reserveCar(user, parseInt("carId", required(parameters, "carId")));
+        int status = switch (result) {
+            case RESERVED -> 201;
+            case CAR_NOT_FOUND -> 404;
+            case CAR_NOT_AVAILABLE -> 409;
+        };
+        sendJson(exchange, status, json -> json.beginObject().name("result").value(result.name()).endObject());
+    }
+}
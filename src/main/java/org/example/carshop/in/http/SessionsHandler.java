@@ -0,0 +1,49 @@
+package org.example.carshop.in.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.example.carshop.security.AuthenticatedSession;
+import org.example.carshop.service.UserService;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * {@code POST /api/sessions} with {@code username} and {@code password} returns a bearer token for the other
+ * endpoints; {@code DELETE /api/sessions} closes the session of the token. While the password workers are
+ * overloaded the call fails with 503 and a {@code Retry-After} header instead of a 401.
+ */
+class SessionsHandler extends ApiHandler {
+
+    SessionsHandler(UserService userService) {
+        super(userService);
+    }
+
+    @Override
+    void handle(HttpExchange exchange, String path, Map<String, String> parameters) throws IOException {
+        if ("DELETE".equals(exchange.getRequestMethod())) {
+            authenticate(exchange);
+            getUserService().logout(exchange.getRequestHeaders().getFirst("Authorization").substring("Bearer ".length()).trim());
+            exchange.sendResponseHeaders(204, -1);
+            return;
+        }
+        requireMethod(exchange, "POST");
+        String username = required(parameters, "username");
+        String password = required(parameters, "password");
+        AuthenticatedSession session;
+        try {
+            session = getUserService().authenticate(username, password);
+        } catch (RejectedExecutionException e) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            throw new ApiException(503, "Too many logins at once, retry later");
+        }
+        if (session == null) {
+            throw new ApiException(401, "Invalid username or password");
+        }
+        sendJson(exchange, 201, json -> {
+            json.beginObject().name("token").value(session.token()).name("user");
+            JsonEncoders.writeUser(json, session.user());
+            json.endObject();
+        });
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.carshop.in.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.UserRole;
+import org.example.carshop.service.UserService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code GET /api/users/{username}} returns one user. {@code GET /api/users} searches users by {@code prefix}
+ * of the username, a part of the full {@code name} or a part of the username ({@code search}), optionally limited
+ * to a comma-separated list of {@code roles}. A search by a part of the username accepts {@code limit} and returns
+ * one page of users with usernames after {@code after}. Available to administrators and managers.
+ */
+class UsersHandler extends ApiHandler {
+
+    UsersHandler(UserService userService) {
+        super(userService);
+    }
+
+    @Override
+    void handle(HttpExchange exchange, String path, Map<String, String> parameters) throws IOException {
+        requireMethod(exchange, "GET");
+        authenticate(exchange, UserRole.ADMIN, UserRole.MANAGER);
+        UserService userService = getUserService();
+        if (!path.isEmpty()) {
+            User user = userService.findUserByName(path);
+            if (user == null) {
+                throw new ApiException(404, "User not found");
+            }
+            sendJson(exchange, 200, json -> JsonEncoders.writeUser(json, user));
+            return;
+        }
+        Collection<UserRole> roles = parseRoles(parameters.get("roles"));
+        Integer limit = parseLimit(parameters);
+        if (parameters.containsKey("prefix")) {
+            sendArray(exchange, userService.searchUsersByUsernamePrefix(parameters.get("prefix"), roles),
+                    JsonEncoders::writeUser);
+        } else if (parameters.containsKey("name")) {
+            sendArray(exchange, userService.searchUsersByFullName(parameters.get("name"), roles), JsonEncoders::writeUser);
+        } else if (limit == null) {
+            sendStream(exchange, userService.streamUsers(parameters.get("search"), roles), JsonEncoders::writeUser);
+        } else {
+            sendPage(exchange, userService.searchUsers(parameters.get("search"), roles, parameters.get("after"), limit),
+                    JsonEncoders::writeUser);
+        }
+    }
+
+    private static Collection<UserRole> parseRoles(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        List<UserRole> roles = new ArrayList<>();
+        for (String role : value.split(",")) {
+            roles.add(parseEnum(UserRole.class, "roles", role.trim()));
+        }
+        return roles;
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.carshop.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic count of events, such as cache hits. Incrementing allocates nothing and does not contend
+ * between threads.
+ */
+public final class Counter {
+    private final String name;
+    private final String help;
+    private final LongAdder count = new LongAdder();
+
+    Counter(String name, String help) {
+        this.name = name;
+        this.help = help;
+    }
+
+    /**
+     * Counts one event.
+     */
+    public void increment() {
+        count.increment();
+    }
+
+    /**
+     * @return the name of the counter.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return the description of the counted events.
+     */
+    public String help() {
+        return help;
+    }
+
+    /**
+     * @return the number of counted events.
+     */
+    public long count() {
+        return count.sum();
+    }
+}
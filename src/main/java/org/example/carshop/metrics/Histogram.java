@@ -0,0 +1,147 @@
+package org.example.carshop.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of non-negative values, such as latencies in nanoseconds or result sizes, in log-linear buckets.
+ * <p>
+ * Values below {@value #SUB_BUCKETS} have a bucket each; above that every power of two is split into
+ * {@value #SUB_BUCKETS} equal buckets, so a percentile is off by at most 1/{@value #SUB_BUCKETS} of its value
+ * over the whole range of {@code long}, with a fixed array of counts. Recording a value increments one array
+ * element and two adders and allocates nothing; percentiles are read from a pass over the counts, which
+ * concurrent recording may change underneath but never corrupts.
+ */
+public final class Histogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final String name;
+    private final String help;
+    private final boolean latency;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    Histogram(String name, String help, boolean latency) {
+        this.name = name;
+        this.help = help;
+        this.latency = latency;
+    }
+
+    /**
+     * Records a value; negative values are recorded as 0.
+     *
+     * @param value the value.
+     */
+    public void record(long value) {
+        long recorded = Math.max(value, 0);
+        counts.incrementAndGet(bucketOf(recorded));
+        count.increment();
+        sum.add(recorded);
+        long current = max.get();
+        while (recorded > current && !max.compareAndSet(current, recorded)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Records the nanoseconds elapsed since the given {@link System#nanoTime()} reading.
+     *
+     * @param startNanos the reading taken when the measured call started.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Returns the value below or at which the given share of the recorded values lie, rounded up to the upper
+     * bound of its bucket.
+     *
+     * @param quantile the share, from 0 to 1, e.g. 0.99 for the 99th percentile.
+     * @return the value, or 0 if nothing has been recorded.
+     */
+    public long valueAtQuantile(double quantile) {
+        long total = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            total += counts.get(bucket);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(bucket), max());
+            }
+        }
+        return max();
+    }
+
+    /**
+     * @return the name of the histogram.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return the description of the recorded values.
+     */
+    public String help() {
+        return help;
+    }
+
+    /**
+     * @return whether the recorded values are latencies in nanoseconds.
+     */
+    public boolean isLatency() {
+        return latency;
+    }
+
+    /**
+     * @return the number of recorded values.
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * @return the sum of the recorded values.
+     */
+    public long sum() {
+        return sum.sum();
+    }
+
+    /**
+     * @return the largest recorded value, or 0 if nothing has been recorded.
+     */
+    public long max() {
+        return max.get();
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        long lowerBound = (1L << (shift + SUB_BUCKET_BITS)) | (subBucket << shift);
+        return lowerBound + (1L << shift) - 1;
+    }
+}
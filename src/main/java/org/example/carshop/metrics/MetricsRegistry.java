@@ -0,0 +1,97 @@
+package org.example.carshop.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Named histograms and counters of an application.
+ * <p>
+ * Instrumented classes look their metrics up once, when they are created, and keep them in fields, so recording
+ * costs no lookup. Looking up a name again returns the same metric, so all instances of a class, e.g. the services
+ * of several console sessions, record into one metric.
+ */
+public class MetricsRegistry {
+    private static final MetricsRegistry SHARED = new MetricsRegistry();
+
+    private final Map<String, Histogram> histograms = new ConcurrentSkipListMap<>();
+    private final Map<String, Counter> counters = new ConcurrentSkipListMap<>();
+
+    /**
+     * Creates an empty registry; the application itself records into the {@link #shared()} one.
+     */
+    public MetricsRegistry() {
+    }
+
+    /**
+     * @return the registry shared by the whole application.
+     */
+    public static MetricsRegistry shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the histogram of latencies in nanoseconds with the given name, creating it if needed.
+     *
+     * @param name the name, in the Prometheus format and without a unit suffix.
+     * @param help the description of the measured calls.
+     * @return the histogram.
+     * @throws IllegalArgumentException if the name is taken by a metric of another kind.
+     */
+    public Histogram timer(String name, String help) {
+        return histogram(name, help, true);
+    }
+
+    /**
+     * Returns the histogram of plain values with the given name, creating it if needed.
+     *
+     * @param name the name, in the Prometheus format.
+     * @param help the description of the recorded values.
+     * @return the histogram.
+     * @throws IllegalArgumentException if the name is taken by a metric of another kind.
+     */
+    public Histogram histogram(String name, String help) {
+        return histogram(name, help, false);
+    }
+
+    /**
+     * Returns the counter with the given name, creating it if needed.
+     *
+     * @param name the name, in the Prometheus format and without the {@code _total} suffix.
+     * @param help the description of the counted events.
+     * @return the counter.
+     * @throws IllegalArgumentException if the name is taken by a metric of another kind.
+     */
+    public Counter counter(String name, String help) {
+        if (histograms.containsKey(name)) {
+            throw new IllegalArgumentException("Metric is not a counter: " + name);
+        }
+        return counters.computeIfAbsent(name, key -> new Counter(name, help));
+    }
+
+    /**
+     * @return the histograms in name order.
+     */
+    public List<Histogram> histograms() {
+        return new ArrayList<>(histograms.values());
+    }
+
+    /**
+     * @return the counters in name order.
+     */
+    public List<Counter> counters() {
+        return new ArrayList<>(counters.values());
+    }
+
+    private Histogram histogram(String name, String help, boolean latency) {
+        if (counters.containsKey(name)) {
+            throw new IllegalArgumentException("Metric is not a histogram: " + name);
+        }
+        Histogram histogram = histograms.computeIfAbsent(name, key -> new Histogram(name, help, latency));
+        if (histogram.isLatency() != latency) {
+            throw new IllegalArgumentException("Metric is a histogram of other values: " + name);
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,144 @@
+package org.example.carshop.metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the metrics of a registry to a file in the Prometheus text format, for a node exporter textfile
+ * collector or any other scraper of local files.
+ * <p>
+ * Histograms are written as summaries with the {@link #QUANTILES}, latencies in seconds with a {@code _seconds}
+ * suffix; counters get a {@code _total} suffix. The file is written next to its final place and moved over it,
+ * so readers never see a partly written file.
+ */
+public class PrometheusExporter implements Closeable {
+    /**
+     * Quantiles written for every histogram.
+     */
+    public static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private final MetricsRegistry registry;
+    private final Path file;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Creates an exporter that writes only when asked to.
+     *
+     * @param registry the registry to export.
+     * @param file     the file to write.
+     */
+    public PrometheusExporter(MetricsRegistry registry, Path file) {
+        this.registry = registry;
+        this.file = file;
+    }
+
+    /**
+     * Creates an exporter writing the file at a fixed interval in the background, and once more when closed.
+     *
+     * @param registry       the registry to export.
+     * @param file           the file to write.
+     * @param intervalMillis interval between writes in milliseconds.
+     * @return the running exporter.
+     */
+    public static PrometheusExporter start(MetricsRegistry registry, Path file, long intervalMillis) {
+        PrometheusExporter exporter = new PrometheusExporter(registry, file);
+        exporter.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "carshop-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        exporter.scheduler.scheduleWithFixedDelay(exporter::exportQuietly, intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+        return exporter;
+    }
+
+    /**
+     * Writes the current metrics to the file.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public void export() throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (Writer out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                write(out);
+            }
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Writes the current metrics in the Prometheus text format.
+     *
+     * @param out the destination.
+     * @throws IOException if writing fails.
+     */
+    public void write(Appendable out) throws IOException {
+        for (Histogram histogram : registry.histograms()) {
+            String name = histogram.isLatency() ? histogram.name() + "_seconds" : histogram.name();
+            header(out, name, histogram.help(), "summary");
+            for (double quantile : QUANTILES) {
+                out.append(name).append("{quantile=\"").append(Double.toString(quantile)).append("\"} ")
+                        .append(value(histogram, histogram.valueAtQuantile(quantile))).append('\n');
+            }
+            out.append(name).append("_sum ").append(value(histogram, histogram.sum())).append('\n');
+            out.append(name).append("_count ").append(Long.toString(histogram.count())).append('\n');
+        }
+        for (Counter counter : registry.counters()) {
+            String name = counter.name() + "_total";
+            header(out, name, counter.help(), "counter");
+            out.append(name).append(' ').append(Long.toString(counter.count())).append('\n');
+        }
+    }
+
+    /**
+     * Stops the background writes, if any, and writes the file a last time.
+     */
+    @Override
+    public void close() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            export();
+        }
+    }
+
+    private void exportQuietly() {
+        try {
+            export();
+        } catch (IOException e) {
+            // The next scheduled write tries again.
+        }
+    }
+
+    private static void header(Appendable out, String name, String help, String type) throws IOException {
+        out.append("# HELP ").append(name).append(' ')
+                .append(help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static String value(Histogram histogram, long value) {
+        return histogram.isLatency() ? Double.toString(value / 1e9) : Long.toString(value);
+    }
+}
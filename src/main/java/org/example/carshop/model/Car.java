@@ -3,12 +3,25 @@ package org.example.carshop.model;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
 /**
  * Represents a car for purchase in the Car Shop.
  */
 @Data
 @AllArgsConstructor
 public class Car {
+    private static final VarHandle AVAILABLE;
+
+    static {
+        try {
+            AVAILABLE = MethodHandles.lookup().findVarHandle(Car.class, "isAvailable", boolean.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     /**
      * Unique identifier for the car model.
      */
@@ -37,6 +50,16 @@ public class Car {
     /**
      * Indicates whether the car is currently available for order.
      */
-    private boolean isAvailable;
+    private volatile boolean isAvailable;
 
+    /**
+     * Atomically sets the availability of the car if it currently has the expected value.
+     *
+     * @param expected the expected current availability.
+     * @param newValue the new availability.
+     * @return true if the availability has been changed.
+     */
+    public boolean compareAndSetAvailable(boolean expected, boolean newValue) {
+        return AVAILABLE.compareAndSet(this, expected, newValue);
+    }
 }
@@ -1,6 +1,10 @@
 package org.example.carshop.model;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 import org.example.carshop.model.enums.RequestStatus;
 import org.example.carshop.model.enums.RequestType;
 
@@ -10,14 +14,13 @@ import java.time.LocalTime;
 
 /**
  * Represents a customer's request for a new car or a car maintenance.
- * Each request is uniquely identified by an id which is auto-incremented.
+ * Each request is uniquely identified by an id which is assigned by the repository storing it.
  */
 @Data
 public class Request {
-    private static int nextRequestId = 1;
 
     /**
-     * Unique identifier for the request.
+     * Unique identifier for the request, or 0 while the request has not been stored yet.
      */
     private int id;
 
@@ -51,9 +54,17 @@ public class Request {
      */
     private RequestStatus requestStatus;
 
+    /**
+     * The listener notified on status changes, set by the repository holding the request.
+     */
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private transient RequestStatusListener statusListener;
+
     /**
      * Constructs a new Request with the given parameters.
-     * The id is auto-generated and incremented.
+     * The id is assigned when the request is added to a repository.
      *
      * @param user the user who made the request
      * @param carId the id of the User's car
@@ -63,7 +74,6 @@ public class Request {
      */
     public Request(User user, int carId, LocalDateTime creationTime,
                    LocalDateTime completionTime, RequestType requestType, RequestStatus requestStatus) {
-        this.id = nextRequestId++;
         this.user = user;
         this.carId = carId;
         this.creationTime = creationTime != null ? creationTime : LocalDateTime.now();
@@ -74,12 +84,22 @@ public class Request {
 
 
     /**
-     * Changes the status of the request.
+     * Moves the request to the next status of the lifecycle of {@link RequestStatus}.
+     * Concurrent changes of a stored request should go through {@code RequestService#changeRequestStatus},
+     * which checks and changes the status under the lock of the request.
      *
      * @param newStatus The new status to set for the request.
+     * @throws IllegalStateException if the lifecycle does not allow the change.
      */
     public void changeStatus(RequestStatus newStatus) {
+        RequestStatus oldStatus = this.requestStatus;
+        if (oldStatus == null || !oldStatus.canChangeTo(newStatus)) {
+            throw new IllegalStateException("Request " + id + " cannot change from " + oldStatus + " to " + newStatus);
+        }
         this.requestStatus = newStatus;
+        if (statusListener != null) {
+            statusListener.onStatusChanged(this, oldStatus);
+        }
     }
 }
 
@@ -0,0 +1,19 @@
+package org.example.carshop.model;
+
+import org.example.carshop.model.enums.RequestStatus;
+
+/**
+ * Callback invoked by a {@link Request} after its status has been changed.
+ * Repositories use it to keep their secondary indexes in sync with the request.
+ */
+@FunctionalInterface
+public interface RequestStatusListener {
+
+    /**
+     * Called after the status of the request has changed.
+     *
+     * @param request   the request whose status has changed.
+     * @param oldStatus the status the request had before the change.
+     */
+    void onStatusChanged(Request request, RequestStatus oldStatus);
+}
@@ -0,0 +1,9 @@
+package org.example.carshop.model.enums;
+
+public enum BookingResult {
+    BOOKED,
+    CAR_NOT_FOUND,
+    INVALID_WINDOW,
+    CAR_BUSY,
+    NO_FREE_BAY
+}
@@ -1,8 +1,32 @@
 package org.example.carshop.model.enums;
 
+/**
+ * Lifecycle status of a request. A request moves forward one status at a time:
+ * NEW, then PENDING, then IN_PROGRESS and finally COMPLETED.
+ */
 public enum RequestStatus {
     NEW,
     PENDING,
     IN_PROGRESS,
-    COMPLETED
+    COMPLETED;
+
+    /**
+     * @return the status following this one in the lifecycle, or null for {@link #COMPLETED}.
+     */
+    public RequestStatus next() {
+        return switch (this) {
+            case NEW -> PENDING;
+            case PENDING -> IN_PROGRESS;
+            case IN_PROGRESS -> COMPLETED;
+            case COMPLETED -> null;
+        };
+    }
+
+    /**
+     * @param status the status to change to.
+     * @return whether the lifecycle allows a request in this status to change to the given one.
+     */
+    public boolean canChangeTo(RequestStatus status) {
+        return status != null && status == next();
+    }
 }
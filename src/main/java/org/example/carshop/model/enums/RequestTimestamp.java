@@ -0,0 +1,9 @@
+package org.example.carshop.model.enums;
+
+/**
+ * Timestamp of a request that date lookups select requests by.
+ */
+public enum RequestTimestamp {
+    CREATION,
+    COMPLETION
+}
@@ -0,0 +1,7 @@
+package org.example.carshop.model.enums;
+
+public enum ReservationResult {
+    RESERVED,
+    CAR_NOT_FOUND,
+    CAR_NOT_AVAILABLE
+}
@@ -0,0 +1,7 @@
+package org.example.carshop.model.enums;
+
+public enum StatusChangeResult {
+    CHANGED,
+    REQUEST_NOT_FOUND,
+    ILLEGAL_TRANSITION
+}
@@ -1,16 +1,36 @@
 package org.example.carshop.out;
 
+import java.io.PrintStream;
+
 /**
- * The {@code ConsoleUI} class provides static methods for printing various command menus to the console.
+ * The {@code ConsoleUI} class provides methods for printing various command menus to the console.
  * These methods are used to display different options to the user in a console-based Car Shop management application.
+ * Every console session has its own instance writing to the output stream of that session.
  */
 public class ConsoleUI {
+    private final PrintStream out;
+
+    /**
+     * Creates a menu printer writing to the standard output.
+     */
+    public ConsoleUI() {
+        this(System.out);
+    }
+
+    /**
+     * Creates a menu printer.
+     *
+     * @param out the output stream of the session.
+     */
+    public ConsoleUI(PrintStream out) {
+        this.out = out;
+    }
 
     /**
      * Prints the start commands menu.
      */
-    public static void printStartCommands() {
-        System.out.print("""
+    public void printStartCommands() {
+        out.print("""
                 Выберите команду:
                 1 - Регистрация
                 2 - Авторизация
@@ -21,47 +41,50 @@ public class ConsoleUI {
     /**
      * Prints the Car Shop Client commands menu.
      */
-    public static void printCarShopClientCommands() {
-        System.out.print("""
+    public void printCarShopClientCommands() {
+        out.print("""
                 Выберите команду:
                 1 - Показать доступные для заказа автомобили
                 2 - Показать заказы пользователя
                 3 - Новый заказ
-                4 - Выход из пользователя
+                4 - Записаться на обслуживание
+                5 - Выход из пользователя
                 """);
     }
 
     /**
      * Prints the Car Shop Manager commands menu.
      */
-    public static void printCarShopManagerCommands() {
-        System.out.print("""
+    public void printCarShopManagerCommands() {
+        out.print("""
                 Выберите команду:
                 1 - Поиск автомобиля
                 2 - Обработка заказов
                 3 - Просмотр информации о клиентах и сотрудниках
-                4 - Выход из пользователя
+                4 - Статистика
+                5 - Выход из пользователя
                 """);
     }
 
     /**
      * Prints the Car Shop Admin commands menu.
      */
-    public static void printCarShopAdminCommands() {
-        System.out.print("""
+    public void printCarShopAdminCommands() {
+        out.print("""
                 Выберите команду:
                 1 - Управление автомобилями
                 2 - Обработка заказов
                 3 - Просмотр информации о клиентах и сотрудниках
-                4 - Выход из пользователя
+                4 - Метрики производительности
+                5 - Выход из пользователя
                 """);
     }
 
     /**
      * Prints the cars management commands menu.
      */
-    public static void printCarCommands() {
-        System.out.print("""
+    public void printCarCommands() {
+        out.print("""
                 Выберите команду для управления автомобилями:
                 1 - Добавить
                 2 - Изменить данные
@@ -74,23 +97,25 @@ public class ConsoleUI {
     /**
      * Prints the users management commands menu.
      */
-    public static void printUsersCommands() {
-        System.out.print("""
+    public void printUsersCommands() {
+        out.print("""
                 Выберите команду для управления и просмотра информации о клиентах и сотрудниках:
                 1 - Просмотр списка зарегистрированных клиентов
                 2 - Просмотр списка зарегистрированных сотрудников
                 3 - Поиск по критериям
                 4 - Добавить пользователя
                 5 - Изменить данные пользователя
-                6 - Вернуться назад
+                6 - Поиск по началу username
+                7 - Поиск по ФИО
+                8 - Вернуться назад
                 """);
     }
 
     /**
      * Prints the car availability commands menu.
      */
-    public static void printAvailabilityCommands() {
-        System.out.print("""
+    public void printAvailabilityCommands() {
+        out.print("""
                 Произведен ли заказ автомобиля?
                 1 - Да
                 2 - Нет
@@ -100,8 +125,8 @@ public class ConsoleUI {
     /**
      * Prints the request commands menu.
      */
-    public static void printRequestCommands() {
-        System.out.print("""
+    public void printRequestCommands() {
+        out.print("""
                 Выберите команду для обработки заказов:
                 1 - Показать все заказы
                 2 - Поиск заказа
@@ -109,29 +134,43 @@ public class ConsoleUI {
                 4 - Отменить заказ
                 5 - Изменить статус заказа
                 6 - Изменить данные заказа
-                7 - Вернуться назад
+                7 - Взять в работу следующий заказ в ожидании
+                8 - Вернуться назад
                 """);
     }
 
     /**
      * Prints the request filter commands menu.
      */
-    public static void printRequestFilterCommands() {
-        System.out.print("""
+    public void printRequestFilterCommands() {
+        out.print("""
                 Выберите фильтр:
                 1 - Поиск по дате
                 2 - Поиск по клиенту
                 3 - Поиск по статусу
                 4 - Поиск по автомобилю
-                5 - Вернуться назад
+                5 - Поиск по периоду
+                6 - Вернуться назад
+                """);
+    }
+
+    /**
+     * Prints the request timestamps commands menu.
+     */
+    public void printRequestTimestamps() {
+        out.print("""
+                Выберите дату заказа:
+                1 - Дата создания
+                2 - Дата выполнения
+                3 - Любая из них
                 """);
     }
 
     /**
      * Prints the request types commands menu.
      */
-    public static void printRequestTypes() {
-        System.out.print("""
+    public void printRequestTypes() {
+        out.print("""
                 Выберите тип заказа:
                 1 - Заказ на покупку автомобиля
                 2 - Заявка на обслуживание автомобиля
@@ -140,8 +179,8 @@ public class ConsoleUI {
     /**
      * Prints the request statuses commands menu.
      */
-    public static void printRequestStatuses() {
-        System.out.print("""
+    public void printRequestStatuses() {
+        out.print("""
                 Выберите статус:
                 1 - Новый
                 2 - В ожидании
@@ -153,8 +192,8 @@ public class ConsoleUI {
     /**
      * Prints the user roles commands menu.
      */
-    public static void printUserRoles() {
-        System.out.print("""
+    public void printUserRoles() {
+        out.print("""
                 Выберите роль
                 1 - Клиент
                 2 - Администратор
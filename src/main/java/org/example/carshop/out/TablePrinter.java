@@ -0,0 +1,196 @@
+package org.example.carshop.out;
+
+import org.example.carshop.model.Car;
+import org.example.carshop.model.Request;
+import org.example.carshop.model.User;
+
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+
+/**
+ * Prints cars, requests and users as rows of a fixed-width table.
+ * Every field is written straight into the stream and padded with spaces, so rows are formatted without
+ * building intermediate strings; a header is printed before the first row and whenever the row type changes.
+ * Values longer than their column are cut short and marked with '~'. Other objects are printed as they are.
+ */
+public class TablePrinter {
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final int DATE_TIME_LENGTH = 16;
+    private static final int GAP = 1;
+
+    private static final String[] CAR_HEADERS = {"ID", "Марка", "Модель", "Год", "Состояние", "Доступен"};
+    private static final int[] CAR_WIDTHS = {8, 14, 16, 6, 20, 8};
+    private static final String[] REQUEST_HEADERS = {"ID", "Пользователь", "Авто", "Тип", "Статус", "Создана", "Завершена"};
+    private static final int[] REQUEST_WIDTHS = {8, 16, 8, 12, 12, 17, 16};
+    private static final String[] USER_HEADERS = {"Логин", "ФИО", "Роль"};
+    private static final int[] USER_WIDTHS = {20, 32, 8};
+
+    private static final String[] PADDING = new String[65];
+
+    static {
+        for (int i = 0; i < PADDING.length; i++) {
+            PADDING[i] = " ".repeat(i);
+        }
+    }
+
+    private final PrintStream out;
+
+    /**
+     * Creates a printer.
+     *
+     * @param out the stream to print to; buffering it is up to the caller.
+     */
+    public TablePrinter(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Prints all rows.
+     *
+     * @param rows the rows.
+     * @return the number of printed rows.
+     */
+    public long print(Iterator<?> rows) {
+        long count = 0;
+        Class<?> headerType = null;
+        while (rows.hasNext()) {
+            Object row = rows.next();
+            Class<?> type = row == null ? null : row.getClass();
+            if (type != headerType) {
+                printHeader(row);
+                headerType = type;
+            }
+            printRow(row);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Prints a car row.
+     *
+     * @param car the car.
+     */
+    public void printCar(Car car) {
+        int[] widths = CAR_WIDTHS;
+        cell(car.getId(), widths[0]);
+        cell(car.getBrandName(), widths[1]);
+        cell(car.getModelName(), widths[2]);
+        cell(car.getProdYear(), widths[3]);
+        cell(car.getStateDesc(), widths[4]);
+        out.print(car.isAvailable() ? "да" : "нет");
+        out.println();
+    }
+
+    /**
+     * Prints a request row.
+     *
+     * @param request the request.
+     */
+    public void printRequest(Request request) {
+        int[] widths = REQUEST_WIDTHS;
+        cell(request.getId(), widths[0]);
+        cell(request.getUser() == null ? null : request.getUser().getUsername(), widths[1]);
+        cell(request.getCarId(), widths[2]);
+        cell(request.getRequestType() == null ? null : request.getRequestType().name(), widths[3]);
+        cell(request.getRequestStatus() == null ? null : request.getRequestStatus().name(), widths[4]);
+        cell(request.getCreationTime(), widths[5]);
+        if (request.getCompletionTime() != null) {
+            DATE_TIME.formatTo(request.getCompletionTime(), out);
+        } else {
+            out.print('-');
+        }
+        out.println();
+    }
+
+    /**
+     * Prints a user row.
+     *
+     * @param user the user.
+     */
+    public void printUser(User user) {
+        int[] widths = USER_WIDTHS;
+        cell(user.getUsername(), widths[0]);
+        cell(user.getFullName(), widths[1]);
+        out.print(user.getRole() == null ? "-" : user.getRole().name());
+        out.println();
+    }
+
+    private void printHeader(Object row) {
+        if (row instanceof Car) {
+            header(CAR_HEADERS, CAR_WIDTHS);
+        } else if (row instanceof Request) {
+            header(REQUEST_HEADERS, REQUEST_WIDTHS);
+        } else if (row instanceof User) {
+            header(USER_HEADERS, USER_WIDTHS);
+        }
+    }
+
+    private void printRow(Object row) {
+        if (row instanceof Car car) {
+            printCar(car);
+        } else if (row instanceof Request request) {
+            printRequest(request);
+        } else if (row instanceof User user) {
+            printUser(user);
+        } else {
+            out.println(row);
+        }
+    }
+
+    private void header(String[] headers, int[] widths) {
+        for (int i = 0; i < headers.length - 1; i++) {
+            cell(headers[i], widths[i]);
+        }
+        out.print(headers[headers.length - 1]);
+        out.println();
+    }
+
+    private void cell(String value, int width) {
+        String text = value == null ? "-" : value;
+        int length = text.length();
+        if (length > width - GAP) {
+            out.append(text, 0, width - GAP - 1).append('~');
+            length = width - GAP;
+        } else {
+            out.print(text);
+        }
+        pad(width - length);
+    }
+
+    private void cell(int value, int width) {
+        out.print(value);
+        pad(width - digits(value));
+    }
+
+    private void cell(LocalDateTime value, int width) {
+        if (value == null) {
+            out.print('-');
+            pad(width - 1);
+        } else {
+            DATE_TIME.formatTo(value, out);
+            pad(width - DATE_TIME_LENGTH);
+        }
+    }
+
+    private void pad(int count) {
+        int remaining = Math.max(count, GAP);
+        while (remaining > 0) {
+            int chunk = Math.min(remaining, PADDING.length - 1);
+            out.print(PADDING[chunk]);
+            remaining -= chunk;
+        }
+    }
+
+    private static int digits(int value) {
+        int digits = value < 0 ? 2 : 1;
+        long magnitude = Math.abs((long) value);
+        while (magnitude >= 10) {
+            magnitude /= 10;
+            digits++;
+        }
+        return digits;
+    }
+}
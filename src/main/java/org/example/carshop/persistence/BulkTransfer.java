@@ -0,0 +1,369 @@
+package org.example.carshop.persistence;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Bulk import and export of entities in {@link TransferFormat CSV and binary} files.
+ * <p>
+ * Files are read sequentially through a {@link FileChannel} in chunks of whole records: CSV is cut at the
+ * last complete record of every few megabytes, binary files consist of length-prefixed blocks of records.
+ * The chunks are parsed in parallel on one thread per core, and the parsed batches are handed to the sink
+ * on the calling thread in file order, so the sink may store them without synchronization and a later record
+ * overrides an earlier one with the same key. Only a few chunks per thread are in flight at a time, so memory
+ * use does not depend on the file size.
+ * <p>
+ * Binary files start with a header naming the entity, so a file of one entity is never read as another.
+ */
+public final class BulkTransfer {
+    private static final int MAGIC = 0x43534258;
+    private static final byte VERSION = 1;
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final int BLOCK_SIZE = 1024 * 1024;
+    private static final int MAX_BLOCK_SIZE = 256 * 1024 * 1024;
+    private static final int BLOCK_HEADER_SIZE = 8;
+
+    private BulkTransfer() {
+    }
+
+    /**
+     * Writes entities to a file, replacing its contents.
+     *
+     * @param file   the file to write.
+     * @param format the format of the file.
+     * @param codec  the codec of the entities.
+     * @param values the entities to write.
+     * @param <T>    type of the entities.
+     * @return the number of written entities.
+     * @throws IOException if the file cannot be written.
+     */
+    public static <T> long write(Path file, TransferFormat format, TransferCodec<T> codec, Iterator<? extends T> values)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            return format == TransferFormat.CSV ? writeCsv(channel, codec, values) : writeBinary(channel, codec, values);
+        }
+    }
+
+    /**
+     * Reads entities from a file, passing them to the sink in batches in file order.
+     *
+     * @param file   the file to read.
+     * @param format the format of the file.
+     * @param codec  the codec of the entities.
+     * @param sink   receives the batches of entities on the calling thread.
+     * @param <T>    type of the entities.
+     * @return the number of read entities.
+     * @throws IOException if the file cannot be read or is malformed; the batches before the malformed
+     *                     record may have been passed to the sink already.
+     */
+    public static <T> long read(Path file, TransferFormat format, TransferCodec<T> codec, Consumer<? super List<T>> sink)
+            throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService parsers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "carshop-import-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ChunkSource<T> chunks = format == TransferFormat.CSV
+                    ? new CsvChunks<>(channel, codec)
+                    : new BinaryChunks<>(channel, codec);
+            Queue<Future<List<T>>> inFlight = new ArrayDeque<>();
+            long count = 0;
+            Callable<List<T>> chunk;
+            while ((chunk = chunks.next()) != null) {
+                if (inFlight.size() == threads * 2) {
+                    count += deliver(inFlight.remove(), sink);
+                }
+                inFlight.add(parsers.submit(chunk));
+            }
+            while (!inFlight.isEmpty()) {
+                count += deliver(inFlight.remove(), sink);
+            }
+            return count;
+        } finally {
+            parsers.shutdownNow();
+        }
+    }
+
+    private static <T> int deliver(Future<List<T>> parsed, Consumer<? super List<T>> sink) throws IOException {
+        List<T> batch;
+        try {
+            batch = parsed.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException(e.getCause());
+        }
+        if (!batch.isEmpty()) {
+            sink.accept(batch);
+        }
+        return batch.size();
+    }
+
+    private static <T> long writeCsv(FileChannel channel, TransferCodec<T> codec, Iterator<? extends T> values)
+            throws IOException {
+        Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), 64 * 1024);
+        StringBuilder line = new StringBuilder(256);
+        Csv.appendRecord(line, codec.columns());
+        writer.append(line);
+        String[] fields = new String[codec.columns().length];
+        long count = 0;
+        while (values.hasNext()) {
+            Arrays.fill(fields, null);
+            codec.toFields(values.next(), fields);
+            line.setLength(0);
+            Csv.appendRecord(line, fields);
+            writer.append(line);
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static <T> long writeBinary(FileChannel channel, TransferCodec<T> codec, Iterator<? extends T> values)
+            throws IOException {
+        RecordBuffer buffer = new RecordBuffer();
+        buffer.putInt(MAGIC);
+        buffer.putByte(VERSION);
+        buffer.putString(codec.entity());
+        writeFully(channel, ByteBuffer.wrap(buffer.array(), 0, buffer.size()));
+
+        ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+        long count = 0;
+        int blockCount = 0;
+        buffer.reset();
+        while (values.hasNext()) {
+            codec.write(buffer, values.next());
+            blockCount++;
+            count++;
+            if (buffer.size() >= BLOCK_SIZE || !values.hasNext()) {
+                blockHeader.clear();
+                blockHeader.putInt(blockCount).putInt(buffer.size()).flip();
+                writeFully(channel, blockHeader);
+                writeFully(channel, ByteBuffer.wrap(buffer.array(), 0, buffer.size()));
+                buffer.reset();
+                blockCount = 0;
+            }
+        }
+        return count;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Reads until the buffer is full or the channel is exhausted.
+     *
+     * @return the number of bytes read, less than the remaining space only at the end of the channel.
+     */
+    private static int readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * Cuts a file into independently parsable chunks.
+     */
+    private interface ChunkSource<T> {
+
+        /**
+         * @return the task parsing the next chunk, or null at the end of the file.
+         */
+        Callable<List<T>> next() throws IOException;
+    }
+
+    private static final class CsvChunks<T> implements ChunkSource<T> {
+        private final FileChannel channel;
+        private final TransferCodec<T> codec;
+        private final String[] columns;
+        private byte[] buffer = new byte[CHUNK_SIZE];
+        private int filled;
+        private long offset;
+        private boolean exhausted;
+
+        private CsvChunks(FileChannel channel, TransferCodec<T> codec) {
+            this.channel = channel;
+            this.codec = codec;
+            this.columns = codec.columns();
+        }
+
+        @Override
+        public Callable<List<T>> next() throws IOException {
+            while (true) {
+                if (!exhausted) {
+                    int space = buffer.length - filled;
+                    int read = readFully(channel, ByteBuffer.wrap(buffer, filled, space));
+                    filled += read;
+                    exhausted = read < space;
+                }
+                if (filled == 0) {
+                    return null;
+                }
+                int end = exhausted ? filled : Csv.completeRecordsEnd(buffer, filled);
+                if (end == 0) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    continue;
+                }
+                byte[] chunk = buffer;
+                long chunkOffset = offset;
+                int remainder = filled - end;
+                buffer = new byte[Math.max(CHUNK_SIZE, remainder * 2)];
+                System.arraycopy(chunk, end, buffer, 0, remainder);
+                filled = remainder;
+                offset += end;
+                return () -> parse(chunk, end, chunkOffset);
+            }
+        }
+
+        private List<T> parse(byte[] chunk, int end, long chunkOffset) throws IOException {
+            List<T> values = new ArrayList<>();
+            String[] fields = new String[columns.length];
+            int position = 0;
+            if (chunkOffset == 0) {
+                position = parseHeader(chunk, end, fields);
+            }
+            while (position < end) {
+                int start = Csv.skipBlankLine(chunk, position, end);
+                if (start != position) {
+                    position = start;
+                    continue;
+                }
+                try {
+                    position = Csv.parseRecord(chunk, start, end, fields);
+                    values.add(codec.fromFields(fields));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Malformed " + codec.entity() + " record at byte " + (chunkOffset + start)
+                            + ": " + e.getMessage(), e);
+                }
+            }
+            return values;
+        }
+
+        private int parseHeader(byte[] chunk, int end, String[] fields) throws IOException {
+            int position = end >= 3 && chunk[0] == (byte) 0xEF && chunk[1] == (byte) 0xBB && chunk[2] == (byte) 0xBF ? 3 : 0;
+            try {
+                position = Csv.parseRecord(chunk, position, end, fields);
+            } catch (IllegalArgumentException e) {
+                fields[0] = null;
+            }
+            if (!Arrays.equals(fields, columns)) {
+                throw new IOException("Not a CSV file of " + codec.entity() + ", expected the header "
+                        + String.join(",", columns));
+            }
+            return position;
+        }
+    }
+
+    private static final class BinaryChunks<T> implements ChunkSource<T> {
+        private final FileChannel channel;
+        private final TransferCodec<T> codec;
+        private final ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+        private boolean headerRead;
+
+        private BinaryChunks(FileChannel channel, TransferCodec<T> codec) {
+            this.channel = channel;
+            this.codec = codec;
+        }
+
+        @Override
+        public Callable<List<T>> next() throws IOException {
+            if (!headerRead) {
+                readHeader();
+                headerRead = true;
+            }
+            long blockOffset = channel.position();
+            blockHeader.clear();
+            int read = readFully(channel, blockHeader);
+            if (read == 0) {
+                return null;
+            }
+            if (read < BLOCK_HEADER_SIZE) {
+                throw new IOException("Truncated block at byte " + blockOffset);
+            }
+            blockHeader.flip();
+            int count = blockHeader.getInt();
+            int length = blockHeader.getInt();
+            if (count < 0 || length < 0 || length > MAX_BLOCK_SIZE) {
+                throw new IOException("Corrupt block header at byte " + blockOffset);
+            }
+            byte[] payload = new byte[length];
+            if (readFully(channel, ByteBuffer.wrap(payload)) < length) {
+                throw new IOException("Truncated block at byte " + blockOffset);
+            }
+            return () -> decode(payload, count, blockOffset);
+        }
+
+        private List<T> decode(byte[] payload, int count, long blockOffset) throws IOException {
+            ByteBuffer in = ByteBuffer.wrap(payload);
+            List<T> values = new ArrayList<>(count);
+            try {
+                for (int i = 0; i < count; i++) {
+                    values.add(codec.read(in));
+                }
+            } catch (RuntimeException e) {
+                throw new IOException("Corrupt block at byte " + blockOffset, e);
+            }
+            if (in.hasRemaining()) {
+                throw new IOException("Corrupt block at byte " + blockOffset + ": unread bytes after the last record");
+            }
+            return values;
+        }
+
+        private void readHeader() throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(9);
+            if (readFully(channel, header) < header.capacity() || header.getInt(0) != MAGIC) {
+                throw new IOException("Not a bulk transfer file");
+            }
+            if (header.get(4) != VERSION) {
+                throw new IOException("Unsupported bulk transfer file version " + header.get(4));
+            }
+            int length = header.getInt(5);
+            ByteBuffer name = ByteBuffer.allocate(Math.max(0, Math.min(length, 256)));
+            readFully(channel, name);
+            String entity = new String(name.array(), 0, name.position(), StandardCharsets.UTF_8);
+            if (length != name.capacity() || !entity.equals(codec.entity())) {
+                throw new IOException("Not a bulk transfer file of " + codec.entity() + ": " + entity);
+            }
+        }
+    }
+}
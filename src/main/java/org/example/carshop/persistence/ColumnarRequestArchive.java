@@ -0,0 +1,526 @@
+package org.example.carshop.persistence;
+
+import org.example.carshop.model.Request;
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.RequestStatus;
+import org.example.carshop.model.enums.RequestTimestamp;
+import org.example.carshop.model.enums.RequestType;
+import org.example.carshop.repository.AtomicBitSet;
+import org.example.carshop.repository.IdWindow;
+import org.example.carshop.repository.IntIntHashMap;
+import org.example.carshop.repository.RequestArchive;
+import org.example.carshop.repository.RequestFilter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * Request archive stored column by column in memory-mapped files, so archived requests cost no heap
+ * beyond an ID-to-row map, row indexes and the username dictionary.
+ * <p>
+ * Every archived request occupies a row: its ID and car ID in int columns, its creation and completion
+ * times as UTC epoch seconds in long columns, its type and status ordinals in byte columns and its
+ * username as a code of the {@link UsernameDictionary}. Sub-second parts of the times are not archived.
+ * A removed or replaced request keeps its row, marked as deleted, until deleted rows make up half of the
+ * archive; the live rows are then moved together in row order and the rest of the columns is left unused.
+ * <p>
+ * Lookups by car, user, status and day of creation or completion read the rows listed under the key in an
+ * in-heap index instead of scanning the columns; the indexes are rebuilt from the columns on opening and on
+ * compaction. Membership of an ID is kept in a lock-free bitset, so {@link #contains}, and {@link #remove}
+ * or {@link #find} of a request that is not archived, take no lock.
+ * <p>
+ * Writes take the write lock of a read-write lock and lookups its read lock.
+ * Changes reach the disk when the pages are written back by the operating system, or on {@link #force()}.
+ */
+public class ColumnarRequestArchive implements RequestArchive, Closeable {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NO_USER = -1;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final byte NO_ENUM = -1;
+    private static final long SECONDS_PER_DAY = 86_400;
+
+    private final MappedColumn rowCount;
+    private final MappedColumn ids;
+    private final MappedColumn carIds;
+    private final MappedColumn userCodes;
+    private final MappedColumn creationTimes;
+    private final MappedColumn completionTimes;
+    private final MappedColumn types;
+    private final MappedColumn statuses;
+    private final MappedColumn deleted;
+    private final UsernameDictionary usernames;
+    private final Function<String, User> users;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBitSet members = new AtomicBitSet();
+    private final IntIntHashMap rowsById = new IntIntHashMap();
+    private final Map<Integer, Rows> rowsByCar = new HashMap<>();
+    private final Map<Integer, Rows> rowsByUser = new HashMap<>();
+    private final Map<Byte, Rows> rowsByStatus = new HashMap<>();
+    private final NavigableMap<Long, Rows> rowsByCreationDay = new TreeMap<>();
+    private final NavigableMap<Long, Rows> rowsByCompletionDay = new TreeMap<>();
+    private int rows;
+    private int deletedRows;
+    private volatile int maxId;
+
+    private ColumnarRequestArchive(Path directory, Function<String, User> users) throws IOException {
+        this.users = users;
+        this.rowCount = new MappedColumn(directory.resolve("rows.col"), 4, 1);
+        this.ids = new MappedColumn(directory.resolve("id.col"), 4, INITIAL_CAPACITY);
+        this.carIds = new MappedColumn(directory.resolve("car_id.col"), 4, INITIAL_CAPACITY);
+        this.userCodes = new MappedColumn(directory.resolve("user.col"), 4, INITIAL_CAPACITY);
+        this.creationTimes = new MappedColumn(directory.resolve("creation_time.col"), 8, INITIAL_CAPACITY);
+        this.completionTimes = new MappedColumn(directory.resolve("completion_time.col"), 8, INITIAL_CAPACITY);
+        this.types = new MappedColumn(directory.resolve("type.col"), 1, INITIAL_CAPACITY);
+        this.statuses = new MappedColumn(directory.resolve("status.col"), 1, INITIAL_CAPACITY);
+        this.deleted = new MappedColumn(directory.resolve("deleted.col"), 1, INITIAL_CAPACITY);
+        this.usernames = new UsernameDictionary(directory.resolve("usernames.dict"));
+
+        int stored = rowCount.getInt(0);
+        int highest = 0;
+        for (int row = 0; row < stored; row++) {
+            int id = ids.getInt(row);
+            highest = Math.max(highest, id);
+            if (deleted.getByte(row) == 0 && rowsById.get(id) >= 0) {
+                // Left behind by an interrupted compaction: the earlier row holds the same request.
+                deleted.putByte(row, (byte) 1);
+            }
+            if (deleted.getByte(row) == 0) {
+                rowsById.put(id, row);
+                members.set(id);
+            } else {
+                deletedRows++;
+            }
+        }
+        this.rows = stored;
+        this.maxId = highest;
+        if (!compactIfSparse()) {
+            reindex();
+        }
+    }
+
+    /**
+     * Opens the archive stored in the given directory.
+     *
+     * @param directory the directory holding the column files, created if it does not exist.
+     * @param users     resolves archived usernames to the users of the requests.
+     * @return the opened archive.
+     * @throws IOException if the column files cannot be read or written.
+     */
+    public static ColumnarRequestArchive open(Path directory, Function<String, User> users) throws IOException {
+        Files.createDirectories(directory);
+        return new ColumnarRequestArchive(directory, users);
+    }
+
+    @Override
+    public void add(Request request) {
+        lock.writeLock().lock();
+        try {
+            delete(request.getId());
+            int row = rows;
+            ensureCapacity(row + 1);
+            ids.putInt(row, request.getId());
+            carIds.putInt(row, request.getCarId());
+            userCodes.putInt(row, request.getUser() == null ? NO_USER : usernames.encode(request.getUser().getUsername()));
+            creationTimes.putLong(row, toEpochSecond(request.getCreationTime()));
+            completionTimes.putLong(row, toEpochSecond(request.getCompletionTime()));
+            types.putByte(row, ordinal(request.getRequestType()));
+            statuses.putByte(row, ordinal(request.getRequestStatus()));
+            deleted.putByte(row, (byte) 0);
+            rowCount.putInt(0, row + 1);
+            rowsById.put(request.getId(), row);
+            rows = row + 1;
+            index(row);
+            members.set(request.getId());
+            maxId = Math.max(maxId, request.getId());
+            compactIfSparse();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(int requestId) {
+        if (!members.get(requestId)) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            boolean removed = delete(requestId);
+            compactIfSparse();
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(int requestId) {
+        return members.get(requestId);
+    }
+
+    @Override
+    public int maxId() {
+        return maxId;
+    }
+
+    @Override
+    public Request find(int requestId) {
+        if (!members.get(requestId)) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            int row = rowsById.get(requestId);
+            return row < 0 ? null : materialize(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Request> findAll() {
+        return scan(null, this::forEachRow);
+    }
+
+    @Override
+    public List<Request> findByCar(RequestType requestType, int carId) {
+        return scan(requestType, byCar(carId));
+    }
+
+    @Override
+    public List<Request> findByUser(RequestType requestType, String username) {
+        return scan(requestType, byUser(username));
+    }
+
+    @Override
+    public List<Request> findByStatus(RequestType requestType, RequestStatus requestStatus) {
+        return scan(requestType, byStatus(requestStatus));
+    }
+
+    @Override
+    public List<Request> findByDateRange(RequestType requestType, LocalDate from, LocalDate to,
+                                         RequestTimestamp timestamp) {
+        return scan(requestType, byDateRange(from, to, timestamp));
+    }
+
+    /**
+     * Walks the rows listed under the filtered key, keeping only the IDs of the page in an {@link IdWindow},
+     * and materializes just the requests of the page.
+     */
+    @Override
+    public List<Request> findAfter(RequestFilter filter, Integer afterId, int limit) {
+        RowSource source = switch (filter.criterion()) {
+            case ALL -> this::forEachRow;
+            case CAR -> byCar(filter.carId());
+            case USER -> byUser(filter.username());
+            case STATUS -> byStatus(filter.requestStatus());
+            case DATE -> byDateRange(filter.date(), filter.toDate(), filter.timestamp());
+        };
+        List<Request> requests = new ArrayList<>();
+        if (source == null) {
+            return requests;
+        }
+        lock.readLock().lock();
+        try {
+            IdWindow window = new IdWindow(afterId, limit);
+            forEachMatch(filter.requestType(), source, row -> window.offer(ids.getInt(row)));
+            for (int id : window.toSortedArray()) {
+                requests.add(materialize(rowsById.get(id)));
+            }
+            return requests;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes all changes of the archive to disk.
+     */
+    public void force() {
+        lock.readLock().lock();
+        try {
+            for (MappedColumn column : columns()) {
+                column.force();
+            }
+            usernames.force();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (MappedColumn column : columns()) {
+                column.close();
+            }
+            usernames.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<Request> scan(RequestType requestType, RowSource source) {
+        List<Request> requests = new ArrayList<>();
+        if (source != null) {
+            lock.readLock().lock();
+            try {
+                forEachMatch(requestType, source, row -> requests.add(materialize(row)));
+            } finally {
+                lock.readLock().unlock();
+            }
+            requests.sort(Comparator.comparingInt(Request::getId));
+        }
+        return requests;
+    }
+
+    /**
+     * Passes the live rows of the given type among the rows of the source to the action.
+     * Must be called under a lock.
+     */
+    private void forEachMatch(RequestType requestType, RowSource source, IntConsumer action) {
+        byte type = ordinal(requestType);
+        source.forEach(row -> {
+            if (deleted.getByte(row) == 0 && (requestType == null || types.getByte(row) == type)) {
+                action.accept(row);
+            }
+        });
+    }
+
+    private void forEachRow(IntConsumer action) {
+        for (int row = 0; row < rows; row++) {
+            action.accept(row);
+        }
+    }
+
+    private RowSource byCar(int carId) {
+        return action -> forEach(rowsByCar.get(carId), action);
+    }
+
+    /**
+     * @return the source, or null if no request can match.
+     */
+    private RowSource byUser(String username) {
+        int code = username == null ? NO_USER : usernames.codeOf(username);
+        return code == NO_USER ? null : action -> forEach(rowsByUser.get(code), action);
+    }
+
+    private RowSource byStatus(RequestStatus requestStatus) {
+        if (requestStatus == null) {
+            return null;
+        }
+        byte ordinal = ordinal(requestStatus);
+        return action -> forEach(rowsByStatus.get(ordinal), action);
+    }
+
+    /**
+     * Lists the rows of the days of the range; a row found by both timestamps is listed once,
+     * under its creation day.
+     *
+     * @return the source, or null if no request can match.
+     */
+    private RowSource byDateRange(LocalDate from, LocalDate to, RequestTimestamp timestamp) {
+        if (from == null || to == null || from.isAfter(to)) {
+            return null;
+        }
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        boolean creation = timestamp != RequestTimestamp.COMPLETION;
+        boolean completion = timestamp != RequestTimestamp.CREATION;
+        return action -> {
+            if (creation) {
+                rowsByCreationDay.subMap(fromDay, true, toDay, true).values()
+                        .forEach(rowsOfDay -> forEach(rowsOfDay, action));
+            }
+            if (completion) {
+                rowsByCompletionDay.subMap(fromDay, true, toDay, true).values()
+                        .forEach(rowsOfDay -> forEach(rowsOfDay, row -> {
+                            long creationDay = day(creationTimes.getLong(row));
+                            if (!creation || creationDay < fromDay || creationDay > toDay) {
+                                action.accept(row);
+                            }
+                        }));
+            }
+        };
+    }
+
+    private static void forEach(Rows rowsOfKey, IntConsumer action) {
+        if (rowsOfKey != null) {
+            for (int i = 0; i < rowsOfKey.size; i++) {
+                action.accept(rowsOfKey.rows[i]);
+            }
+        }
+    }
+
+    /**
+     * Marks the row of the request as deleted. Must be called under the write lock.
+     */
+    private boolean delete(int requestId) {
+        int row = rowsById.remove(requestId);
+        if (row < 0) {
+            return false;
+        }
+        members.clear(requestId);
+        deleted.putByte(row, (byte) 1);
+        deletedRows++;
+        return true;
+    }
+
+    /**
+     * Moves the live rows together once deleted rows make up half of the archive. Each row is copied before
+     * its old row is marked as deleted, so an interrupted compaction leaves at most duplicates behind, which
+     * are dropped on opening. Must be called under the write lock or from the constructor.
+     *
+     * @return true if the archive was compacted.
+     */
+    private boolean compactIfSparse() {
+        if (deletedRows < INITIAL_CAPACITY || deletedRows * 2 < rows) {
+            return false;
+        }
+        int live = 0;
+        for (int row = 0; row < rows; row++) {
+            if (deleted.getByte(row) != 0) {
+                continue;
+            }
+            if (row != live) {
+                for (MappedColumn column : columns()) {
+                    if (column != rowCount && column != deleted) {
+                        column.copy(row, live);
+                    }
+                }
+                deleted.putByte(live, (byte) 0);
+                deleted.putByte(row, (byte) 1);
+                rowsById.put(ids.getInt(live), live);
+            }
+            live++;
+        }
+        rowCount.putInt(0, live);
+        rows = live;
+        deletedRows = 0;
+        reindex();
+        return true;
+    }
+
+    /**
+     * Rebuilds the row indexes from the live rows.
+     */
+    private void reindex() {
+        for (Map<?, Rows> index : List.of(rowsByCar, rowsByUser, rowsByStatus, rowsByCreationDay, rowsByCompletionDay)) {
+            index.clear();
+        }
+        for (int row = 0; row < rows; row++) {
+            if (deleted.getByte(row) == 0) {
+                index(row);
+            }
+        }
+    }
+
+    private void index(int row) {
+        rowsByCar.computeIfAbsent(carIds.getInt(row), key -> new Rows()).add(row);
+        int userCode = userCodes.getInt(row);
+        if (userCode != NO_USER) {
+            rowsByUser.computeIfAbsent(userCode, key -> new Rows()).add(row);
+        }
+        rowsByStatus.computeIfAbsent(statuses.getByte(row), key -> new Rows()).add(row);
+        long creationTime = creationTimes.getLong(row);
+        if (creationTime != NO_TIME) {
+            rowsByCreationDay.computeIfAbsent(day(creationTime), key -> new Rows()).add(row);
+        }
+        long completionTime = completionTimes.getLong(row);
+        if (completionTime != NO_TIME) {
+            rowsByCompletionDay.computeIfAbsent(day(completionTime), key -> new Rows()).add(row);
+        }
+    }
+
+    private Request materialize(int row) {
+        int userCode = userCodes.getInt(row);
+        User user = userCode == NO_USER ? null : users.apply(usernames.decode(userCode));
+        LocalDateTime creationTime = toDateTime(creationTimes.getLong(row));
+        LocalDateTime completionTime = toDateTime(completionTimes.getLong(row));
+        Request request = new Request(user, carIds.getInt(row), creationTime, completionTime,
+                fromOrdinal(types.getByte(row), RequestType.values()), null);
+        request.setId(ids.getInt(row));
+        request.setCreationTime(creationTime);
+        request.setCompletionTime(completionTime);
+        request.setRequestStatus(fromOrdinal(statuses.getByte(row), RequestStatus.values()));
+        return request;
+    }
+
+    private void ensureCapacity(int capacity) throws IOException {
+        for (MappedColumn column : columns()) {
+            if (column != rowCount) {
+                column.ensureCapacity(capacity);
+            }
+        }
+    }
+
+    private MappedColumn[] columns() {
+        return new MappedColumn[]{rowCount, ids, carIds, userCodes, creationTimes, completionTimes, types, statuses,
+                deleted};
+    }
+
+    private static long day(long epochSecond) {
+        return Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+    }
+
+    private static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime == null ? NO_TIME : dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toDateTime(long epochSecond) {
+        return epochSecond == NO_TIME ? null : LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    private static byte ordinal(Enum<?> value) {
+        return value == null ? NO_ENUM : (byte) value.ordinal();
+    }
+
+    private static <E extends Enum<E>> E fromOrdinal(byte ordinal, E[] values) {
+        return ordinal < 0 ? null : values[ordinal];
+    }
+
+    /**
+     * Candidate rows of a lookup, possibly deleted or of another type.
+     */
+    @FunctionalInterface
+    private interface RowSource {
+        void forEach(IntConsumer action);
+    }
+
+    /**
+     * Growable list of the rows of an index key, in row order.
+     */
+    private static final class Rows {
+        private int[] rows = new int[4];
+        private int size;
+
+        void add(int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size++] = row;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.example.carshop.persistence;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reading and writing of CSV records as used by bulk transfer files.
+ * A record is one line unless a quoted field spans lines; an empty field stands for null and
+ * {@code ""} for an empty string. Records are parsed straight from UTF-8 bytes.
+ */
+final class Csv {
+
+    private Csv() {
+    }
+
+    /**
+     * Appends a record followed by a line break.
+     *
+     * @param line   the builder to append to.
+     * @param fields the fields of the record; null fields are written empty.
+     */
+    static void appendRecord(StringBuilder line, String[] fields) {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            String field = fields[i];
+            if (field == null) {
+                continue;
+            }
+            if (field.isEmpty() || needsQuotes(field)) {
+                line.append('"');
+                for (int j = 0; j < field.length(); j++) {
+                    char c = field.charAt(j);
+                    if (c == '"') {
+                        line.append('"');
+                    }
+                    line.append(c);
+                }
+                line.append('"');
+            } else {
+                line.append(field);
+            }
+        }
+        line.append('\n');
+    }
+
+    /**
+     * Finds the end of the last complete record in the data, i.e. the position after its line break.
+     * The data must start at the beginning of a record.
+     *
+     * @param data   the data.
+     * @param length the number of bytes of the data.
+     * @return the position after the last complete record, or 0 if the data holds no complete record.
+     */
+    static int completeRecordsEnd(byte[] data, int length) {
+        boolean quoted = false;
+        int end = 0;
+        for (int i = 0; i < length; i++) {
+            byte b = data[i];
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == '\n' && !quoted) {
+                end = i + 1;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Parses the record starting at the given position.
+     *
+     * @param data     the data.
+     * @param position the position the record starts at.
+     * @param end      the end of the data.
+     * @param fields   the array to fill; the record must have exactly as many fields.
+     * @return the position after the record and its line break.
+     * @throws IllegalArgumentException if the record is malformed.
+     */
+    static int parseRecord(byte[] data, int position, int end, String[] fields) {
+        int field = 0;
+        while (true) {
+            if (field == fields.length) {
+                throw new IllegalArgumentException("more than " + fields.length + " fields");
+            }
+            if (position < end && data[position] == '"') {
+                int from = position + 1;
+                int i = from;
+                boolean escaped = false;
+                while (true) {
+                    if (i >= end) {
+                        throw new IllegalArgumentException("unterminated quoted field");
+                    }
+                    if (data[i] == '"') {
+                        if (i + 1 < end && data[i + 1] == '"') {
+                            escaped = true;
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                String value = new String(data, from, i - from, StandardCharsets.UTF_8);
+                fields[field++] = escaped ? value.replace("\"\"", "\"") : value;
+                position = i + 1;
+            } else {
+                int i = position;
+                while (i < end && data[i] != ',' && data[i] != '\n' && data[i] != '\r') {
+                    i++;
+                }
+                fields[field++] = i == position ? null : new String(data, position, i - position, StandardCharsets.UTF_8);
+                position = i;
+            }
+            if (position < end && data[position] == ',') {
+                position++;
+                continue;
+            }
+            if (position < end && data[position] == '\r') {
+                position++;
+            }
+            if (position < end && data[position] != '\n') {
+                throw new IllegalArgumentException("unexpected character after field " + field);
+            }
+            if (field != fields.length) {
+                throw new IllegalArgumentException("expected " + fields.length + " fields, found " + field);
+            }
+            return position < end ? position + 1 : position;
+        }
+    }
+
+    /**
+     * @return the position after the line break if a blank line starts at the position, otherwise the position.
+     */
+    static int skipBlankLine(byte[] data, int position, int end) {
+        if (position < end && data[position] == '\n') {
+            return position + 1;
+        }
+        if (position + 1 < end && data[position] == '\r' && data[position + 1] == '\n') {
+            return position + 2;
+        }
+        return position;
+    }
+
+    private static boolean needsQuotes(String field) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.carshop.persistence;
+
+/**
+ * Durability setting of the {@link WriteAheadLog}.
+ *
+ * @param syncIntervalMillis interval between log syncs in milliseconds, or 0 to sync before every write returns.
+ */
+public record Durability(long syncIntervalMillis) {
+
+    public Durability {
+        if (syncIntervalMillis < 0) {
+            throw new IllegalArgumentException("Sync interval must not be negative: " + syncIntervalMillis);
+        }
+    }
+
+    /**
+     * Every write returns only after it has been synced to disk.
+     * Concurrent writes are still synced together by one group commit.
+     *
+     * @return per-write durability.
+     */
+    public static Durability perWrite() {
+        return new Durability(0);
+    }
+
+    /**
+     * Writes return immediately and the log is synced every given number of milliseconds,
+     * so at most that much of the latest history can be lost on a crash.
+     *
+     * @param millis the interval between syncs.
+     * @return periodic durability.
+     */
+    public static Durability everyMillis(long millis) {
+        if (millis <= 0) {
+            throw new IllegalArgumentException("Sync interval must be positive: " + millis);
+        }
+        return new Durability(millis);
+    }
+
+    /**
+     * Parses the durability setting used in configuration: 0 for per-write, otherwise the sync interval.
+     *
+     * @param value the sync interval in milliseconds.
+     * @return the durability setting.
+     */
+    public static Durability parse(String value) {
+        return new Durability(Long.parseLong(value.trim()));
+    }
+
+    /**
+     * @return true if every write waits for its sync.
+     */
+    public boolean isPerWrite() {
+        return syncIntervalMillis == 0;
+    }
+}
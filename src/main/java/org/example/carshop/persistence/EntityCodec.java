@@ -0,0 +1,123 @@
+package org.example.carshop.persistence;
+
+import org.example.carshop.model.Car;
+import org.example.carshop.model.Request;
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.RequestStatus;
+import org.example.carshop.model.enums.RequestType;
+import org.example.carshop.model.enums.UserRole;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.Function;
+
+/**
+ * Binary encoding of the model entities used by the write-ahead log.
+ * Enums are stored by ordinal, -1 standing for null; times are stored as UTC epoch seconds and nanos.
+ */
+public final class EntityCodec {
+
+    private EntityCodec() {
+    }
+
+    public static void writeCar(RecordBuffer out, Car car) {
+        out.putInt(car.getId());
+        out.putString(car.getModelName());
+        out.putString(car.getBrandName());
+        out.putString(car.getProdYear());
+        out.putString(car.getStateDesc());
+        out.putBoolean(car.isAvailable());
+    }
+
+    public static Car readCar(ByteBuffer in) {
+        return new Car(in.getInt(), getString(in), getString(in), getString(in), getString(in), in.get() != 0);
+    }
+
+    public static void writeUser(RecordBuffer out, User user) {
+        out.putString(user.getUsername());
+        out.putString(user.getPassword());
+        out.putString(user.getFullName());
+        putEnum(out, user.getRole());
+    }
+
+    public static User readUser(ByteBuffer in) {
+        return new User(getString(in), getString(in), getString(in), getEnum(in, UserRole.values()));
+    }
+
+    /**
+     * Writes a request; its user is stored by username only.
+     *
+     * @param out     the buffer to write to.
+     * @param request the request to write.
+     */
+    public static void writeRequest(RecordBuffer out, Request request) {
+        out.putInt(request.getId());
+        out.putInt(request.getCarId());
+        out.putString(request.getUser() == null ? null : request.getUser().getUsername());
+        putDateTime(out, request.getCreationTime());
+        putDateTime(out, request.getCompletionTime());
+        putEnum(out, request.getRequestType());
+        putEnum(out, request.getRequestStatus());
+    }
+
+    /**
+     * Reads a request written by {@link #writeRequest}.
+     *
+     * @param in    the buffer to read from.
+     * @param users resolves a stored username to the user of the request.
+     * @return the request.
+     */
+    public static Request readRequest(ByteBuffer in, Function<String, User> users) {
+        int id = in.getInt();
+        int carId = in.getInt();
+        String username = getString(in);
+        LocalDateTime creationTime = getDateTime(in);
+        LocalDateTime completionTime = getDateTime(in);
+        RequestType requestType = getEnum(in, RequestType.values());
+        RequestStatus requestStatus = getEnum(in, RequestStatus.values());
+
+        Request request = new Request(username == null ? null : users.apply(username), carId,
+                creationTime, completionTime, requestType, requestStatus);
+        request.setId(id);
+        request.setCreationTime(creationTime);
+        request.setCompletionTime(completionTime);
+        request.setRequestStatus(requestStatus);
+        return request;
+    }
+
+    public static void putEnum(RecordBuffer out, Enum<?> value) {
+        out.putByte(value == null ? -1 : value.ordinal());
+    }
+
+    public static <E extends Enum<E>> E getEnum(ByteBuffer in, E[] values) {
+        byte ordinal = in.get();
+        return ordinal < 0 ? null : values[ordinal];
+    }
+
+    public static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static void putDateTime(RecordBuffer out, LocalDateTime dateTime) {
+        out.putBoolean(dateTime != null);
+        if (dateTime != null) {
+            out.putLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+            out.putInt(dateTime.getNano());
+        }
+    }
+
+    private static LocalDateTime getDateTime(ByteBuffer in) {
+        if (in.get() == 0) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC);
+    }
+}
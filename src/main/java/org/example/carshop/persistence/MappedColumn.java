@@ -0,0 +1,102 @@
+package org.example.carshop.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fixed-width column of values stored in a memory-mapped file.
+ * Values are read and written by row with absolute accessors, so concurrent readers need no locking;
+ * growing the column maps a larger region of the file and is expected to be serialized by the caller.
+ */
+class MappedColumn implements Closeable {
+    private final FileChannel channel;
+    private final int width;
+    private volatile MappedByteBuffer buffer;
+
+    /**
+     * Opens the column file, creating it with room for the given number of rows if it is smaller.
+     *
+     * @param file     the column file.
+     * @param width    the size of one value in bytes.
+     * @param capacity the minimal number of rows to map.
+     */
+    MappedColumn(Path file, int width, int capacity) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.width = width;
+        int rows = (int) Math.max(capacity, channel.size() / width);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) rows * width);
+    }
+
+    /**
+     * @return the number of rows the column can hold without growing.
+     */
+    int capacity() {
+        return buffer.capacity() / width;
+    }
+
+    /**
+     * Grows the column so that it can hold at least the given number of rows.
+     *
+     * @param rows the number of rows.
+     */
+    void ensureCapacity(int rows) throws IOException {
+        if (rows > capacity()) {
+            long size = (long) Math.max(rows, capacity() * 2) * width;
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    byte getByte(int row) {
+        return buffer.get(row);
+    }
+
+    void putByte(int row, byte value) {
+        buffer.put(row, value);
+    }
+
+    int getInt(int row) {
+        return buffer.getInt(row * 4);
+    }
+
+    void putInt(int row, int value) {
+        buffer.putInt(row * 4, value);
+    }
+
+    long getLong(int row) {
+        return buffer.getLong(row * 8);
+    }
+
+    void putLong(int row, long value) {
+        buffer.putLong(row * 8, value);
+    }
+
+    /**
+     * Copies the value of one row to another.
+     *
+     * @param from the row to copy.
+     * @param to   the row to overwrite.
+     */
+    void copy(int from, int to) {
+        MappedByteBuffer current = buffer;
+        for (int i = 0; i < width; i++) {
+            current.put(to * width + i, current.get(from * width + i));
+        }
+    }
+
+    /**
+     * Writes the changed pages of the column to disk.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+}
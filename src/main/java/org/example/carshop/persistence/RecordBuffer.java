@@ -0,0 +1,91 @@
+package org.example.carshop.persistence;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer used to encode record payloads.
+ * Instances are reused between records to avoid allocating a buffer per write.
+ */
+public class RecordBuffer {
+    private byte[] bytes = new byte[256];
+    private int size;
+
+    /**
+     * Discards the buffer contents.
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    /**
+     * @return the array holding the encoded bytes; only the first {@link #size()} bytes are meaningful.
+     */
+    public byte[] array() {
+        return bytes;
+    }
+
+    /**
+     * @return the number of encoded bytes.
+     */
+    public int size() {
+        return size;
+    }
+
+    public void putByte(int value) {
+        ensureCapacity(1);
+        bytes[size++] = (byte) value;
+    }
+
+    public void putBoolean(boolean value) {
+        putByte(value ? 1 : 0);
+    }
+
+    public void putShort(int value) {
+        ensureCapacity(2);
+        bytes[size++] = (byte) (value >>> 8);
+        bytes[size++] = (byte) value;
+    }
+
+    public void putInt(int value) {
+        ensureCapacity(4);
+        bytes[size++] = (byte) (value >>> 24);
+        bytes[size++] = (byte) (value >>> 16);
+        bytes[size++] = (byte) (value >>> 8);
+        bytes[size++] = (byte) value;
+    }
+
+    public void putLong(long value) {
+        putInt((int) (value >>> 32));
+        putInt((int) value);
+    }
+
+    public void putBytes(byte[] source, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(source, offset, bytes, size, length);
+        size += length;
+    }
+
+    /**
+     * Writes a nullable string as its UTF-8 length followed by the UTF-8 bytes; null is written as length -1.
+     *
+     * @param value the string to write.
+     */
+    public void putString(String value) {
+        if (value == null) {
+            putInt(-1);
+            return;
+        }
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        putInt(encoded.length);
+        ensureCapacity(encoded.length);
+        System.arraycopy(encoded, 0, bytes, size, encoded.length);
+        size += encoded.length;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (size + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+        }
+    }
+}
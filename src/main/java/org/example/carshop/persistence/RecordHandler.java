@@ -0,0 +1,18 @@
+package org.example.carshop.persistence;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Applies records read back from the {@link WriteAheadLog} on startup.
+ */
+@FunctionalInterface
+public interface RecordHandler {
+
+    /**
+     * Applies one record.
+     *
+     * @param type    the type of the record.
+     * @param payload the payload of the record, positioned at its start.
+     */
+    void handle(RecordType type, ByteBuffer payload);
+}
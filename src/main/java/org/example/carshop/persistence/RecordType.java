@@ -0,0 +1,54 @@
+package org.example.carshop.persistence;
+
+/**
+ * Types of records stored in the {@link WriteAheadLog}.
+ * Every record describes an idempotent change, so replaying a record twice has no further effect.
+ */
+public enum RecordType {
+    CAR_PUT(1),
+    CAR_REMOVE(2),
+    CAR_AVAILABILITY(3),
+    USER_PUT(4),
+    REQUEST_PUT(5),
+    REQUEST_REMOVE(6),
+    REQUEST_STATUS(7),
+    /**
+     * Records reported within one batch, stored together so that they are replayed all or not at all.
+     */
+    BATCH(8),
+    /**
+     * Leading part of a payload too large for one record; the record that follows carries the rest and the type.
+     */
+    FRAGMENT(9);
+
+    private static final RecordType[] BY_CODE = new RecordType[10];
+
+    static {
+        for (RecordType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final byte code;
+
+    RecordType(int code) {
+        this.code = (byte) code;
+    }
+
+    /**
+     * @return the code of the type stored in the log.
+     */
+    public byte code() {
+        return code;
+    }
+
+    /**
+     * Returns the record type with the given code.
+     *
+     * @param code the code stored in the log.
+     * @return the record type, or null if the code is unknown.
+     */
+    public static RecordType fromCode(byte code) {
+        return code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
@@ -0,0 +1,480 @@
+package org.example.carshop.persistence;
+
+import org.example.carshop.model.Car;
+import org.example.carshop.model.Request;
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.RequestStatus;
+import org.example.carshop.repository.RepositoryJournal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Durable storage of cars, users and requests backed by a {@link WriteAheadLog}.
+ * As a {@link RepositoryJournal} the engine appends every mutation of the repositories built over its maps to the log.
+ * <p>
+ * To keep startup time proportional to the live data rather than to the history, the engine periodically
+ * writes a snapshot of the maps and deletes the log segments the snapshot covers. A snapshot is taken
+ * after rolling the log to a new segment and while writers keep going, so it may already contain some
+ * mutations of the new segment; every record is idempotent, so replaying the segment over it is still correct.
+ * On open the latest snapshot is loaded and only the segments written after it are replayed.
+ * <p>
+ * Mutations reported between {@link #beginBatch()} and {@link #commitBatch()} are collected per thread and
+ * appended as a single {@link RecordType#BATCH} record, so after a crash either all of them are restored or none.
+ * An open batch holds the read lock of a read-write lock whose write lock a snapshot takes while it reads the maps,
+ * so a snapshot never holds part of a batch. The snapshot only tries the write lock instead of queueing for it,
+ * so writers beginning a batch while holding locks of their own never wait for it.
+ * <p>
+ * Completed requests can be kept in the {@link ColumnarRequestArchive} of the storage instead of the request map.
+ * The archive is forced to disk before a snapshot deletes the segments that logged its requests.
+ */
+public class StorageEngine implements RepositoryJournal, Closeable {
+    private static final Logger LOGGER = Logger.getLogger(StorageEngine.class.getName());
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d+)\\.bin");
+    private static final int SNAPSHOT_MAGIC = 0x43534E50;
+    private static final byte END_OF_SNAPSHOT = 0;
+
+    private final ConcurrentMap<Integer, Car> cars = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Request> requests = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, User> users = new ConcurrentHashMap<>();
+    private final ThreadLocal<RecordBuffer> buffers = ThreadLocal.withInitial(RecordBuffer::new);
+    private final ThreadLocal<RecordBuffer> openBatches = new ThreadLocal<>();
+    private final ReentrantReadWriteLock batchLock = new ReentrantReadWriteLock();
+    private final Path directory;
+    private WriteAheadLog log;
+    private ColumnarRequestArchive requestArchive;
+    private ScheduledExecutorService snapshotScheduler;
+
+    private StorageEngine(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens the storage in the given directory, restoring the data stored there.
+     * Snapshots are taken only when {@link #snapshot()} is called.
+     *
+     * @param directory  the directory holding the storage files, created if it does not exist.
+     * @param durability when mutations are synced to disk.
+     * @return the opened storage.
+     * @throws IOException if the storage files cannot be read or written.
+     */
+    public static StorageEngine open(Path directory, Durability durability) throws IOException {
+        return open(directory, durability, 0);
+    }
+
+    /**
+     * Opens the storage in the given directory, restoring the data stored there,
+     * and starts taking snapshots in the background.
+     *
+     * @param directory              the directory holding the storage files, created if it does not exist.
+     * @param durability             when mutations are synced to disk.
+     * @param snapshotIntervalMillis interval between snapshots in milliseconds, or 0 to take none in the background.
+     * @return the opened storage.
+     * @throws IOException if the storage files cannot be read or written.
+     */
+    public static StorageEngine open(Path directory, Durability durability, long snapshotIntervalMillis)
+            throws IOException {
+        Files.createDirectories(directory);
+        StorageEngine storage = new StorageEngine(directory);
+        storage.requestArchive = ColumnarRequestArchive.open(directory.resolve("archive"), storage::resolveUser);
+        long firstSegment = storage.loadLatestSnapshot();
+        storage.log = WriteAheadLog.open(directory, firstSegment, durability, storage::apply);
+        if (snapshotIntervalMillis > 0) {
+            storage.snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "carshop-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            storage.snapshotScheduler.scheduleWithFixedDelay(storage::snapshotIfChanged,
+                    snapshotIntervalMillis, snapshotIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        return storage;
+    }
+
+    /**
+     * @return the map of stored cars by their IDs.
+     */
+    public ConcurrentMap<Integer, Car> getCars() {
+        return cars;
+    }
+
+    /**
+     * @return the map of stored requests by their IDs.
+     */
+    public ConcurrentMap<Integer, Request> getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return the archive of completed requests.
+     */
+    public ColumnarRequestArchive getRequestArchive() {
+        return requestArchive;
+    }
+
+    /**
+     * @return the map of stored users by their usernames.
+     */
+    public ConcurrentMap<String, User> getUsers() {
+        return users;
+    }
+
+    @Override
+    public void carSaved(Car car) {
+        RecordBuffer buffer = buffer();
+        EntityCodec.writeCar(buffer, car);
+        append(RecordType.CAR_PUT, buffer);
+    }
+
+    @Override
+    public void carRemoved(int carId) {
+        RecordBuffer buffer = buffer();
+        buffer.putInt(carId);
+        append(RecordType.CAR_REMOVE, buffer);
+    }
+
+    @Override
+    public void carAvailabilityChanged(int carId, boolean isAvailable) {
+        RecordBuffer buffer = buffer();
+        buffer.putInt(carId);
+        buffer.putBoolean(isAvailable);
+        append(RecordType.CAR_AVAILABILITY, buffer);
+    }
+
+    @Override
+    public void requestSaved(Request request) {
+        RecordBuffer buffer = buffer();
+        EntityCodec.writeRequest(buffer, request);
+        append(RecordType.REQUEST_PUT, buffer);
+    }
+
+    @Override
+    public void requestRemoved(int requestId) {
+        RecordBuffer buffer = buffer();
+        buffer.putInt(requestId);
+        append(RecordType.REQUEST_REMOVE, buffer);
+    }
+
+    @Override
+    public void requestStatusChanged(int requestId, RequestStatus requestStatus) {
+        RecordBuffer buffer = buffer();
+        buffer.putInt(requestId);
+        EntityCodec.putEnum(buffer, requestStatus);
+        append(RecordType.REQUEST_STATUS, buffer);
+    }
+
+    @Override
+    public void userSaved(User user) {
+        RecordBuffer buffer = buffer();
+        EntityCodec.writeUser(buffer, user);
+        append(RecordType.USER_PUT, buffer);
+    }
+
+    /**
+     * Starts collecting the mutations reported by the calling thread into a batch.
+     *
+     * @throws IllegalStateException if the thread has a batch open already.
+     */
+    @Override
+    public void beginBatch() {
+        if (openBatches.get() != null) {
+            throw new IllegalStateException("A batch is already open");
+        }
+        batchLock.readLock().lock();
+        openBatches.set(new RecordBuffer());
+    }
+
+    /**
+     * Appends the batch of the calling thread to the log as one record and closes the batch.
+     */
+    @Override
+    public void commitBatch() {
+        RecordBuffer batch = openBatches.get();
+        if (batch == null) {
+            return;
+        }
+        openBatches.remove();
+        try {
+            if (batch.size() > 0) {
+                log.append(RecordType.BATCH, batch);
+            }
+        } finally {
+            batchLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Waits until the mutations reported by the calling thread are durable, if the log has per-write durability.
+     * Mutations of a batch still open become durable only once it is committed, so inside a batch this returns
+     * immediately.
+     */
+    @Override
+    public void awaitDurable() {
+        if (openBatches.get() == null) {
+            log.awaitDurable();
+        }
+    }
+
+    /**
+     * Syncs every mutation reported so far, regardless of the durability setting.
+     */
+    public void sync() {
+        log.sync();
+    }
+
+    /**
+     * Writes a snapshot of the stored data and deletes the log segments and snapshots it makes obsolete.
+     * Single writes are not blocked while the snapshot is written; the snapshot reads the maps only while no batch
+     * is open, and batches begin again once the maps have been read.
+     *
+     * @throws IOException if the snapshot could not be written.
+     */
+    public synchronized void snapshot() throws IOException {
+        long segment = log.roll();
+        Path file = snapshotFile(segment);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CheckedOutputStream checked = new CheckedOutputStream(Channels.newOutputStream(channel), new CRC32());
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(checked, 64 << 10));
+            out.writeInt(SNAPSHOT_MAGIC);
+            RecordBuffer buffer = new RecordBuffer();
+            lockBatches();
+            try {
+                writeEntries(out, buffer, RecordType.USER_PUT, users.values(),
+                        user -> EntityCodec.writeUser(buffer, user));
+                writeEntries(out, buffer, RecordType.CAR_PUT, cars.values(), car -> EntityCodec.writeCar(buffer, car));
+                writeEntries(out, buffer, RecordType.REQUEST_PUT, requests.values(),
+                        request -> EntityCodec.writeRequest(buffer, request));
+            } finally {
+                batchLock.writeLock().unlock();
+            }
+            out.writeByte(END_OF_SNAPSHOT);
+            out.flush();
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        requestArchive.force();
+        log.deleteSegmentsBefore(segment);
+        for (long number : listSnapshots()) {
+            if (number < segment) {
+                Files.deleteIfExists(snapshotFile(number));
+            }
+        }
+    }
+
+    /**
+     * Stops taking snapshots, syncs the remaining mutations and closes the storage files.
+     *
+     * @throws IOException if the remaining mutations could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdown();
+            try {
+                snapshotScheduler.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            log.close();
+        } finally {
+            requestArchive.close();
+        }
+    }
+
+    /**
+     * Takes the write lock of the batch lock without queueing for it, which would make threads beginning
+     * a batch wait behind the snapshot.
+     */
+    private void lockBatches() throws IOException {
+        while (!batchLock.writeLock().tryLock()) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for open batches");
+            }
+        }
+    }
+
+    private void snapshotIfChanged() {
+        if (log.recordsSinceRoll() == 0) {
+            return;
+        }
+        try {
+            snapshot();
+        } catch (IOException | UncheckedIOException | IllegalStateException e) {
+            LOGGER.log(Level.WARNING, "Failed to write a snapshot", e);
+        }
+    }
+
+    private <T> void writeEntries(DataOutputStream out, RecordBuffer buffer, RecordType type, Collection<T> entries,
+                                  Consumer<T> encoder) throws IOException {
+        for (T entry : entries) {
+            buffer.reset();
+            encoder.accept(entry);
+            out.writeByte(type.code());
+            out.writeInt(buffer.size());
+            out.write(buffer.array(), 0, buffer.size());
+        }
+    }
+
+    /**
+     * Loads the latest snapshot, if any, and removes files left by an interrupted snapshot.
+     *
+     * @return the number of the first log segment not covered by the loaded snapshot.
+     */
+    private long loadLatestSnapshot() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(".tmp"))::iterator) {
+                Files.delete(file);
+            }
+        }
+        List<Long> snapshots = listSnapshots();
+        if (snapshots.isEmpty()) {
+            return 0;
+        }
+        long segment = snapshots.get(snapshots.size() - 1);
+        Path file = snapshotFile(segment);
+        try (CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 64 << 10), new CRC32())) {
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a snapshot: " + file);
+            }
+            byte code;
+            while ((code = in.readByte()) != END_OF_SNAPSHOT) {
+                RecordType type = RecordType.fromCode(code);
+                byte[] payload = new byte[in.readInt()];
+                in.readFully(payload);
+                if (type == null) {
+                    throw new IOException("Corrupted snapshot: " + file);
+                }
+                apply(type, ByteBuffer.wrap(payload));
+            }
+            long expected = checked.getChecksum().getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("Corrupted snapshot: " + file);
+            }
+        }
+        return segment;
+    }
+
+    private List<Long> listSnapshots() throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SNAPSHOT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    numbers.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    private Path snapshotFile(long segment) {
+        return directory.resolve(String.format("snapshot-%016d.bin", segment));
+    }
+
+    private void append(RecordType type, RecordBuffer buffer) {
+        RecordBuffer batch = openBatches.get();
+        if (batch == null) {
+            log.append(type, buffer);
+            return;
+        }
+        batch.putByte(type.code());
+        batch.putInt(buffer.size());
+        batch.putBytes(buffer.array(), 0, buffer.size());
+    }
+
+    private RecordBuffer buffer() {
+        RecordBuffer buffer = buffers.get();
+        buffer.reset();
+        return buffer;
+    }
+
+    private void apply(RecordType type, ByteBuffer payload) {
+        switch (type) {
+            case CAR_PUT -> {
+                Car car = EntityCodec.readCar(payload);
+                cars.put(car.getId(), car);
+            }
+            case CAR_REMOVE -> cars.remove(payload.getInt());
+            case CAR_AVAILABILITY -> {
+                Car car = cars.get(payload.getInt());
+                boolean isAvailable = payload.get() != 0;
+                if (car != null) {
+                    car.setAvailable(isAvailable);
+                }
+            }
+            case USER_PUT -> {
+                User user = EntityCodec.readUser(payload);
+                users.put(user.getUsername(), user);
+            }
+            case REQUEST_PUT -> {
+                Request request = EntityCodec.readRequest(payload, this::resolveUser);
+                requests.put(request.getId(), request);
+            }
+            case REQUEST_REMOVE -> requests.remove(payload.getInt());
+            case REQUEST_STATUS -> {
+                Request request = requests.get(payload.getInt());
+                RequestStatus requestStatus = EntityCodec.getEnum(payload, RequestStatus.values());
+                if (request != null) {
+                    request.setRequestStatus(requestStatus);
+                }
+            }
+            case BATCH -> {
+                while (payload.hasRemaining()) {
+                    RecordType nestedType = RecordType.fromCode(payload.get());
+                    int length = payload.getInt();
+                    apply(nestedType, ByteBuffer.wrap(payload.array(), payload.arrayOffset() + payload.position(), length));
+                    payload.position(payload.position() + length);
+                }
+            }
+            case FRAGMENT -> throw new IllegalStateException("Fragments are joined by the log");
+        }
+    }
+
+    private User resolveUser(String username) {
+        User user = users.get(username);
+        return user != null ? user : new User(username, null);
+    }
+}
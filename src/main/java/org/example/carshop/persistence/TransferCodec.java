@@ -0,0 +1,55 @@
+package org.example.carshop.persistence;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts entities of one kind to and from the records of bulk transfer files.
+ * Codecs are stateless and used by several threads at once.
+ *
+ * @param <T> type of the entities.
+ */
+public interface TransferCodec<T> {
+
+    /**
+     * @return the name of the entity, stored in binary files to tell them apart.
+     */
+    String entity();
+
+    /**
+     * @return the names of the CSV columns, in order.
+     */
+    String[] columns();
+
+    /**
+     * Converts an entity into CSV fields.
+     *
+     * @param value  the entity.
+     * @param fields the array to fill, one element per column; null for a missing value.
+     */
+    void toFields(T value, String[] fields);
+
+    /**
+     * Converts CSV fields into an entity.
+     *
+     * @param fields the fields, one per column; null for an empty field.
+     * @return the entity.
+     * @throws IllegalArgumentException if a field cannot be parsed.
+     */
+    T fromFields(String[] fields);
+
+    /**
+     * Writes an entity as a binary record.
+     *
+     * @param out   the buffer to write to.
+     * @param value the entity.
+     */
+    void write(RecordBuffer out, T value);
+
+    /**
+     * Reads an entity written by {@link #write}.
+     *
+     * @param in the buffer to read from.
+     * @return the entity.
+     */
+    T read(ByteBuffer in);
+}
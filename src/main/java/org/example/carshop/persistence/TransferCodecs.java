@@ -0,0 +1,207 @@
+package org.example.carshop.persistence;
+
+import org.example.carshop.model.Car;
+import org.example.carshop.model.Request;
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.RequestStatus;
+import org.example.carshop.model.enums.RequestType;
+import org.example.carshop.model.enums.UserRole;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * Transfer codecs of the model entities. Binary records use {@link EntityCodec}; in CSV enums are written
+ * by name and times in ISO-8601 format.
+ */
+public final class TransferCodecs {
+
+    /**
+     * Codec of cars.
+     */
+    public static final TransferCodec<Car> CARS = new TransferCodec<>() {
+        private static final String[] COLUMNS = {"id", "brand", "model", "prodYear", "state", "available"};
+
+        @Override
+        public String entity() {
+            return "cars";
+        }
+
+        @Override
+        public String[] columns() {
+            return COLUMNS.clone();
+        }
+
+        @Override
+        public void toFields(Car car, String[] fields) {
+            fields[0] = Integer.toString(car.getId());
+            fields[1] = car.getBrandName();
+            fields[2] = car.getModelName();
+            fields[3] = car.getProdYear();
+            fields[4] = car.getStateDesc();
+            fields[5] = Boolean.toString(car.isAvailable());
+        }
+
+        @Override
+        public Car fromFields(String[] fields) {
+            return new Car(parseInt(fields[0], "id"), fields[2], fields[1], fields[3], fields[4],
+                    parseBoolean(fields[5], "available"));
+        }
+
+        @Override
+        public void write(RecordBuffer out, Car car) {
+            EntityCodec.writeCar(out, car);
+        }
+
+        @Override
+        public Car read(ByteBuffer in) {
+            return EntityCodec.readCar(in);
+        }
+    };
+
+    /**
+     * Codec of users. Passwords are transferred as stored, i.e. as hashes.
+     */
+    public static final TransferCodec<User> USERS = new TransferCodec<>() {
+        private static final String[] COLUMNS = {"username", "password", "fullName", "role"};
+
+        @Override
+        public String entity() {
+            return "users";
+        }
+
+        @Override
+        public String[] columns() {
+            return COLUMNS.clone();
+        }
+
+        @Override
+        public void toFields(User user, String[] fields) {
+            fields[0] = user.getUsername();
+            fields[1] = user.getPassword();
+            fields[2] = user.getFullName();
+            fields[3] = user.getRole() == null ? null : user.getRole().name();
+        }
+
+        @Override
+        public User fromFields(String[] fields) {
+            if (fields[0] == null) {
+                throw new IllegalArgumentException("username is missing");
+            }
+            return new User(fields[0], fields[1], fields[2], parseEnum(UserRole.class, fields[3], "role"));
+        }
+
+        @Override
+        public void write(RecordBuffer out, User user) {
+            EntityCodec.writeUser(out, user);
+        }
+
+        @Override
+        public User read(ByteBuffer in) {
+            return EntityCodec.readUser(in);
+        }
+    };
+
+    private TransferCodecs() {
+    }
+
+    /**
+     * Creates a codec of requests. Users of requests are transferred by username only.
+     *
+     * @param users resolves a username to the user of a request.
+     * @return the codec.
+     */
+    public static TransferCodec<Request> requests(Function<String, User> users) {
+        return new TransferCodec<>() {
+            private static final String[] COLUMNS =
+                    {"id", "username", "carId", "type", "status", "creationTime", "completionTime"};
+
+            @Override
+            public String entity() {
+                return "requests";
+            }
+
+            @Override
+            public String[] columns() {
+                return COLUMNS.clone();
+            }
+
+            @Override
+            public void toFields(Request request, String[] fields) {
+                fields[0] = Integer.toString(request.getId());
+                fields[1] = request.getUser() == null ? null : request.getUser().getUsername();
+                fields[2] = Integer.toString(request.getCarId());
+                fields[3] = request.getRequestType() == null ? null : request.getRequestType().name();
+                fields[4] = request.getRequestStatus() == null ? null : request.getRequestStatus().name();
+                fields[5] = request.getCreationTime() == null ? null : request.getCreationTime().toString();
+                fields[6] = request.getCompletionTime() == null ? null : request.getCompletionTime().toString();
+            }
+
+            @Override
+            public Request fromFields(String[] fields) {
+                LocalDateTime creationTime = parseDateTime(fields[5], "creationTime");
+                LocalDateTime completionTime = parseDateTime(fields[6], "completionTime");
+                RequestStatus requestStatus = parseEnum(RequestStatus.class, fields[4], "status");
+                Request request = new Request(fields[1] == null ? null : users.apply(fields[1]),
+                        parseInt(fields[2], "carId"), creationTime, completionTime,
+                        parseEnum(RequestType.class, fields[3], "type"), requestStatus);
+                request.setId(fields[0] == null ? 0 : parseInt(fields[0], "id"));
+                request.setCreationTime(creationTime);
+                request.setCompletionTime(completionTime);
+                request.setRequestStatus(requestStatus);
+                return request;
+            }
+
+            @Override
+            public void write(RecordBuffer out, Request request) {
+                EntityCodec.writeRequest(out, request);
+            }
+
+            @Override
+            public Request read(ByteBuffer in) {
+                return EntityCodec.readRequest(in, users);
+            }
+        };
+    }
+
+    private static int parseInt(String value, String column) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number: " + value);
+        }
+    }
+
+    private static boolean parseBoolean(String value, String column) {
+        if ("true".equalsIgnoreCase(value)) {
+            return true;
+        }
+        if (value == null || "false".equalsIgnoreCase(value)) {
+            return false;
+        }
+        throw new IllegalArgumentException(column + " is not a boolean: " + value);
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, String column) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(column + " has an unknown value: " + value);
+        }
+    }
+
+    private static LocalDateTime parseDateTime(String value, String column) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(column + " is not a date and time: " + value);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.carshop.persistence;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * File formats of bulk import and export.
+ */
+public enum TransferFormat {
+    /**
+     * Comma-separated values with a header row, one record per line. An empty field stands for null,
+     * while an empty string is written as {@code ""}.
+     */
+    CSV,
+    /**
+     * Blocks of records in the encoding of {@link EntityCodec}, preceded by a header naming the entity.
+     */
+    BINARY;
+
+    /**
+     * Picks the format by the file extension: {@code .csv} files are CSV, all other files are binary.
+     *
+     * @param file the file to read or write.
+     * @return the format of the file.
+     */
+    public static TransferFormat forPath(Path file) {
+        Path name = file.getFileName();
+        return name != null && name.toString().toLowerCase(Locale.ROOT).endsWith(".csv") ? CSV : BINARY;
+    }
+}
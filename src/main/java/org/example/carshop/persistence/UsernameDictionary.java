@@ -0,0 +1,107 @@
+package org.example.carshop.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Append-only dictionary assigning dense int codes to usernames, persisted as a file of
+ * length-prefixed UTF-8 strings in code order. Writes are expected to be serialized by the caller.
+ */
+class UsernameDictionary implements Closeable {
+    private final FileChannel channel;
+    private final Map<String, Integer> codes = new HashMap<>();
+    private volatile String[] usernames = new String[16];
+
+    UsernameDictionary(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer content = ByteBuffer.allocate((int) channel.size());
+        while (content.hasRemaining() && channel.read(content, content.position()) >= 0) {
+            // read until the buffer is full
+        }
+        content.flip();
+        int validLength = 0;
+        while (content.remaining() >= 4) {
+            int length = content.getInt();
+            if (length < 0 || length > content.remaining()) {
+                break;
+            }
+            String username = new String(content.array(), content.position(), length, StandardCharsets.UTF_8);
+            content.position(content.position() + length);
+            validLength = content.position();
+            add(username);
+        }
+        channel.truncate(validLength);
+        channel.position(validLength);
+    }
+
+    /**
+     * @param username the username.
+     * @return the code of the username, or -1 if it has no code.
+     */
+    int codeOf(String username) {
+        synchronized (codes) {
+            Integer code = codes.get(username);
+            return code == null ? -1 : code;
+        }
+    }
+
+    /**
+     * Returns the code of the username, assigning the next code to a new username.
+     *
+     * @param username the username.
+     * @return the code of the username.
+     */
+    int encode(String username) throws IOException {
+        synchronized (codes) {
+            Integer code = codes.get(username);
+            if (code != null) {
+                return code;
+            }
+            RecordBuffer buffer = new RecordBuffer();
+            buffer.putString(username);
+            ByteBuffer bytes = ByteBuffer.wrap(buffer.array(), 0, buffer.size());
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            return add(username);
+        }
+    }
+
+    /**
+     * @param code the code of a username.
+     * @return the username.
+     */
+    String decode(int code) {
+        return usernames[code];
+    }
+
+    private int add(String username) {
+        int code = codes.size();
+        String[] current = usernames;
+        if (code == current.length) {
+            current = Arrays.copyOf(current, code * 2);
+        }
+        current[code] = username;
+        usernames = current;
+        codes.put(username, code);
+        return code;
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+}
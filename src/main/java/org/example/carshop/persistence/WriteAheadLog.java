@@ -0,0 +1,483 @@
+package org.example.carshop.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary log of records written through a {@link FileChannel}, split into numbered segment files.
+ * <p>
+ * Every record is stored as {@code [int payload length][int CRC32 of type and payload][byte type][payload]}.
+ * A payload larger than 64 MB is stored as {@link RecordType#FRAGMENT} records followed by a record of its own
+ * type holding the rest, and is replayed only if all of them are intact.
+ * Appending only copies the record into an in-memory batch; a single flusher thread writes the batch
+ * and forces it to disk, so records appended while a sync is running share the next sync (group commit).
+ * With {@link Durability#isPerWrite() per-write} durability the flusher syncs as soon as there is something
+ * to sync and {@link #awaitDurable()} blocks until the records of the calling thread are synced; otherwise
+ * the flusher syncs once per interval and nobody waits.
+ * <p>
+ * On open the existing segments are replayed in order; a torn or corrupted tail left by a crash is truncated.
+ * Only the newest segment can be torn by a crash, since a segment is synced before the next one is created,
+ * so damage in an older segment makes the open fail instead of dropping records from the middle of the log.
+ * {@link #roll()} starts a new segment so that the older ones can be deleted once a snapshot covers them.
+ */
+public class WriteAheadLog implements Closeable {
+    private static final int HEADER_SIZE = 9;
+    private static final int MAX_PAYLOAD_SIZE = 64 << 20;
+    private static final int INITIAL_BATCH_SIZE = 64 << 10;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("wal-(\\d+)\\.log");
+
+    private final Path directory;
+    private final Durability durability;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushNeeded = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private final ThreadLocal<long[]> lastAppended = ThreadLocal.withInitial(() -> new long[1]);
+    private final Thread flusher;
+
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BATCH_SIZE);
+    private ByteBuffer spare = ByteBuffer.allocate(INITIAL_BATCH_SIZE);
+    private long appendedSeq;
+    private long durableSeq;
+    private IOException failure;
+    private boolean closed;
+    private FileChannel channel;
+    private long segment;
+    private long recordsInSegments;
+    private boolean rollRequested;
+
+    private WriteAheadLog(Path directory, Durability durability, FileChannel channel, long segment, long records) {
+        this.directory = directory;
+        this.durability = durability;
+        this.channel = channel;
+        this.segment = segment;
+        this.recordsInSegments = records;
+        this.flusher = new Thread(this::runFlusher, "carshop-wal-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    /**
+     * Opens the log, replaying the records stored in its segments, and starts accepting appends.
+     * Segments numbered below {@code firstSegment} are covered by a snapshot and are deleted unread.
+     *
+     * @param directory    the directory holding the segment files.
+     * @param firstSegment the number of the first segment to replay.
+     * @param durability   when appended records are synced to disk.
+     * @param handler      receives every replayed record in the order they were appended.
+     * @return the opened log.
+     * @throws IOException if the segments cannot be read or written, or a segment other than the newest is corrupted.
+     */
+    public static WriteAheadLog open(Path directory, long firstSegment, Durability durability,
+                                     RecordHandler handler) throws IOException {
+        long records = 0;
+        long lastSegment = firstSegment;
+        List<Long> segments = listSegments(directory);
+        for (long number : segments) {
+            Path file = segmentFile(directory, number);
+            if (number < firstSegment) {
+                Files.delete(file);
+                continue;
+            }
+            boolean newest = number == segments.get(segments.size() - 1);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                records += replay(channel, handler, newest ? null : file);
+            }
+            lastSegment = number;
+        }
+        FileChannel channel = openSegment(directory, lastSegment);
+        WriteAheadLog log = new WriteAheadLog(directory, durability, channel, lastSegment, records);
+        log.flusher.start();
+        return log;
+    }
+
+    /**
+     * Lists the numbers of the segments stored in the directory.
+     *
+     * @param directory the directory holding the segment files.
+     * @return the segment numbers in ascending order.
+     * @throws IOException if the directory cannot be listed.
+     */
+    public static List<Long> listSegments(Path directory) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    numbers.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    /**
+     * Appends a record. The record is durable once a later {@link #awaitDurable()} or {@link #sync()} returns.
+     *
+     * @param type    the type of the record.
+     * @param payload the encoded payload of the record.
+     * @throws UncheckedIOException if the log has failed to write earlier records.
+     */
+    public void append(RecordType type, RecordBuffer payload) {
+        int fragments = (payload.size() - 1) / MAX_PAYLOAD_SIZE;
+        int recordsSize = payload.size() + (fragments + 1) * HEADER_SIZE;
+
+        lock.lock();
+        try {
+            ensureOpen();
+            if (pending.remaining() < recordsSize) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + recordsSize));
+                pending.flip();
+                grown.put(pending);
+                pending = grown;
+            }
+            for (int i = 0; i < fragments; i++) {
+                put(RecordType.FRAGMENT, payload.array(), i * MAX_PAYLOAD_SIZE, MAX_PAYLOAD_SIZE);
+            }
+            put(type, payload.array(), fragments * MAX_PAYLOAD_SIZE, payload.size() - fragments * MAX_PAYLOAD_SIZE);
+            lastAppended.get()[0] = ++appendedSeq;
+            recordsInSegments += fragments + 1;
+            if (durability.isPerWrite()) {
+                flushNeeded.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Puts one record into the pending batch. Payloads larger than a record are split into fragments
+     * put back to back under the same lock, so no other record gets between them.
+     */
+    private void put(RecordType type, byte[] payload, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(type.code());
+        crc.update(payload, offset, length);
+        pending.putInt(length)
+                .putInt((int) crc.getValue())
+                .put(type.code())
+                .put(payload, offset, length);
+    }
+
+    /**
+     * Waits until every record appended by the calling thread is synced to disk.
+     * Returns immediately unless the log has per-write durability.
+     *
+     * @throws UncheckedIOException if the records could not be written.
+     */
+    public void awaitDurable() {
+        if (durability.isPerWrite()) {
+            awaitSynced(lastAppended.get()[0]);
+        }
+    }
+
+    /**
+     * Syncs every record appended so far and waits for it, regardless of the durability setting.
+     *
+     * @throws UncheckedIOException if the records could not be written.
+     */
+    public void sync() {
+        long target;
+        lock.lock();
+        try {
+            target = appendedSeq;
+            flushNeeded.signal();
+        } finally {
+            lock.unlock();
+        }
+        awaitSynced(target);
+    }
+
+    /**
+     * Syncs the records appended so far and continues the log in a new segment.
+     * Appends are not blocked: records appended before the call end up in the older segments,
+     * records appended while the segment is switched end up in either.
+     *
+     * @return the number of the new segment; all older segments hold only records appended before it.
+     * @throws UncheckedIOException if the records could not be written or the segment could not be created.
+     */
+    public long roll() {
+        lock.lock();
+        try {
+            ensureOpen();
+            long current = segment;
+            rollRequested = true;
+            flushNeeded.signal();
+            while (segment == current && failure == null) {
+                flushed.awaitUninterruptibly();
+            }
+            if (segment == current) {
+                throw new UncheckedIOException("Write-ahead log is not writable", failure);
+            }
+            return segment;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of records replayed or appended since the last {@link #roll()}, or since open.
+     */
+    public long recordsSinceRoll() {
+        lock.lock();
+        try {
+            return recordsInSegments;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments numbered below the given one.
+     *
+     * @param segment the number of the first segment to keep; must not exceed the current segment.
+     * @throws IOException if a segment could not be deleted.
+     */
+    public void deleteSegmentsBefore(long segment) throws IOException {
+        for (long number : listSegments(directory)) {
+            if (number < segment) {
+                Files.deleteIfExists(segmentFile(directory, number));
+            }
+        }
+    }
+
+    /**
+     * Syncs the remaining records, stops the flusher and closes the file.
+     *
+     * @throws IOException if the remaining records could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flushNeeded.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            channel.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void awaitSynced(long target) {
+        lock.lock();
+        try {
+            while (durableSeq < target && failure == null) {
+                flushed.awaitUninterruptibly();
+            }
+            if (durableSeq < target) {
+                throw new UncheckedIOException("Write-ahead log is not writable", failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void ensureOpen() {
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log is not writable", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log is closed");
+        }
+    }
+
+    private void runFlusher() {
+        try {
+            while (true) {
+                ByteBuffer batch;
+                long batchSeq;
+                boolean roll;
+                FileChannel target;
+                lock.lock();
+                try {
+                    if (durability.isPerWrite()) {
+                        while (!closed && !rollRequested && appendedSeq == durableSeq) {
+                            flushNeeded.awaitUninterruptibly();
+                        }
+                    } else if (!closed && !rollRequested) {
+                        awaitNanosUninterruptibly(TimeUnit.MILLISECONDS.toNanos(durability.syncIntervalMillis()));
+                    }
+                    if (appendedSeq == durableSeq && !rollRequested) {
+                        if (closed) {
+                            return;
+                        }
+                        continue;
+                    }
+                    batch = pending;
+                    pending = spare;
+                    spare = batch;
+                    batchSeq = appendedSeq;
+                    roll = rollRequested;
+                    rollRequested = false;
+                    if (roll) {
+                        recordsInSegments = 0;
+                    }
+                    target = channel;
+                } finally {
+                    lock.unlock();
+                }
+
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    target.write(batch);
+                }
+                target.force(false);
+                batch.clear();
+                FileChannel next = roll ? openSegment(directory, segment + 1) : target;
+
+                lock.lock();
+                try {
+                    durableSeq = batchSeq;
+                    if (roll) {
+                        channel = next;
+                        segment++;
+                    }
+                    flushed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                if (roll) {
+                    target.close();
+                }
+            }
+        } catch (IOException e) {
+            lock.lock();
+            try {
+                failure = e;
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void awaitNanosUninterruptibly(long nanos) {
+        try {
+            flushNeeded.awaitNanos(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static FileChannel openSegment(Path directory, long number) throws IOException {
+        FileChannel channel = FileChannel.open(segmentFile(directory, number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        return channel;
+    }
+
+    private static Path segmentFile(Path directory, long number) {
+        return directory.resolve(String.format("wal-%016d.log", number));
+    }
+
+    /**
+     * Replays the records of one segment and truncates whatever follows the last intact record.
+     * Fragments are joined with the record completing them; fragments left without it are truncated as well.
+     *
+     * @param olderSegment the file of the segment if a newer one follows it, in which case nothing may follow
+     *                     the last intact record; {@code null} for the newest segment.
+     * @return the number of replayed records.
+     * @throws IOException if the segment cannot be read, or an older segment is corrupted.
+     */
+    private static long replay(FileChannel channel, RecordHandler handler, Path olderSegment) throws IOException {
+        InputStream stream = Channels.newInputStream(channel);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream, INITIAL_BATCH_SIZE));
+        long validLength = 0;
+        long position = 0;
+        long records = 0;
+        List<byte[]> fragments = new ArrayList<>();
+        CRC32 crc = new CRC32();
+        while (true) {
+            int payloadSize;
+            int checksum;
+            byte code;
+            byte[] payload;
+            try {
+                payloadSize = in.readInt();
+                checksum = in.readInt();
+                code = in.readByte();
+                if (payloadSize < 0 || payloadSize > MAX_PAYLOAD_SIZE) {
+                    break;
+                }
+                payload = new byte[payloadSize];
+                in.readFully(payload);
+            } catch (EOFException e) {
+                break;
+            }
+            crc.reset();
+            crc.update(code);
+            crc.update(payload);
+            RecordType type = RecordType.fromCode(code);
+            if ((int) crc.getValue() != checksum || type == null) {
+                break;
+            }
+            position += HEADER_SIZE + payloadSize;
+            if (type == RecordType.FRAGMENT) {
+                fragments.add(payload);
+                continue;
+            }
+            if (!fragments.isEmpty()) {
+                fragments.add(payload);
+                payload = join(fragments);
+                fragments.clear();
+            }
+            handler.handle(type, ByteBuffer.wrap(payload));
+            validLength = position;
+            records++;
+        }
+        if (validLength < channel.size()) {
+            if (olderSegment != null) {
+                throw new IOException("Log segment " + olderSegment.getFileName() + " is corrupted at offset "
+                        + validLength + " and is followed by newer segments");
+            }
+            channel.truncate(validLength);
+            channel.force(true);
+        }
+        return records;
+    }
+
+    private static byte[] join(List<byte[]> fragments) {
+        int size = 0;
+        for (byte[] fragment : fragments) {
+            size += fragment.length;
+        }
+        byte[] joined = new byte[size];
+        int offset = 0;
+        for (byte[] fragment : fragments) {
+            System.arraycopy(fragment, 0, joined, offset, fragment.length);
+            offset += fragment.length;
+        }
+        return joined;
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.carshop.repository;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Growable bitset whose bits can be set and cleared concurrently without locking.
+ * Bits are stored in fixed-size chunks that are never copied, so growing the set
+ * cannot lose an update made to an existing chunk.
+ */
+public class AtomicBitSet {
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+    private static final int WORDS_PER_CHUNK = (1 << CHUNK_SHIFT) >>> 6;
+
+    private volatile AtomicLongArray[] chunks = new AtomicLongArray[0];
+
+    /**
+     * Returns the value of the bit with the given index.
+     *
+     * @param index the bit index.
+     * @return true if the bit is set.
+     */
+    public boolean get(int index) {
+        AtomicLongArray[] current = chunks;
+        int chunk = index >>> CHUNK_SHIFT;
+        if (chunk >= current.length) {
+            return false;
+        }
+        return (current[chunk].get((index & CHUNK_MASK) >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * Sets the bit with the given index.
+     *
+     * @param index the bit index.
+     * @return true if the bit was clear before the call.
+     */
+    public boolean set(int index) {
+        AtomicLongArray words = chunk(index >>> CHUNK_SHIFT);
+        int word = (index & CHUNK_MASK) >>> 6;
+        long mask = 1L << index;
+        long current;
+        do {
+            current = words.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+        } while (!words.compareAndSet(word, current, current | mask));
+        return true;
+    }
+
+    /**
+     * Clears the bit with the given index.
+     *
+     * @param index the bit index.
+     * @return true if the bit was set before the call.
+     */
+    public boolean clear(int index) {
+        AtomicLongArray[] current = chunks;
+        int chunk = index >>> CHUNK_SHIFT;
+        if (chunk >= current.length) {
+            return false;
+        }
+        AtomicLongArray words = current[chunk];
+        int word = (index & CHUNK_MASK) >>> 6;
+        long mask = 1L << index;
+        long value;
+        do {
+            value = words.get(word);
+            if ((value & mask) == 0) {
+                return false;
+            }
+        } while (!words.compareAndSet(word, value, value & ~mask));
+        return true;
+    }
+
+    /**
+     * Returns the index of the first set bit at or after the given index.
+     *
+     * @param fromIndex the index to start searching from.
+     * @return the index of the next set bit, or -1 if there is none.
+     */
+    public int nextSetBit(int fromIndex) {
+        AtomicLongArray[] current = chunks;
+        int chunk = fromIndex >>> CHUNK_SHIFT;
+        int word = (fromIndex & CHUNK_MASK) >>> 6;
+        long value = chunk < current.length ? current[chunk].get(word) & (-1L << fromIndex) : 0;
+        while (chunk < current.length) {
+            if (value != 0) {
+                return (chunk << CHUNK_SHIFT) + (word << 6) + Long.numberOfTrailingZeros(value);
+            }
+            if (++word == WORDS_PER_CHUNK) {
+                word = 0;
+                chunk++;
+            }
+            if (chunk < current.length) {
+                value = current[chunk].get(word);
+            }
+        }
+        return -1;
+    }
+
+    private AtomicLongArray chunk(int chunk) {
+        AtomicLongArray[] current = chunks;
+        return chunk < current.length ? current[chunk] : grow(chunk);
+    }
+
+    private synchronized AtomicLongArray grow(int chunk) {
+        AtomicLongArray[] current = chunks;
+        if (chunk >= current.length) {
+            AtomicLongArray[] grown = Arrays.copyOf(current, Math.max(chunk + 1, current.length * 2));
+            for (int i = current.length; i < grown.length; i++) {
+                grown[i] = new AtomicLongArray(WORDS_PER_CHUNK);
+            }
+            chunks = grown;
+            current = grown;
+        }
+        return current[chunk];
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.carshop.repository;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Growable array of references that can be read and written concurrently.
+ * Elements live in fixed-size chunks that are never copied, so growing the array
+ * cannot lose an element stored in an existing chunk.
+ *
+ * @param <E> type of the elements.
+ */
+class AtomicSlotArray<E> {
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    private volatile AtomicReferenceArray<E>[] chunks = newChunks(0);
+
+    /**
+     * Returns the element stored at the given index.
+     *
+     * @param index the index of the element.
+     * @return the element, or null if nothing is stored at the index.
+     */
+    E get(int index) {
+        AtomicReferenceArray<E>[] current = chunks;
+        int chunk = index >>> CHUNK_SHIFT;
+        return chunk < current.length ? current[chunk].get(index & CHUNK_MASK) : null;
+    }
+
+    /**
+     * Stores the element at the given index, growing the array if needed.
+     *
+     * @param index   the index of the element.
+     * @param element the element to store, or null to clear the index.
+     */
+    void set(int index, E element) {
+        AtomicReferenceArray<E>[] current = chunks;
+        int chunk = index >>> CHUNK_SHIFT;
+        AtomicReferenceArray<E> elements = chunk < current.length ? current[chunk] : grow(chunk);
+        elements.set(index & CHUNK_MASK, element);
+    }
+
+    private synchronized AtomicReferenceArray<E> grow(int chunk) {
+        AtomicReferenceArray<E>[] current = chunks;
+        if (chunk >= current.length) {
+            AtomicReferenceArray<E>[] grown = Arrays.copyOf(current, Math.max(chunk + 1, current.length * 2));
+            for (int i = current.length; i < grown.length; i++) {
+                grown[i] = new AtomicReferenceArray<>(1 << CHUNK_SHIFT);
+            }
+            chunks = grown;
+            current = grown;
+        }
+        return current[chunk];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> AtomicReferenceArray<E>[] newChunks(int length) {
+        return (AtomicReferenceArray<E>[]) new AtomicReferenceArray<?>[length];
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.carshop.repository;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Request ID generator that hands every thread its own block of IDs.
+ * Threads touch the shared counter only once per block, so creating requests at high rates
+ * from many threads does not contend on one counter. IDs are unique but not consecutive
+ * across threads.
+ */
+public class BlockIdGenerator implements RequestIdGenerator {
+    private static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    private final int blockSize;
+    private final AtomicInteger lastAllocatedId = new AtomicInteger();
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+    private volatile int floor;
+
+    /**
+     * Creates a generator with the default block size.
+     */
+    public BlockIdGenerator() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Creates a generator.
+     *
+     * @param blockSize the number of IDs reserved by a thread at once.
+     */
+    public BlockIdGenerator(int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public int nextId() {
+        Block block = blocks.get();
+        if (block.next > block.limit || block.next <= floor) {
+            int limit = lastAllocatedId.addAndGet(blockSize);
+            block.next = limit - blockSize + 1;
+            block.limit = limit;
+        }
+        return block.next++;
+    }
+
+    @Override
+    public void advancePast(int usedId) {
+        if (usedId <= floor) {
+            return;
+        }
+        synchronized (this) {
+            if (usedId > floor) {
+                lastAllocatedId.accumulateAndGet(usedId, Math::max);
+                floor = usedId;
+            }
+        }
+    }
+
+    /**
+     * Range of IDs reserved by one thread.
+     */
+    private static final class Block {
+        private int next = 1;
+        private int limit;
+    }
+}
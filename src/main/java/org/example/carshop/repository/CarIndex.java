@@ -0,0 +1,387 @@
+package org.example.carshop.repository;
+
+import org.example.carshop.model.Car;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Composite index over cars: a brand → model → year tree of entries plus an availability bitset.
+ * Every indexed car occupies a slot so that availability can be kept in a bitset.
+ * A query walks only the tree nodes matching its predicates and then iterates the smaller of
+ * the matching leaves and the availability bitset, so it touches only candidate cars.
+ * <p>
+ * In concurrent mode the tree is built from concurrent maps and every brand subtree is changed
+ * atomically, while availability bits are flipped without locking. Callers are expected to
+ * serialize {@link #add} and {@link #remove} calls for the same car ID.
+ * <p>
+ * Every change is counted per brand once it is visible to queries, see {@link #brandVersion}.
+ * Available cars are counted per brand as their bits are flipped; a slot never changes its brand,
+ * a car whose brand changes moves to a new slot, so every flip is counted under the right brand.
+ * <p>
+ * Slots of removed and moved cars are reused through a {@link SlotAllocator}, so churn does not grow
+ * the slot array and the bitset. Queries and flips register with it, so a slot is reused only once
+ * nobody can still reach it through a stale entry.
+ */
+class CarIndex {
+    private static final String NULL_KEY = "";
+
+    private final boolean concurrent;
+    private final Map<Integer, Entry> entriesById;
+    private final Map<String, BrandNode> brands;
+    private final AtomicSlotArray<Entry> entriesBySlot = new AtomicSlotArray<>();
+    private final AtomicBitSet available = new AtomicBitSet();
+    private final SlotAllocator slots;
+    private final AtomicInteger availableCount = new AtomicInteger();
+    private final ChangeCounters<String> brandChanges = new ChangeCounters<>();
+    private final KeyCounts<String> availableByBrand = new KeyCounts<>();
+
+    /**
+     * Creates an empty index.
+     *
+     * @param concurrent whether the index is shared between threads.
+     */
+    CarIndex(boolean concurrent) {
+        this.concurrent = concurrent;
+        this.slots = new SlotAllocator(concurrent);
+        this.entriesById = newMap();
+        this.brands = newMap();
+    }
+
+    /**
+     * Adds the car to the index, replacing whatever was indexed for its ID before.
+     * A car keeps its slot while it stays in the index under the same brand.
+     *
+     * @param car the car to index.
+     */
+    void add(Car car) {
+        Entry previous = entriesById.get(car.getId());
+        Entry entry = newEntry(car, previous);
+
+        if (previous != null) {
+            replace(previous, entry);
+        }
+        entriesBySlot.set(entry.slot, entry);
+        entriesById.put(entry.id, entry);
+        brands.compute(entry.brand, (brand, node) -> {
+            BrandNode brandNode = node != null ? node : new BrandNode();
+            brandNode.add(entry);
+            return brandNode;
+        });
+        setAvailable(car.getId(), car.isAvailable());
+        if (previous != null && !previous.brand.equals(entry.brand)) {
+            brandChanges.changed(previous.brand);
+        }
+        brandChanges.changed(entry.brand);
+    }
+
+    /**
+     * Adds a batch of cars to the index. Unlike a series of {@link #add} calls, the batch is merged into the tree
+     * with one atomic change per brand, and every car of the batch is visible to queries only once the batch
+     * has been merged. Of cars sharing an ID, the last one is indexed.
+     *
+     * @param cars the cars to index.
+     */
+    void addAll(Collection<Car> cars) {
+        Map<String, List<Entry>> entriesByBrand = new HashMap<>();
+        Set<String> changedBrands = new HashSet<>();
+        for (Car car : cars) {
+            Entry previous = entriesById.get(car.getId());
+            Entry entry = newEntry(car, previous);
+
+            if (previous != null) {
+                replace(previous, entry);
+                changedBrands.add(previous.brand);
+            }
+            entriesBySlot.set(entry.slot, entry);
+            entriesById.put(entry.id, entry);
+            changedBrands.add(entry.brand);
+            entriesByBrand.computeIfAbsent(entry.brand, brand -> new ArrayList<>()).add(entry);
+            setAvailable(car.getId(), car.isAvailable());
+        }
+        entriesByBrand.forEach((brand, entries) -> brands.compute(brand, (key, node) -> {
+            BrandNode brandNode = node != null ? node : new BrandNode();
+            for (Entry entry : entries) {
+                if (entriesById.get(entry.id) == entry) {
+                    brandNode.add(entry);
+                }
+            }
+            return brandNode.models.isEmpty() ? null : brandNode;
+        }));
+        changedBrands.forEach(brandChanges::changed);
+    }
+
+    /**
+     * Removes the car with the given ID from the index, if it is indexed.
+     *
+     * @param carId the ID of the car.
+     */
+    void remove(int carId) {
+        Entry entry = entriesById.remove(carId);
+        if (entry == null) {
+            return;
+        }
+        removeFromTree(entry);
+        retire(entry);
+        brandChanges.changed(entry.brand);
+    }
+
+    /**
+     * Updates the availability of an indexed car without taking any lock.
+     *
+     * @param carId       the ID of the car.
+     * @param isAvailable the new availability of the car.
+     */
+    void setAvailable(int carId, boolean isAvailable) {
+        long ticket = slots.enter();
+        try {
+            Entry entry = entriesById.get(carId);
+            if (entry == null) {
+                return;
+            }
+            if (isAvailable ? available.set(entry.slot) : available.clear(entry.slot)) {
+                countAvailable(entry, isAvailable ? 1 : -1);
+                brandChanges.changed(entry.brand);
+            }
+            if (entry.removed && available.clear(entry.slot)) {
+                countAvailable(entry, -1);
+            }
+        } finally {
+            slots.exit(ticket);
+        }
+    }
+
+    /**
+     * @return the numbers of available cars by brand, with cars without a brand under the empty string;
+     *         brands without available cars are left out.
+     */
+    Map<String, Long> countAvailableByBrand() {
+        return availableByBrand.snapshot();
+    }
+
+    /**
+     * Returns a version of the cars of the brand that changes whenever such a car is added, changed, removed,
+     * reserved or released, so that a search result can be cached until the cars it covers change.
+     *
+     * @param brand the brand, or null for all cars.
+     * @return the version, read before the search it stamps.
+     */
+    long brandVersion(String brand) {
+        return brandChanges.version(brand == null ? null : key(brand));
+    }
+
+    /**
+     * Finds IDs of the cars matching all non-null criteria.
+     *
+     * @param brand       brand to match, or null for any.
+     * @param model       model to match, or null for any.
+     * @param prodYear    year of manufacture to match, or null for any.
+     * @param isAvailable availability to match, or null for any.
+     * @return IDs of the matching cars in ascending order.
+     */
+    List<Integer> find(String brand, String model, String prodYear, Boolean isAvailable) {
+        List<Integer> ids = new ArrayList<>();
+        long ticket = slots.enter();
+        try {
+            forEachMatch(brand, model, prodYear, isAvailable, ids::add);
+        } finally {
+            slots.exit(ticket);
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    /**
+     * Finds the smallest IDs above the cursor among the cars matching all non-null criteria,
+     * without collecting the IDs of all matching cars.
+     *
+     * @param brand       brand to match, or null for any.
+     * @param model       model to match, or null for any.
+     * @param prodYear    year of manufacture to match, or null for any.
+     * @param isAvailable availability to match, or null for any.
+     * @param afterId     the cursor, or null to start from the smallest ID.
+     * @param count       the maximal number of IDs to return.
+     * @return IDs of the matching cars in ascending order.
+     */
+    int[] findAfter(String brand, String model, String prodYear, Boolean isAvailable, Integer afterId, int count) {
+        IdWindow window = new IdWindow(afterId, count);
+        long ticket = slots.enter();
+        try {
+            forEachMatch(brand, model, prodYear, isAvailable, window::offer);
+        } finally {
+            slots.exit(ticket);
+        }
+        return window.toSortedArray();
+    }
+
+    private void forEachMatch(String brand, String model, String prodYear, Boolean isAvailable, IntConsumer action) {
+        boolean byAttributes = brand != null || model != null || prodYear != null;
+        if (!byAttributes && Boolean.TRUE.equals(isAvailable)) {
+            for (int slot = available.nextSetBit(0); slot >= 0; slot = available.nextSetBit(slot + 1)) {
+                acceptIfMatches(action, entriesBySlot.get(slot), null, null, null, null);
+            }
+        } else if (!byAttributes) {
+            for (Entry entry : entriesById.values()) {
+                acceptIfMatches(action, entry, null, null, null, isAvailable);
+            }
+        } else {
+            List<Set<Entry>> leaves = new ArrayList<>();
+            int leafSize = collectLeaves(brand, model, prodYear, leaves);
+            if (Boolean.TRUE.equals(isAvailable) && availableCount.get() < leafSize) {
+                for (int slot = available.nextSetBit(0); slot >= 0; slot = available.nextSetBit(slot + 1)) {
+                    acceptIfMatches(action, entriesBySlot.get(slot), brand, model, prodYear, null);
+                }
+            } else {
+                for (Set<Entry> leaf : leaves) {
+                    for (Entry entry : leaf) {
+                        acceptIfMatches(action, entry, null, null, null, isAvailable);
+                    }
+                }
+            }
+        }
+    }
+
+    private void acceptIfMatches(IntConsumer action, Entry entry, String brand, String model, String prodYear,
+                                 Boolean isAvailable) {
+        if (entry != null
+                && (brand == null || brand.equals(entry.brand))
+                && (model == null || model.equals(entry.model))
+                && (prodYear == null || prodYear.equals(entry.year))
+                && (isAvailable == null || available.get(entry.slot) == isAvailable)) {
+            action.accept(entry.id);
+        }
+    }
+
+    private int collectLeaves(String brand, String model, String prodYear, List<Set<Entry>> leaves) {
+        int size = 0;
+        for (BrandNode brandNode : select(brands, brand)) {
+            for (ModelNode modelNode : select(brandNode.models, model)) {
+                for (Set<Entry> leaf : select(modelNode.years, prodYear)) {
+                    leaves.add(leaf);
+                    size += leaf.size();
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Creates the entry of a car, in the slot of the previous entry if the brand is unchanged.
+     */
+    private Entry newEntry(Car car, Entry previous) {
+        String brand = key(car.getBrandName());
+        int slot = previous != null && previous.brand.equals(brand) ? previous.slot : slots.allocate();
+        return new Entry(car.getId(), slot, brand, key(car.getModelName()), key(car.getProdYear()));
+    }
+
+    /**
+     * Takes the previous entry of a car out of the tree, and out of its slot if the new entry moves to another one.
+     */
+    private void replace(Entry previous, Entry entry) {
+        removeFromTree(previous);
+        if (previous.slot != entry.slot) {
+            retire(previous);
+        }
+    }
+
+    /**
+     * Frees the slot of an entry. A flip racing with it through the stale entry is undone by {@link #setAvailable}
+     * before the slot can be reused.
+     */
+    private void retire(Entry entry) {
+        entry.removed = true;
+        entriesBySlot.set(entry.slot, null);
+        if (available.clear(entry.slot)) {
+            countAvailable(entry, -1);
+        }
+        slots.release(entry.slot);
+    }
+
+    private void countAvailable(Entry entry, int delta) {
+        availableCount.addAndGet(delta);
+        availableByBrand.add(entry.brand, delta);
+    }
+
+    private void removeFromTree(Entry entry) {
+        brands.computeIfPresent(entry.brand, (brand, brandNode) -> brandNode.remove(entry) ? null : brandNode);
+    }
+
+    private static <V> Collection<V> select(Map<String, V> children, String key) {
+        if (key == null) {
+            return children.values();
+        }
+        V child = children.get(key);
+        return child == null ? List.of() : List.of(child);
+    }
+
+    private static String key(String value) {
+        return value == null ? NULL_KEY : value;
+    }
+
+    private <K, V> Map<K, V> newMap() {
+        return concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+    }
+
+    private Set<Entry> newSet() {
+        return concurrent ? ConcurrentHashMap.newKeySet() : new HashSet<>();
+    }
+
+    /**
+     * Attribute values a car was indexed with, kept so that the car can be removed from
+     * the tree even after it has been mutated in place.
+     */
+    private static final class Entry {
+        private final int id;
+        private final int slot;
+        private final String brand;
+        private final String model;
+        private final String year;
+        private volatile boolean removed;
+
+        private Entry(int id, int slot, String brand, String model, String year) {
+            this.id = id;
+            this.slot = slot;
+            this.brand = brand;
+            this.model = model;
+            this.year = year;
+        }
+    }
+
+    /**
+     * Models of one brand. Only changed inside a compute call on the brand map.
+     */
+    private final class BrandNode {
+        private final Map<String, ModelNode> models = newMap();
+
+        private void add(Entry entry) {
+            models.compute(entry.model, (model, node) -> {
+                ModelNode modelNode = node != null ? node : new ModelNode();
+                modelNode.years.computeIfAbsent(entry.year, year -> newSet()).add(entry);
+                return modelNode;
+            });
+        }
+
+        private boolean remove(Entry entry) {
+            models.computeIfPresent(entry.model, (model, modelNode) -> {
+                modelNode.years.computeIfPresent(entry.year, (year, leaf) -> leaf.remove(entry) && leaf.isEmpty() ? null : leaf);
+                return modelNode.years.isEmpty() ? null : modelNode;
+            });
+            return models.isEmpty();
+        }
+    }
+
+    /**
+     * Years of one model, each mapped to the entries produced in that year.
+     */
+    private final class ModelNode {
+        private final Map<String, Set<Entry>> years = newMap();
+    }
+}
@@ -1,23 +1,52 @@
 package org.example.carshop.repository;
 
-import lombok.AllArgsConstructor;
 import org.example.carshop.model.Car;
+import org.example.carshop.model.enums.ReservationResult;
+
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Repository class for managing ConferenceHall entities.
+ * Keeps a composite brand/model/year and availability index so that filtering touches only matching cars.
+ * When backed by a {@link ConcurrentMap} the repository is safe for parallel readers and writers:
+ * writes to the same car are serialized by a lock striped by car ID.
+ * Every mutation is reported to a {@link RepositoryJournal}.
  */
-@AllArgsConstructor
-public class CarRepository {
+public class CarRepository implements CarStore {
     private final Map<Integer, Car> carsMap;
+    private final CarIndex carIndex;
+    private final StripedLock carLocks = new StripedLock();
+    private final RepositoryJournal journal;
+
+    /**
+     * Constructs a repository over the given map and indexes the cars already present in it.
+     *
+     * @param carsMap the map storing cars by their IDs.
+     */
+    public CarRepository(Map<Integer, Car> carsMap) {
+        this(carsMap, RepositoryJournal.NONE);
+    }
 
     /**
-     * Retrieves all cars in Car Shop.
+     * Constructs a repository over the given map and indexes the cars already present in it.
      *
-     * @return a collection of all cars.
+     * @param carsMap the map storing cars by their IDs.
+     * @param journal the journal receiving every mutation of the repository.
      */
+    public CarRepository(Map<Integer, Car> carsMap, RepositoryJournal journal) {
+        this.carsMap = carsMap;
+        this.journal = journal;
+        this.carIndex = new CarIndex(carsMap instanceof ConcurrentMap);
+        carsMap.values().forEach(carIndex::add);
+    }
+
+    @Override
     public Collection<Car> getAllCars() {
         return carsMap.values();
     }
@@ -27,36 +56,182 @@ public class CarRepository {
      *
      * @param car the car entity to add.
      */
+    @Override
     public void addCar(Car car) {
-        carsMap.put(car.getId(), car);
+        carLocks.run(car.getId(), () -> {
+            carsMap.put(car.getId(), car);
+            carIndex.add(car);
+            journal.carSaved(car);
+        });
+        journal.awaitDurable();
     }
 
     /**
-     * Removes a car from the repository by its ID.
+     * Adds a batch of new or updated cars as one unit. The locks of all cars of the batch are held while it is
+     * applied, the cars are indexed together in a single pass, and the mutations are journaled as one batch
+     * that is awaited once. Of cars sharing an ID, the last one is kept.
      *
-     * @param carId the ID of the conference hall to remove.
+     * @param cars the cars to add.
      */
-    public void removeCarById(int carId) {
-        carsMap.remove(carId);
+    @Override
+    public void addCars(Collection<Car> cars) {
+        saveAll(cars, false);
+    }
+
+    /**
+     * Updates a batch of existing cars as one unit, like {@link #addCars}.
+     *
+     * @param cars the cars with updated information.
+     * @throws IllegalArgumentException if a car of the batch does not exist; no car is updated then.
+     */
+    @Override
+    public void updateCars(Collection<Car> cars) {
+        saveAll(cars, true);
     }
 
     /**
-     * Finds a car by its ID.
+     * Removes a batch of cars as one unit: all of them are removed, or none if one does not exist.
+     * The mutations are journaled as one batch that is awaited once.
      *
-     * @param carId the ID of the car to find.
-     * @return the car object with the specified ID, or null if not found.
+     * @param carIds the IDs of the cars to remove.
+     * @throws IllegalArgumentException if a car of the batch does not exist; no car is removed then.
      */
+    @Override
+    public void removeCarsById(Collection<Integer> carIds) {
+        carLocks.runAll(carIds, () -> {
+            requireExisting(carIds);
+            journal.beginBatch();
+            try {
+                for (int carId : carIds) {
+                    carsMap.remove(carId);
+                    carIndex.remove(carId);
+                    journal.carRemoved(carId);
+                }
+            } finally {
+                journal.commitBatch();
+            }
+        });
+        journal.awaitDurable();
+    }
+
+    @Override
+    public void removeCarById(int carId) {
+        carLocks.run(carId, () -> {
+            carsMap.remove(carId);
+            carIndex.remove(carId);
+            journal.carRemoved(carId);
+        });
+        journal.awaitDurable();
+    }
+
+    @Override
     public Car findCarById(int carId) {
         return carsMap.get(carId);
     }
 
     /**
-     * Updates an existing car in the repository.
+     * Reserves a car and runs the action once the car is reserved.
+     * The availability flag is flipped with a compare-and-set, so among concurrent callers
+     * exactly one reserves the car, and reservations of a car never wait for each other. Only reporting
+     * the change to the journal, if there is one, briefly takes the car lock. The availability change and
+     * whatever the action journals from the calling thread are journaled as one batch, so after a crash
+     * either both are restored or neither. If the action throws, the car is released again within the batch.
+     *
+     * @param carId  the ID of the car to reserve.
+     * @param action the action to run if the car is reserved, e.g. storing the order of the car.
+     * @return the outcome of the reservation.
+     */
+    @Override
+    public ReservationResult reserveCar(int carId, Runnable action) {
+        Car car = flipAvailability(carId);
+        if (car == null) {
+            return carsMap.containsKey(carId) ? ReservationResult.CAR_NOT_AVAILABLE : ReservationResult.CAR_NOT_FOUND;
+        }
+        journal.beginBatch();
+        try {
+            journalAvailability(car);
+            action.run();
+        } catch (RuntimeException e) {
+            if (car.compareAndSetAvailable(false, true)) {
+                indexAvailability(carId, car);
+                journalAvailability(car);
+            }
+            throw e;
+        } finally {
+            journal.commitBatch();
+            journal.awaitDurable();
+        }
+        return ReservationResult.RESERVED;
+    }
+
+    /**
+     * Makes a reserved car available again; like {@link #reserveCar} it locks only to journal the change.
      *
-     * @param car the car object with updated information.
+     * @param carId the ID of the car to release.
      */
-    public void updateCar(Car car) {
-        carsMap.put(car.getId(), car);
+    @Override
+    public void releaseCar(int carId) {
+        Car car = carsMap.get(carId);
+        if (car != null && car.compareAndSetAvailable(false, true)) {
+            indexAvailability(carId, car);
+            journalAvailability(car);
+            journal.awaitDurable();
+        }
+    }
+
+    /**
+     * Flips the availability of the stored car from available to unavailable.
+     *
+     * @return the reserved car, or null if there is no such car or it is not available.
+     */
+    private Car flipAvailability(int carId) {
+        while (true) {
+            Car car = carsMap.get(carId);
+            if (car == null) {
+                return null;
+            }
+            if (!car.compareAndSetAvailable(true, false)) {
+                if (carsMap.get(carId) == car) {
+                    return null;
+                }
+                continue;
+            }
+            if (carsMap.get(carId) == car) {
+                indexAvailability(carId, car);
+                return car;
+            }
+            car.compareAndSetAvailable(false, true);
+        }
+    }
+
+    /**
+     * Copies the availability of the car into the index after a flip. A reservation and a release racing on
+     * the same car may write the bit in either order, so the bit is written again until the availability
+     * read after writing it still matches; whoever flips last then leaves the bit right.
+     */
+    private void indexAvailability(int carId, Car car) {
+        boolean isAvailable;
+        do {
+            isAvailable = car.isAvailable();
+            carIndex.setAvailable(carId, isAvailable);
+        } while (car.isAvailable() != isAvailable);
+    }
+
+    @Override
+    public long brandVersion(String brand) {
+        return carIndex.brandVersion(brand);
+    }
+
+    /**
+     * Counts the available cars of every brand. The counts are kept up to date by every mutation,
+     * so counting costs time proportional to the number of brands rather than of cars.
+     *
+     * @return the numbers of available cars by brand in brand order, with cars without a brand under
+     *         the empty string; brands without available cars are left out.
+     */
+    @Override
+    public SortedMap<String, Long> countAvailableCarsByBrand() {
+        return new TreeMap<>(carIndex.countAvailableByBrand());
     }
 
     /**
@@ -65,15 +240,100 @@ public class CarRepository {
      * @param brand Filter by brand.
      * @param model Filter by model.
      * @param prodYear Filter by year of manufacture.
-
-     * @return Filtered collection of cars.
+     * @param isAvailable Filter by availability.
+     * @return Filtered collection of cars, ordered by ID.
      */
+    @Override
     public Collection<Car> filterCars(String brand, String model, String prodYear, Boolean isAvailable) {
-        return carsMap.values().stream()
-                .filter(car -> (brand == null || car.getBrandName().equals(brand))
-                        && (model == null || car.getModelName().equals(model))
-                        && (prodYear == null || car.getProdYear().equals(prodYear))
-                        && (isAvailable == null || car.isAvailable() == isAvailable))
-                .collect(Collectors.toList());
+        List<Integer> ids = carIndex.find(brand, model, prodYear, isAvailable);
+        List<Car> cars = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            Car car = carsMap.get(id);
+            if (car != null) {
+                cars.add(car);
+            }
+        }
+        return cars;
+    }
+
+    /**
+     * Finds one page of the cars matching the given parameters, ordered by ID.
+     * Only the cars of the page are collected, however many cars match.
+     *
+     * @param brand Filter by brand.
+     * @param model Filter by model.
+     * @param prodYear Filter by year of manufacture.
+     * @param isAvailable Filter by availability.
+     * @param afterId the ID of the last car of the previous page, or null for the first page.
+     * @param limit the maximal number of cars of the page.
+     * @return the page.
+     */
+    @Override
+    public Page<Car> filterCars(String brand, String model, String prodYear, Boolean isAvailable,
+                                Integer afterId, int limit) {
+        int[] ids = carIndex.findAfter(brand, model, prodYear, isAvailable, afterId, limit + 1);
+        List<Car> cars = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Car car = carsMap.get(id);
+            if (car != null) {
+                cars.add(car);
+            }
+        }
+        return Page.of(cars, limit);
+    }
+
+    private void saveAll(Collection<Car> cars, boolean existingOnly) {
+        List<Integer> carIds = idsOf(cars);
+        carLocks.runAll(carIds, () -> {
+            if (existingOnly) {
+                requireExisting(carIds);
+            }
+            journal.beginBatch();
+            try {
+                for (Car car : cars) {
+                    carsMap.put(car.getId(), car);
+                    journal.carSaved(car);
+                }
+                carIndex.addAll(cars);
+            } finally {
+                journal.commitBatch();
+            }
+        });
+        journal.awaitDurable();
+    }
+
+    private void requireExisting(Collection<Integer> carIds) {
+        for (int carId : carIds) {
+            if (!carsMap.containsKey(carId)) {
+                throw new IllegalArgumentException("Car does not exist: " + carId);
+            }
+        }
+    }
+
+    /**
+     * @return the IDs of the cars, in the order of the cars.
+     */
+    static List<Integer> idsOf(Collection<Car> cars) {
+        List<Integer> carIds = new ArrayList<>(cars.size());
+        for (Car car : cars) {
+            carIds.add(car.getId());
+        }
+        return carIds;
+    }
+
+    /**
+     * Journals the current availability of the car under its lock. Availability is flipped outside the lock,
+     * so journaling the value read under the lock, rather than the flipped one, keeps the last journaled
+     * value equal to the actual one whatever order concurrent flips are journaled in.
+     */
+    private void journalAvailability(Car car) {
+        if (journal == RepositoryJournal.NONE) {
+            return;
+        }
+        carLocks.run(car.getId(), () -> {
+            if (carsMap.get(car.getId()) == car) {
+                journal.carAvailabilityChanged(car.getId(), car.isAvailable());
+            }
+        });
     }
 }
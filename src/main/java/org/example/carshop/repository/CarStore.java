@@ -0,0 +1,161 @@
+package org.example.carshop.repository;
+
+import org.example.carshop.model.Car;
+import org.example.carshop.model.enums.ReservationResult;
+
+import java.util.Collection;
+import java.util.SortedMap;
+import java.util.stream.Stream;
+
+/**
+ * Storage of cars behind the car service, implemented by the map-based {@link CarRepository}
+ * and the column-based {@link CompactCarRepository}.
+ */
+public interface CarStore {
+
+    /**
+     * Retrieves all stored cars.
+     *
+     * @return a collection of all cars.
+     */
+    Collection<Car> getAllCars();
+
+    /**
+     * Adds a new car, or replaces the stored car with the same ID.
+     *
+     * @param car the car to add.
+     */
+    void addCar(Car car);
+
+    /**
+     * Updates an existing car.
+     *
+     * @param car the car with updated information.
+     */
+    default void updateCar(Car car) {
+        addCar(car);
+    }
+
+    /**
+     * Adds a batch of new or updated cars as one unit. Of cars sharing an ID, the last one is kept.
+     *
+     * @param cars the cars to add.
+     */
+    void addCars(Collection<Car> cars);
+
+    /**
+     * Updates a batch of existing cars as one unit: all of them are updated, or none.
+     *
+     * @param cars the cars with updated information.
+     * @throws IllegalArgumentException if a car of the batch does not exist; no car is updated then.
+     */
+    void updateCars(Collection<Car> cars);
+
+    /**
+     * Removes a car by its ID.
+     *
+     * @param carId the ID of the car to remove.
+     */
+    void removeCarById(int carId);
+
+    /**
+     * Removes a batch of cars as one unit: all of them are removed, or none.
+     *
+     * @param carIds the IDs of the cars to remove.
+     * @throws IllegalArgumentException if a car of the batch does not exist; no car is removed then.
+     */
+    void removeCarsById(Collection<Integer> carIds);
+
+    /**
+     * Finds a car by its ID.
+     *
+     * @param carId the ID of the car to find.
+     * @return the car with the specified ID, or null if not found.
+     */
+    Car findCarById(int carId);
+
+    /**
+     * Marks an available car as unavailable; among concurrent callers exactly one reserves the car.
+     *
+     * @param carId the ID of the car to reserve.
+     * @return the outcome of the reservation.
+     */
+    default ReservationResult reserveCar(int carId) {
+        return reserveCar(carId, () -> {
+        });
+    }
+
+    /**
+     * Reserves a car like {@link #reserveCar(int)} and runs the action once the car is reserved.
+     * If the action throws, the car is released again.
+     *
+     * @param carId  the ID of the car to reserve.
+     * @param action the action to run if the car is reserved, e.g. storing the order of the car.
+     * @return the outcome of the reservation.
+     */
+    ReservationResult reserveCar(int carId, Runnable action);
+
+    /**
+     * Makes a reserved car available again.
+     *
+     * @param carId the ID of the car to release.
+     */
+    void releaseCar(int carId);
+
+    /**
+     * Returns a version of the cars of the brand that changes whenever such a car is added, updated, removed,
+     * reserved or released. A search result stamped with the version read before the search is still current
+     * as long as the version is unchanged.
+     *
+     * @param brand the brand, or null for all cars.
+     * @return the current version.
+     */
+    long brandVersion(String brand);
+
+    /**
+     * Counts the available cars of every brand without a lookup.
+     *
+     * @return the numbers of available cars by brand in brand order, with cars without a brand under
+     *         the empty string; brands without available cars are left out.
+     */
+    SortedMap<String, Long> countAvailableCarsByBrand();
+
+    /**
+     * Filters cars based on given parameters.
+     *
+     * @param brand Filter by brand.
+     * @param model Filter by model.
+     * @param prodYear Filter by year of manufacture.
+     * @param isAvailable Filter by availability.
+     * @return Filtered collection of cars, ordered by ID.
+     */
+    Collection<Car> filterCars(String brand, String model, String prodYear, Boolean isAvailable);
+
+    /**
+     * Finds one page of the cars matching the given parameters, ordered by ID.
+     *
+     * @param brand Filter by brand.
+     * @param model Filter by model.
+     * @param prodYear Filter by year of manufacture.
+     * @param isAvailable Filter by availability.
+     * @param afterId the ID of the last car of the previous page, or null for the first page.
+     * @param limit the maximal number of cars of the page.
+     * @return the page.
+     */
+    Page<Car> filterCars(String brand, String model, String prodYear, Boolean isAvailable, Integer afterId, int limit);
+
+    /**
+     * Streams the cars matching the given parameters in ID order, fetching them a page at a time
+     * as the stream is consumed.
+     *
+     * @param brand Filter by brand.
+     * @param model Filter by model.
+     * @param prodYear Filter by year of manufacture.
+     * @param isAvailable Filter by availability.
+     * @return a lazy stream of the matching cars.
+     */
+    default Stream<Car> streamCars(String brand, String model, String prodYear, Boolean isAvailable) {
+        return Pages.stream(Pages.DEFAULT_PAGE_SIZE, (last, limit) ->
+                filterCars(brand, model, prodYear, isAvailable, last == null ? null : last.getId(), limit));
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.carshop.repository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the changes of the entities under every key and of all entities together, so that a result
+ * computed from the entities under a key can be told stale by comparing the count read before computing it.
+ * A change is counted after it has been made visible, so a count read before a lookup never covers a change
+ * the lookup has missed.
+ *
+ * @param <K> type of the keys.
+ */
+class ChangeCounters<K> {
+    private final Map<K, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final AtomicLong total = new AtomicLong();
+
+    /**
+     * Counts a change of an entity under the key.
+     *
+     * @param key the key of the entity, or null if it has none; then only the total is counted.
+     */
+    void changed(K key) {
+        if (key != null) {
+            counters.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+        }
+        total.incrementAndGet();
+    }
+
+    /**
+     * @param key the key, or null for all entities.
+     * @return the number of changes of the entities under the key so far.
+     */
+    long version(K key) {
+        if (key == null) {
+            return total.get();
+        }
+        AtomicLong counter = counters.get(key);
+        return counter == null ? 0 : counter.get();
+    }
+}
@@ -0,0 +1,384 @@
+package org.example.carshop.repository;
+
+import org.example.carshop.model.Car;
+import org.example.carshop.model.enums.ReservationResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Car repository keeping cars in primitive columns instead of a map of {@link Car} objects,
+ * for inventories too large to hold one object per car.
+ * <p>
+ * Cars occupy dense slots found through an open-addressing ID-to-slot map. Brands, models and state
+ * descriptions are dictionary-encoded into int columns, years are kept in a short column and availability
+ * in a bitset; a year that is not a plain number is kept aside by car ID. Removing a car moves the car in
+ * the last slot into its place, so the columns stay dense.
+ * <p>
+ * Cars returned by the repository are copies built from the columns: changes to them take effect only once
+ * they are passed to {@link #updateCar}. Writes take an exclusive lock, while lookups, reservations and
+ * releases share it; reservations flip the availability bit atomically.
+ * <p>
+ * Mutations are not journaled, so the repository holds cars in memory only and cannot back a
+ * {@link org.example.carshop.persistence.StorageEngine}.
+ */
+public class CompactCarRepository implements CarStore {
+    private static final short NO_YEAR = Short.MIN_VALUE;
+    private static final short IRREGULAR_YEAR = Short.MIN_VALUE + 1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final StripedLock carLocks = new StripedLock();
+    private final IntIntHashMap slotsById = new IntIntHashMap();
+    private final StringDictionary brands = new StringDictionary();
+    private final StringDictionary models = new StringDictionary();
+    private final StringDictionary states = new StringDictionary();
+    private final Map<Integer, String> irregularYears = new HashMap<>();
+    private final AtomicBitSet available = new AtomicBitSet();
+    private final ChangeCounters<String> brandChanges = new ChangeCounters<>();
+    private final KeyCounts<String> availableByBrand = new KeyCounts<>();
+    private int[] ids = new int[16];
+    private int[] brandCodes = new int[16];
+    private int[] modelCodes = new int[16];
+    private short[] years = new short[16];
+    private int[] stateCodes = new int[16];
+    private int size;
+
+    @Override
+    public Collection<Car> getAllCars() {
+        lock.readLock().lock();
+        try {
+            List<Car> cars = new ArrayList<>(size);
+            for (int slot = 0; slot < size; slot++) {
+                cars.add(materialize(slot));
+            }
+            return cars;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void addCar(Car car) {
+        carLocks.run(car.getId(), () -> {
+            lock.writeLock().lock();
+            try {
+                store(car);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Adds a batch of cars under the locks of all its cars and a single acquisition of the write lock,
+     * growing the columns once for the batch.
+     */
+    @Override
+    public void addCars(Collection<Car> cars) {
+        storeAll(cars, false);
+    }
+
+    @Override
+    public void updateCars(Collection<Car> cars) {
+        storeAll(cars, true);
+    }
+
+    @Override
+    public void removeCarsById(Collection<Integer> carIds) {
+        carLocks.runAll(carIds, () -> {
+            lock.writeLock().lock();
+            try {
+                requireExisting(carIds);
+                for (int carId : carIds) {
+                    delete(carId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public void removeCarById(int carId) {
+        carLocks.run(carId, () -> {
+            lock.writeLock().lock();
+            try {
+                delete(carId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public Car findCarById(int carId) {
+        lock.readLock().lock();
+        try {
+            int slot = slotsById.get(carId);
+            return slot < 0 ? null : materialize(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public ReservationResult reserveCar(int carId, Runnable action) {
+        ReservationResult result = reserve(carId);
+        if (result == ReservationResult.RESERVED) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                releaseCar(carId);
+                throw e;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void releaseCar(int carId) {
+        lock.readLock().lock();
+        try {
+            int slot = slotsById.get(carId);
+            if (slot >= 0 && available.set(slot)) {
+                String brand = brands.decode(brandCodes[slot]);
+                availableByBrand.add(countKey(brand), 1);
+                brandChanges.changed(brand);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long brandVersion(String brand) {
+        return brandChanges.version(brand);
+    }
+
+    @Override
+    public SortedMap<String, Long> countAvailableCarsByBrand() {
+        return new TreeMap<>(availableByBrand.snapshot());
+    }
+
+    @Override
+    public Collection<Car> filterCars(String brand, String model, String prodYear, Boolean isAvailable) {
+        lock.readLock().lock();
+        try {
+            int brandCode = brands.codeOf(brand);
+            int modelCode = models.codeOf(model);
+            short year = encodeYear(prodYear);
+            List<Car> cars = new ArrayList<>();
+            if (brand != null && brandCode == StringDictionary.NULL_CODE
+                    || model != null && modelCode == StringDictionary.NULL_CODE) {
+                return cars;
+            }
+            for (int slot = 0; slot < size; slot++) {
+                if (matches(slot, brandCode, modelCode, prodYear, year, isAvailable)) {
+                    cars.add(materialize(slot));
+                }
+            }
+            cars.sort(Comparator.comparingInt(Car::getId));
+            return cars;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Page<Car> filterCars(String brand, String model, String prodYear, Boolean isAvailable,
+                                Integer afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Car> cars = new ArrayList<>();
+            int brandCode = brands.codeOf(brand);
+            int modelCode = models.codeOf(model);
+            short year = encodeYear(prodYear);
+            if (brand != null && brandCode == StringDictionary.NULL_CODE
+                    || model != null && modelCode == StringDictionary.NULL_CODE) {
+                return Page.of(cars, limit);
+            }
+            IdWindow window = new IdWindow(afterId, limit + 1);
+            for (int slot = 0; slot < size; slot++) {
+                if (window.accepts(ids[slot]) && matches(slot, brandCode, modelCode, prodYear, year, isAvailable)) {
+                    window.offer(ids[slot]);
+                }
+            }
+            for (int id : window.toSortedArray()) {
+                cars.add(materialize(slotsById.get(id)));
+            }
+            return Page.of(cars, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private ReservationResult reserve(int carId) {
+        lock.readLock().lock();
+        try {
+            int slot = slotsById.get(carId);
+            if (slot < 0) {
+                return ReservationResult.CAR_NOT_FOUND;
+            }
+            if (!available.clear(slot)) {
+                return ReservationResult.CAR_NOT_AVAILABLE;
+            }
+            String brand = brands.decode(brandCodes[slot]);
+            availableByBrand.add(countKey(brand), -1);
+            brandChanges.changed(brand);
+            return ReservationResult.RESERVED;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Matches a slot against encoded criteria; a {@link StringDictionary#NULL_CODE} brand or model code matches any.
+     */
+    private boolean matches(int slot, int brandCode, int modelCode, String prodYear, short year, Boolean isAvailable) {
+        return (brandCode == StringDictionary.NULL_CODE || brandCodes[slot] == brandCode)
+                && (modelCode == StringDictionary.NULL_CODE || modelCodes[slot] == modelCode)
+                && (prodYear == null || years[slot] == year
+                    && (year != IRREGULAR_YEAR || prodYear.equals(irregularYears.get(ids[slot]))))
+                && (isAvailable == null || available.get(slot) == isAvailable);
+    }
+
+    private void storeAll(Collection<Car> cars, boolean existingOnly) {
+        List<Integer> carIds = CarRepository.idsOf(cars);
+        carLocks.runAll(carIds, () -> {
+            lock.writeLock().lock();
+            try {
+                if (existingOnly) {
+                    requireExisting(carIds);
+                }
+                ensureCapacity(size + cars.size());
+                for (Car car : cars) {
+                    store(car);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private void requireExisting(Collection<Integer> carIds) {
+        for (int carId : carIds) {
+            if (slotsById.get(carId) < 0) {
+                throw new IllegalArgumentException("Car does not exist: " + carId);
+            }
+        }
+    }
+
+    private void delete(int carId) {
+        int slot = slotsById.remove(carId);
+        if (slot < 0) {
+            return;
+        }
+        String brand = brands.decode(brandCodes[slot]);
+        if (available.get(slot)) {
+            availableByBrand.add(countKey(brand), -1);
+        }
+        irregularYears.remove(carId);
+        int last = --size;
+        if (slot != last) {
+            ids[slot] = ids[last];
+            brandCodes[slot] = brandCodes[last];
+            modelCodes[slot] = modelCodes[last];
+            stateCodes[slot] = stateCodes[last];
+            years[slot] = years[last];
+            if (available.get(last)) {
+                available.set(slot);
+            } else {
+                available.clear(slot);
+            }
+            slotsById.put(ids[slot], slot);
+        }
+        available.clear(last);
+        brandChanges.changed(brand);
+    }
+
+    private void store(Car car) {
+        int slot = slotsById.get(car.getId());
+        String previousBrand = null;
+        if (slot < 0) {
+            slot = size++;
+            ensureCapacity(size);
+            slotsById.put(car.getId(), slot);
+        } else {
+            previousBrand = brands.decode(brandCodes[slot]);
+            if (available.get(slot)) {
+                availableByBrand.add(countKey(previousBrand), -1);
+            }
+        }
+        ids[slot] = car.getId();
+        brandCodes[slot] = brands.encode(car.getBrandName());
+        modelCodes[slot] = models.encode(car.getModelName());
+        stateCodes[slot] = states.encode(car.getStateDesc());
+        years[slot] = encodeYear(car.getProdYear());
+        if (years[slot] == IRREGULAR_YEAR) {
+            irregularYears.put(car.getId(), car.getProdYear());
+        } else {
+            irregularYears.remove(car.getId());
+        }
+        if (car.isAvailable()) {
+            available.set(slot);
+            availableByBrand.add(countKey(car.getBrandName()), 1);
+        } else {
+            available.clear(slot);
+        }
+        if (previousBrand != null && !previousBrand.equals(car.getBrandName())) {
+            brandChanges.changed(previousBrand);
+        }
+        brandChanges.changed(car.getBrandName());
+    }
+
+    private Car materialize(int slot) {
+        String prodYear = switch (years[slot]) {
+            case NO_YEAR -> null;
+            case IRREGULAR_YEAR -> irregularYears.get(ids[slot]);
+            default -> Short.toString(years[slot]);
+        };
+        return new Car(ids[slot], models.decode(modelCodes[slot]), brands.decode(brandCodes[slot]), prodYear,
+                states.decode(stateCodes[slot]), available.get(slot));
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > ids.length) {
+            int length = Math.max(capacity, ids.length * 2);
+            ids = Arrays.copyOf(ids, length);
+            brandCodes = Arrays.copyOf(brandCodes, length);
+            modelCodes = Arrays.copyOf(modelCodes, length);
+            years = Arrays.copyOf(years, length);
+            stateCodes = Arrays.copyOf(stateCodes, length);
+        }
+    }
+
+    private static String countKey(String brand) {
+        return brand == null ? "" : brand;
+    }
+
+    /**
+     * Encodes a year as a short if it is written as a plain non-negative number, so that decoding restores it.
+     */
+    private static short encodeYear(String prodYear) {
+        if (prodYear == null) {
+            return NO_YEAR;
+        }
+        if (prodYear.isEmpty() || prodYear.length() > 4 || prodYear.length() > 1 && prodYear.charAt(0) == '0') {
+            return IRREGULAR_YEAR;
+        }
+        for (int i = 0; i < prodYear.length(); i++) {
+            if (prodYear.charAt(i) < '0' || prodYear.charAt(i) > '9') {
+                return IRREGULAR_YEAR;
+            }
+        }
+        return Short.parseShort(prodYear);
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.carshop.repository;
+
+import java.util.Arrays;
+
+/**
+ * Selects the smallest IDs above a cursor out of IDs offered in any order, keeping no more of them than
+ * fit on a page. Backs keyset pagination over storage that is not ordered by ID: a scan offers every
+ * matching ID and the window keeps the best candidates in an int max-heap.
+ */
+public final class IdWindow {
+    private final long after;
+    private final int[] heap;
+    private int size;
+
+    /**
+     * Creates an empty window.
+     *
+     * @param afterId  the cursor; only IDs greater than it are kept. Null accepts every ID.
+     * @param capacity the number of IDs to keep.
+     */
+    public IdWindow(Integer afterId, int capacity) {
+        this.after = afterId == null ? Long.MIN_VALUE : afterId;
+        this.heap = new int[capacity];
+    }
+
+    /**
+     * Offers an ID to the window.
+     *
+     * @param id the ID.
+     */
+    public void offer(int id) {
+        if (id <= after || heap.length == 0) {
+            return;
+        }
+        if (size < heap.length) {
+            heap[size] = id;
+            siftUp(size++);
+        } else if (id < heap[0]) {
+            heap[0] = id;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * @param id an ID.
+     * @return false if the ID could not enter the window, whether because of the cursor or because
+     * the window is full of smaller IDs. Lets scans skip work for IDs that cannot be selected.
+     */
+    public boolean accepts(int id) {
+        return id > after && (size < heap.length || id < heap[0]);
+    }
+
+    /**
+     * @return the kept IDs in ascending order.
+     */
+    public int[] toSortedArray() {
+        int[] ids = Arrays.copyOf(heap, size);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] >= heap[index]) {
+                return;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && heap[child + 1] > heap[child]) {
+                child++;
+            }
+            if (heap[index] >= heap[child]) {
+                return;
+            }
+            swap(index, child);
+            index = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+}
@@ -0,0 +1,114 @@
+package org.example.carshop.repository;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from non-negative int keys to int values, storing keys and values in two arrays
+ * instead of boxing every entry. Not thread-safe.
+ */
+public class IntIntHashMap {
+    private static final int FREE = -1;
+    private static final int REMOVED = -2;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int used;
+
+    public IntIntHashMap() {
+        allocate(16);
+    }
+
+    /**
+     * @param key the key, not negative.
+     * @return the value mapped to the key, or -1 if there is none.
+     */
+    public int get(int key) {
+        int index = indexOf(key);
+        return index < 0 ? -1 : values[index];
+    }
+
+    /**
+     * Maps the key to the value, replacing the previous value.
+     *
+     * @param key   the key, not negative.
+     * @param value the value.
+     */
+    public void put(int key, int value) {
+        int index = indexOf(key);
+        if (index >= 0) {
+            values[index] = value;
+            return;
+        }
+        if ((used + 1) * 4 > keys.length * 3) {
+            rehash(size * 2 > keys.length / 2 ? keys.length * 2 : keys.length);
+        }
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] >= 0) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == FREE) {
+            used++;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+
+    /**
+     * Removes the mapping of the key.
+     *
+     * @param key the key.
+     * @return the removed value, or -1 if there was none.
+     */
+    public int remove(int key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return -1;
+        }
+        keys[index] = REMOVED;
+        size--;
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int indexOf(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] >= 0) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+        size = 0;
+        used = 0;
+    }
+
+    private static int mix(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.carshop.repository;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Non-overlapping half-open intervals {@code [start, end)} of one resource, each carrying a value,
+ * kept in a search tree ordered by start.
+ * <p>
+ * Because the intervals never overlap each other, their ends are ordered like their starts, so the only
+ * intervals that can overlap a query are the one starting at or before the query start and the one starting
+ * right after it. Both are found by a single tree descent, which makes a conflict check logarithmic without
+ * the max-end augmentation a general interval tree needs. The schedule is not thread-safe.
+ *
+ * @param <T> type of the interval values.
+ */
+public class IntervalSchedule<T> {
+    private final TreeMap<Long, Slot<T>> slots = new TreeMap<>();
+
+    /**
+     * An interval of the schedule.
+     *
+     * @param start the start of the interval, inclusive.
+     * @param end   the end of the interval, exclusive.
+     * @param value the value of the interval.
+     * @param <T>   type of the value.
+     */
+    public record Slot<T>(long start, long end, T value) {
+    }
+
+    /**
+     * Finds the earliest interval overlapping the given one.
+     *
+     * @param start the start of the interval, inclusive.
+     * @param end   the end of the interval, exclusive.
+     * @return the earliest overlapping interval, or null if the given interval is free.
+     */
+    public Slot<T> findConflict(long start, long end) {
+        Map.Entry<Long, Slot<T>> before = slots.floorEntry(start);
+        if (before != null && before.getValue().end() > start) {
+            return before.getValue();
+        }
+        Map.Entry<Long, Slot<T>> after = slots.higherEntry(start);
+        return after != null && after.getKey() < end ? after.getValue() : null;
+    }
+
+    /**
+     * Adds an interval.
+     *
+     * @param start the start of the interval, inclusive.
+     * @param end   the end of the interval, exclusive.
+     * @param value the value of the interval.
+     * @return the added interval.
+     * @throws IllegalArgumentException if the interval is empty or overlaps an interval of the schedule.
+     */
+    public Slot<T> add(long start, long end, T value) {
+        if (start >= end) {
+            throw new IllegalArgumentException("Empty interval: [" + start + ", " + end + ")");
+        }
+        if (findConflict(start, end) != null) {
+            throw new IllegalArgumentException("Interval overlaps the schedule: [" + start + ", " + end + ")");
+        }
+        Slot<T> slot = new Slot<>(start, end, value);
+        slots.put(start, slot);
+        return slot;
+    }
+
+    /**
+     * Removes an interval.
+     *
+     * @param slot the interval, as returned by the schedule.
+     * @return true if the interval was in the schedule.
+     */
+    public boolean remove(Slot<T> slot) {
+        return slots.remove(slot.start(), slot);
+    }
+
+    /**
+     * @return the number of intervals in the schedule.
+     */
+    public int size() {
+        return slots.size();
+    }
+}
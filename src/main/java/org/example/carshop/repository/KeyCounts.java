@@ -0,0 +1,50 @@
+package org.example.carshop.repository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Numbers of entities per key, kept up to date by the mutations of a repository so that reading a count
+ * costs a map lookup however many entities there are. Counts are {@link LongAdder}s, so concurrent mutations
+ * of entities under the same key do not contend on one counter.
+ *
+ * @param <K> type of the keys.
+ */
+class KeyCounts<K> {
+    private final Map<K, LongAdder> counts = new ConcurrentHashMap<>();
+
+    /**
+     * Adds to the count of the key.
+     *
+     * @param key   the key.
+     * @param delta the number of entities added under the key, negative for removed ones.
+     */
+    void add(K key, long delta) {
+        counts.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * @param key the key.
+     * @return the number of entities under the key.
+     */
+    long get(K key) {
+        LongAdder count = counts.get(key);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * @return the non-zero counts by key.
+     */
+    Map<K, Long> snapshot() {
+        Map<K, Long> snapshot = new HashMap<>();
+        counts.forEach((key, count) -> {
+            long sum = count.sum();
+            if (sum != 0) {
+                snapshot.put(key, sum);
+            }
+        });
+        return snapshot;
+    }
+}
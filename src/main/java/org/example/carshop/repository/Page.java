@@ -0,0 +1,36 @@
+package org.example.carshop.repository;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated lookup.
+ * Items are in ascending key order; the next page is requested with the key of the last item as the cursor,
+ * so pages stay stable while entities are added or removed in between.
+ *
+ * @param items   the items of the page.
+ * @param hasNext whether more items follow the last one.
+ * @param <T>     type of the items.
+ */
+public record Page<T>(List<T> items, boolean hasNext) {
+
+    /**
+     * Cuts a page out of sorted candidates.
+     *
+     * @param candidates the first items after the cursor in ascending key order, at most one more than the limit.
+     * @param limit      the maximal number of items of the page.
+     * @param <T>        type of the items.
+     * @return the first {@code limit} candidates, with {@link #hasNext} set if there were more.
+     */
+    public static <T> Page<T> of(List<T> candidates, int limit) {
+        return candidates.size() > limit
+                ? new Page<>(List.copyOf(candidates.subList(0, limit)), true)
+                : new Page<>(List.copyOf(candidates), false);
+    }
+
+    /**
+     * @return the last item of the page, or null if the page is empty.
+     */
+    public T last() {
+        return items.isEmpty() ? null : items.get(items.size() - 1);
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.carshop.repository;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy streams over keyset-paginated lookups.
+ */
+public final class Pages {
+    /**
+     * Number of items fetched at a time by the streams of the repositories.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 256;
+
+    private Pages() {
+    }
+
+    /**
+     * Source of consecutive pages.
+     *
+     * @param <T> type of the items.
+     */
+    @FunctionalInterface
+    public interface PageSource<T> {
+        /**
+         * Fetches the items following the given one.
+         *
+         * @param last  the last item of the previous page, or null for the first page.
+         * @param limit the maximal number of items to return.
+         * @return the page.
+         */
+        Page<T> fetch(T last, int limit);
+    }
+
+    /**
+     * Creates a sequential stream fetching one page at a time, only as far as it is consumed,
+     * so at most one page of items is held at once.
+     *
+     * @param pageSize the number of items fetched at a time.
+     * @param source   the source of pages.
+     * @param <T>      type of the items.
+     * @return the stream of all items of all pages in key order.
+     */
+    public static <T> Stream<T> stream(int pageSize, PageSource<T> source) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private Iterator<T> current;
+            private T last;
+            private boolean hasNext = true;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                while (current == null || !current.hasNext()) {
+                    if (!hasNext) {
+                        return false;
+                    }
+                    Page<T> page = source.fetch(last, pageSize);
+                    current = page.items().iterator();
+                    hasNext = page.hasNext() && !page.items().isEmpty();
+                }
+                last = current.next();
+                action.accept(last);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.carshop.repository;
+
+import org.example.carshop.model.Car;
+import org.example.carshop.model.Request;
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.RequestStatus;
+
+/**
+ * Receives every mutation applied to the repositories, e.g. to make it durable.
+ * Repositories call the mutation methods while holding the lock of the changed entity,
+ * so mutations of one entity are reported in the order they were applied, and call
+ * {@link #awaitDurable()} after releasing the lock.
+ */
+public interface RepositoryJournal {
+
+    /**
+     * Journal that ignores all mutations.
+     */
+    RepositoryJournal NONE = new RepositoryJournal() {
+    };
+
+    /**
+     * Called after a car has been added or updated.
+     *
+     * @param car the saved car.
+     */
+    default void carSaved(Car car) {
+    }
+
+    /**
+     * Called after a car has been removed.
+     *
+     * @param carId the ID of the removed car.
+     */
+    default void carRemoved(int carId) {
+    }
+
+    /**
+     * Called after the availability of a car has been changed without updating the whole car.
+     *
+     * @param carId       the ID of the car.
+     * @param isAvailable the new availability of the car.
+     */
+    default void carAvailabilityChanged(int carId, boolean isAvailable) {
+    }
+
+    /**
+     * Called after a request has been added or updated.
+     *
+     * @param request the saved request.
+     */
+    default void requestSaved(Request request) {
+    }
+
+    /**
+     * Called after a request has been removed.
+     *
+     * @param requestId the ID of the removed request.
+     */
+    default void requestRemoved(int requestId) {
+    }
+
+    /**
+     * Called after the status of a stored request has been changed.
+     *
+     * @param requestId     the ID of the request.
+     * @param requestStatus the new status of the request.
+     */
+    default void requestStatusChanged(int requestId, RequestStatus requestStatus) {
+    }
+
+    /**
+     * Called after a user has been registered or updated.
+     *
+     * @param user the saved user.
+     */
+    default void userSaved(User user) {
+    }
+
+    /**
+     * Starts a batch: the mutations the calling thread reports until {@link #commitBatch()} are made durable
+     * as one unit, so that after a crash either all of them are restored or none. Batches do not nest.
+     */
+    default void beginBatch() {
+    }
+
+    /**
+     * Ends the batch of the calling thread started by {@link #beginBatch()}.
+     */
+    default void commitBatch() {
+    }
+
+    /**
+     * Blocks until the mutations reported by the calling thread are durable,
+     * if the journal is configured to wait for that.
+     */
+    default void awaitDurable() {
+    }
+}
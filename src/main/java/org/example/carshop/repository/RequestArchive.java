@@ -0,0 +1,112 @@
+package org.example.carshop.repository;
+
+import org.example.carshop.model.Request;
+import org.example.carshop.model.enums.RequestStatus;
+import org.example.carshop.model.enums.RequestTimestamp;
+import org.example.carshop.model.enums.RequestType;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-mostly tier holding completed requests outside the heap.
+ * Requests returned by the archive are copies built on every lookup; changing them does not change the archive.
+ * Every lookup returns requests in ascending ID order; a null request type matches requests of any type.
+ */
+public interface RequestArchive {
+
+    /**
+     * Stores the request, replacing an archived request with the same ID.
+     *
+     * @param request the request to archive.
+     */
+    void add(Request request);
+
+    /**
+     * Removes the archived request with the given ID.
+     *
+     * @param requestId the ID of the request.
+     * @return true if the request was archived.
+     */
+    boolean remove(int requestId);
+
+    /**
+     * @param requestId the ID of the request.
+     * @return true if a request with the given ID is archived.
+     */
+    boolean contains(int requestId);
+
+    /**
+     * @return the greatest ID ever archived, or 0 if nothing was archived.
+     */
+    int maxId();
+
+    /**
+     * @param requestId the ID of the request.
+     * @return a copy of the archived request, or null if it is not archived.
+     */
+    Request find(int requestId);
+
+    /**
+     * @return copies of all archived requests.
+     */
+    List<Request> findAll();
+
+    List<Request> findByCar(RequestType requestType, int carId);
+
+    List<Request> findByUser(RequestType requestType, String username);
+
+    List<Request> findByStatus(RequestType requestType, RequestStatus requestStatus);
+
+    /**
+     * Finds requests created or completed on the given date.
+     *
+     * @param requestType the type of the requests, or null for any.
+     * @param date        the date of creation or completion.
+     * @return copies of the matching requests.
+     */
+    default List<Request> findByDate(RequestType requestType, LocalDate date) {
+        return findByDateRange(requestType, date, date, null);
+    }
+
+    /**
+     * Finds requests with a timestamp falling into the given range of dates.
+     *
+     * @param requestType the type of the requests, or null for any.
+     * @param from        the first date of the range.
+     * @param to          the last date of the range, inclusive.
+     * @param timestamp   the timestamp to match, or null to match either of them.
+     * @return copies of the matching requests.
+     */
+    List<Request> findByDateRange(RequestType requestType, LocalDate from, LocalDate to, RequestTimestamp timestamp);
+
+    /**
+     * Finds one page of the requests matching the filter, as the lookup of the filter's criterion would.
+     * The default implementation runs that lookup and cuts the page out of its result.
+     *
+     * @param filter  the criteria.
+     * @param afterId the cursor; only requests with greater IDs are returned. Null starts from the first request.
+     * @param limit   the maximal number of requests to return.
+     * @return copies of at most {@code limit} matching requests.
+     */
+    default List<Request> findAfter(RequestFilter filter, Integer afterId, int limit) {
+        List<Request> matching = switch (filter.criterion()) {
+            case ALL -> findAll();
+            case CAR -> findByCar(filter.requestType(), filter.carId());
+            case USER -> findByUser(filter.requestType(), filter.username());
+            case STATUS -> findByStatus(filter.requestType(), filter.requestStatus());
+            case DATE -> findByDateRange(filter.requestType(), filter.date(), filter.toDate(), filter.timestamp());
+        };
+        List<Request> page = new ArrayList<>();
+        for (Request request : matching) {
+            if (page.size() == limit) {
+                break;
+            }
+            if (afterId == null || request.getId() > afterId) {
+                page.add(request);
+            }
+        }
+        return page;
+    }
+}
@@ -0,0 +1,187 @@
+package org.example.carshop.repository;
+
+import org.example.carshop.model.enums.RequestTimestamp;
+import org.example.carshop.model.enums.RequestType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Index of request ids by the epoch day of their creation and completion times, split by {@link RequestType}
+ * and {@link RequestTimestamp}.
+ * <p>
+ * Every type and timestamp keeps a map of days to ids sorted by day, so a range of days is located in
+ * logarithmic time and a lookup touches only the ids of the days in the range. Keys are plain epoch days:
+ * neither indexing nor lookups build a date per request. Ids under one day are kept sorted.
+ * In concurrent mode every day is changed atomically and lookups are weakly consistent.
+ */
+class RequestDayIndex {
+    static final long NO_DAY = Long.MIN_VALUE;
+
+    private final boolean concurrent;
+    private final Map<RequestType, Map<RequestTimestamp, NavigableMap<Long, NavigableSet<Integer>>>> entries =
+            new EnumMap<>(RequestType.class);
+
+    /**
+     * Creates an empty index.
+     *
+     * @param concurrent whether the index is shared between threads.
+     */
+    RequestDayIndex(boolean concurrent) {
+        this.concurrent = concurrent;
+        for (RequestType requestType : RequestType.values()) {
+            Map<RequestTimestamp, NavigableMap<Long, NavigableSet<Integer>>> byTimestamp =
+                    new EnumMap<>(RequestTimestamp.class);
+            for (RequestTimestamp timestamp : RequestTimestamp.values()) {
+                byTimestamp.put(timestamp, concurrent ? new ConcurrentSkipListMap<>() : new TreeMap<>());
+            }
+            entries.put(requestType, byTimestamp);
+        }
+    }
+
+    /**
+     * @param dateTime a timestamp of a request.
+     * @return the epoch day of the timestamp, or {@link #NO_DAY} for a missing timestamp.
+     */
+    static long epochDay(LocalDateTime dateTime) {
+        return dateTime == null ? NO_DAY : dateTime.toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Adds a request id under the given type, timestamp and day.
+     *
+     * @param requestType the type of the request.
+     * @param timestamp   the timestamp the day belongs to.
+     * @param day         the epoch day, or {@link #NO_DAY} to index nothing.
+     * @param requestId   the ID of the request.
+     */
+    void add(RequestType requestType, RequestTimestamp timestamp, long day, int requestId) {
+        if (requestType == null || day == NO_DAY) {
+            return;
+        }
+        entries.get(requestType).get(timestamp).compute(day, (k, ids) -> {
+            NavigableSet<Integer> dayIds = ids != null ? ids : newSet();
+            dayIds.add(requestId);
+            return dayIds;
+        });
+    }
+
+    /**
+     * Removes a request id from the given type, timestamp and day, dropping the day once it has no ids left.
+     *
+     * @param requestType the type the request was indexed with.
+     * @param timestamp   the timestamp the day belongs to.
+     * @param day         the epoch day the request was indexed with.
+     * @param requestId   the ID of the request.
+     */
+    void remove(RequestType requestType, RequestTimestamp timestamp, long day, int requestId) {
+        if (requestType == null || day == NO_DAY) {
+            return;
+        }
+        entries.get(requestType).get(timestamp)
+                .computeIfPresent(day, (k, ids) -> ids.remove(requestId) && ids.isEmpty() ? null : ids);
+    }
+
+    /**
+     * Returns the ids of the requests with a timestamp in the given range of days.
+     *
+     * @param requestType the type of the requests, or null for requests of any type.
+     * @param timestamp   the timestamp to match, or null to match either of them.
+     * @param fromDay     the first epoch day of the range.
+     * @param toDay       the last epoch day of the range, inclusive.
+     * @return the distinct matching ids, in ascending order.
+     */
+    List<Integer> get(RequestType requestType, RequestTimestamp timestamp, long fromDay, long toDay) {
+        List<Integer> ids = new ArrayList<>();
+        if (fromDay > toDay) {
+            return ids;
+        }
+        int daysFound = 0;
+        for (NavigableMap<Long, NavigableSet<Integer>> days : select(requestType, timestamp)) {
+            for (NavigableSet<Integer> dayIds : days.subMap(fromDay, true, toDay, true).values()) {
+                ids.addAll(dayIds);
+                daysFound++;
+            }
+        }
+        return daysFound > 1 ? sortedDistinct(ids, Integer.MAX_VALUE) : ids;
+    }
+
+    /**
+     * Returns the first ids greater than the cursor among the requests with a timestamp in the given range
+     * of days. Only the first {@code count} ids of every day are read.
+     *
+     * @param requestType the type of the requests, or null for requests of any type.
+     * @param timestamp   the timestamp to match, or null to match either of them.
+     * @param fromDay     the first epoch day of the range.
+     * @param toDay       the last epoch day of the range, inclusive.
+     * @param afterId     the cursor, or null for all ids.
+     * @param count       the maximal number of ids to return.
+     * @return the distinct matching ids, in ascending order.
+     */
+    List<Integer> getAfter(RequestType requestType, RequestTimestamp timestamp, long fromDay, long toDay,
+                           Integer afterId, int count) {
+        List<Integer> ids = new ArrayList<>();
+        if (fromDay > toDay) {
+            return ids;
+        }
+        for (NavigableMap<Long, NavigableSet<Integer>> days : select(requestType, timestamp)) {
+            for (NavigableSet<Integer> dayIds : days.subMap(fromDay, true, toDay, true).values()) {
+                int taken = 0;
+                for (Integer id : afterId == null ? dayIds : dayIds.tailSet(afterId, false)) {
+                    if (taken++ == count) {
+                        break;
+                    }
+                    ids.add(id);
+                }
+            }
+        }
+        return sortedDistinct(ids, count);
+    }
+
+    private Collection<NavigableMap<Long, NavigableSet<Integer>>> select(RequestType requestType,
+                                                                        RequestTimestamp timestamp) {
+        List<NavigableMap<Long, NavigableSet<Integer>>> selected = new ArrayList<>();
+        for (RequestType type : requestType == null ? RequestType.values() : new RequestType[]{requestType}) {
+            if (timestamp == null) {
+                selected.addAll(entries.get(type).values());
+            } else {
+                selected.add(entries.get(type).get(timestamp));
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Sorts the ids and keeps the first {@code count} distinct ones; a request created and completed
+     * within the same range is found under both timestamps.
+     */
+    private static List<Integer> sortedDistinct(List<Integer> ids, int count) {
+        int[] sorted = new int[ids.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = ids.get(i);
+        }
+        Arrays.sort(sorted);
+        List<Integer> distinct = new ArrayList<>(Math.min(sorted.length, count));
+        for (int i = 0; i < sorted.length && distinct.size() < count; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                distinct.add(sorted[i]);
+            }
+        }
+        return distinct;
+    }
+
+    private NavigableSet<Integer> newSet() {
+        return concurrent ? new ConcurrentSkipListSet<>() : new TreeSet<>();
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.carshop.repository;
+
+import org.example.carshop.model.enums.RequestStatus;
+import org.example.carshop.model.enums.RequestTimestamp;
+import org.example.carshop.model.enums.RequestType;
+
+import java.time.LocalDate;
+
+/**
+ * Criteria of a paginated request lookup, mirroring the filter methods of {@link RequestRepository}.
+ * Only the value belonging to the criterion is used.
+ *
+ * @param criterion     the attribute the requests are selected by.
+ * @param requestType   the type of the requests.
+ * @param carId         the ID of the car.
+ * @param username      the username of the user.
+ * @param requestStatus the status.
+ * @param date          the first day of the date range.
+ * @param toDate        the last day of the date range, inclusive.
+ * @param timestamp     the timestamp falling into the date range, or null for either of them.
+ */
+public record RequestFilter(Criterion criterion, RequestType requestType, int carId, String username,
+                            RequestStatus requestStatus, LocalDate date, LocalDate toDate,
+                            RequestTimestamp timestamp) {
+
+    /**
+     * Attribute requests are selected by.
+     */
+    public enum Criterion {
+        ALL,
+        CAR,
+        USER,
+        STATUS,
+        DATE
+    }
+
+    /**
+     * @return a filter matching all requests.
+     */
+    public static RequestFilter all() {
+        return new RequestFilter(Criterion.ALL, null, 0, null, null, null, null, null);
+    }
+
+    /**
+     * @see RequestRepository#filterRequestsByCarAndType
+     */
+    public static RequestFilter byCar(int carId, RequestType requestType) {
+        return new RequestFilter(Criterion.CAR, requestType, carId, null, null, null, null, null);
+    }
+
+    /**
+     * @see RequestRepository#filterRequestsByUserAndType
+     */
+    public static RequestFilter byUser(String username, RequestType requestType) {
+        return new RequestFilter(Criterion.USER, requestType, 0, username, null, null, null, null);
+    }
+
+    /**
+     * @see RequestRepository#filterRequestsByRequestStatusAndType
+     */
+    public static RequestFilter byStatus(RequestStatus requestStatus, RequestType requestType) {
+        return new RequestFilter(Criterion.STATUS, requestType, 0, null, requestStatus, null, null, null);
+    }
+
+    /**
+     * @see RequestRepository#filterRequestsByDateAndType
+     */
+    public static RequestFilter byDate(LocalDate date, RequestType requestType) {
+        return new RequestFilter(Criterion.DATE, requestType, 0, null, null, date, date, null);
+    }
+
+    /**
+     * @see RequestRepository#filterRequestsByDateRangeAndType
+     */
+    public static RequestFilter byDateRange(LocalDate from, LocalDate to, RequestTimestamp timestamp,
+                                            RequestType requestType) {
+        return new RequestFilter(Criterion.DATE, requestType, 0, null, null, from, to, timestamp);
+    }
+}
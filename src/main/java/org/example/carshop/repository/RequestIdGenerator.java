@@ -0,0 +1,24 @@
+package org.example.carshop.repository;
+
+/**
+ * Source of unique request IDs owned by a {@link RequestRepository}.
+ * Implementations must be safe to call from several threads and must never return
+ * an ID that has already been returned or reported through {@link #advancePast}.
+ */
+public interface RequestIdGenerator {
+
+    /**
+     * Returns a new unique positive request ID.
+     *
+     * @return the next request ID.
+     */
+    int nextId();
+
+    /**
+     * Makes sure that all IDs returned from now on are greater than the given one.
+     * Used to continue numbering after requests have been loaded from storage.
+     *
+     * @param usedId an ID that is already taken.
+     */
+    void advancePast(int usedId);
+}
@@ -0,0 +1,162 @@
+package org.example.carshop.repository;
+
+import org.example.carshop.model.enums.RequestType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Secondary index of request ids by an attribute value, split by {@link RequestType}.
+ * Ids under one key are kept sorted so lookups return requests in a stable order.
+ * In concurrent mode every key is changed atomically and lookups are weakly consistent.
+ * Requests without a type or without a value of the attribute are not indexed.
+ *
+ * @param <K> type of the indexed attribute.
+ */
+class RequestIndex<K> {
+    private final boolean concurrent;
+    private final Map<RequestType, Map<K, NavigableSet<Integer>>> entries = new EnumMap<>(RequestType.class);
+
+    /**
+     * Creates an empty index.
+     *
+     * @param concurrent whether the index is shared between threads.
+     */
+    RequestIndex(boolean concurrent) {
+        this.concurrent = concurrent;
+        for (RequestType requestType : RequestType.values()) {
+            entries.put(requestType, concurrent ? new ConcurrentHashMap<>() : new HashMap<>());
+        }
+    }
+
+    /**
+     * Adds a request id under the given type and key.
+     *
+     * @param requestType the type of the request.
+     * @param key         the attribute value of the request.
+     * @param requestId   the ID of the request.
+     */
+    void add(RequestType requestType, K key, int requestId) {
+        if (requestType == null || key == null) {
+            return;
+        }
+        entries.get(requestType).compute(key, (k, ids) -> {
+            NavigableSet<Integer> keyIds = ids != null ? ids : newSet();
+            keyIds.add(requestId);
+            return keyIds;
+        });
+    }
+
+    /**
+     * Removes a request id from the given type and key, dropping the key once it has no ids left.
+     *
+     * @param requestType the type the request was indexed with.
+     * @param key         the attribute value the request was indexed with.
+     * @param requestId   the ID of the request.
+     */
+    void remove(RequestType requestType, K key, int requestId) {
+        if (requestType == null || key == null) {
+            return;
+        }
+        entries.get(requestType).computeIfPresent(key, (k, ids) -> ids.remove(requestId) && ids.isEmpty() ? null : ids);
+    }
+
+    /**
+     * Returns the ids indexed under the given type and key.
+     *
+     * @param requestType the type of the requests.
+     * @param key         the attribute value of the requests.
+     * @return an unmodifiable view of the matching ids, in ascending order.
+     */
+    Set<Integer> get(RequestType requestType, K key) {
+        if (requestType == null || key == null) {
+            return Collections.emptySet();
+        }
+        Set<Integer> ids = entries.get(requestType).get(key);
+        return ids == null ? Collections.emptySet() : Collections.unmodifiableSet(ids);
+    }
+
+    /**
+     * Returns the ids indexed under the given key regardless of request type.
+     *
+     * @param key the attribute value of the requests.
+     * @return the matching ids, in ascending order.
+     */
+    List<Integer> getOfAnyType(K key) {
+        List<Integer> ids = new ArrayList<>();
+        if (key == null) {
+            return ids;
+        }
+        int typesFound = 0;
+        for (Map<K, NavigableSet<Integer>> byKey : entries.values()) {
+            Set<Integer> typeIds = byKey.get(key);
+            if (typeIds != null) {
+                ids.addAll(typeIds);
+                typesFound++;
+            }
+        }
+        if (typesFound > 1) {
+            Collections.sort(ids);
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the ids indexed under the given type and key that are greater than the cursor.
+     *
+     * @param requestType the type of the requests.
+     * @param key         the attribute value of the requests.
+     * @param afterId     the cursor, or null for all ids.
+     * @return an unmodifiable view of the matching ids, in ascending order.
+     */
+    Set<Integer> getAfter(RequestType requestType, K key, Integer afterId) {
+        if (requestType == null || key == null) {
+            return Collections.emptySet();
+        }
+        NavigableSet<Integer> ids = entries.get(requestType).get(key);
+        if (ids == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(afterId == null ? ids : ids.tailSet(afterId, false));
+    }
+
+    /**
+     * Removes and returns the smallest id indexed under the given type and key.
+     * In concurrent mode every id is returned to one caller only.
+     *
+     * @param requestType the type of the requests.
+     * @param key         the attribute value of the requests.
+     * @return the removed id, or null if no id is indexed under the type and key.
+     */
+    Integer pollFirst(RequestType requestType, K key) {
+        if (requestType == null || key == null) {
+            return null;
+        }
+        Map<K, NavigableSet<Integer>> byKey = entries.get(requestType);
+        NavigableSet<Integer> ids;
+        while ((ids = byKey.get(key)) != null) {
+            Integer id = ids.pollFirst();
+            if (ids.isEmpty()) {
+                byKey.computeIfPresent(key, (k, keyIds) -> keyIds.isEmpty() ? null : keyIds);
+            }
+            if (id != null || byKey.get(key) == ids) {
+                return id;
+            }
+            // The set was dropped and replaced by a new one while it was being polled.
+        }
+        return null;
+    }
+
+    private NavigableSet<Integer> newSet() {
+        return concurrent ? new ConcurrentSkipListSet<>() : new TreeSet<>();
+    }
+}
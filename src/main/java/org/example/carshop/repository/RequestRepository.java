@@ -1,22 +1,143 @@
 package org.example.carshop.repository;
 
-import lombok.AllArgsConstructor;
-import org.example.carshop.model.Car;
 import org.example.carshop.model.Request;
+import org.example.carshop.model.RequestStatusListener;
 import org.example.carshop.model.User;
 import org.example.carshop.model.enums.RequestStatus;
+import org.example.carshop.model.enums.RequestTimestamp;
 import org.example.carshop.model.enums.RequestType;
+import org.example.carshop.model.enums.StatusChangeResult;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
 
 /**
  * Repository class for managing Request entities.
+ * Keeps secondary indexes by car, user, status and day of creation and completion, each split by request type,
+ * so that filtering costs time proportional to the size of the result. Days are indexed in order, so a range
+ * of days costs a logarithmic lookup plus the requests of the days in it.
+ * When backed by a {@link ConcurrentMap} the repository is safe for parallel readers and writers:
+ * writes to the same request are serialized by a lock striped by request ID.
+ * Every mutation, including status changes of stored requests, is reported to a {@link RepositoryJournal}.
+ * <p>
+ * {@link #changeRequestStatus} and {@link #claimNextRequest} move requests through the lifecycle of
+ * {@link RequestStatus} one step at a time. The status index doubles as a queue of the requests of every status
+ * and type in ID order, so the oldest request waiting in a status is taken from its head without a scan;
+ * concurrent claims never hand out the same request twice.
+ * <p>
+ * Given a {@link RequestArchive}, the repository moves requests into it as soon as they are completed and
+ * answers every lookup from both tiers; lookups of a status other than COMPLETED skip the archive. Archived requests
+ * are returned as copies; completed requests are at the end of the lifecycle, so they never leave the archive by
+ * a status change. A request moving between the tiers is added to its new tier before it is taken out of the old
+ * one, so a lookup running meanwhile finds it in at least one of them.
+ * <p>
+ * Every change of a request is counted per status and per user, in both tiers, so that results of lookups can be
+ * cached until the requests they cover change; see {@link #statusVersion} and {@link #userVersion}.
+ * The numbers of requests per type and status and per day of creation are kept up to date the same way,
+ * so counting them costs no lookup.
  */
-@AllArgsConstructor
 public class RequestRepository {
     private final Map<Integer, Request> requestsMap;
+    private final Map<Integer, IndexKeys> indexedKeys;
+    private final RequestIndex<Integer> carIndex;
+    private final RequestIndex<String> userIndex;
+    private final RequestIndex<RequestStatus> statusIndex;
+    private final RequestDayIndex dayIndex;
+    private final RequestIdGenerator idGenerator;
+    private final RepositoryJournal journal;
+    private final RequestArchive archive;
+    private final StripedLock requestLocks = new StripedLock();
+    private final ChangeCounters<RequestStatus> statusChanges = new ChangeCounters<>();
+    private final ChangeCounters<String> userChanges = new ChangeCounters<>();
+    private final KeyCounts<StatusKey> statusCounts = new KeyCounts<>();
+    private final KeyCounts<Long> creationDayCounts = new KeyCounts<>();
+    private final RequestStatusListener statusListener = (request, oldStatus) -> onStatusChanged(request);
+
+    /**
+     * Constructs a repository over the given map and indexes the requests already present in it.
+     * New request IDs are taken from a {@link SequentialIdGenerator}.
+     *
+     * @param requestsMap the map storing requests by their IDs.
+     */
+    public RequestRepository(Map<Integer, Request> requestsMap) {
+        this(requestsMap, new SequentialIdGenerator());
+    }
+
+    /**
+     * Constructs a repository over the given map and indexes the requests already present in it.
+     * The generator is advanced past the IDs already present, so numbering continues after a restart.
+     *
+     * @param requestsMap the map storing requests by their IDs.
+     * @param idGenerator the source of IDs for new requests.
+     */
+    public RequestRepository(Map<Integer, Request> requestsMap, RequestIdGenerator idGenerator) {
+        this(requestsMap, idGenerator, RepositoryJournal.NONE);
+    }
+
+    /**
+     * Constructs a repository over the given map and indexes the requests already present in it.
+     * The generator is advanced past the IDs already present, so numbering continues after a restart.
+     *
+     * @param requestsMap the map storing requests by their IDs.
+     * @param idGenerator the source of IDs for new requests.
+     * @param journal     the journal receiving every mutation of the repository.
+     */
+    public RequestRepository(Map<Integer, Request> requestsMap, RequestIdGenerator idGenerator,
+                             RepositoryJournal journal) {
+        this(requestsMap, idGenerator, journal, null);
+    }
+
+    /**
+     * Constructs a repository over the given map and archive. Requests present in the map replace
+     * their archived versions, and the completed ones among them are moved into the archive.
+     * The generator is advanced past the IDs present in both tiers.
+     *
+     * @param requestsMap the map storing requests by their IDs.
+     * @param idGenerator the source of IDs for new requests.
+     * @param journal     the journal receiving every mutation of the repository.
+     * @param archive     the archive for completed requests, or null to keep all requests in the map.
+     */
+    public RequestRepository(Map<Integer, Request> requestsMap, RequestIdGenerator idGenerator,
+                             RepositoryJournal journal, RequestArchive archive) {
+        boolean concurrent = requestsMap instanceof ConcurrentMap;
+        this.requestsMap = requestsMap;
+        this.idGenerator = idGenerator;
+        this.journal = journal;
+        this.archive = archive;
+        this.indexedKeys = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+        this.carIndex = new RequestIndex<>(concurrent);
+        this.userIndex = new RequestIndex<>(concurrent);
+        this.statusIndex = new RequestIndex<>(concurrent);
+        this.dayIndex = new RequestDayIndex(concurrent);
+        for (Request request : new ArrayList<>(requestsMap.values())) {
+            if (archive != null) {
+                archive.remove(request.getId());
+            }
+            if (shouldArchive(request)) {
+                requestsMap.remove(request.getId());
+                archive.add(request);
+            } else {
+                index(request);
+            }
+        }
+        indexedKeys.values().forEach(keys -> count(keys, 1));
+        if (archive != null) {
+            archive.findAll().forEach(request -> count(IndexKeys.of(request), 1));
+        }
+        requestsMap.keySet().stream().mapToInt(Integer::intValue).max().ifPresent(idGenerator::advancePast);
+        if (archive != null) {
+            idGenerator.advancePast(archive.maxId());
+        }
+    }
 
     /**
      * Retrieves all requests for a car purchase and a car maintenance.
@@ -24,16 +145,65 @@ public class RequestRepository {
      * @return a collection of all requests.
      */
     public Collection<Request> getAllRequests() {
-        return requestsMap.values();
+        if (archive == null) {
+            return requestsMap.values();
+        }
+        List<Request> requests = new ArrayList<>(requestsMap.values());
+        requests.addAll(archive.findAll());
+        return requests;
     }
 
     /**
      * Adds a new request to the repository.
+     * A request that has no ID yet gets a new one from the repository ID generator.
      *
      * @param request the request to add.
      */
     public void addRequest(Request request) {
-        requestsMap.put(request.getId(), request);
+        store(request);
+        journal.awaitDurable();
+    }
+
+    /**
+     * Adds a batch of requests as one unit. Requests that have no ID yet get new ones from the repository
+     * ID generator. The locks of all requests of the batch are held while it is applied, and the mutations
+     * are journaled as one batch that is awaited once.
+     *
+     * @param requests the requests to add.
+     */
+    public void addRequests(Collection<Request> requests) {
+        saveAll(requests, false);
+    }
+
+    /**
+     * Updates a batch of existing requests as one unit, like {@link #addRequests}.
+     *
+     * @param requests the requests with updated information.
+     * @throws IllegalArgumentException if a request of the batch does not exist; no request is updated then.
+     */
+    public void updateRequests(Collection<Request> requests) {
+        saveAll(requests, true);
+    }
+
+    /**
+     * Removes a batch of requests as one unit: all of them are removed, or none if one does not exist.
+     *
+     * @param requestIds the IDs of the requests to remove.
+     * @throws IllegalArgumentException if a request of the batch does not exist; no request is removed then.
+     */
+    public void removeRequestsById(Collection<Integer> requestIds) {
+        requestLocks.runAll(requestIds, () -> {
+            requireExisting(requestIds);
+            journal.beginBatch();
+            try {
+                for (int requestId : requestIds) {
+                    delete(requestId);
+                }
+            } finally {
+                journal.commitBatch();
+            }
+        });
+        journal.awaitDurable();
     }
 
     /**
@@ -42,7 +212,76 @@ public class RequestRepository {
      * @param requestId the ID of the request to remove.
      */
     public void removeRequestById(int requestId) {
-        requestsMap.remove(requestId);
+        requestLocks.run(requestId, () -> delete(requestId));
+        journal.awaitDurable();
+    }
+
+    /**
+     * Changes the status of a stored request if the lifecycle allows the change.
+     * The check and the change are made under the lock of the request, so of concurrent changes
+     * of the same request only the first one allowed by the lifecycle succeeds.
+     *
+     * @param requestId the ID of the request.
+     * @param newStatus the status to change to.
+     * @return the outcome of the change.
+     */
+    public StatusChangeResult changeRequestStatus(int requestId, RequestStatus newStatus) {
+        StatusChangeResult result = requestLocks.execute(requestId, () -> {
+            Request request = requestsMap.get(requestId);
+            if (request == null) {
+                return archive != null && archive.contains(requestId)
+                        ? StatusChangeResult.ILLEGAL_TRANSITION
+                        : StatusChangeResult.REQUEST_NOT_FOUND;
+            }
+            if (request.getRequestStatus() == null || !request.getRequestStatus().canChangeTo(newStatus)) {
+                return StatusChangeResult.ILLEGAL_TRANSITION;
+            }
+            request.setRequestStatus(newStatus);
+            applyStatusChange(request);
+            return StatusChangeResult.CHANGED;
+        });
+        if (result == StatusChangeResult.CHANGED) {
+            journal.awaitDurable();
+        }
+        return result;
+    }
+
+    /**
+     * Takes the oldest request of the given type waiting in the given status and moves it to the next status.
+     * The request is removed from the head of the status index before it is locked, so concurrent callers
+     * take different requests and none of them scans the requests of the status.
+     *
+     * @param requestType   the type of the request to take.
+     * @param requestStatus the status the request waits in.
+     * @return the request moved to the next status, or null if no request of the type waits in the status.
+     * @throws IllegalArgumentException if the status is the last one of the lifecycle.
+     */
+    public Request claimNextRequest(RequestType requestType, RequestStatus requestStatus) {
+        RequestStatus nextStatus = requestStatus.next();
+        if (nextStatus == null) {
+            throw new IllegalArgumentException("Requests do not leave status " + requestStatus);
+        }
+        Integer requestId;
+        while ((requestId = statusIndex.pollFirst(requestType, requestStatus)) != null) {
+            int id = requestId;
+            Request claimed = requestLocks.execute(id, () -> {
+                Request request = requestsMap.get(id);
+                IndexKeys keys = indexedKeys.get(id);
+                if (request == null || keys == null || keys.requestType() != requestType
+                        || keys.requestStatus() != requestStatus || request.getRequestStatus() != requestStatus) {
+                    // Changed or removed since it was indexed; whoever did it keeps the index in sync.
+                    return null;
+                }
+                request.setRequestStatus(nextStatus);
+                applyStatusChange(request);
+                return request;
+            });
+            if (claimed != null) {
+                journal.awaitDurable();
+                return claimed;
+            }
+        }
+        return null;
     }
 
     /**
@@ -52,22 +291,96 @@ public class RequestRepository {
      * @return the request with the specified ID, or null if not found.
      */
     public Request findRequestById(int requestId) {
-        return requestsMap.get(requestId);
+        Request request = requestsMap.get(requestId);
+        if (request == null && archive != null) {
+            request = archive.find(requestId);
+        }
+        return request;
+    }
+
+    /**
+     * Returns a version of the requests in the status that changes whenever a request enters or leaves the status,
+     * or a request in it is added, updated or removed. A lookup result stamped with the version read before the
+     * lookup is still current as long as the version is unchanged.
+     *
+     * @param requestStatus the status, or null for all requests.
+     * @return the current version.
+     */
+    public long statusVersion(RequestStatus requestStatus) {
+        return statusChanges.version(requestStatus);
+    }
+
+    /**
+     * Returns a version of the requests of the user that changes whenever such a request is added, updated,
+     * removed or changes its status, like {@link #statusVersion}.
+     *
+     * @param username the username of the user, or null for all requests.
+     * @return the current version.
+     */
+    public long userVersion(String username) {
+        return userChanges.version(username);
+    }
+
+    /**
+     * Counts the requests of the type in the status, in both tiers, without a lookup.
+     *
+     * @param requestType   the type of the requests, or null for requests of any type.
+     * @param requestStatus the status of the requests.
+     * @return the number of matching requests.
+     */
+    public long countRequests(RequestType requestType, RequestStatus requestStatus) {
+        if (requestType != null) {
+            return statusCounts.get(new StatusKey(requestType, requestStatus));
+        }
+        long count = 0;
+        for (RequestType type : RequestType.values()) {
+            count += statusCounts.get(new StatusKey(type, requestStatus));
+        }
+        return count;
+    }
+
+    /**
+     * Counts the requests created on every day of a range, in both tiers, without a lookup.
+     *
+     * @param from the first date of the range.
+     * @param to   the last date of the range, inclusive.
+     * @return the numbers of requests by day of creation in date order, including days without requests.
+     */
+    public SortedMap<LocalDate, Long> countRequestsByCreationDay(LocalDate from, LocalDate to) {
+        SortedMap<LocalDate, Long> counts = new TreeMap<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            counts.put(date, creationDayCounts.get(date.toEpochDay()));
+        }
+        return counts;
     }
 
     /**
      * Filters requests by a specific date and request type.
      *
      * @param date the date to filter requests by.
-     * @param requestType the type of request to filter by.
+     * @param requestType the type of request to filter by, or null for requests of any type.
      * @return a collection of requests that start or end on the specified date and are of the specified type.
      */
     public Collection<Request> filterRequestsByDateAndType(LocalDate date, RequestType requestType) {
-        return requestsMap.entrySet().stream()
-                .filter(entry -> entry.getValue().getCreationTime().toLocalDate().equals(date)
-                        || entry.getValue().getCompletionTime().toLocalDate().equals(date))
-                .filter(entry -> entry.getValue().getRequestType() == requestType)
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)).values();
+        return filterRequestsByDateRangeAndType(date, date, null, requestType);
+    }
+
+    /**
+     * Filters requests by a range of dates and request type.
+     *
+     * @param from the first date of the range.
+     * @param to the last date of the range, inclusive.
+     * @param timestamp the timestamp that has to fall into the range, or null for either of them.
+     * @param requestType the type of request to filter by, or null for requests of any type.
+     * @return a collection of matching requests in ascending ID order.
+     */
+    public Collection<Request> filterRequestsByDateRangeAndType(LocalDate from, LocalDate to,
+                                                                RequestTimestamp timestamp, RequestType requestType) {
+        if (from == null || to == null) {
+            return Collections.emptyList();
+        }
+        List<Request> requests = resolve(dayIndex.get(requestType, timestamp, from.toEpochDay(), to.toEpochDay()));
+        return archive == null ? requests : merge(requests, archive.findByDateRange(requestType, from, to, timestamp));
     }
 
     /**
@@ -77,23 +390,25 @@ public class RequestRepository {
      * @return a collection of requests with the specified carId.
      */
     public Collection<Request> filterRequestsByCarAndType(int carId, RequestType requestType) {
-        return requestsMap.entrySet().stream()
-                .filter(entry -> entry.getValue().getCarId() == carId)
-                .filter(entry -> entry.getValue().getRequestType() == requestType)
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)).values();
+        List<Request> requests = resolve(carIndex.get(requestType, carId));
+        return archive == null ? requests : merge(requests, archive.findByCar(requestType, carId));
     }
 
     /**
      * Filters requests by a specific user.
      *
      * @param user the user to filter requests by.
+     * @param requestType the type of request to filter by, or null for requests of any type.
      * @return a collection of requests made by the specified user.
      */
     public Collection<Request> filterRequestsByUserAndType(User user, RequestType requestType) {
-        return requestsMap.entrySet().stream()
-                .filter(entry -> entry.getValue().getUser() != null && entry.getValue().getUser().equals(user))
-                .filter(entry -> requestType == null || entry.getValue().getRequestType() == requestType)
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)).values();
+        if (user == null) {
+            return Collections.emptyList();
+        }
+        List<Request> requests = requestType == null
+                ? resolve(userIndex.getOfAnyType(user.getUsername()))
+                : resolve(userIndex.get(requestType, user.getUsername()));
+        return archive == null ? requests : merge(requests, archive.findByUser(requestType, user.getUsername()));
     }
 
     /**
@@ -103,10 +418,55 @@ public class RequestRepository {
      * @return a collection of requests having the specified status.
      */
     public Collection<Request> filterRequestsByRequestStatusAndType(RequestStatus requestStatus, RequestType requestType) {
-        return requestsMap.entrySet().stream()
-                .filter(entry -> entry.getValue().getRequestStatus().equals(requestStatus))
-                .filter(entry -> entry.getValue().getRequestType() == requestType)
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)).values();
+        List<Request> requests = resolve(statusIndex.get(requestType, requestStatus));
+        if (archive == null || requestType == null || requestStatus != RequestStatus.COMPLETED) {
+            return requests;
+        }
+        return merge(requests, archive.findByStatus(requestType, requestStatus));
+    }
+
+    /**
+     * Finds one page of the requests matching the filter, ordered by ID.
+     * Only the requests of the page are looked up: indexed criteria walk the ID-ordered index from the cursor,
+     * and a lookup of all requests keeps the smallest IDs of a scan in an {@link IdWindow}.
+     *
+     * @param filter  the criteria, matched like the corresponding filter method.
+     * @param afterId the ID of the last request of the previous page, or null for the first page.
+     * @param limit   the maximal number of requests of the page.
+     * @return the page.
+     */
+    public Page<Request> findRequests(RequestFilter filter, Integer afterId, int limit) {
+        int count = limit + 1;
+        RequestType type = filter.requestType();
+        List<Request> requests = switch (filter.criterion()) {
+            case ALL -> resolveWindow(requestsMap.keySet(), afterId, count);
+            case CAR -> resolveFirst(carIndex.getAfter(type, filter.carId(), afterId), count);
+            case USER -> type == null
+                    ? resolveWindow(userIdsOfAnyTypeAfter(filter.username(), afterId, count), afterId, count)
+                    : resolveFirst(userIndex.getAfter(type, filter.username(), afterId), count);
+            case STATUS -> resolveFirst(statusIndex.getAfter(type, filter.requestStatus(), afterId), count);
+            case DATE -> filter.date() == null || filter.toDate() == null
+                    ? new ArrayList<>()
+                    : resolveFirst(dayIndex.getAfter(type, filter.timestamp(), filter.date().toEpochDay(),
+                            filter.toDate().toEpochDay(), afterId, count), count);
+        };
+        boolean archived = archive != null && (filter.criterion() != RequestFilter.Criterion.STATUS
+                || type != null && filter.requestStatus() == RequestStatus.COMPLETED);
+        if (archived) {
+            requests = merge(requests, archive.findAfter(filter, afterId, count));
+        }
+        return Page.of(requests, limit);
+    }
+
+    /**
+     * Streams the requests matching the filter in ID order, fetching them a page at a time as the stream is consumed.
+     *
+     * @param filter the criteria, matched like the corresponding filter method.
+     * @return a lazy stream of the matching requests.
+     */
+    public Stream<Request> streamRequests(RequestFilter filter) {
+        return Pages.stream(Pages.DEFAULT_PAGE_SIZE,
+                (last, limit) -> findRequests(filter, last == null ? null : last.getId(), limit));
     }
 
     /**
@@ -115,6 +475,296 @@ public class RequestRepository {
      * @param request the request to add.
      */
     public void updateRequest(Request request) {
-        requestsMap.put(request.getId(), request);
+        addRequest(request);
+    }
+
+    private void saveAll(Collection<Request> requests, boolean existingOnly) {
+        List<Integer> requestIds = new ArrayList<>(requests.size());
+        for (Request request : requests) {
+            if (!existingOnly) {
+                assignId(request);
+            }
+            requestIds.add(request.getId());
+        }
+        requestLocks.runAll(requestIds, () -> {
+            if (existingOnly) {
+                requireExisting(requestIds);
+            }
+            journal.beginBatch();
+            try {
+                for (Request request : requests) {
+                    store(request);
+                }
+            } finally {
+                journal.commitBatch();
+            }
+        });
+        journal.awaitDurable();
+    }
+
+    private void requireExisting(Collection<Integer> requestIds) {
+        for (int requestId : requestIds) {
+            if (!isStored(requestId)) {
+                throw new IllegalArgumentException("Request does not exist: " + requestId);
+            }
+        }
+    }
+
+    private boolean isStored(int requestId) {
+        return requestsMap.containsKey(requestId) || archive != null && archive.contains(requestId);
+    }
+
+    /**
+     * Gives a new request an ID. A request bringing an ID of its own advances the generator only if the ID is not
+     * stored yet: a stored ID is already behind the generator, and advancing would discard the ID blocks
+     * that other threads have reserved below it.
+     */
+    private void assignId(Request request) {
+        if (request.getId() <= 0) {
+            request.setId(idGenerator.nextId());
+        } else if (!isStored(request.getId())) {
+            idGenerator.advancePast(request.getId());
+        }
+    }
+
+    private void store(Request request) {
+        assignId(request);
+        requestLocks.run(request.getId(), () -> {
+            IndexKeys archivedKeys = archivedKeys(request.getId());
+            Request previous;
+            IndexKeys previousKeys;
+            if (shouldArchive(request)) {
+                moveToArchive(request);
+                previous = requestsMap.remove(request.getId());
+                previousKeys = unindex(request.getId());
+            } else {
+                previous = requestsMap.put(request.getId(), request);
+                previousKeys = unindex(request.getId());
+                index(request);
+                if (archive != null) {
+                    archive.remove(request.getId());
+                }
+            }
+            if (previous != null && previous != request) {
+                previous.setStatusListener(null);
+            }
+            journal.requestSaved(request);
+            countChange(archivedKeys, previousKeys, IndexKeys.of(request));
+        });
+    }
+
+    private void delete(int requestId) {
+        IndexKeys archivedKeys = archivedKeys(requestId);
+        Request removed = requestsMap.remove(requestId);
+        IndexKeys previousKeys = unindex(requestId);
+        boolean archived = archive != null && archive.remove(requestId);
+        if (removed != null) {
+            removed.setStatusListener(null);
+        }
+        if (removed != null || archived) {
+            journal.requestRemoved(requestId);
+            countChange(archivedKeys, previousKeys, null);
+        }
+    }
+
+    private void onStatusChanged(Request request) {
+        requestLocks.run(request.getId(), () -> {
+            if (requestsMap.get(request.getId()) == request) {
+                applyStatusChange(request);
+            }
+        });
+        journal.awaitDurable();
+    }
+
+    /**
+     * Re-indexes or archives a stored request after its status has changed and journals the change.
+     * Must be called under the lock of the request.
+     */
+    private void applyStatusChange(Request request) {
+        IndexKeys previousKeys;
+        if (shouldArchive(request)) {
+            moveToArchive(request);
+            previousKeys = unindex(request.getId());
+            requestsMap.remove(request.getId());
+        } else {
+            previousKeys = unindex(request.getId());
+            index(request);
+        }
+        journal.requestStatusChanged(request.getId(), request.getRequestStatus());
+        countChange(null, previousKeys, IndexKeys.of(request));
+    }
+
+    /**
+     * Counts a change of a request that has been made visible, under the keys it had in either tier before
+     * and the keys it has now. Must be called under the lock of the request.
+     */
+    private void countChange(IndexKeys archivedKeys, IndexKeys previousKeys, IndexKeys currentKeys) {
+        for (IndexKeys keys : new IndexKeys[]{archivedKeys, previousKeys, currentKeys}) {
+            if (keys != null) {
+                count(keys, keys == currentKeys ? 1 : -1);
+                statusChanges.changed(keys.requestStatus());
+                userChanges.changed(keys.username());
+            }
+        }
+    }
+
+    private void count(IndexKeys keys, int delta) {
+        statusCounts.add(new StatusKey(keys.requestType(), keys.requestStatus()), delta);
+        if (keys.creationDay() != RequestDayIndex.NO_DAY) {
+            creationDayCounts.add(keys.creationDay(), delta);
+        }
+    }
+
+    /**
+     * @return the keys of the archived version of the request, or null if it is not archived.
+     */
+    private IndexKeys archivedKeys(int requestId) {
+        if (archive == null || !archive.contains(requestId)) {
+            return null;
+        }
+        Request archived = archive.find(requestId);
+        return archived == null ? null : IndexKeys.of(archived);
+    }
+
+    private boolean shouldArchive(Request request) {
+        return archive != null && request.getRequestStatus() == RequestStatus.COMPLETED;
+    }
+
+    /**
+     * Stores a request in the archive and stops listening to it. The caller takes it out of the map afterwards,
+     * so that a concurrent lookup finds it in at least one tier; {@link #merge} drops the duplicate.
+     */
+    private void moveToArchive(Request request) {
+        archive.add(request);
+        request.setStatusListener(null);
+    }
+
+    /**
+     * Merges requests of the map with archived requests, both in ascending ID order.
+     * A request moved between the tiers during the lookup may be found in both and is returned once.
+     */
+    private List<Request> merge(List<Request> stored, List<Request> archived) {
+        if (archived.isEmpty()) {
+            return stored;
+        }
+        List<Request> merged = new ArrayList<>(stored.size() + archived.size());
+        int i = 0;
+        int j = 0;
+        while (i < stored.size() || j < archived.size()) {
+            Request next;
+            if (j == archived.size() || i < stored.size() && stored.get(i).getId() <= archived.get(j).getId()) {
+                next = stored.get(i++);
+            } else {
+                next = archived.get(j++);
+            }
+            if (merged.isEmpty() || merged.get(merged.size() - 1).getId() != next.getId()) {
+                merged.add(next);
+            }
+        }
+        return merged;
+    }
+
+    private void index(Request request) {
+        IndexKeys keys = IndexKeys.of(request);
+        int id = request.getId();
+        indexedKeys.put(id, keys);
+        carIndex.add(keys.requestType(), keys.carId(), id);
+        userIndex.add(keys.requestType(), keys.username(), id);
+        statusIndex.add(keys.requestType(), keys.requestStatus(), id);
+        dayIndex.add(keys.requestType(), RequestTimestamp.CREATION, keys.creationDay(), id);
+        dayIndex.add(keys.requestType(), RequestTimestamp.COMPLETION, keys.completionDay(), id);
+        request.setStatusListener(statusListener);
+    }
+
+    /**
+     * @return the keys the request was indexed with, or null if it was not indexed.
+     */
+    private IndexKeys unindex(int requestId) {
+        IndexKeys keys = indexedKeys.remove(requestId);
+        if (keys == null) {
+            return null;
+        }
+        carIndex.remove(keys.requestType(), keys.carId(), requestId);
+        userIndex.remove(keys.requestType(), keys.username(), requestId);
+        statusIndex.remove(keys.requestType(), keys.requestStatus(), requestId);
+        dayIndex.remove(keys.requestType(), RequestTimestamp.CREATION, keys.creationDay(), requestId);
+        dayIndex.remove(keys.requestType(), RequestTimestamp.COMPLETION, keys.completionDay(), requestId);
+        return keys;
+    }
+
+    private List<Integer> userIdsOfAnyTypeAfter(String username, Integer afterId, int count) {
+        List<Integer> ids = new ArrayList<>();
+        for (RequestType requestType : RequestType.values()) {
+            int taken = 0;
+            for (Integer id : userIndex.getAfter(requestType, username, afterId)) {
+                if (taken++ == count) {
+                    break;
+                }
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private List<Request> resolveFirst(Collection<Integer> ids, int count) {
+        List<Request> requests = new ArrayList<>(Math.min(count, 16));
+        for (Integer id : ids) {
+            if (requests.size() == count) {
+                break;
+            }
+            Request request = requestsMap.get(id);
+            if (request != null) {
+                requests.add(request);
+            }
+        }
+        return requests;
+    }
+
+    private List<Request> resolveWindow(Collection<Integer> ids, Integer afterId, int count) {
+        IdWindow window = new IdWindow(afterId, count);
+        for (Integer id : ids) {
+            window.offer(id);
+        }
+        List<Request> requests = new ArrayList<>(count);
+        for (int id : window.toSortedArray()) {
+            Request request = requestsMap.get(id);
+            if (request != null) {
+                requests.add(request);
+            }
+        }
+        return requests;
+    }
+
+    private List<Request> resolve(Collection<Integer> ids) {
+        List<Request> requests = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Request request = requestsMap.get(id);
+            if (request != null) {
+                requests.add(request);
+            }
+        }
+        return requests;
+    }
+
+    /**
+     * Type and status a request is counted under.
+     */
+    private record StatusKey(RequestType requestType, RequestStatus requestStatus) {
+    }
+
+    /**
+     * Attribute values a request was indexed with, kept so that the request can be
+     * removed from the indexes even after it has been mutated in place.
+     */
+    private record IndexKeys(RequestType requestType, int carId, String username, RequestStatus requestStatus,
+                             long creationDay, long completionDay) {
+
+        static IndexKeys of(Request request) {
+            User user = request.getUser();
+            return new IndexKeys(request.getRequestType(), request.getCarId(),
+                    user == null ? null : user.getUsername(), request.getRequestStatus(),
+                    RequestDayIndex.epochDay(request.getCreationTime()),
+                    RequestDayIndex.epochDay(request.getCompletionTime()));
+        }
     }
 }
@@ -0,0 +1,22 @@
+package org.example.carshop.repository;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Request ID generator handing out consecutive IDs from a single atomic counter.
+ */
+public class SequentialIdGenerator implements RequestIdGenerator {
+    private final AtomicInteger lastId = new AtomicInteger();
+
+    @Override
+    public int nextId() {
+        return lastId.incrementAndGet();
+    }
+
+    @Override
+    public void advancePast(int usedId) {
+        if (lastId.get() < usedId) {
+            lastId.accumulateAndGet(usedId, Math::max);
+        }
+    }
+}
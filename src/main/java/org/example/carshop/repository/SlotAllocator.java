@@ -0,0 +1,132 @@
+package org.example.carshop.repository;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Hands out slots of slot-indexed structures, reusing released slots so that add/remove churn does not grow
+ * the structures.
+ * <p>
+ * In deferred mode, for structures read without locking, a released slot is reused only once every reader that
+ * might still see it has finished. Readers bracket their access with {@link #enter()} and {@link #exit(long)},
+ * which only count them per epoch in thread-striped counters. Slots released during an epoch are handed out again
+ * after the epoch has been left behind and its readers have drained; allocation checks that without waiting,
+ * taking a fresh slot meanwhile.
+ */
+class SlotAllocator {
+    private static final int STRIPES = 16;
+    private static final int PADDING = 16;
+
+    private final boolean deferred;
+    private final AtomicIntegerArray readers = new AtomicIntegerArray(2 * STRIPES * PADDING);
+    private volatile long epoch;
+    private int nextSlot;
+    private int[] free = new int[16];
+    private int freeCount;
+    private int[] retired = new int[16];
+    private int retiredCount;
+    private int[] draining = new int[16];
+    private int drainingCount;
+
+    /**
+     * Creates an allocator.
+     *
+     * @param deferred whether released slots may still be seen by concurrent readers.
+     */
+    SlotAllocator(boolean deferred) {
+        this.deferred = deferred;
+    }
+
+    /**
+     * @return a free slot, the lowest never used one if no released slot can be reused yet.
+     */
+    synchronized int allocate() {
+        while (freeCount == 0 && (retiredCount > 0 || drainingCount > 0) && advance()) {
+            // Each advance moves released slots one step closer to the free list.
+        }
+        return freeCount > 0 ? free[--freeCount] : nextSlot++;
+    }
+
+    /**
+     * Releases a slot that is no longer reachable from the structures. Readers that entered before may still use it.
+     *
+     * @param slot the slot.
+     */
+    synchronized void release(int slot) {
+        if (deferred) {
+            retired = push(retired, retiredCount++, slot);
+        } else {
+            free = push(free, freeCount++, slot);
+        }
+    }
+
+    /**
+     * Registers a reader; every call must be followed by {@link #exit(long)} with the returned ticket.
+     *
+     * @return the ticket of the reader.
+     */
+    long enter() {
+        if (!deferred) {
+            return 0;
+        }
+        int stripe = stripe();
+        while (true) {
+            long current = epoch;
+            int index = counter(current, stripe);
+            readers.incrementAndGet(index);
+            if (epoch == current) {
+                return current;
+            }
+            readers.decrementAndGet(index);
+        }
+    }
+
+    /**
+     * Deregisters a reader.
+     *
+     * @param ticket the ticket returned by {@link #enter()}.
+     */
+    void exit(long ticket) {
+        if (deferred) {
+            readers.decrementAndGet(counter(ticket, stripe()));
+        }
+    }
+
+    /**
+     * Moves to the next epoch if the readers of the previous one have drained. Slots released during the previous
+     * epoch are free then, since every reader that could have seen them has finished, and slots released during
+     * the current epoch wait for its readers.
+     */
+    private boolean advance() {
+        long current = epoch;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            if (readers.get(counter(current - 1, stripe)) != 0) {
+                return false;
+            }
+        }
+        for (int i = 0; i < drainingCount; i++) {
+            free = push(free, freeCount++, draining[i]);
+        }
+        int[] emptied = draining;
+        draining = retired;
+        drainingCount = retiredCount;
+        retired = emptied;
+        retiredCount = 0;
+        epoch = current + 1;
+        return true;
+    }
+
+    private static int counter(long epoch, int stripe) {
+        return ((int) (epoch & 1) * STRIPES + stripe) * PADDING;
+    }
+
+    private static int stripe() {
+        return (int) Thread.currentThread().getId() & (STRIPES - 1);
+    }
+
+    private static int[] push(int[] slots, int count, int slot) {
+        int[] target = count == slots.length ? Arrays.copyOf(slots, count * 2) : slots;
+        target[count] = slot;
+        return target;
+    }
+}
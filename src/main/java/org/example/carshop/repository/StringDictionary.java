@@ -0,0 +1,56 @@
+package org.example.carshop.repository;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory dictionary assigning dense int codes to strings, so that a repeated value is stored once
+ * and a column of values can be kept as an int array. Null is encoded as -1. Not thread-safe.
+ */
+class StringDictionary {
+    static final int NULL_CODE = -1;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private String[] values = new String[16];
+
+    /**
+     * @param value the string.
+     * @return the code of the string, or -1 if it is null or has no code yet.
+     */
+    int codeOf(String value) {
+        Integer code = value == null ? null : codes.get(value);
+        return code == null ? NULL_CODE : code;
+    }
+
+    /**
+     * Returns the code of the string, assigning the next code to a new string.
+     *
+     * @param value the string.
+     * @return the code of the string.
+     */
+    int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        int next = codes.size();
+        if (next == values.length) {
+            values = Arrays.copyOf(values, next * 2);
+        }
+        values[next] = value;
+        codes.put(value, next);
+        return next;
+    }
+
+    /**
+     * @param code the code of a string.
+     * @return the string, or null for the null code.
+     */
+    String decode(int code) {
+        return code == NULL_CODE ? null : values[code];
+    }
+}
@@ -0,0 +1,143 @@
+package org.example.carshop.repository;
+
+import java.util.BitSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Fixed set of reentrant locks selected by key hash.
+ * Operations on the same key are serialized while operations on different keys
+ * usually take different locks and run in parallel.
+ */
+public class StripedLock {
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final ReentrantLock[] stripes;
+
+    /**
+     * Creates a striped lock with the default number of stripes.
+     */
+    public StripedLock() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * Creates a striped lock.
+     *
+     * @param stripes the minimal number of stripes, rounded up to a power of two.
+     */
+    public StripedLock(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Runs the action while holding the lock of the given key.
+     *
+     * @param key    the key to lock.
+     * @param action the action to run.
+     * @param <T>    type of the action result.
+     * @return the result of the action.
+     */
+    public <T> T execute(Object key, Supplier<T> action) {
+        return execute(key == null ? 0 : key.hashCode(), action);
+    }
+
+    /**
+     * Runs the action while holding the lock of the given int key.
+     *
+     * @param key    the key to lock.
+     * @param action the action to run.
+     * @param <T>    type of the action result.
+     * @return the result of the action.
+     */
+    public <T> T execute(int key, Supplier<T> action) {
+        ReentrantLock lock = stripeFor(key);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs the action while holding the lock of the given key.
+     *
+     * @param key    the key to lock.
+     * @param action the action to run.
+     */
+    public void run(Object key, Runnable action) {
+        run(key == null ? 0 : key.hashCode(), action);
+    }
+
+    /**
+     * Runs the action while holding the lock of the given int key.
+     *
+     * @param key    the key to lock.
+     * @param action the action to run.
+     */
+    public void run(int key, Runnable action) {
+        ReentrantLock lock = stripeFor(key);
+        lock.lock();
+        try {
+            action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs the action while holding the locks of all given keys. The locks are taken in stripe order,
+     * so concurrent calls with overlapping keys cannot deadlock; each stripe is locked once however many
+     * keys map to it.
+     *
+     * @param keys   the keys to lock; a key locks the same stripe as in {@link #execute(Object, Supplier)}.
+     * @param action the action to run.
+     * @param <T>    type of the action result.
+     * @return the result of the action.
+     */
+    public <T> T executeAll(Iterable<?> keys, Supplier<T> action) {
+        BitSet locked = new BitSet(stripes.length);
+        for (Object key : keys) {
+            locked.set(stripeIndex(key == null ? 0 : key.hashCode()));
+        }
+        int acquired = 0;
+        try {
+            for (int i = locked.nextSetBit(0); i >= 0; i = locked.nextSetBit(i + 1)) {
+                stripes[i].lock();
+                acquired = i + 1;
+            }
+            return action.get();
+        } finally {
+            for (int i = locked.previousSetBit(acquired - 1); i >= 0; i = locked.previousSetBit(i - 1)) {
+                stripes[i].unlock();
+            }
+        }
+    }
+
+    /**
+     * Runs the action while holding the locks of all given keys, see {@link #executeAll}.
+     *
+     * @param keys   the keys to lock.
+     * @param action the action to run.
+     */
+    public void runAll(Iterable<?> keys, Runnable action) {
+        executeAll(keys, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private ReentrantLock stripeFor(int hash) {
+        return stripes[stripeIndex(hash)];
+    }
+
+    private int stripeIndex(int hash) {
+        int spread = hash ^ (hash >>> 16);
+        return (spread * 0x9E3779B9) >>> 16 & (stripes.length - 1);
+    }
+}
@@ -0,0 +1,291 @@
+package org.example.carshop.repository;
+
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.UserRole;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+
+/**
+ * Search index over usernames and full names, partitioned by {@link UserRole}.
+ * <p>
+ * Every partition keeps the sorted usernames of its role, which serves role listings and prefix searches,
+ * and trigram inverted indexes over usernames and lower-cased full names. A substring search takes the
+ * shortest posting list among the trigrams of the query and checks only the usernames in it; queries shorter
+ * than a trigram check every username of the searched roles. Searches never touch partitions of other roles.
+ * <p>
+ * In concurrent mode the partitions are built from concurrent collections and lookups are weakly consistent.
+ * Callers are expected to serialize {@link #add} and {@link #remove} calls for the same username.
+ */
+class UserIndex {
+    private static final int GRAM = 3;
+
+    private final boolean concurrent;
+    private final Map<UserRole, Partition> partitions = new EnumMap<>(UserRole.class);
+    private final Partition noRolePartition;
+    private final Map<String, Entry> entries;
+
+    /**
+     * Creates an empty index.
+     *
+     * @param concurrent whether the index is shared between threads.
+     */
+    UserIndex(boolean concurrent) {
+        this.concurrent = concurrent;
+        this.entries = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+        for (UserRole role : UserRole.values()) {
+            partitions.put(role, new Partition());
+        }
+        this.noRolePartition = new Partition();
+    }
+
+    /**
+     * Adds the user to the index, replacing whatever was indexed for the username before.
+     *
+     * @param user the user to index.
+     */
+    void add(User user) {
+        remove(user.getUsername());
+        Entry entry = new Entry(user.getUsername(), user.getRole(), normalize(user.getFullName()));
+        entries.put(entry.username, entry);
+        partition(entry.role).add(entry);
+    }
+
+    /**
+     * Removes the user with the given username from the index, if it is indexed.
+     *
+     * @param username the username of the user.
+     */
+    void remove(String username) {
+        Entry entry = entries.remove(username);
+        if (entry != null) {
+            partition(entry.role).remove(entry);
+        }
+    }
+
+    /**
+     * Finds usernames containing the given text.
+     *
+     * @param text  the text to find, or null to match every username.
+     * @param roles the roles to search, or null to search users of any role.
+     * @return the matching usernames in ascending order.
+     */
+    List<String> findByUsername(String text, Collection<UserRole> roles) {
+        List<String> usernames = new ArrayList<>();
+        for (Partition partition : select(roles)) {
+            if (text == null) {
+                usernames.addAll(partition.usernames);
+            } else {
+                partition.search(partition.usernameGrams, text, entry -> entry.username.contains(text), usernames);
+            }
+        }
+        return sorted(usernames, roles);
+    }
+
+    /**
+     * Finds the first usernames after the cursor among the usernames containing the given text.
+     * Without a text only the first usernames of each partition are read from the sorted username sets.
+     *
+     * @param text  the text to find, or null to match every username.
+     * @param roles the roles to search, or null to search users of any role.
+     * @param after the cursor, or null to start from the first username.
+     * @param count the maximal number of usernames to return.
+     * @return the matching usernames in ascending order.
+     */
+    List<String> findByUsernameAfter(String text, Collection<UserRole> roles, String after, int count) {
+        List<String> usernames = new ArrayList<>();
+        for (Partition partition : select(roles)) {
+            if (text == null) {
+                int taken = 0;
+                for (String username : after == null ? partition.usernames : partition.usernames.tailSet(after, false)) {
+                    if (taken++ == count) {
+                        break;
+                    }
+                    usernames.add(username);
+                }
+            } else {
+                partition.search(partition.usernameGrams, text,
+                        entry -> entry.username.contains(text) && (after == null || entry.username.compareTo(after) > 0),
+                        usernames);
+            }
+        }
+        Collections.sort(usernames);
+        return usernames.size() > count ? new ArrayList<>(usernames.subList(0, count)) : usernames;
+    }
+
+    /**
+     * Finds usernames starting with the given prefix.
+     *
+     * @param prefix the prefix to find.
+     * @param roles  the roles to search, or null to search users of any role.
+     * @return the matching usernames in ascending order.
+     */
+    List<String> findByUsernamePrefix(String prefix, Collection<UserRole> roles) {
+        List<String> usernames = new ArrayList<>();
+        for (Partition partition : select(roles)) {
+            usernames.addAll(partition.usernames.subSet(prefix, true, prefix + Character.MAX_VALUE, false));
+        }
+        return sorted(usernames, roles);
+    }
+
+    /**
+     * Finds usernames of the users whose full name contains the given text, ignoring case.
+     *
+     * @param text  the text to find.
+     * @param roles the roles to search, or null to search users of any role.
+     * @return the matching usernames in ascending order.
+     */
+    List<String> findByFullName(String text, Collection<UserRole> roles) {
+        String query = normalize(text);
+        List<String> usernames = new ArrayList<>();
+        for (Partition partition : select(roles)) {
+            partition.search(partition.fullNameGrams, query,
+                    entry -> entry.fullName != null && entry.fullName.contains(query), usernames);
+        }
+        return sorted(usernames, roles);
+    }
+
+    private Collection<Partition> select(Collection<UserRole> roles) {
+        if (roles == null) {
+            List<Partition> all = new ArrayList<>(partitions.values());
+            all.add(noRolePartition);
+            return all;
+        }
+        Set<Partition> selected = new LinkedHashSet<>();
+        for (UserRole role : roles) {
+            selected.add(partition(role));
+        }
+        return selected;
+    }
+
+    private Partition partition(UserRole role) {
+        return role == null ? noRolePartition : partitions.get(role);
+    }
+
+    private static List<String> sorted(List<String> usernames, Collection<UserRole> roles) {
+        if (roles == null || roles.size() > 1) {
+            Collections.sort(usernames);
+        }
+        return usernames;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? null : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (text != null) {
+            for (int i = 0; i + GRAM <= text.length(); i++) {
+                grams.add(text.substring(i, i + GRAM));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * Attribute values a user was indexed with, kept so that the user can be removed from
+     * the index even after it has been mutated in place.
+     */
+    private record Entry(String username, UserRole role, String fullName) {
+    }
+
+    /**
+     * Users of one role.
+     */
+    private final class Partition {
+        private final NavigableSet<String> usernames = concurrent ? new ConcurrentSkipListSet<>() : new TreeSet<>();
+        private final Map<String, Set<Entry>> usernameGrams = newMap();
+        private final Map<String, Set<Entry>> fullNameGrams = newMap();
+
+        private void add(Entry entry) {
+            usernames.add(entry.username);
+            for (String gram : grams(entry.username)) {
+                usernameGrams.compute(gram, (key, posting) -> {
+                    Set<Entry> entries = posting != null ? posting : newSet();
+                    entries.add(entry);
+                    return entries;
+                });
+            }
+            for (String gram : grams(entry.fullName)) {
+                fullNameGrams.compute(gram, (key, posting) -> {
+                    Set<Entry> entries = posting != null ? posting : newSet();
+                    entries.add(entry);
+                    return entries;
+                });
+            }
+        }
+
+        private void remove(Entry entry) {
+            usernames.remove(entry.username);
+            for (String gram : grams(entry.username)) {
+                usernameGrams.computeIfPresent(gram, (key, posting) -> posting.remove(entry) && posting.isEmpty() ? null : posting);
+            }
+            for (String gram : grams(entry.fullName)) {
+                fullNameGrams.computeIfPresent(gram, (key, posting) -> posting.remove(entry) && posting.isEmpty() ? null : posting);
+            }
+        }
+
+        /**
+         * Adds usernames of the entries matching the predicate to the result, checking only the entries of
+         * the shortest posting list among the trigrams of the query.
+         *
+         * @param grams   the trigram index to use.
+         * @param query   the text to find in the indexed attribute.
+         * @param matches checks whether an entry contains the query.
+         * @param result  the list to add the usernames to.
+         */
+        private void search(Map<String, Set<Entry>> grams, String query, Predicate<Entry> matches,
+                            List<String> result) {
+            Set<String> queryGrams = grams(query);
+            if (queryGrams.isEmpty()) {
+                for (String username : usernames) {
+                    Entry entry = entries.get(username);
+                    if (entry != null && partition(entry.role) == this && matches.test(entry)) {
+                        result.add(username);
+                    }
+                }
+                return;
+            }
+            Set<Entry> shortest = null;
+            for (String gram : queryGrams) {
+                Set<Entry> posting = grams.get(gram);
+                if (posting == null) {
+                    return;
+                }
+                if (shortest == null || posting.size() < shortest.size()) {
+                    shortest = posting;
+                }
+            }
+            int start = result.size();
+            for (Entry entry : shortest) {
+                if (matches.test(entry)) {
+                    result.add(entry.username);
+                }
+            }
+            Collections.sort(result.subList(start, result.size()));
+        }
+
+        private <V> Map<String, V> newMap() {
+            return concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+        }
+
+        private Set<Entry> newSet() {
+            return concurrent ? ConcurrentHashMap.newKeySet() : new HashSet<>();
+        }
+    }
+}
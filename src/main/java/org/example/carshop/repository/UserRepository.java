@@ -1,19 +1,51 @@
 package org.example.carshop.repository;
 
-import lombok.AllArgsConstructor;
 import org.example.carshop.model.User;
 import org.example.carshop.model.enums.UserRole;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
 
 /**
  * Repository class for managing users.
+ * Keeps a search index over usernames and full names partitioned by role, so that searches and
+ * role listings touch only users of the requested roles.
+ * When backed by a {@link ConcurrentMap} the repository is safe for parallel
+ * readers and writers: writes to the same user are serialized by a lock striped by username.
+ * Every mutation is reported to a {@link RepositoryJournal}.
  */
-@AllArgsConstructor
 public class UserRepository {
     private final Map<String, User> userMap;
+    private final StripedLock userLocks = new StripedLock();
+    private final RepositoryJournal journal;
+    private final UserIndex userIndex;
+
+    /**
+     * Constructs a repository over the given map and indexes the users already present in it.
+     *
+     * @param userMap the map storing users by their usernames.
+     */
+    public UserRepository(Map<String, User> userMap) {
+        this(userMap, RepositoryJournal.NONE);
+    }
+
+    /**
+     * Constructs a repository over the given map and indexes the users already present in it.
+     *
+     * @param userMap the map storing users by their usernames.
+     * @param journal the journal receiving every mutation of the repository.
+     */
+    public UserRepository(Map<String, User> userMap, RepositoryJournal journal) {
+        this.userMap = userMap;
+        this.journal = journal;
+        this.userIndex = new UserIndex(userMap instanceof ConcurrentMap);
+        userMap.values().forEach(userIndex::add);
+    }
 
     /**
      * Registers a new user in the repository.
@@ -21,7 +53,7 @@ public class UserRepository {
      * @param user The user object to register.
      */
     public void registerUser(User user) {
-        userMap.put(user.getUsername(), user);
+        save(user);
     }
 
     /**
@@ -30,7 +62,73 @@ public class UserRepository {
      * @param user The user object to update.
      */
     public void updateUser(User user) {
-        userMap.put(user.getUsername(), user);
+        save(user);
+    }
+
+    /**
+     * Registers or updates a batch of users as one unit. The locks of all users of the batch are held while
+     * it is applied, and the mutations are journaled as one batch that is awaited once.
+     *
+     * @param users The users to save.
+     */
+    public void registerUsers(Collection<User> users) {
+        saveAll(users, false);
+    }
+
+    /**
+     * Updates a batch of existing users as one unit, like {@link #registerUsers}.
+     *
+     * @param users The users to update.
+     * @throws IllegalArgumentException if a user of the batch does not exist; no user is updated then.
+     */
+    public void updateUsers(Collection<User> users) {
+        saveAll(users, true);
+    }
+
+    /**
+     * Registers a new user unless a user with the same username already exists.
+     * The check and the registration happen atomically.
+     *
+     * @param user The user object to register.
+     * @return true if the user has been registered, false if the username is taken.
+     */
+    public boolean registerUserIfAbsent(User user) {
+        boolean registered = userLocks.execute(user.getUsername(), () -> {
+            if (userMap.containsKey(user.getUsername())) {
+                return false;
+            }
+            userMap.put(user.getUsername(), user);
+            userIndex.add(user);
+            journal.userSaved(user);
+            return true;
+        });
+        journal.awaitDurable();
+        return registered;
+    }
+
+    /**
+     * Replaces the password of a user if it is still the expected one. The check and the replacement happen
+     * under the lock of the user, so a password or role changed concurrently is never overwritten.
+     *
+     * @param username         The username of the user.
+     * @param expectedPassword The password the user is expected to have.
+     * @param newPassword      The new password.
+     * @return true if the password has been replaced, false if the user does not exist or has another password.
+     */
+    public boolean replacePassword(String username, String expectedPassword, String newPassword) {
+        boolean replaced = userLocks.execute(username, () -> {
+            User current = userMap.get(username);
+            if (current == null || !Objects.equals(current.getPassword(), expectedPassword)) {
+                return false;
+            }
+            User updated = new User(current.getUsername(), newPassword, current.getFullName(), current.getRole());
+            userMap.put(username, updated);
+            userIndex.add(updated);
+            journal.userSaved(updated);
+            return true;
+        });
+        journal.awaitDurable();
+        return replaced;
     }
 
     /**
@@ -46,15 +144,106 @@ public class UserRepository {
     /**
      * Filters users based on given criteria.
      *
-     * @param name Filter by name.
+     * @param name Filter by a part of the username.
      * @param userRoles Filter by roles.
-     * @return filtered collection of users.
+     * @return filtered collection of users, ordered by username.
      */
-
     public Collection<User> filterUsers(String name, Collection<UserRole> userRoles) {
-        return userMap.values().stream()
-                .filter(user -> (name == null || user.getUsername().contains(name))
-                        && (userRoles == null || userRoles.contains(user.getRole())))
-                .collect(Collectors.toList());
+        return resolve(userIndex.findByUsername(name, userRoles));
+    }
+
+    /**
+     * Finds one page of the users matching the given criteria, ordered by username.
+     *
+     * @param name Filter by a part of the username.
+     * @param userRoles Filter by roles.
+     * @param afterUsername the username of the last user of the previous page, or null for the first page.
+     * @param limit the maximal number of users of the page.
+     * @return the page.
+     */
+    public Page<User> filterUsers(String name, Collection<UserRole> userRoles, String afterUsername, int limit) {
+        return Page.of(resolve(userIndex.findByUsernameAfter(name, userRoles, afterUsername, limit + 1)), limit);
+    }
+
+    /**
+     * Streams the users matching the given criteria in username order, fetching them a page at a time
+     * as the stream is consumed.
+     *
+     * @param name Filter by a part of the username.
+     * @param userRoles Filter by roles.
+     * @return a lazy stream of the matching users.
+     */
+    public Stream<User> streamUsers(String name, Collection<UserRole> userRoles) {
+        return Pages.stream(Pages.DEFAULT_PAGE_SIZE, (last, limit) ->
+                filterUsers(name, userRoles, last == null ? null : last.getUsername(), limit));
+    }
+
+    /**
+     * Finds users whose username starts with the given prefix.
+     *
+     * @param prefix the beginning of the username.
+     * @param userRoles Filter by roles, or null for users of any role.
+     * @return matching users, ordered by username.
+     */
+    public Collection<User> findUsersByUsernamePrefix(String prefix, Collection<UserRole> userRoles) {
+        return resolve(userIndex.findByUsernamePrefix(prefix, userRoles));
+    }
+
+    /**
+     * Finds users whose full name contains the given text, ignoring case.
+     *
+     * @param fullName a part of the full name.
+     * @param userRoles Filter by roles, or null for users of any role.
+     * @return matching users, ordered by username.
+     */
+    public Collection<User> findUsersByFullName(String fullName, Collection<UserRole> userRoles) {
+        return resolve(userIndex.findByFullName(fullName, userRoles));
+    }
+
+    private List<User> resolve(List<String> usernames) {
+        List<User> users = new ArrayList<>(usernames.size());
+        for (String username : usernames) {
+            User user = userMap.get(username);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    private void saveAll(Collection<User> users, boolean existingOnly) {
+        List<String> usernames = new ArrayList<>(users.size());
+        for (User user : users) {
+            usernames.add(user.getUsername());
+        }
+        userLocks.runAll(usernames, () -> {
+            if (existingOnly) {
+                for (String username : usernames) {
+                    if (!userMap.containsKey(username)) {
+                        throw new IllegalArgumentException("User does not exist: " + username);
+                    }
+                }
+            }
+            journal.beginBatch();
+            try {
+                for (User user : users) {
+                    userMap.put(user.getUsername(), user);
+                    userIndex.add(user);
+                    journal.userSaved(user);
+                }
+            } finally {
+                journal.commitBatch();
+            }
+        });
+        journal.awaitDurable();
+    }
+
+    private void save(User user) {
+        userLocks.run(user.getUsername(), () -> {
+            userMap.put(user.getUsername(), user);
+            userIndex.add(user);
+            journal.userSaved(user);
+        });
+        journal.awaitDurable();
     }
 }
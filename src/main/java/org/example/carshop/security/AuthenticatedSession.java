@@ -0,0 +1,12 @@
+package org.example.carshop.security;
+
+import org.example.carshop.model.User;
+
+/**
+ * Result of a successful authentication.
+ *
+ * @param token the session token that can be used instead of the password until it expires.
+ * @param user  the authenticated user.
+ */
+public record AuthenticatedSession(String token, User user) {
+}
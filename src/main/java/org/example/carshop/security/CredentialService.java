@@ -0,0 +1,114 @@
+package org.example.carshop.security;
+
+import java.security.MessageDigest;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashes and verifies passwords on a bounded pool of worker threads.
+ * <p>
+ * Password hashing is deliberately expensive, so it runs on a fixed number of threads with a bounded queue:
+ * a burst of logins occupies at most those threads, and work that does not fit into the queue is rejected
+ * with a {@link RejectedExecutionException} instead of piling up. Stored passwords that are not hashes yet
+ * are compared as plaintext so that users registered before hashing was introduced can still log in.
+ */
+public class CredentialService {
+    private static final CredentialService SHARED = new CredentialService(new PasswordHasher(),
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2), 64);
+
+    private final PasswordHasher hasher;
+    private final ThreadPoolExecutor workers;
+    private final String dummyHash;
+
+    /**
+     * Creates a service.
+     *
+     * @param hasher        the password hasher.
+     * @param threads       the number of worker threads.
+     * @param queueCapacity the number of hashing tasks that may wait for a worker.
+     */
+    public CredentialService(PasswordHasher hasher, int threads, int queueCapacity) {
+        this.hasher = hasher;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "carshop-credentials-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dummyHash = hasher.hash("");
+    }
+
+    /**
+     * @return the service shared by the whole application.
+     */
+    public static CredentialService shared() {
+        return SHARED;
+    }
+
+    /**
+     * Hashes the password unless it is already hashed.
+     *
+     * @param password the password or its hash.
+     * @return the hash of the password.
+     * @throws RejectedExecutionException if the workers are overloaded.
+     */
+    public String hash(String password) {
+        if (password == null || hasher.isHash(password)) {
+            return password;
+        }
+        return await(() -> hasher.hash(password));
+    }
+
+    /**
+     * Checks the password against the stored one.
+     * A missing stored password is checked against a dummy hash, so that the time it takes does not reveal
+     * whether a user exists.
+     *
+     * @param password the password entered by the user.
+     * @param stored   the stored hash or legacy plaintext password, or null if the user is unknown.
+     * @return true if the password matches.
+     * @throws RejectedExecutionException if the workers are overloaded.
+     */
+    public boolean verify(String password, String stored) {
+        if (password == null) {
+            return false;
+        }
+        if (stored != null && !hasher.isHash(stored)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+        }
+        boolean matches = await(() -> hasher.matches(password, stored != null ? stored : dummyHash));
+        return matches && stored != null;
+    }
+
+    /**
+     * @param stored a stored password.
+     * @return true if the stored password is plaintext or hashed with an outdated cost.
+     */
+    public boolean needsRehash(String stored) {
+        return stored != null && hasher.needsRehash(stored);
+    }
+
+    private <T> T await(Callable<T> task) {
+        Future<T> future = workers.submit(task);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
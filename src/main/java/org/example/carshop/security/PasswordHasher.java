@@ -0,0 +1,113 @@
+package org.example.carshop.security;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Salted PBKDF2-HMAC-SHA256 password hashing with a tunable iteration count.
+ * Hashes are encoded as {@code $pbkdf2-sha256$<iterations>$<salt>$<hash>} with Base64 salt and hash,
+ * so every hash carries the cost it was computed with and old hashes stay verifiable after the cost changes.
+ */
+public class PasswordHasher {
+    /**
+     * Default iteration count, as recommended for PBKDF2-HMAC-SHA256 by OWASP.
+     */
+    public static final int DEFAULT_ITERATIONS = 210_000;
+
+    private static final String PREFIX = "$pbkdf2-sha256$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Creates a hasher with the default iteration count.
+     */
+    public PasswordHasher() {
+        this(DEFAULT_ITERATIONS);
+    }
+
+    /**
+     * Creates a hasher.
+     *
+     * @param iterations the PBKDF2 iteration count of new hashes.
+     */
+    public PasswordHasher(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Iteration count must be positive: " + iterations);
+        }
+        this.iterations = iterations;
+    }
+
+    /**
+     * Hashes the password with a new random salt.
+     *
+     * @param password the password.
+     * @return the encoded hash.
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + '$' + encoder.encodeToString(salt) + '$'
+                + encoder.encodeToString(derive(password, salt, iterations));
+    }
+
+    /**
+     * Checks the password against an encoded hash in time independent of where they differ.
+     *
+     * @param password the password.
+     * @param encoded  the hash produced by {@link #hash}.
+     * @return true if the password matches the hash.
+     */
+    public boolean matches(String password, String encoded) {
+        if (!isHash(encoded)) {
+            return false;
+        }
+        String[] parts = encoded.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 3) {
+            return false;
+        }
+        try {
+            int hashIterations = Integer.parseInt(parts[0]);
+            byte[] salt = Base64.getDecoder().decode(parts[1]);
+            byte[] expected = Base64.getDecoder().decode(parts[2]);
+            return hashIterations > 0 && MessageDigest.isEqual(expected, derive(password, salt, hashIterations));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param value a stored password.
+     * @return true if the value is a hash produced by this class rather than a plaintext password.
+     */
+    public boolean isHash(String value) {
+        return value != null && value.startsWith(PREFIX);
+    }
+
+    /**
+     * @param encoded a stored password.
+     * @return true if the value is not a hash with the current iteration count and should be hashed again.
+     */
+    public boolean needsRehash(String encoded) {
+        return !isHash(encoded) || !encoded.startsWith(PREFIX + iterations + '$');
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.carshop.security;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Short-lived tokens of verified sessions, so that repeat authentication of a user who has just
+ * entered the correct password does not compute the password hash again.
+ * Expired tokens are dropped when they are looked up and by a periodic sweep on issuing.
+ */
+public class SessionCache {
+    /**
+     * Default lifetime of a token.
+     */
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(15);
+
+    private static final int SWEEP_INTERVAL = 256;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicInteger issued = new AtomicInteger();
+    private final Duration ttl;
+    private final Clock clock;
+
+    /**
+     * Creates a cache with the default token lifetime.
+     */
+    public SessionCache() {
+        this(DEFAULT_TTL, Clock.systemUTC());
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param ttl   the lifetime of a token.
+     * @param clock the clock deciding when tokens expire.
+     */
+    public SessionCache(Duration ttl, Clock clock) {
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    /**
+     * Issues a new token for the user.
+     *
+     * @param username the username of the verified user.
+     * @return the token.
+     */
+    public String issue(String username) {
+        if (issued.incrementAndGet() % SWEEP_INTERVAL == 0) {
+            Instant now = clock.instant();
+            sessions.values().removeIf(session -> session.isExpired(now));
+        }
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(username, clock.instant().plus(ttl)));
+        return token;
+    }
+
+    /**
+     * Returns the user of a valid token.
+     *
+     * @param token the token.
+     * @return the username the token was issued for, or null if the token is unknown or expired.
+     */
+    public String resolve(String token) {
+        Session session = token == null ? null : sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        if (session.isExpired(clock.instant())) {
+            sessions.remove(token, session);
+            return null;
+        }
+        return session.username();
+    }
+
+    /**
+     * Invalidates the token.
+     *
+     * @param token the token.
+     */
+    public void invalidate(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    /**
+     * Invalidates every token of the user, e.g. after the password has changed.
+     *
+     * @param username the username.
+     */
+    public void invalidateUser(String username) {
+        sessions.values().removeIf(session -> session.username().equals(username));
+    }
+
+    private record Session(String username, Instant expiresAt) {
+        boolean isExpired(Instant now) {
+            return !now.isBefore(expiresAt);
+        }
+    }
+}
@@ -2,16 +2,45 @@ package org.example.carshop.service;
 
 import lombok.AllArgsConstructor;
 import org.example.carshop.model.Car;
-import org.example.carshop.repository.CarRepository;
+import org.example.carshop.metrics.Histogram;
+import org.example.carshop.metrics.MetricsRegistry;
+import org.example.carshop.model.enums.ReservationResult;
+import org.example.carshop.repository.CarStore;
+import org.example.carshop.repository.Page;
+import org.example.carshop.repository.Pages;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.stream.Stream;
 
 /**
  * Service class for managing Car Shop operations.
+ * Search results are cached until a car of the searched brand, or of any brand for a search by all brands,
+ * is changed, so repeated searches are answered without a lookup.
+ * Latencies of searches and mutations and sizes of search results are recorded in the
+ * {@link MetricsRegistry#shared() shared registry}.
  */
 @AllArgsConstructor
 public class CarShopService {
-    private final CarRepository carRepository;
+    private static final MetricsRegistry METRICS = MetricsRegistry.shared();
+    private static final Histogram SEARCH_LATENCY = METRICS.timer("carshop_car_search", "Searches of cars.");
+    private static final Histogram SEARCH_RESULTS = METRICS.histogram("carshop_car_search_results",
+            "Numbers of cars found by searches.");
+    private static final Histogram PAGE_LATENCY = METRICS.timer("carshop_car_search_page", "Searches of pages of cars.");
+    private static final Histogram ADD_LATENCY = METRICS.timer("carshop_car_add", "Additions of cars.");
+    private static final Histogram UPDATE_LATENCY = METRICS.timer("carshop_car_update", "Updates of cars.");
+    private static final Histogram DELETE_LATENCY = METRICS.timer("carshop_car_delete", "Deletions of cars.");
+    private static final Histogram ADD_BATCH_LATENCY = METRICS.timer("carshop_car_add_batch", "Additions of batches of cars.");
+    private static final Histogram UPDATE_BATCH_LATENCY = METRICS.timer("carshop_car_update_batch",
+            "Updates of batches of cars.");
+    private static final Histogram DELETE_BATCH_LATENCY = METRICS.timer("carshop_car_delete_batch",
+            "Deletions of batches of cars.");
+    private static final Histogram RESERVE_LATENCY = METRICS.timer("carshop_car_reserve", "Reservations of cars.");
+
+    private final CarStore carRepository;
+    private final ResultCache<CarQuery, Collection<Car>> searchCache = new ResultCache<>("carshop_car_search");
+    private final ResultCache<CarQuery, Page<Car>> pageCache = new ResultCache<>("carshop_car_search_page");
 
     /**
      * Retrieves all cars in car shop.
@@ -28,7 +57,9 @@ public class CarShopService {
      * @param car the conference hall to add.
      */
     public void addCar(Car car) {
+        long start = System.nanoTime();
         carRepository.addCar(car);
+        ADD_LATENCY.recordSince(start);
     }
 
     /**
@@ -37,7 +68,9 @@ public class CarShopService {
      * @param car the updated car object.
      */
     public void updateCar(Car car) {
+        long start = System.nanoTime();
         carRepository.updateCar(car);
+        UPDATE_LATENCY.recordSince(start);
     }
 
     /**
@@ -46,7 +79,44 @@ public class CarShopService {
      * @param id the ID of the Car to delete.
      */
     public void deleteCar(int id) {
+        long start = System.nanoTime();
         carRepository.removeCarById(id);
+        DELETE_LATENCY.recordSince(start);
+    }
+
+    /**
+     * Adds a batch of cars as one unit.
+     *
+     * @param cars the cars to add.
+     */
+    public void addCars(Collection<Car> cars) {
+        long start = System.nanoTime();
+        carRepository.addCars(cars);
+        ADD_BATCH_LATENCY.recordSince(start);
+    }
+
+    /**
+     * Updates a batch of existing cars as one unit: all of them are updated, or none.
+     *
+     * @param cars the updated car objects.
+     * @throws IllegalArgumentException if a car of the batch does not exist.
+     */
+    public void updateCars(Collection<Car> cars) {
+        long start = System.nanoTime();
+        carRepository.updateCars(cars);
+        UPDATE_BATCH_LATENCY.recordSince(start);
+    }
+
+    /**
+     * Deletes a batch of cars as one unit: all of them are deleted, or none.
+     *
+     * @param ids the IDs of the cars to delete.
+     * @throws IllegalArgumentException if a car of the batch does not exist.
+     */
+    public void deleteCars(Collection<Integer> ids) {
+        long start = System.nanoTime();
+        carRepository.removeCarsById(ids);
+        DELETE_BATCH_LATENCY.recordSince(start);
     }
 
     /**
@@ -66,9 +136,104 @@ public class CarShopService {
      * @param model Model to search by.
      * @param prodYear Year of manufacture to search by.
      * @param isAvailable availability of a car
-     * @return Collection of matching cars.
+     * @return Unmodifiable collection of matching cars.
      */
     public Collection<Car> searchCars(String brand, String model, String prodYear, Boolean isAvailable) {
-        return carRepository.filterCars(brand, model, prodYear, isAvailable);
+        long start = System.nanoTime();
+        CarQuery query = new CarQuery(brand, model, prodYear, isAvailable, null, 0);
+        Collection<Car> cars = searchCache.get(query, carRepository.brandVersion(brand), () ->
+                List.copyOf(carRepository.filterCars(brand, model, prodYear, isAvailable)));
+        SEARCH_LATENCY.recordSince(start);
+        SEARCH_RESULTS.record(cars.size());
+        return cars;
+    }
+
+    /**
+     * Searches for one page of the cars matching the given parameters, ordered by ID.
+     *
+     * @param brand Brand to search by.
+     * @param model Model to search by.
+     * @param prodYear Year of manufacture to search by.
+     * @param isAvailable availability of a car
+     * @param afterId the ID of the last car of the previous page, or null for the first page.
+     * @param limit the maximal number of cars of the page.
+     * @return the page of matching cars.
+     */
+    public Page<Car> searchCars(String brand, String model, String prodYear, Boolean isAvailable,
+                                Integer afterId, int limit) {
+        long start = System.nanoTime();
+        CarQuery query = new CarQuery(brand, model, prodYear, isAvailable, afterId, limit);
+        Page<Car> page = pageCache.get(query, carRepository.brandVersion(brand), () ->
+                carRepository.filterCars(brand, model, prodYear, isAvailable, afterId, limit));
+        PAGE_LATENCY.recordSince(start);
+        return page;
+    }
+
+    /**
+     * Streams the cars matching the given parameters in ID order, loading them lazily a page at a time
+     * through {@link #searchCars(String, String, String, Boolean, Integer, int)}.
+     *
+     * @param brand Brand to search by.
+     * @param model Model to search by.
+     * @param prodYear Year of manufacture to search by.
+     * @param isAvailable availability of a car
+     * @return a lazy stream of matching cars.
+     */
+    public Stream<Car> streamCars(String brand, String model, String prodYear, Boolean isAvailable) {
+        return Pages.stream(Pages.DEFAULT_PAGE_SIZE, (last, limit) ->
+                searchCars(brand, model, prodYear, isAvailable, last == null ? null : last.getId(), limit));
+    }
+
+    /**
+     * Counts the available cars of every brand without a lookup.
+     *
+     * @return the numbers of available cars by brand in brand order; brands without available cars are left out.
+     */
+    public SortedMap<String, Long> countAvailableCarsByBrand() {
+        return carRepository.countAvailableCarsByBrand();
+    }
+
+    /**
+     * Atomically marks an available car as reserved.
+     *
+     * @param carId the ID of the car to reserve.
+     * @return the outcome of the reservation.
+     */
+    public ReservationResult reserveCar(int carId) {
+        long start = System.nanoTime();
+        ReservationResult result = carRepository.reserveCar(carId);
+        RESERVE_LATENCY.recordSince(start);
+        return result;
+    }
+
+    /**
+     * Atomically marks an available car as reserved and runs the action, journaling both as one unit.
+     * If the action fails, the car is released again.
+     *
+     * @param carId the ID of the car to reserve.
+     * @param action the action to run once the car is reserved.
+     * @return the outcome of the reservation.
+     */
+    public ReservationResult reserveCar(int carId, Runnable action) {
+        long start = System.nanoTime();
+        ReservationResult result = carRepository.reserveCar(carId, action);
+        RESERVE_LATENCY.recordSince(start);
+        return result;
+    }
+
+    /**
+     * Makes a reserved car available again.
+     *
+     * @param carId the ID of the car to release.
+     */
+    public void releaseCar(int carId) {
+        carRepository.releaseCar(carId);
+    }
+
+    /**
+     * Arguments of a car search.
+     */
+    private record CarQuery(String brand, String model, String prodYear, Boolean isAvailable,
+                            Integer afterId, int limit) {
     }
 }
@@ -0,0 +1,162 @@
+package org.example.carshop.service;
+
+import org.example.carshop.model.Request;
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.BookingResult;
+import org.example.carshop.persistence.BulkTransfer;
+import org.example.carshop.persistence.TransferCodec;
+import org.example.carshop.persistence.TransferCodecs;
+import org.example.carshop.persistence.TransferFormat;
+import org.example.carshop.repository.CarStore;
+import org.example.carshop.repository.RequestRepository;
+import org.example.carshop.repository.UserRepository;
+import org.example.carshop.security.CredentialService;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Service class for bulk import and export of cars, users and requests.
+ * The format of a file is chosen by its extension, see {@link TransferFormat#forPath}.
+ * Imported entities are stored in batches, each added to its repository as a whole;
+ * entities with a key that is already stored replace the stored ones.
+ */
+public class DataTransferService {
+    private final CarStore carRepository;
+    private final UserRepository userRepository;
+    private final RequestRepository requestRepository;
+    private final CredentialService credentials;
+    private final TransferCodec<Request> requestCodec;
+
+    /**
+     * Creates a service.
+     *
+     * @param carRepository     the repository of cars.
+     * @param userRepository    the repository of users.
+     * @param requestRepository the repository of requests.
+     * @param credentials       the service hashing imported plaintext passwords.
+     */
+    public DataTransferService(CarStore carRepository, UserRepository userRepository,
+                               RequestRepository requestRepository, CredentialService credentials) {
+        this.carRepository = carRepository;
+        this.userRepository = userRepository;
+        this.requestRepository = requestRepository;
+        this.credentials = credentials;
+        this.requestCodec = TransferCodecs.requests(this::resolveUser);
+    }
+
+    /**
+     * Imports cars from a file.
+     *
+     * @param file the file to read.
+     * @return the number of imported cars.
+     * @throws IOException if the file cannot be read or is malformed.
+     */
+    public long importCars(Path file) throws IOException {
+        return BulkTransfer.read(file, TransferFormat.forPath(file), TransferCodecs.CARS, carRepository::addCars);
+    }
+
+    /**
+     * Exports all cars to a file, in no particular order.
+     *
+     * @param file the file to write.
+     * @return the number of exported cars.
+     * @throws IOException if the file cannot be written.
+     */
+    public long exportCars(Path file) throws IOException {
+        return BulkTransfer.write(file, TransferFormat.forPath(file), TransferCodecs.CARS,
+                carRepository.getAllCars().iterator());
+    }
+
+    /**
+     * Imports users from a file. Passwords exported as hashes are stored as they are,
+     * plaintext passwords are hashed first, which dominates the import time.
+     *
+     * @param file the file to read.
+     * @return the number of imported users.
+     * @throws IOException if the file cannot be read or is malformed.
+     */
+    public long importUsers(Path file) throws IOException {
+        return BulkTransfer.read(file, TransferFormat.forPath(file), TransferCodecs.USERS, this::storeUsers);
+    }
+
+    /**
+     * Exports all users with their password hashes to a file.
+     *
+     * @param file the file to write.
+     * @return the number of exported users.
+     * @throws IOException if the file cannot be written.
+     */
+    public long exportUsers(Path file) throws IOException {
+        try (Stream<User> users = userRepository.streamUsers(null, null)) {
+            return BulkTransfer.write(file, TransferFormat.forPath(file), TransferCodecs.USERS, users.iterator());
+        }
+    }
+
+    /**
+     * Imports requests from a file. Users are resolved by username, so they should be imported first;
+     * requests without an ID get new ones. Maintenance requests that
+     * {@linkplain MaintenanceScheduler#occupiesWindow occupy a window} are booked one by one through a
+     * {@link MaintenanceScheduler}, so their cars should be imported first as well.
+     *
+     * @param file the file to read.
+     * @return the number of imported requests.
+     * @throws IOException if the file cannot be read or is malformed.
+     * @throws IllegalArgumentException if the window of a maintenance request cannot be booked; the batches
+     *                                  before it may have been stored already.
+     */
+    public long importRequests(Path file) throws IOException {
+        MaintenanceScheduler scheduler = new MaintenanceScheduler(new CarShopService(carRepository),
+                new RequestService(requestRepository), MaintenanceScheduler.DEFAULT_BAYS);
+        return BulkTransfer.read(file, TransferFormat.forPath(file), requestCodec,
+                requests -> storeRequests(requests, scheduler));
+    }
+
+    /**
+     * Exports all requests to a file, in no particular order.
+     *
+     * @param file the file to write.
+     * @return the number of exported requests.
+     * @throws IOException if the file cannot be written.
+     */
+    public long exportRequests(Path file) throws IOException {
+        return BulkTransfer.write(file, TransferFormat.forPath(file), requestCodec,
+                requestRepository.getAllRequests().iterator());
+    }
+
+    private void storeUsers(List<User> users) {
+        for (User user : users) {
+            user.setPassword(credentials.hash(user.getPassword()));
+        }
+        userRepository.registerUsers(users);
+    }
+
+    private void storeRequests(List<Request> requests, MaintenanceScheduler scheduler) {
+        List<Request> unbooked = new ArrayList<>(requests.size());
+        for (Request request : requests) {
+            if (!MaintenanceScheduler.occupiesWindow(request)) {
+                unbooked.add(request);
+            }
+        }
+        if (!unbooked.isEmpty()) {
+            requestRepository.addRequests(unbooked);
+        }
+        for (Request request : requests) {
+            if (MaintenanceScheduler.occupiesWindow(request)) {
+                BookingResult result = scheduler.book(request);
+                if (result != BookingResult.BOOKED) {
+                    throw new IllegalArgumentException("Maintenance request " + request.getId()
+                            + " cannot be booked: " + result);
+                }
+            }
+        }
+    }
+
+    private User resolveUser(String username) {
+        User user = userRepository.findUserByUsername(username);
+        return user != null ? user : new User(username, null);
+    }
+}
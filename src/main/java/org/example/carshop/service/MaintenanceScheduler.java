@@ -0,0 +1,359 @@
+package org.example.carshop.service;
+
+import org.example.carshop.model.Request;
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.BookingResult;
+import org.example.carshop.model.enums.RequestStatus;
+import org.example.carshop.model.enums.RequestType;
+import org.example.carshop.repository.IntervalSchedule;
+import org.example.carshop.repository.IntervalSchedule.Slot;
+import org.example.carshop.repository.StripedLock;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Service class booking maintenance windows, so that no car and no service bay is booked twice at the same time.
+ * <p>
+ * A maintenance request occupies its car and one of a fixed number of service bays from its creation time until
+ * its completion time. Every car and every bay has an {@link IntervalSchedule}, so a conflict is found in
+ * logarithmic time. Bookings of the same car are serialized by a lock striped by car ID, and each bay schedule is
+ * guarded by a lock of its own that is held only while the bay is checked; bookings of different cars run
+ * in parallel and meet only when they pick the same bay.
+ * <p>
+ * Schedules are built from the open maintenance requests when the scheduler is created; requests conflicting
+ * with earlier ones are left out. A booking is released once its request is completed, deleted, rescheduled or
+ * moved to other times: the schedules check the request whenever the booking stands in the way of another one.
+ * <p>
+ * Requests that {@linkplain #occupiesWindow occupy a window} are stored only through the scheduler:
+ * {@link RequestService} rejects them, so every stored window has been checked against the others.
+ */
+public class MaintenanceScheduler {
+    /**
+     * Number of service bays of a scheduler created without an explicit number.
+     */
+    public static final int DEFAULT_BAYS = 4;
+
+    private final CarShopService carShopService;
+    private final RequestService requestService;
+    private final StripedLock carLocks = new StripedLock();
+    private final Map<Integer, IntervalSchedule<Booking>> carSchedules = new ConcurrentHashMap<>();
+    private final Map<Integer, Booking> bookings = new ConcurrentHashMap<>();
+    private final List<IntervalSchedule<Booking>> baySchedules = new ArrayList<>();
+    private final ReentrantLock[] bayLocks;
+
+    /**
+     * Creates a scheduler and books the open maintenance requests.
+     *
+     * @param carShopService the service the booked cars are looked up in.
+     * @param requestService the service storing the maintenance requests.
+     * @param bays           the number of service bays.
+     */
+    public MaintenanceScheduler(CarShopService carShopService, RequestService requestService, int bays) {
+        if (bays <= 0) {
+            throw new IllegalArgumentException("Number of bays must be positive: " + bays);
+        }
+        this.carShopService = carShopService;
+        this.requestService = requestService;
+        this.bayLocks = new ReentrantLock[bays];
+        for (int bay = 0; bay < bays; bay++) {
+            baySchedules.add(new IntervalSchedule<>());
+            bayLocks[bay] = new ReentrantLock();
+        }
+        List<Request> open = new ArrayList<>();
+        for (RequestStatus status : RequestStatus.values()) {
+            if (status != RequestStatus.COMPLETED) {
+                open.addAll(requestService.filterRequestsByRequestStatusAndType(status, RequestType.MAINTENANCE));
+            }
+        }
+        open.removeIf(request -> !occupiesWindow(request));
+        open.sort(Comparator.comparing(Request::getCreationTime));
+        for (Request request : open) {
+            long start = seconds(request.getCreationTime());
+            long end = seconds(request.getCompletionTime());
+            IntervalSchedule<Booking> car = carSchedules.computeIfAbsent(request.getCarId(), id -> new IntervalSchedule<>());
+            Booking booking = new Booking(request, request.getCarId(), new AtomicBoolean(true));
+            if (car.findConflict(start, end) == null && claimBay(start, end, booking, 0) != null) {
+                car.add(start, end, booking);
+                bookings.put(request.getId(), booking);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the request holds its car and a service bay: an open maintenance request with a window
+     * that ends after it starts. Such requests are stored only through {@link #book(Request)} and
+     * {@link #reschedule(Request)}.
+     *
+     * @param request the request.
+     * @return true if the request occupies its window.
+     */
+    public static boolean occupiesWindow(Request request) {
+        return request.getRequestType() == RequestType.MAINTENANCE
+                && request.getRequestStatus() != RequestStatus.COMPLETED
+                && isValidWindow(request.getCreationTime(), request.getCompletionTime());
+    }
+
+    /**
+     * Books a maintenance window of the car for the user and creates its MAINTENANCE request.
+     *
+     * @param user  the user booking the maintenance.
+     * @param carId the ID of the car.
+     * @param start the start of the window.
+     * @param end   the end of the window.
+     * @return the outcome of the booking.
+     */
+    public BookingResult book(User user, int carId, LocalDateTime start, LocalDateTime end) {
+        return book(new Request(user, carId, start, end, RequestType.MAINTENANCE, RequestStatus.NEW));
+    }
+
+    /**
+     * Books the window of a maintenance request and adds the request, e.g. one being imported.
+     * A request with the ID of a stored one replaces it, like {@link #reschedule(Request)}.
+     *
+     * @param request the request, spanning the window from its creation time to its completion time.
+     * @return the outcome of the booking.
+     * @throws IllegalArgumentException if the request is not a maintenance request.
+     */
+    public BookingResult book(Request request) {
+        return schedule(request, requestService::addBookedRequest);
+    }
+
+    /**
+     * Moves a stored maintenance request to the car and window of the given request and updates it,
+     * unless the car or every service bay is booked for part of the new window by another request.
+     * The current booking of the request does not stand in the way of the new one.
+     *
+     * @param request the updated request, with the ID of the stored one.
+     * @return the outcome of the booking; the stored request is left as it is unless the request is booked.
+     * @throws IllegalArgumentException if the request is not a maintenance request or does not exist.
+     */
+    public BookingResult reschedule(Request request) {
+        if (requestService.findRequestById(request.getId()) == null) {
+            throw new IllegalArgumentException("Request does not exist: " + request.getId());
+        }
+        return schedule(request, requestService::updateBookedRequest);
+    }
+
+    /**
+     * Finds the earliest start, not before the given time, of a window of the given length in which both the car
+     * and some bay are free. The window is not booked, so a concurrent booking may still take it.
+     *
+     * @param carId    the ID of the car.
+     * @param from     the earliest acceptable start.
+     * @param duration the length of the window.
+     * @return the start of the earliest free window.
+     * @throws IllegalArgumentException if the duration is not positive.
+     */
+    public LocalDateTime findNextFreeSlot(int carId, LocalDateTime from, Duration duration) {
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Duration must be positive: " + duration);
+        }
+        long length = duration.getSeconds();
+        long start = carLocks.execute(carId, () -> {
+            IntervalSchedule<Booking> car = carSchedules.get(carId);
+            long candidate = seconds(from);
+            while (true) {
+                Slot<Booking> carConflict = car == null ? null : findLiveConflict(car, candidate, candidate + length);
+                if (carConflict != null) {
+                    candidate = carConflict.end();
+                    continue;
+                }
+                long nextBayStart = Long.MAX_VALUE;
+                for (int bay = 0; bay < bayLocks.length; bay++) {
+                    Slot<Booking> bayConflict;
+                    bayLocks[bay].lock();
+                    try {
+                        bayConflict = findLiveConflict(baySchedules.get(bay), candidate, candidate + length);
+                    } finally {
+                        bayLocks[bay].unlock();
+                    }
+                    if (bayConflict == null) {
+                        return candidate;
+                    }
+                    nextBayStart = Math.min(nextBayStart, bayConflict.end());
+                }
+                candidate = nextBayStart;
+            }
+        });
+        return LocalDateTime.ofEpochSecond(start, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Books the window of the request for its car and a bay and stores the request with the given action.
+     * Bookings of the request itself are taken out of the way and put back unless the request is booked.
+     */
+    private BookingResult schedule(Request request, Consumer<Request> store) {
+        if (request.getRequestType() != RequestType.MAINTENANCE) {
+            throw new IllegalArgumentException("Not a maintenance request: " + request.getId());
+        }
+        int carId = request.getCarId();
+        LocalDateTime start = request.getCreationTime();
+        LocalDateTime end = request.getCompletionTime();
+        if (!isValidWindow(start, end)) {
+            return BookingResult.INVALID_WINDOW;
+        }
+        if (carShopService.findCarById(carId) == null) {
+            return BookingResult.CAR_NOT_FOUND;
+        }
+        long from = seconds(start);
+        long to = seconds(end);
+        int requestId = request.getId();
+        return carLocks.execute(carId, () -> {
+            IntervalSchedule<Booking> car = carSchedules.computeIfAbsent(carId, id -> new IntervalSchedule<>());
+            List<Slot<Booking>> ownCarSlots = new ArrayList<>();
+            if (findLiveConflict(car, from, to, requestId, ownCarSlots) != null) {
+                restore(car, ownCarSlots);
+                return BookingResult.CAR_BUSY;
+            }
+            Booking booking = new Booking(request, carId, new AtomicBoolean());
+            BaySlot bay = claimBay(from, to, booking, requestId);
+            if (bay == null) {
+                restore(car, ownCarSlots);
+                return BookingResult.NO_FREE_BAY;
+            }
+            Slot<Booking> carSlot = car.add(from, to, booking);
+            try {
+                store.accept(request);
+                booking.stored().set(true);
+                bookings.put(request.getId(), booking);
+            } catch (RuntimeException e) {
+                car.remove(carSlot);
+                restore(car, ownCarSlots);
+                releaseBay(bay);
+                throw e;
+            }
+            return BookingResult.BOOKED;
+        });
+    }
+
+    /**
+     * Books the window in the first bay that is free for it.
+     *
+     * @param requestId the ID of the request whose own bookings do not count as conflicts, or 0.
+     * @return the booked bay slot, or null if every bay is busy.
+     */
+    private BaySlot claimBay(long start, long end, Booking booking, int requestId) {
+        for (int bay = 0; bay < bayLocks.length; bay++) {
+            bayLocks[bay].lock();
+            try {
+                IntervalSchedule<Booking> schedule = baySchedules.get(bay);
+                List<Slot<Booking>> ownSlots = new ArrayList<>();
+                if (findLiveConflict(schedule, start, end, requestId, ownSlots) == null) {
+                    return new BaySlot(bay, schedule.add(start, end, booking), ownSlots);
+                }
+                restore(schedule, ownSlots);
+            } finally {
+                bayLocks[bay].unlock();
+            }
+        }
+        return null;
+    }
+
+    private void releaseBay(BaySlot bay) {
+        bayLocks[bay.bay()].lock();
+        try {
+            IntervalSchedule<Booking> schedule = baySchedules.get(bay.bay());
+            schedule.remove(bay.slot());
+            restore(schedule, bay.ownSlots());
+        } finally {
+            bayLocks[bay.bay()].unlock();
+        }
+    }
+
+    /**
+     * Finds the earliest booking overlapping the window, dropping the released bookings found on the way.
+     * Must be called under the lock guarding the schedule.
+     */
+    private Slot<Booking> findLiveConflict(IntervalSchedule<Booking> schedule, long start, long end) {
+        return findLiveConflict(schedule, start, end, 0, null);
+    }
+
+    /**
+     * Finds the earliest booking of another request overlapping the window, dropping the released bookings found
+     * on the way and taking the bookings of the request itself out into the given list.
+     * Must be called under the lock guarding the schedule.
+     */
+    private Slot<Booking> findLiveConflict(IntervalSchedule<Booking> schedule, long start, long end,
+                                           int requestId, List<Slot<Booking>> ownSlots) {
+        Slot<Booking> conflict;
+        while ((conflict = schedule.findConflict(start, end)) != null) {
+            if (isReleased(conflict)) {
+                schedule.remove(conflict);
+            } else if (requestId != 0 && conflict.value().request().getId() == requestId) {
+                schedule.remove(conflict);
+                ownSlots.add(conflict);
+            } else {
+                return conflict;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Puts bookings taken out by {@link #findLiveConflict} back where they are still free.
+     * Must be called under the lock guarding the schedule.
+     */
+    private static void restore(IntervalSchedule<Booking> schedule, List<Slot<Booking>> slots) {
+        for (Slot<Booking> slot : slots) {
+            if (schedule.findConflict(slot.start(), slot.end()) == null) {
+                schedule.add(slot.start(), slot.end(), slot.value());
+            }
+        }
+    }
+
+    /**
+     * Checks whether the request of a booking is no longer an open maintenance of the booked car and window,
+     * or has been booked again since. Requests still being stored are never released.
+     */
+    private boolean isReleased(Slot<Booking> slot) {
+        Booking booking = slot.value();
+        if (!booking.stored().get()) {
+            return false;
+        }
+        int requestId = booking.request().getId();
+        if (bookings.get(requestId) != booking) {
+            return true;
+        }
+        Request stored = requestService.findRequestById(requestId);
+        boolean released = stored == null
+                || stored.getRequestType() != RequestType.MAINTENANCE
+                || stored.getRequestStatus() == RequestStatus.COMPLETED
+                || stored.getCarId() != booking.carId()
+                || stored.getCreationTime() == null || seconds(stored.getCreationTime()) != slot.start()
+                || stored.getCompletionTime() == null || seconds(stored.getCompletionTime()) != slot.end();
+        if (released) {
+            bookings.remove(requestId, booking);
+        }
+        return released;
+    }
+
+    private static boolean isValidWindow(LocalDateTime start, LocalDateTime end) {
+        return start != null && end != null && seconds(start) < seconds(end);
+    }
+
+    private static long seconds(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * A booked request with the car it was booked for and whether the request has been stored yet.
+     */
+    private record Booking(Request request, int carId, AtomicBoolean stored) {
+    }
+
+    /**
+     * A booking in the schedule of a bay, with the bookings of the same request it took out of the way.
+     */
+    private record BaySlot(int bay, Slot<Booking> slot, List<Slot<Booking>> ownSlots) {
+    }
+}
@@ -1,29 +1,106 @@
 package org.example.carshop.service;
 
 import lombok.AllArgsConstructor;
+import org.example.carshop.metrics.Histogram;
+import org.example.carshop.metrics.MetricsRegistry;
 import org.example.carshop.model.Car;
 import org.example.carshop.model.enums.RequestStatus;
+import org.example.carshop.model.enums.RequestTimestamp;
 import org.example.carshop.model.enums.RequestType;
+import org.example.carshop.model.enums.StatusChangeResult;
 import org.example.carshop.model.Request;
 import org.example.carshop.model.User;
+import org.example.carshop.repository.Page;
+import org.example.carshop.repository.Pages;
+import org.example.carshop.repository.RequestFilter;
 import org.example.carshop.repository.RequestRepository;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.stream.Stream;
 
 /**
  * Service class for managing requests.
+ * Results of lookups by status and by user are cached until a request in the status or of the user changes,
+ * and pages of other lookups until any request changes, so repeated listings are answered without a lookup.
+ * Latencies of lookups and mutations and sizes of lookup results are recorded in the
+ * {@link MetricsRegistry#shared() shared registry}.
+ * <p>
+ * Maintenance requests that {@linkplain MaintenanceScheduler#occupiesWindow occupy a window} are added and
+ * updated only through a {@link MaintenanceScheduler}, which checks the window against the other bookings.
  */
 @AllArgsConstructor
 public class RequestService {
+    private static final MetricsRegistry METRICS = MetricsRegistry.shared();
+    private static final Histogram FILTER_BY_DATE = METRICS.timer("carshop_request_filter_date",
+            "Lookups of requests by day or range of days.");
+    private static final Histogram FILTER_BY_DATE_RESULTS = METRICS.histogram("carshop_request_filter_date_results",
+            "Numbers of requests found by day or range of days.");
+    private static final Histogram FILTER_BY_CAR = METRICS.timer("carshop_request_filter_car",
+            "Lookups of requests by car.");
+    private static final Histogram FILTER_BY_CAR_RESULTS = METRICS.histogram("carshop_request_filter_car_results",
+            "Numbers of requests found by car.");
+    private static final Histogram FILTER_BY_USER = METRICS.timer("carshop_request_filter_user",
+            "Lookups of requests by user.");
+    private static final Histogram FILTER_BY_USER_RESULTS = METRICS.histogram("carshop_request_filter_user_results",
+            "Numbers of requests found by user.");
+    private static final Histogram FILTER_BY_STATUS = METRICS.timer("carshop_request_filter_status",
+            "Lookups of requests by status.");
+    private static final Histogram FILTER_BY_STATUS_RESULTS = METRICS.histogram("carshop_request_filter_status_results",
+            "Numbers of requests found by status.");
+    private static final Histogram FIND_PAGE = METRICS.timer("carshop_request_find_page", "Lookups of pages of requests.");
+    private static final Histogram ADD_LATENCY = METRICS.timer("carshop_request_add", "Additions of requests.");
+    private static final Histogram UPDATE_LATENCY = METRICS.timer("carshop_request_update", "Updates of requests.");
+    private static final Histogram DELETE_LATENCY = METRICS.timer("carshop_request_delete", "Deletions of requests.");
+    private static final Histogram ADD_BATCH_LATENCY = METRICS.timer("carshop_request_add_batch",
+            "Additions of batches of requests.");
+    private static final Histogram UPDATE_BATCH_LATENCY = METRICS.timer("carshop_request_update_batch",
+            "Updates of batches of requests.");
+    private static final Histogram DELETE_BATCH_LATENCY = METRICS.timer("carshop_request_delete_batch",
+            "Deletions of batches of requests.");
+    private static final Histogram STATUS_CHANGE_LATENCY = METRICS.timer("carshop_request_status_change",
+            "Checked changes of request statuses.");
+    private static final Histogram CLAIM_LATENCY = METRICS.timer("carshop_request_claim",
+            "Claims of the next request waiting in a status.");
+
     private final RequestRepository requestRepository;
+    private final ResultCache<RequestFilter, Collection<Request>> filterCache = new ResultCache<>("carshop_request_filter");
+    private final ResultCache<PageQuery, Page<Request>> pageCache = new ResultCache<>("carshop_request_find_page");
 
     /**
      * Adds a new request to the repository.
      *
      * @param request The requests to add.
+     * @throws IllegalArgumentException if the request occupies a maintenance window.
      */
     public void addRequest(Request request) {
+        requireUnbooked(request);
+        addBookedRequest(request);
+    }
+
+    /**
+     * Adds a request whose maintenance window, if any, has been booked by a {@link MaintenanceScheduler}.
+     */
+    void addBookedRequest(Request request) {
+        long start = System.nanoTime();
         requestRepository.addRequest(request);
+        ADD_LATENCY.recordSince(start);
+    }
+
+    /**
+     * Creates a new order request of the user for the car and adds it to the repository.
+     *
+     * @param user The user placing the order.
+     * @param carId The ID of the ordered car.
+     * @return The created request.
+     */
+    public Request addOrderRequest(User user, int carId) {
+        Request request = new Request(user, carId, LocalDateTime.now(), null, RequestType.ORDER, RequestStatus.NEW);
+        addRequest(request);
+        return request;
     }
 
     /**
@@ -32,7 +109,77 @@ public class RequestService {
      * @param requestId The ID of the request to delete.
      */
     public void deleteRequest(int requestId) {
+        long start = System.nanoTime();
         requestRepository.removeRequestById(requestId);
+        DELETE_LATENCY.recordSince(start);
+    }
+
+    /**
+     * Adds a batch of requests as one unit.
+     *
+     * @param requests The requests to add.
+     * @throws IllegalArgumentException if a request of the batch occupies a maintenance window;
+     *                                  no request is added then.
+     */
+    public void addRequests(Collection<Request> requests) {
+        requests.forEach(RequestService::requireUnbooked);
+        long start = System.nanoTime();
+        requestRepository.addRequests(requests);
+        ADD_BATCH_LATENCY.recordSince(start);
+    }
+
+    /**
+     * Updates a batch of existing requests as one unit: all of them are updated, or none.
+     *
+     * @param requests the updated request objects.
+     * @throws IllegalArgumentException if a request of the batch does not exist or occupies a maintenance window.
+     */
+    public void updateRequests(Collection<Request> requests) {
+        requests.forEach(RequestService::requireUnbooked);
+        long start = System.nanoTime();
+        requestRepository.updateRequests(requests);
+        UPDATE_BATCH_LATENCY.recordSince(start);
+    }
+
+    /**
+     * Deletes a batch of requests as one unit: all of them are deleted, or none.
+     *
+     * @param requestIds The IDs of the requests to delete.
+     * @throws IllegalArgumentException if a request of the batch does not exist.
+     */
+    public void deleteRequests(Collection<Integer> requestIds) {
+        long start = System.nanoTime();
+        requestRepository.removeRequestsById(requestIds);
+        DELETE_BATCH_LATENCY.recordSince(start);
+    }
+
+    /**
+     * Moves a request to the given status if it directly follows the current one in the lifecycle.
+     *
+     * @param requestId The ID of the request.
+     * @param newStatus The status to move the request to.
+     * @return The outcome of the change.
+     */
+    public StatusChangeResult changeRequestStatus(int requestId, RequestStatus newStatus) {
+        long start = System.nanoTime();
+        StatusChangeResult result = requestRepository.changeRequestStatus(requestId, newStatus);
+        STATUS_CHANGE_LATENCY.recordSince(start);
+        return result;
+    }
+
+    /**
+     * Claims the oldest request of the given type waiting in the given status by moving it to the next status.
+     * Concurrent claims never return the same request.
+     *
+     * @param requestType The type of the request to claim.
+     * @param requestStatus The status the request waits in, e.g. PENDING to take a job into work.
+     * @return The claimed request, or null if no request of the type waits in the status.
+     */
+    public Request claimNextRequest(RequestType requestType, RequestStatus requestStatus) {
+        long start = System.nanoTime();
+        Request request = requestRepository.claimNextRequest(requestType, requestStatus);
+        CLAIM_LATENCY.recordSince(start);
+        return request;
     }
 
     /**
@@ -51,7 +198,39 @@ public class RequestService {
      * @return A collection of requests that match the specified date.
      */
     public Collection<Request> filterRequestsByDateAndType(LocalDate date, RequestType requestType) {
-        return requestRepository.filterRequestsByDateAndType(date, requestType);
+        long start = System.nanoTime();
+        return recorded(FILTER_BY_DATE, FILTER_BY_DATE_RESULTS, start,
+                requestRepository.filterRequestsByDateAndType(date, requestType));
+    }
+
+    /**
+     * Filters requests by a range of dates, e.g. the maintenance requests completing in the next 7 days.
+     *
+     * @param from The first date of the range.
+     * @param to The last date of the range, inclusive.
+     * @param timestamp The timestamp that has to fall into the range, or null for either of them.
+     * @param requestType The type of requests to filter by, or null for any.
+     * @return A collection of matching requests.
+     */
+    public Collection<Request> filterRequestsByDateRangeAndType(LocalDate from, LocalDate to,
+                                                                RequestTimestamp timestamp, RequestType requestType) {
+        long start = System.nanoTime();
+        return recorded(FILTER_BY_DATE, FILTER_BY_DATE_RESULTS, start,
+                requestRepository.filterRequestsByDateRangeAndType(from, to, timestamp, requestType));
+    }
+
+    /**
+     * Filters requests by the week, Monday to Sunday, containing the given date.
+     *
+     * @param date A date of the week.
+     * @param timestamp The timestamp that has to fall into the week, or null for either of them.
+     * @param requestType The type of requests to filter by, or null for any.
+     * @return A collection of matching requests.
+     */
+    public Collection<Request> filterRequestsByWeekAndType(LocalDate date, RequestTimestamp timestamp,
+                                                           RequestType requestType) {
+        LocalDate monday = date.with(DayOfWeek.MONDAY);
+        return filterRequestsByDateRangeAndType(monday, monday.plusDays(6), timestamp, requestType);
     }
 
     /**
@@ -61,28 +240,98 @@ public class RequestService {
      * @return a collection of requests made for specific car.
      */
     public Collection<Request> filterRequestsByCarAndType(int carId, RequestType requestType) {
-        return requestRepository.filterRequestsByCarAndType(carId, requestType);
+        long start = System.nanoTime();
+        return recorded(FILTER_BY_CAR, FILTER_BY_CAR_RESULTS, start,
+                requestRepository.filterRequestsByCarAndType(carId, requestType));
     }
 
     /**
      * Filters requests based on a specified user.
      *
      * @param user The user to filter requests by.
-     * @return A collection of requests that belong to the specified user.
+     * @return An unmodifiable collection of requests that belong to the specified user.
      */
     public Collection<Request> filterRequestsByUserAndType(User user, RequestType requestType) {
-        return requestRepository.filterRequestsByUserAndType(user, requestType);
+        long start = System.nanoTime();
+        if (user == null || user.getUsername() == null) {
+            return recorded(FILTER_BY_USER, FILTER_BY_USER_RESULTS, start,
+                    requestRepository.filterRequestsByUserAndType(user, requestType));
+        }
+        RequestFilter filter = RequestFilter.byUser(user.getUsername(), requestType);
+        return recorded(FILTER_BY_USER, FILTER_BY_USER_RESULTS, start,
+                filterCache.get(filter, requestRepository.userVersion(user.getUsername()), () ->
+                        List.copyOf(requestRepository.filterRequestsByUserAndType(user, requestType))));
     }
 
     /**
      * Filters requests by a specific status.
      *
      * @param requestStatus the status to filter requests by.
-     * @return a collection of requests having the specified status.
+     * @return an unmodifiable collection of requests having the specified status.
      */
     public Collection<Request> filterRequestsByRequestStatusAndType(RequestStatus requestStatus, RequestType requestType) {
-        return requestRepository.filterRequestsByRequestStatusAndType(requestStatus, requestType);
+        long start = System.nanoTime();
+        RequestFilter filter = RequestFilter.byStatus(requestStatus, requestType);
+        return recorded(FILTER_BY_STATUS, FILTER_BY_STATUS_RESULTS, start,
+                filterCache.get(filter, requestRepository.statusVersion(requestStatus), () ->
+                        List.copyOf(requestRepository.filterRequestsByRequestStatusAndType(requestStatus, requestType))));
+    }
+
+    /**
+     * Finds one page of the requests matching the filter, ordered by ID.
+     *
+     * @param filter  the criteria.
+     * @param afterId the ID of the last request of the previous page, or null for the first page.
+     * @param limit   the maximal number of requests of the page.
+     * @return the page of matching requests.
+     */
+    public Page<Request> findRequests(RequestFilter filter, Integer afterId, int limit) {
+        long start = System.nanoTime();
+        long version = switch (filter.criterion()) {
+            case STATUS -> requestRepository.statusVersion(filter.requestStatus());
+            case USER -> requestRepository.userVersion(filter.username());
+            default -> requestRepository.statusVersion(null);
+        };
+        Page<Request> page = pageCache.get(new PageQuery(filter, afterId, limit), version, () ->
+                requestRepository.findRequests(filter, afterId, limit));
+        FIND_PAGE.recordSince(start);
+        return page;
+    }
+
+    /**
+     * Streams the requests matching the filter in ID order, loading them lazily a page at a time
+     * through {@link #findRequests}.
+     *
+     * @param filter the criteria.
+     * @return a lazy stream of matching requests.
+     */
+    public Stream<Request> streamRequests(RequestFilter filter) {
+        return Pages.stream(Pages.DEFAULT_PAGE_SIZE,
+                (last, limit) -> findRequests(filter, last == null ? null : last.getId(), limit));
+    }
+
+    /**
+     * Counts the requests of a type in a status without a lookup.
+     *
+     * @param requestType The type of the requests, or null for any.
+     * @param requestStatus The status of the requests.
+     * @return The number of matching requests.
+     */
+    public long countRequests(RequestType requestType, RequestStatus requestStatus) {
+        return requestRepository.countRequests(requestType, requestStatus);
     }
+
+    /**
+     * Counts the requests created on every day of a range without a lookup.
+     *
+     * @param from The first date of the range.
+     * @param to The last date of the range, inclusive.
+     * @return The numbers of requests by day of creation in date order, including days without requests.
+     */
+    public SortedMap<LocalDate, Long> countRequestsByCreationDay(LocalDate from, LocalDate to) {
+        return requestRepository.countRequestsByCreationDay(from, to);
+    }
+
     /**
      * Finds a request by its ID.
      *
@@ -97,8 +346,43 @@ public class RequestService {
      * Updates an existing car in the repository.
      *
      * @param request the car object with updated information.
+     * @throws IllegalArgumentException if the request occupies a maintenance window;
+     *                                  such requests are moved with {@link MaintenanceScheduler#reschedule}.
      */
     public void updateRequest(Request request) {
+        requireUnbooked(request);
+        updateBookedRequest(request);
+    }
+
+    /**
+     * Updates a request whose maintenance window, if any, has been booked by a {@link MaintenanceScheduler}.
+     */
+    void updateBookedRequest(Request request) {
+        long start = System.nanoTime();
         requestRepository.updateRequest(request);
+        UPDATE_LATENCY.recordSince(start);
+    }
+
+    private static void requireUnbooked(Request request) {
+        if (MaintenanceScheduler.occupiesWindow(request)) {
+            throw new IllegalArgumentException("Maintenance windows are booked through the scheduler: request "
+                    + request.getId());
+        }
+    }
+
+    /**
+     * Records the latency and the size of a finished lookup.
+     */
+    private static Collection<Request> recorded(Histogram latency, Histogram results, long start,
+                                                Collection<Request> requests) {
+        latency.recordSince(start);
+        results.record(requests.size());
+        return requests;
+    }
+
+    /**
+     * Arguments of a lookup of a page of requests.
+     */
+    private record PageQuery(RequestFilter filter, Integer afterId, int limit) {
     }
 }
@@ -0,0 +1,100 @@
+package org.example.carshop.service;
+
+import org.example.carshop.model.Request;
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.BookingResult;
+import org.example.carshop.model.enums.ReservationResult;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Service class for ordering cars and booking their maintenance.
+ * Combines {@link CarShopService} and {@link RequestService} so that reserving a car and
+ * creating its order request form a single operation, and books maintenance windows through
+ * a {@link MaintenanceScheduler}.
+ */
+public class ReservationService {
+    private final CarShopService carShopService;
+    private final RequestService requestService;
+    private final MaintenanceScheduler maintenanceScheduler;
+
+    /**
+     * Creates a service booking maintenance in {@link MaintenanceScheduler#DEFAULT_BAYS} service bays.
+     *
+     * @param carShopService the car service.
+     * @param requestService the request service.
+     */
+    public ReservationService(CarShopService carShopService, RequestService requestService) {
+        this(carShopService, requestService,
+                new MaintenanceScheduler(carShopService, requestService, MaintenanceScheduler.DEFAULT_BAYS));
+    }
+
+    /**
+     * Creates a service.
+     *
+     * @param carShopService       the car service.
+     * @param requestService       the request service.
+     * @param maintenanceScheduler the scheduler booking maintenance windows.
+     */
+    public ReservationService(CarShopService carShopService, RequestService requestService,
+                              MaintenanceScheduler maintenanceScheduler) {
+        this.carShopService = carShopService;
+        this.requestService = requestService;
+        this.maintenanceScheduler = maintenanceScheduler;
+    }
+
+    /**
+     * Reserves the car for the user and creates an ORDER request for it.
+     * The car is reserved with a compare-and-set on its availability, so concurrent
+     * orders of the same car never both succeed and orders of different cars never wait for each other.
+     * The reservation and the request are journaled as one batch, so a crash never leaves a reserved car
+     * without its order. If the request cannot be created the car is released again.
+     *
+     * @param user the user placing the order.
+     * @param carId the ID of the car to order.
+     * @return the outcome of the reservation.
+     */
+    public ReservationResult reserveCar(User user, int carId) {
+        return carShopService.reserveCar(carId, () -> requestService.addOrderRequest(user, carId));
+    }
+
+    /**
+     * Books a maintenance window of the car and creates its MAINTENANCE request,
+     * unless the car or every service bay is already booked for part of the window.
+     *
+     * @param user the user booking the maintenance.
+     * @param carId the ID of the car.
+     * @param start the start of the window.
+     * @param end the end of the window.
+     * @return the outcome of the booking.
+     */
+    public BookingResult bookMaintenance(User user, int carId, LocalDateTime start, LocalDateTime end) {
+        return maintenanceScheduler.book(user, carId, start, end);
+    }
+
+    /**
+     * Moves a stored maintenance request to the car and window of the given request and updates it,
+     * unless the car or every service bay is already booked for part of the new window.
+     *
+     * @param request the updated request, with the ID of the stored one.
+     * @return the outcome of the booking.
+     * @throws IllegalArgumentException if the request is not a maintenance request or does not exist.
+     */
+    public BookingResult rescheduleMaintenance(Request request) {
+        return maintenanceScheduler.reschedule(request);
+    }
+
+    /**
+     * Finds the earliest start, not before the given time, of a maintenance window of the given length
+     * that could be booked for the car.
+     *
+     * @param carId the ID of the car.
+     * @param from the earliest acceptable start.
+     * @param duration the length of the window.
+     * @return the start of the earliest free window.
+     */
+    public LocalDateTime findNextFreeMaintenanceSlot(int carId, LocalDateTime from, Duration duration) {
+        return maintenanceScheduler.findNextFreeSlot(carId, from, duration);
+    }
+}
@@ -0,0 +1,130 @@
+package org.example.carshop.service;
+
+import org.example.carshop.metrics.Counter;
+import org.example.carshop.metrics.MetricsRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded read-through cache of lookup results, evicting approximately the least recently used result once full.
+ * <p>
+ * Every result is stamped with the version of the data it was computed from, read by the caller before the lookup.
+ * A result is served only while the version is unchanged, so a stale result is never returned and nothing has to
+ * be removed when the data changes. Results are shared between callers and must not be modified.
+ * Hits and misses are counted in the {@link MetricsRegistry#shared() shared registry}.
+ * <p>
+ * Results are kept in a {@link ConcurrentHashMap}, so hits take no lock. Recency is tracked by a clock that
+ * advances on every miss: a hit stamps its result with the current time, writing only if the stamp changes,
+ * so hits of a popular result read shared memory rather than write it. A miss that overfills the cache scans
+ * the results and evicts the one with the oldest stamp; misses run a lookup anyway, and with the default
+ * capacity the scan costs less than that. LRU is preferred to a frequency-based policy such as W-TinyLFU:
+ * a result is only useful until the data it covers changes, so recent use predicts the next hit better than
+ * the number of past hits, and LRU needs no frequency sketch or admission window.
+ *
+ * @param <K> type of the lookup keys, holding all arguments of the lookup.
+ * @param <V> type of the results.
+ */
+class ResultCache<K, V> {
+    /**
+     * Number of results kept by a cache created without an explicit capacity.
+     */
+    static final int DEFAULT_CAPACITY = 256;
+
+    private final ConcurrentMap<K, Versioned<V>> results = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final int capacity;
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * Creates a cache of {@link #DEFAULT_CAPACITY} results.
+     *
+     * @param name the prefix of the names of the metrics of the cache.
+     */
+    ResultCache(String name) {
+        this(name, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param name     the prefix of the names of the metrics of the cache.
+     * @param capacity the maximal number of results kept.
+     */
+    ResultCache(String name, int capacity) {
+        this.capacity = capacity;
+        this.hits = MetricsRegistry.shared().counter(name + "_cache_hits", "Lookups answered from the cache.");
+        this.misses = MetricsRegistry.shared().counter(name + "_cache_misses", "Lookups missing the cache.");
+    }
+
+    /**
+     * Returns the cached result of the lookup if it was computed from the given version, or runs the lookup
+     * and caches its result. The lookup runs without any lock, so concurrent misses of the same key
+     * may each run it.
+     *
+     * @param key     the arguments of the lookup.
+     * @param version the version of the data, read before calling this method.
+     * @param lookup  the lookup computing the result.
+     * @return the result.
+     */
+    V get(K key, long version, Supplier<V> lookup) {
+        Versioned<V> cached = results.get(key);
+        if (cached != null && cached.version == version) {
+            cached.touch(clock.get());
+            hits.increment();
+            return cached.value;
+        }
+        misses.increment();
+        V value = lookup.get();
+        Versioned<V> computed = new Versioned<>(version, value, clock.incrementAndGet());
+        results.merge(key, computed, (current, next) -> current.version > next.version ? current : next);
+        if (results.size() > capacity) {
+            evict();
+        }
+        return value;
+    }
+
+    /**
+     * Evicts the results with the oldest stamps until the cache is within its capacity again.
+     * Evictions are serialized so that concurrent misses do not evict more than they overfilled.
+     */
+    private synchronized void evict() {
+        while (results.size() > capacity) {
+            Map.Entry<K, Versioned<V>> eldest = null;
+            for (Map.Entry<K, Versioned<V>> entry : results.entrySet()) {
+                if (eldest == null || entry.getValue().accessed < eldest.getValue().accessed) {
+                    eldest = entry;
+                }
+            }
+            if (eldest == null) {
+                return;
+            }
+            results.remove(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    /**
+     * A result with the version of the data it was computed from and the time it was last used.
+     */
+    private static final class Versioned<V> {
+        private final long version;
+        private final V value;
+        private volatile long accessed;
+
+        private Versioned(long version, V value, long accessed) {
+            this.version = version;
+            this.value = value;
+            this.accessed = accessed;
+        }
+
+        private void touch(long now) {
+            if (accessed != now) {
+                accessed = now;
+            }
+        }
+    }
+}
@@ -1,19 +1,62 @@
 package org.example.carshop.service;
 
-import lombok.AllArgsConstructor;
-
+import org.example.carshop.metrics.Counter;
+import org.example.carshop.metrics.Histogram;
+import org.example.carshop.metrics.MetricsRegistry;
 import org.example.carshop.model.User;
 import org.example.carshop.model.enums.UserRole;
+import org.example.carshop.repository.Page;
 import org.example.carshop.repository.UserRepository;
+import org.example.carshop.security.AuthenticatedSession;
+import org.example.carshop.security.CredentialService;
+import org.example.carshop.security.SessionCache;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
 
 /**
  * Service class for managing User operations.
+ * Passwords are stored as salted hashes; plaintext passwords stored before hashing was introduced
+ * are still accepted and replaced with a hash on the next successful login.
+ * When the password workers are overloaded, credential checks fail with a {@link RejectedExecutionException}
+ * rather than reporting wrong credentials, so that callers can ask the client to retry.
+ * Latencies and failures of credential checks are recorded in the {@link MetricsRegistry#shared() shared registry}.
  */
-@AllArgsConstructor
 public class UserService {
+    private static final Histogram LOGIN_LATENCY = MetricsRegistry.shared().timer("carshop_user_login",
+            "Checks of credentials at login.");
+    private static final Counter LOGIN_FAILURES = MetricsRegistry.shared().counter("carshop_user_login_failures",
+            "Logins rejected for wrong credentials or overloaded password workers.");
+
     private final UserRepository userRepository;
+    private final CredentialService credentials;
+    private final SessionCache sessions;
+
+    /**
+     * Creates a service using the shared credential workers and a new session cache.
+     *
+     * @param userRepository the repository of users.
+     */
+    public UserService(UserRepository userRepository) {
+        this(userRepository, CredentialService.shared(), new SessionCache());
+    }
+
+    /**
+     * Creates a service.
+     *
+     * @param userRepository the repository of users.
+     * @param credentials    the service hashing and verifying passwords.
+     * @param sessions       the cache of verified sessions.
+     */
+    public UserService(UserRepository userRepository, CredentialService credentials, SessionCache sessions) {
+        this.userRepository = userRepository;
+        this.credentials = credentials;
+        this.sessions = sessions;
+    }
 
     /**
      * Registers a new user.
@@ -21,18 +64,61 @@ public class UserService {
      * @param user the user to register.
      */
     public void register(User user) {
-        userRepository.registerUser(user);
+        userRepository.registerUser(withHashedPassword(user));
+    }
+
+    /**
+     * Registers a new user unless the username is already taken.
+     *
+     * @param user the user to register.
+     * @return true if the user has been registered, false if the username is taken.
+     */
+    public boolean registerIfAbsent(User user) {
+        return userRepository.registerUserIfAbsent(withHashedPassword(user));
     }
 
     /**
      * Logs in a user by checking if the credentials match.
      *
      * @param userParam the user attempting to log in.
-     * @return true if the credentials match, otherwise false.
+     * @return true if the credentials match, false if they do not or the user is unknown.
+     * @throws RejectedExecutionException if the password workers are overloaded.
      */
     public boolean login(User userParam) {
-        return userRepository.findUserByUsername(userParam.getUsername()).getPassword()
-                .equals(userParam.getPassword());
+        return verify(userParam.getUsername(), userParam.getPassword()) != null;
+    }
+
+    /**
+     * Checks the credentials and opens a session.
+     *
+     * @param username the username.
+     * @param password the password.
+     * @return the session with its token and the user, or null if the credentials do not match.
+     * @throws RejectedExecutionException if the password workers are overloaded.
+     */
+    public AuthenticatedSession authenticate(String username, String password) {
+        User user = verify(username, password);
+        return user == null ? null : new AuthenticatedSession(sessions.issue(user.getUsername()), user);
+    }
+
+    /**
+     * Authenticates by a token of a session opened earlier, without checking the password again.
+     *
+     * @param token the session token.
+     * @return the user of the session, or null if the token is unknown or expired.
+     */
+    public User resumeSession(String token) {
+        String username = sessions.resolve(token);
+        return username == null ? null : userRepository.findUserByUsername(username);
+    }
+
+    /**
+     * Closes a session.
+     *
+     * @param token the session token.
+     */
+    public void logout(String token) {
+        sessions.invalidate(token);
     }
 
     /**
@@ -55,12 +141,151 @@ public class UserService {
     public Collection<User> searchUsers(String name, Collection<UserRole> userRoles) {
         return userRepository.filterUsers(name, userRoles);
     }
+
+    /**
+     * Filters one page of users, ordered by username.
+     *
+     * @param name Filter by name.
+     * @param userRoles Filter by role
+     * @param afterUsername the username of the last user of the previous page, or null for the first page.
+     * @param limit the maximal number of users of the page.
+     * @return the page of matching users.
+     */
+    public Page<User> searchUsers(String name, Collection<UserRole> userRoles, String afterUsername, int limit) {
+        return userRepository.filterUsers(name, userRoles, afterUsername, limit);
+    }
+
+    /**
+     * Streams the matching users in username order, loading them lazily.
+     *
+     * @param name Filter by name.
+     * @param userRoles Filter by role
+     * @return a lazy stream of matching users.
+     */
+    public Stream<User> streamUsers(String name, Collection<UserRole> userRoles) {
+        return userRepository.streamUsers(name, userRoles);
+    }
+
+    /**
+     * Finds users whose username starts with the given prefix.
+     *
+     * @param prefix the beginning of the username.
+     * @param userRoles Filter by roles
+     * @return matching users.
+     */
+    public Collection<User> searchUsersByUsernamePrefix(String prefix, Collection<UserRole> userRoles) {
+        return userRepository.findUsersByUsernamePrefix(prefix, userRoles);
+    }
+
+    /**
+     * Finds users whose full name contains the given text, ignoring case.
+     *
+     * @param fullName a part of the full name.
+     * @param userRoles Filter by roles
+     * @return matching users.
+     */
+    public Collection<User> searchUsersByFullName(String fullName, Collection<UserRole> userRoles) {
+        return userRepository.findUsersByFullName(fullName, userRoles);
+    }
+
     /**
      * Updates an existing user in the repository.
+     * Sessions of the user are closed if the password has changed.
      *
      * @param user the request to add.
      */
     public void updateUser(User user) {
-        userRepository.updateUser(user);
+        User previous = userRepository.findUserByUsername(user.getUsername());
+        userRepository.updateUser(withHashedPassword(user));
+        if (previous != null && !Objects.equals(previous.getPassword(), user.getPassword())) {
+            sessions.invalidateUser(user.getUsername());
+        }
+    }
+
+    /**
+     * Registers or updates a batch of users as one unit. All passwords are hashed before any user is saved,
+     * so a batch rejected by the overloaded credential workers saves no user.
+     *
+     * @param users the users to save.
+     * @throws RejectedExecutionException if the credential workers are overloaded.
+     */
+    public void registerUsers(Collection<User> users) {
+        userRepository.registerUsers(withHashedPasswords(users));
+    }
+
+    /**
+     * Updates a batch of existing users as one unit: all of them are updated, or none.
+     * Sessions of the users whose password has changed are closed.
+     *
+     * @param users the users to update.
+     * @throws IllegalArgumentException if a user of the batch does not exist.
+     * @throws RejectedExecutionException if the credential workers are overloaded.
+     */
+    public void updateUsers(Collection<User> users) {
+        List<User> hashed = withHashedPasswords(users);
+        List<String> changedPasswords = new ArrayList<>();
+        for (User user : users) {
+            User previous = userRepository.findUserByUsername(user.getUsername());
+            if (previous != null && !Objects.equals(previous.getPassword(), user.getPassword())) {
+                changedPasswords.add(user.getUsername());
+            }
+        }
+        userRepository.updateUsers(hashed);
+        changedPasswords.forEach(sessions::invalidateUser);
+    }
+
+    private User verify(String username, String password) {
+        long start = System.nanoTime();
+        User user = null;
+        try {
+            user = checkCredentials(username, password);
+        } finally {
+            LOGIN_LATENCY.recordSince(start);
+            if (user == null) {
+                LOGIN_FAILURES.increment();
+            }
+        }
+        return user;
+    }
+
+    private User checkCredentials(String username, String password) {
+        User user = username == null ? null : userRepository.findUserByUsername(username);
+        String stored = user == null ? null : user.getPassword();
+        if (!credentials.verify(password, stored)) {
+            return null;
+        }
+        if (credentials.needsRehash(stored)) {
+            rehash(user.getUsername(), stored, password);
+        }
+        return user;
+    }
+
+    /**
+     * Replaces a verified legacy or outdated password with a new hash, unless the password has been changed
+     * since it was read. Overloaded workers only put the rehash off until a later login.
+     */
+    private void rehash(String username, String verified, String password) {
+        String hash;
+        try {
+            hash = credentials.hash(password);
+        } catch (RejectedExecutionException e) {
+            return;
+        }
+        userRepository.replacePassword(username, verified, hash);
+    }
+
+    private List<User> withHashedPasswords(Collection<User> users) {
+        List<User> hashed = new ArrayList<>(users.size());
+        for (User user : users) {
+            hashed.add(withHashedPassword(user));
+        }
+        return hashed;
+    }
+
+    private User withHashedPassword(User user) {
+        String hash = credentials.hash(user.getPassword());
+        return hash == null || hash.equals(user.getPassword())
+                ? user
+                : new User(user.getUsername(), hash, user.getFullName(), user.getRole());
     }
 }
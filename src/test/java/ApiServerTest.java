@@ -0,0 +1,135 @@
+import org.example.carshop.in.http.ApiServer;
+import org.example.carshop.model.Car;
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.UserRole;
+import org.example.carshop.repository.CarRepository;
+import org.example.carshop.repository.RequestRepository;
+import org.example.carshop.repository.UserRepository;
+import org.example.carshop.security.CredentialService;
+import org.example.carshop.security.PasswordHasher;
+import org.example.carshop.security.SessionCache;
+import org.example.carshop.service.CarShopService;
+import org.example.carshop.service.RequestService;
+import org.example.carshop.service.ReservationService;
+import org.example.carshop.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ApiServer Tests")
+class ApiServerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private ApiServer server;
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        UserService userService = new UserService(new UserRepository(new ConcurrentHashMap<>()),
+                new CredentialService(new PasswordHasher(1_000), 2, 64), new SessionCache());
+        CarShopService carShopService = new CarShopService(new CarRepository(new ConcurrentHashMap<>()));
+        RequestService requestService = new RequestService(new RequestRepository(new ConcurrentHashMap<>()));
+        userService.register(new User("admin", "secret", "Иванов \"Иван\"", UserRole.ADMIN));
+        userService.register(new User("client", "secret", "Петров Петр", UserRole.CLIENT));
+        carShopService.addCar(new Car(1, "X5", "BMW", "2020", "Новый", true));
+        carShopService.addCar(new Car(2, "X3", "BMW", "2019", "Б/у", false));
+        carShopService.addCar(new Car(3, "Camry", "Toyota", "2021", "Новый", true));
+        server = ApiServer.start(new InetSocketAddress("localhost", 0), userService, carShopService,
+                requestService, new ReservationService(carShopService, requestService));
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    @DisplayName("Search Cars Test")
+    void searchCars() throws Exception {
+        // Act
+        HttpResponse<String> response = get("/api/cars?brand=BMW&available=true", null);
+
+        // Assert
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo("[{\"id\":1,\"brand\":\"BMW\",\"model\":\"X5\",\"prodYear\":\"2020\","
+                + "\"state\":\"Новый\",\"available\":true}]");
+        assertThat(get("/api/cars/42", null).statusCode()).isEqualTo(404);
+        assertThat(get("/api/cars/abc", null).statusCode()).isEqualTo(400);
+    }
+
+    @Test
+    @DisplayName("Users Require Staff Token Test")
+    void usersRequireStaffToken() throws Exception {
+        // Arrange
+        String adminToken = login("admin");
+        String clientToken = login("client");
+
+        // Act
+        HttpResponse<String> response = get("/api/users/admin", adminToken);
+
+        // Assert
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo("{\"username\":\"admin\",\"fullName\":\"Иванов \\\"Иван\\\"\",\"role\":\"ADMIN\"}");
+        assertThat(get("/api/users/admin", null).statusCode()).isEqualTo(401);
+        assertThat(get("/api/users/admin", clientToken).statusCode()).isEqualTo(403);
+        assertThat(get("/api/users?prefix=cl", adminToken).body()).contains("\"username\":\"client\"").doesNotContain("secret");
+    }
+
+    @Test
+    @DisplayName("Reserve Car Test")
+    void reserveCar() throws Exception {
+        // Arrange
+        String clientToken = login("client");
+        String adminToken = login("admin");
+
+        // Act
+        HttpResponse<String> reserved = post("/api/reservations", "carId=3", clientToken);
+        HttpResponse<String> taken = post("/api/reservations", "carId=3", clientToken);
+
+        // Assert
+        assertThat(reserved.statusCode()).isEqualTo(201);
+        assertThat(reserved.body()).isEqualTo("{\"result\":\"RESERVED\"}");
+        assertThat(taken.statusCode()).isEqualTo(409);
+        assertThat(get("/api/requests?type=ORDER&carId=3", adminToken).body())
+                .contains("\"username\":\"client\"").contains("\"status\":\"NEW\"");
+        assertThat(get("/api/requests?carId=3", adminToken).statusCode()).isEqualTo(400);
+    }
+
+    private String login(String username) throws Exception {
+        HttpResponse<String> response = post("/api/sessions", "username=" + username + "&password=secret", null);
+        assertThat(response.statusCode()).isEqualTo(201);
+        Matcher matcher = Pattern.compile("\"token\":\"([^\"]+)\"").matcher(response.body());
+        assertThat(matcher.find()).isTrue();
+        return matcher.group(1);
+    }
+
+    private HttpResponse<String> get(String path, String token) throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET(), token);
+    }
+
+    private HttpResponse<String> post(String path, String form, String token) throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form)), token);
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request, String token) throws Exception {
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
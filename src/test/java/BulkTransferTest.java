@@ -0,0 +1,157 @@
+import org.example.carshop.model.Car;
+import org.example.carshop.model.Request;
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.RequestStatus;
+import org.example.carshop.model.enums.RequestType;
+import org.example.carshop.model.enums.UserRole;
+import org.example.carshop.repository.CarRepository;
+import org.example.carshop.repository.CarStore;
+import org.example.carshop.repository.CompactCarRepository;
+import org.example.carshop.repository.RequestFilter;
+import org.example.carshop.repository.RequestRepository;
+import org.example.carshop.repository.UserRepository;
+import org.example.carshop.security.CredentialService;
+import org.example.carshop.security.PasswordHasher;
+import org.example.carshop.service.DataTransferService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Bulk transfer Tests")
+class BulkTransferTest {
+    private static final int CAR_COUNT = 200_000;
+
+    @TempDir
+    Path dir;
+
+    private static DataTransferService transfer(CarStore cars, UserRepository users, RequestRepository requests) {
+        return new DataTransferService(cars, users, requests, new CredentialService(new PasswordHasher(1_000), 1, 8));
+    }
+
+    private static DataTransferService transfer(CarStore cars) {
+        return transfer(cars, new UserRepository(new ConcurrentHashMap<>()),
+                new RequestRepository(new ConcurrentHashMap<>()));
+    }
+
+    @Test
+    @DisplayName("Test cars spanning many chunks survive a round trip through both formats and are indexed")
+    void carRoundTrip() throws IOException {
+        // Arrange
+        CarRepository source = new CarRepository(new ConcurrentHashMap<>());
+        for (int id = 1; id <= CAR_COUNT; id++) {
+            source.addCar(new Car(id, "Model " + id % 50, id % 3 == 0 ? "BMW" : "Audi", "20" + id % 25,
+                    "state, \"used\"", id % 2 == 0));
+        }
+        source.addCar(new Car(CAR_COUNT + 1, "", null, "1999", "multi\nline", true));
+
+        for (String name : List.of("cars.csv", "cars.bin")) {
+            for (CarStore target : List.of(new CarRepository(new ConcurrentHashMap<>()), new CompactCarRepository())) {
+                Path file = dir.resolve(name);
+
+                // Act
+                long exported = transfer(source).exportCars(file);
+                long imported = transfer(target).importCars(file);
+
+                // Assert
+                assertThat(exported).isEqualTo(CAR_COUNT + 1);
+                assertThat(imported).isEqualTo(CAR_COUNT + 1);
+                assertThat(target.findCarById(CAR_COUNT + 1)).isEqualTo(source.findCarById(CAR_COUNT + 1));
+                assertThat(target.findCarById(777)).isEqualTo(source.findCarById(777));
+                assertThat(target.filterCars("BMW", "Model 3", null, true)).extracting(Car::getId)
+                        .containsExactlyElementsOf(source.filterCars("BMW", "Model 3", null, true).stream()
+                                .map(Car::getId).toList());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test users and their requests survive a round trip and keep their links")
+    void usersAndRequestsRoundTrip() throws IOException {
+        // Arrange
+        UserRepository users = new UserRepository(new ConcurrentHashMap<>());
+        RequestRepository requests = new RequestRepository(new ConcurrentHashMap<>());
+        User user = new User("carol", "secret", "Carol, Jr.", UserRole.MANAGER);
+        users.registerUser(user);
+        Request request = new Request(user, 5, LocalDateTime.of(2024, 5, 10, 9, 30), null,
+                RequestType.MAINTENANCE, RequestStatus.NEW);
+        requests.addRequest(request);
+        request.changeStatus(RequestStatus.PENDING);
+        request.changeStatus(RequestStatus.IN_PROGRESS);
+        DataTransferService source = transfer(new CarRepository(new ConcurrentHashMap<>()), users, requests);
+        UserRepository importedUsers = new UserRepository(new ConcurrentHashMap<>());
+        RequestRepository importedRequests = new RequestRepository(new ConcurrentHashMap<>());
+        DataTransferService target = transfer(new CarRepository(new ConcurrentHashMap<>()), importedUsers, importedRequests);
+
+        // Act
+        source.exportUsers(dir.resolve("users.csv"));
+        source.exportRequests(dir.resolve("requests.bin"));
+        target.importUsers(dir.resolve("users.csv"));
+        target.importRequests(dir.resolve("requests.bin"));
+
+        // Assert
+        User imported = importedUsers.findUserByUsername("carol");
+        assertThat(imported.getFullName()).isEqualTo("Carol, Jr.");
+        assertThat(imported.getPassword()).startsWith("$pbkdf2-sha256$");
+        assertThat(importedRequests.streamRequests(RequestFilter.byUser("carol", RequestType.MAINTENANCE)))
+                .singleElement()
+                .satisfies(found -> {
+                    assertThat(found.getId()).isEqualTo(request.getId());
+                    assertThat(found.getUser()).isSameAs(imported);
+                    assertThat(found.getRequestStatus()).isEqualTo(RequestStatus.IN_PROGRESS);
+                    assertThat(found.getCreationTime()).isEqualTo(request.getCreationTime());
+                });
+    }
+
+    @Test
+    @DisplayName("Test imported maintenance windows are booked and overlapping ones are rejected")
+    void maintenanceWindowsBooked() throws IOException {
+        // Arrange
+        RequestRepository requests = new RequestRepository(new ConcurrentHashMap<>());
+        LocalDateTime start = LocalDateTime.of(2024, 5, 10, 9, 0);
+        Request first = new Request(null, 1, start, start.plusHours(2), RequestType.MAINTENANCE, RequestStatus.NEW);
+        Request overlapping = new Request(null, 1, start.plusHours(1), start.plusHours(3),
+                RequestType.MAINTENANCE, RequestStatus.NEW);
+        requests.addRequest(first);
+        requests.addRequest(overlapping);
+        transfer(new CarRepository(new ConcurrentHashMap<>()), new UserRepository(new ConcurrentHashMap<>()), requests)
+                .exportRequests(dir.resolve("requests.csv"));
+        CarRepository cars = new CarRepository(new ConcurrentHashMap<>());
+        cars.addCar(new Car(1, "X5", "BMW", "2020", "new", true));
+        RequestRepository imported = new RequestRepository(new ConcurrentHashMap<>());
+
+        // Act & Assert
+        assertThatThrownBy(() -> transfer(cars, new UserRepository(new ConcurrentHashMap<>()), imported)
+                .importRequests(dir.resolve("requests.csv")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("CAR_BUSY");
+        assertThat(imported.getAllRequests()).extracting(Request::getId).containsExactly(first.getId());
+    }
+
+    @Test
+    @DisplayName("Test a malformed record is reported with its position")
+    void malformedRecord() throws IOException {
+        // Arrange
+        Path file = dir.resolve("cars.csv");
+        Files.writeString(file, "id,brand,model,prodYear,state,available\n1,BMW,X5,2020,new,true\nx,BMW\n",
+                StandardCharsets.UTF_8);
+
+        // Act & Assert
+        assertThatThrownBy(() -> transfer(new CarRepository(new ConcurrentHashMap<>())).importCars(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("byte 63");
+        assertThatThrownBy(() -> transfer(new CarRepository(new ConcurrentHashMap<>())).importUsers(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("header");
+    }
+}
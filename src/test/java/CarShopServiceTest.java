@@ -1,15 +1,24 @@
 import org.example.carshop.model.Car;
+import org.example.carshop.model.enums.ReservationResult;
 import org.example.carshop.repository.CarRepository;
 import org.example.carshop.service.CarShopService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 
 @DisplayName("Tests for CarShopService class")
 public class CarShopServiceTest {
@@ -98,4 +107,209 @@ public class CarShopServiceTest {
         // Assert
         assertThat(foundCar).isEqualTo(car);
     }
+
+    @Test
+    @DisplayName("Test searching cars by attributes and availability")
+    public void testSearchCars() {
+        // Arrange
+        Car car1 = new Car(1, "Model1", "Brand1", "2020","Great", true);
+        Car car2 = new Car(2, "Model2", "Brand1", "2021","Great", true);
+        Car car3 = new Car(3, "Model1", "Brand2", "2020","Great", false);
+        carShopService.addCar(car1);
+        carShopService.addCar(car2);
+        carShopService.addCar(car3);
+
+        // Act
+        car2.setAvailable(false);
+        carShopService.updateCar(car2);
+
+        // Assert
+        assertThat(carShopService.searchCars(null, null, null, true)).containsExactly(car1);
+        assertThat(carShopService.searchCars("Brand1", null, null, null)).containsExactly(car1, car2);
+        assertThat(carShopService.searchCars(null, "Model1", "2020", false)).containsExactly(car3);
+        assertThat(carShopService.searchCars("Brand3", null, null, true)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Test batch update and delete are applied to all cars or to none")
+    public void testBatchAllOrNothing() {
+        // Arrange
+        Car car1 = new Car(1, "Model1", "Brand1", "2020", "Great", true);
+        Car car2 = new Car(2, "Model2", "Brand2", "2020", "Great", true);
+        carShopService.addCars(List.of(car1, car2));
+        Car updated = new Car(1, "Model1", "Brand3", "2021", "Used", false);
+
+        // Act
+        Throwable rejectedUpdate = catchThrowable(() -> carShopService.updateCars(
+                List.of(updated, new Car(3, "Model3", "Brand3", "2022", "New", true))));
+        Throwable rejectedDelete = catchThrowable(() -> carShopService.deleteCars(List.of(2, 3)));
+        carShopService.updateCars(List.of(updated));
+        carShopService.deleteCars(List.of(2));
+
+        // Assert
+        assertThat(rejectedUpdate).isInstanceOf(IllegalArgumentException.class);
+        assertThat(rejectedDelete).isInstanceOf(IllegalArgumentException.class);
+        assertThat(carMap).containsOnlyKeys(1);
+        assertThat(carShopService.searchCars("Brand3", null, null, false)).containsExactly(updated);
+        assertThat(carShopService.searchCars("Brand1", null, null, null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Test search results are cached until a car of the searched brand changes")
+    public void testSearchCache() {
+        // Arrange
+        carShopService.addCar(new Car(1, "Model1", "Brand1", "2020", "Great", true));
+        carShopService.addCar(new Car(2, "Model2", "Brand2", "2020", "Great", true));
+        Collection<Car> brand1 = carShopService.searchCars("Brand1", null, null, true);
+        Collection<Car> brand2 = carShopService.searchCars("Brand2", null, null, true);
+        Collection<Car> available = carShopService.searchCars(null, null, null, true);
+
+        // Act
+        Collection<Car> brand1Again = carShopService.searchCars("Brand1", null, null, true);
+        carShopService.reserveCar(2);
+        Collection<Car> brand1AfterReservation = carShopService.searchCars("Brand1", null, null, true);
+        Collection<Car> brand2AfterReservation = carShopService.searchCars("Brand2", null, null, true);
+        Collection<Car> availableAfterReservation = carShopService.searchCars(null, null, null, true);
+        carShopService.updateCar(new Car(2, "Model2", "Brand1", "2020", "Great", true));
+        Collection<Car> brand1AfterUpdate = carShopService.searchCars("Brand1", null, null, true);
+
+        // Assert
+        assertThat(brand1Again).isSameAs(brand1);
+        assertThat(brand1AfterReservation).isSameAs(brand1);
+        assertThat(brand2).hasSize(1);
+        assertThat(brand2AfterReservation).isEmpty();
+        assertThat(available).hasSize(2);
+        assertThat(availableAfterReservation).extracting(Car::getId).containsExactly(1);
+        assertThat(brand1AfterUpdate).extracting(Car::getId).containsExactly(1, 2);
+        assertThat(carShopService.searchCars("Brand2", null, null, null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Test available cars per brand stay exact under concurrent reservations and brand changes")
+    public void testCountAvailableCarsByBrand() throws Exception {
+        // Arrange
+        CarShopService service = new CarShopService(new CarRepository(new ConcurrentHashMap<>()));
+        for (int id = 1; id <= 100; id++) {
+            service.addCar(new Car(id, "Model", id % 2 == 0 ? "Even" : "Odd", "2020", "Used", true));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            int worker = i;
+            tasks.add(executor.submit(() -> {
+                for (int round = 0; round < 200; round++) {
+                    int id = 1 + (worker * 31 + round * 7) % 100;
+                    if (service.reserveCar(id) == ReservationResult.RESERVED) {
+                        service.releaseCar(id);
+                    }
+                    if (worker == 0 && round < 50) {
+                        service.updateCar(new Car(id, "Model", "Other", "2020", "Used", true));
+                    }
+                }
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+        executor.shutdown();
+        service.reserveCar(2);
+
+        // Assert
+        Map<String, Long> expected = new HashMap<>();
+        for (Car car : service.getAllCars()) {
+            if (car.isAvailable()) {
+                expected.merge(car.getBrandName(), 1L, Long::sum);
+            }
+        }
+        assertThat(service.countAvailableCarsByBrand()).isEqualTo(expected);
+        assertThat(expected.values().stream().mapToLong(Long::longValue).sum()).isEqualTo(99);
+    }
+
+    @Test
+    @DisplayName("Test searches and counts stay exact while cars are added and removed concurrently")
+    public void testAddRemoveChurn() throws Exception {
+        // Arrange
+        CarShopService service = new CarShopService(new CarRepository(new ConcurrentHashMap<>()));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            int worker = i;
+            tasks.add(executor.submit(() -> {
+                for (int round = 0; round < 2_000; round++) {
+                    int id = worker * 10 + round % 10;
+                    service.addCar(new Car(id, "Model", round % 3 == 0 ? "Odd" : "Even", "2020", "Used", true));
+                    service.reserveCar(id);
+                    if (round % 2 == 0) {
+                        service.releaseCar(id);
+                    }
+                    service.searchCars(null, null, null, true);
+                    if (round % 5 != 0) {
+                        service.deleteCar(id);
+                    }
+                }
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+        executor.shutdown();
+
+        // Assert
+        Map<String, Long> expected = new HashMap<>();
+        List<Integer> availableIds = new ArrayList<>();
+        for (Car car : service.getAllCars()) {
+            if (car.isAvailable()) {
+                expected.merge(car.getBrandName(), 1L, Long::sum);
+                availableIds.add(car.getId());
+            }
+        }
+        assertThat(service.countAvailableCarsByBrand()).isEqualTo(expected);
+        assertThat(service.searchCars(null, null, null, true)).extracting(Car::getId)
+                .containsExactlyInAnyOrderElementsOf(availableIds);
+        assertThat(service.searchCars("Odd", null, null, null)).extracting(Car::getBrandName).containsOnly("Odd");
+    }
+
+    @Test
+    @DisplayName("Test the availability index matches the car when a release overtakes a reservation")
+    public void testReleaseOvertakesReservation() throws Exception {
+        // Arrange
+        CountDownLatch flipped = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        Car car = new Car(1, "Model S", "Tesla", "2020", "New", true) {
+            @Override
+            public boolean compareAndSetAvailable(boolean expected, boolean newValue) {
+                boolean changed = super.compareAndSetAvailable(expected, newValue);
+                if (changed && expected) {
+                    flipped.countDown();
+                    try {
+                        released.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return changed;
+            }
+        };
+        CarShopService service = new CarShopService(new CarRepository(new ConcurrentHashMap<>()));
+        service.addCar(car);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // Act
+        Future<ReservationResult> reservation = executor.submit(() -> service.reserveCar(1));
+        flipped.await();
+        service.releaseCar(1);
+        released.countDown();
+        ReservationResult result = reservation.get();
+        executor.shutdown();
+
+        // Assert
+        assertThat(result).isEqualTo(ReservationResult.RESERVED);
+        assertThat(car.isAvailable()).isTrue();
+        assertThat(service.searchCars(null, null, null, true)).containsExactly(car);
+        assertThat(service.countAvailableCarsByBrand()).containsEntry("Tesla", 1L);
+    }
 }
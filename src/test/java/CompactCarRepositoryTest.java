@@ -0,0 +1,105 @@
+import org.example.carshop.factory.CompactCarRepositoryFactory;
+import org.example.carshop.model.Car;
+import org.example.carshop.model.enums.ReservationResult;
+import org.example.carshop.persistence.Durability;
+import org.example.carshop.persistence.StorageEngine;
+import org.example.carshop.repository.CarStore;
+import org.example.carshop.repository.CompactCarRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Tests for CompactCarRepository class")
+public class CompactCarRepositoryTest {
+
+    private CarStore carRepository;
+
+    @BeforeEach
+    public void setUp() {
+        carRepository = new CompactCarRepository();
+        carRepository.addCar(new Car(1, "Model S", "Tesla", "2020", "New", true));
+        carRepository.addCar(new Car(2, "Civic", "Honda", "2018", "Used", false));
+        carRepository.addCar(new Car(3, "Accord", "Honda", "2018", "Used", true));
+        carRepository.addCar(new Car(4, "Civic", "Honda", "late 90s", null, true));
+    }
+
+    @Test
+    @DisplayName("Test cars are restored from the columns")
+    public void testFindCarById() {
+        assertThat(carRepository.findCarById(2)).isEqualTo(new Car(2, "Civic", "Honda", "2018", "Used", false));
+        assertThat(carRepository.findCarById(4)).isEqualTo(new Car(4, "Civic", "Honda", "late 90s", null, true));
+        assertThat(carRepository.findCarById(5)).isNull();
+        assertThat(carRepository.getAllCars()).hasSize(4);
+    }
+
+    @Test
+    @DisplayName("Test filtering by dictionary-encoded attributes, year and availability")
+    public void testFilterCars() {
+        assertThat(carRepository.filterCars("Honda", null, "2018", null))
+                .extracting(Car::getId).containsExactly(2, 3);
+        assertThat(carRepository.filterCars("Honda", "Civic", null, true))
+                .extracting(Car::getId).containsExactly(4);
+        assertThat(carRepository.filterCars(null, null, "late 90s", null))
+                .extracting(Car::getId).containsExactly(4);
+        assertThat(carRepository.filterCars("Lada", null, null, null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Test removal keeps the remaining cars and their availability")
+    public void testRemoveAndUpdate() {
+        // Act
+        carRepository.removeCarById(1);
+        carRepository.updateCar(new Car(3, "Accord", "Honda", "2019", "Used", false));
+
+        // Assert
+        assertThat(carRepository.findCarById(1)).isNull();
+        assertThat(carRepository.findCarById(4).isAvailable()).isTrue();
+        assertThat(carRepository.filterCars(null, null, null, false))
+                .extracting(Car::getId).containsExactly(2, 3);
+        assertThat(carRepository.findCarById(3).getProdYear()).isEqualTo("2019");
+    }
+
+    @Test
+    @DisplayName("Test a car can be reserved once until released")
+    public void testReserveCar() {
+        assertThat(carRepository.reserveCar(3)).isEqualTo(ReservationResult.RESERVED);
+        assertThat(carRepository.reserveCar(3)).isEqualTo(ReservationResult.CAR_NOT_AVAILABLE);
+        assertThat(carRepository.reserveCar(9)).isEqualTo(ReservationResult.CAR_NOT_FOUND);
+
+        carRepository.releaseCar(3);
+
+        assertThat(carRepository.findCarById(3).isAvailable()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Test available cars are counted by brand through updates, reservations and removals")
+    public void testCountAvailableCarsByBrand() {
+        // Act
+        carRepository.reserveCar(1);
+        carRepository.releaseCar(2);
+        carRepository.updateCar(new Car(3, "Accord", "Acura", "2018", "Used", true));
+        carRepository.removeCarById(4);
+
+        // Assert
+        assertThat(carRepository.countAvailableCarsByBrand()).containsExactly(
+                Map.entry("Acura", 1L), Map.entry("Honda", 1L));
+    }
+
+    @Test
+    @DisplayName("Test the factory refuses to back a storage engine with an unjournaled repository")
+    public void testFactoryRejectsStorage(@TempDir Path dataDir) throws IOException {
+        try (StorageEngine storage = StorageEngine.open(dataDir, Durability.perWrite())) {
+            assertThatThrownBy(() -> new CompactCarRepositoryFactory(storage))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThat(new CompactCarRepositoryFactory().create()).isInstanceOf(CompactCarRepository.class);
+    }
+}
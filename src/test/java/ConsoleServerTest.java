@@ -0,0 +1,134 @@
+import org.example.carshop.in.ConsoleServer;
+import org.example.carshop.in.ConsoleSessionHost;
+import org.example.carshop.model.Car;
+import org.example.carshop.repository.CarRepository;
+import org.example.carshop.repository.RequestRepository;
+import org.example.carshop.repository.UserRepository;
+import org.example.carshop.security.CredentialService;
+import org.example.carshop.security.PasswordHasher;
+import org.example.carshop.security.SessionCache;
+import org.example.carshop.service.CarShopService;
+import org.example.carshop.service.RequestService;
+import org.example.carshop.service.ReservationService;
+import org.example.carshop.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ConsoleServer Tests")
+class ConsoleServerTest {
+    private CarShopService carShopService;
+    private ConsoleSessionHost host;
+    private ConsoleServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        UserService userService = new UserService(new UserRepository(new ConcurrentHashMap<>()),
+                new CredentialService(new PasswordHasher(1_000), 2, 64), new SessionCache());
+        carShopService = new CarShopService(new CarRepository(new ConcurrentHashMap<>()));
+        RequestService requestService = new RequestService(new RequestRepository(new ConcurrentHashMap<>()));
+        host = new ConsoleSessionHost(userService, carShopService, requestService,
+                new ReservationService(carShopService, requestService));
+        server = ConsoleServer.start(host, new InetSocketAddress("localhost", 0));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.close();
+        host.close();
+    }
+
+    @Test
+    @DisplayName("Session Over Socket Test")
+    void sessionOverSocket() throws IOException {
+        // Arrange
+        String input = "1\nuser1\npass1\nФИО\n1\n2\nuser1\npass1\n5\n3\n";
+
+        // Act
+        String output;
+        try (Socket socket = new Socket()) {
+            socket.connect(server.getAddress(), 5_000);
+            socket.setSoTimeout(10_000);
+            OutputStream out = socket.getOutputStream();
+            out.write(input.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            output = new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        // Assert
+        assertThat(output).contains("1 - Регистрация").contains("Авторизация прошла успешно.");
+    }
+
+    @Test
+    @DisplayName("Idle Connections Test")
+    void idleConnections() throws Exception {
+        // Arrange
+        int connectionCount = 200;
+        List<Socket> sockets = new ArrayList<>();
+
+        // Act
+        try {
+            for (int i = 0; i < connectionCount; i++) {
+                Socket socket = new Socket();
+                socket.connect(server.getAddress(), 5_000);
+                sockets.add(socket);
+            }
+            awaitConnectionCount(connectionCount);
+
+            // Assert
+            assertThat(server.connectionCount()).isEqualTo(connectionCount);
+        } finally {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+        awaitConnectionCount(0);
+        assertThat(server.connectionCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Slow Reader Test")
+    void slowReader() throws Exception {
+        // Arrange
+        int carCount = 20_000;
+        for (int i = 1; i <= carCount; i++) {
+            carShopService.addCar(new Car(i, "Model" + i, "Brand", "2020", "Новый", true));
+        }
+        String input = "1\nuser1\npass1\nФИО\n1\n2\nuser1\npass1\n1\n5\n3\n";
+
+        // Act
+        String output;
+        try (Socket socket = new Socket()) {
+            socket.setReceiveBufferSize(4096);
+            socket.connect(server.getAddress(), 5_000);
+            socket.setSoTimeout(10_000);
+            OutputStream out = socket.getOutputStream();
+            out.write(input.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            Thread.sleep(500);
+            output = new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        // Assert
+        assertThat(output).contains("Model1 ").contains("Model" + carCount + " ").contains("1 - Регистрация");
+    }
+
+    private void awaitConnectionCount(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (server.connectionCount() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
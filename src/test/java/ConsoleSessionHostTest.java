@@ -0,0 +1,108 @@
+import org.example.carshop.in.ConsoleSessionHost;
+import org.example.carshop.model.Car;
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.UserRole;
+import org.example.carshop.repository.CarRepository;
+import org.example.carshop.repository.RequestRepository;
+import org.example.carshop.repository.UserRepository;
+import org.example.carshop.security.CredentialService;
+import org.example.carshop.security.PasswordHasher;
+import org.example.carshop.security.SessionCache;
+import org.example.carshop.service.CarShopService;
+import org.example.carshop.service.RequestService;
+import org.example.carshop.service.ReservationService;
+import org.example.carshop.service.UserService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ConsoleSessionHost Tests")
+class ConsoleSessionHostTest {
+
+    @Test
+    @DisplayName("Concurrent Sessions Test")
+    void concurrentSessions() throws Exception {
+        // Arrange
+        UserRepository userRepository = new UserRepository(new ConcurrentHashMap<>());
+        UserService userService = new UserService(userRepository,
+                new CredentialService(new PasswordHasher(1_000), 4, 256), new SessionCache());
+        CarShopService carShopService = new CarShopService(new CarRepository(new ConcurrentHashMap<>()));
+        RequestService requestService = new RequestService(new RequestRepository(new ConcurrentHashMap<>()));
+        int sessionCount = 100;
+        List<ByteArrayOutputStream> outputs = new ArrayList<>();
+        List<CompletableFuture<Void>> sessions = new ArrayList<>();
+
+        // Act
+        try (ConsoleSessionHost host = new ConsoleSessionHost(userService, carShopService, requestService,
+                new ReservationService(carShopService, requestService))) {
+            for (int i = 0; i < sessionCount; i++) {
+                String input = "1\nuser" + i + "\npass" + i + "\nФИО\n1\n2\nuser" + i + "\npass" + i + "\n5\n3\n";
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                outputs.add(output);
+                sessions.add(host.open(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)),
+                        new PrintStream(output, true, StandardCharsets.UTF_8)));
+            }
+            CompletableFuture.allOf(sessions.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+            // Assert
+            assertThat(host.activeSessions()).isZero();
+        }
+        assertThat(userRepository.filterUsers(null, null)).hasSize(sessionCount);
+        assertThat(outputs).allSatisfy(output ->
+                assertThat(output.toString(StandardCharsets.UTF_8)).contains("Авторизация прошла успешно."));
+    }
+
+    @Test
+    @DisplayName("Session Ends With Input Test")
+    void sessionEndsWithInput() throws Exception {
+        // Arrange
+        UserService userService = new UserService(new UserRepository(new ConcurrentHashMap<>()));
+        CarShopService carShopService = new CarShopService(new CarRepository(new ConcurrentHashMap<>()));
+        RequestService requestService = new RequestService(new RequestRepository(new ConcurrentHashMap<>()));
+
+        // Act
+        try (ConsoleSessionHost host = new ConsoleSessionHost(userService, carShopService, requestService,
+                new ReservationService(carShopService, requestService))) {
+            CompletableFuture<Void> session = host.open(new ByteArrayInputStream("7\n".getBytes(StandardCharsets.UTF_8)),
+                    new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8));
+
+            // Assert
+            session.get(10, TimeUnit.SECONDS);
+            assertThat(session).isCompleted();
+        }
+    }
+
+    @Test
+    @DisplayName("Manager Dashboard Test")
+    void managerDashboard() throws Exception {
+        // Arrange
+        UserService userService = new UserService(new UserRepository(new ConcurrentHashMap<>()));
+        userService.register(new User("manager", "pass", "ФИО", UserRole.MANAGER));
+        CarShopService carShopService = new CarShopService(new CarRepository(new ConcurrentHashMap<>()));
+        carShopService.addCar(new Car(1, "Civic", "Honda", "2018", "Used", true));
+        RequestService requestService = new RequestService(new RequestRepository(new ConcurrentHashMap<>()));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        try (ConsoleSessionHost host = new ConsoleSessionHost(userService, carShopService, requestService,
+                new ReservationService(carShopService, requestService))) {
+            host.open(new ByteArrayInputStream("2\nmanager\npass\n4\n5\n3\n".getBytes(StandardCharsets.UTF_8)),
+                    new PrintStream(output, true, StandardCharsets.UTF_8)).get(10, TimeUnit.SECONDS);
+        }
+
+        // Assert
+        assertThat(output.toString(StandardCharsets.UTF_8))
+                .contains("Доступные автомобили по маркам:", "  Honda: 1", "ORDER: NEW=0");
+    }
+}
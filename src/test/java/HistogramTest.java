@@ -0,0 +1,82 @@
+import org.example.carshop.metrics.Histogram;
+import org.example.carshop.metrics.MetricsRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@DisplayName("Histogram Tests")
+public class HistogramTest {
+
+    @Test
+    @DisplayName("Test percentiles are within the bucket precision over a wide range of values")
+    public void testPercentiles() {
+        // Arrange
+        Histogram histogram = new MetricsRegistry().histogram("values", "Values.");
+
+        // Act
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        // Assert
+        assertThat(histogram.count()).isEqualTo(100_000);
+        assertThat(histogram.max()).isEqualTo(100_000_000);
+        assertThat((double) histogram.valueAtQuantile(0.5)).isCloseTo(50_000_000, within(50_000_000 / 32.0));
+        assertThat((double) histogram.valueAtQuantile(0.99)).isCloseTo(99_000_000, within(99_000_000 / 32.0));
+        assertThat(histogram.valueAtQuantile(1)).isEqualTo(100_000_000);
+        assertThat(histogram.valueAtQuantile(0.999)).isGreaterThanOrEqualTo(99_900_000);
+    }
+
+    @Test
+    @DisplayName("Test small values are exact and extreme values are recorded")
+    public void testSmallAndExtremeValues() {
+        // Arrange
+        Histogram histogram = new MetricsRegistry().histogram("values", "Values.");
+
+        // Act
+        histogram.record(-5);
+        histogram.record(7);
+        histogram.record(Long.MAX_VALUE);
+
+        // Assert
+        assertThat(histogram.valueAtQuantile(0.3)).isZero();
+        assertThat(histogram.valueAtQuantile(0.5)).isEqualTo(7);
+        assertThat(histogram.valueAtQuantile(0.999)).isEqualTo(Long.MAX_VALUE);
+        assertThat(new MetricsRegistry().timer("empty", "Nothing.").valueAtQuantile(0.99)).isZero();
+    }
+
+    @Test
+    @DisplayName("Test concurrent recording loses no values")
+    public void testConcurrentRecording() throws Exception {
+        // Arrange
+        Histogram histogram = new MetricsRegistry().timer("calls", "Calls.");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            tasks.add(executor.submit(() -> {
+                for (int call = 0; call < 10_000; call++) {
+                    histogram.record(call);
+                }
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+        executor.shutdown();
+
+        // Assert
+        assertThat(histogram.count()).isEqualTo(80_000);
+        assertThat(histogram.sum()).isEqualTo(8L * 10_000 * 9_999 / 2);
+        assertThat(histogram.max()).isEqualTo(9_999);
+    }
+}
@@ -0,0 +1,203 @@
+import org.example.carshop.model.Car;
+import org.example.carshop.model.Request;
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.BookingResult;
+import org.example.carshop.model.enums.RequestStatus;
+import org.example.carshop.model.enums.RequestType;
+import org.example.carshop.model.enums.UserRole;
+import org.example.carshop.repository.CarRepository;
+import org.example.carshop.repository.RequestRepository;
+import org.example.carshop.service.CarShopService;
+import org.example.carshop.service.MaintenanceScheduler;
+import org.example.carshop.service.RequestService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("MaintenanceScheduler Tests")
+public class MaintenanceSchedulerTest {
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2024, 6, 10, 9, 0);
+
+    private CarShopService carShopService;
+    private RequestService requestService;
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        carShopService = new CarShopService(new CarRepository(new ConcurrentHashMap<>()));
+        requestService = new RequestService(new RequestRepository(new ConcurrentHashMap<>()));
+        for (int id = 1; id <= 20; id++) {
+            carShopService.addCar(new Car(id, "Model" + id, "Brand", "2020", "Used", true));
+        }
+        user = new User("user1", "password1", "fullname", UserRole.CLIENT);
+    }
+
+    @Test
+    @DisplayName("Test overlapping bookings of a car or of all bays are rejected")
+    public void testConflicts() {
+        // Arrange
+        MaintenanceScheduler scheduler = new MaintenanceScheduler(carShopService, requestService, 2);
+        scheduler.book(user, 1, MONDAY, MONDAY.plusHours(2));
+
+        // Act
+        BookingResult sameCar = scheduler.book(user, 1, MONDAY.plusHours(1), MONDAY.plusHours(3));
+        BookingResult adjacent = scheduler.book(user, 1, MONDAY.plusHours(2), MONDAY.plusHours(3));
+        BookingResult secondBay = scheduler.book(user, 2, MONDAY, MONDAY.plusHours(1));
+        BookingResult noBay = scheduler.book(user, 3, MONDAY.plusMinutes(30), MONDAY.plusHours(1));
+        BookingResult missingCar = scheduler.book(user, 99, MONDAY, MONDAY.plusHours(1));
+        BookingResult emptyWindow = scheduler.book(user, 4, MONDAY, MONDAY);
+
+        // Assert
+        assertThat(sameCar).isEqualTo(BookingResult.CAR_BUSY);
+        assertThat(adjacent).isEqualTo(BookingResult.BOOKED);
+        assertThat(secondBay).isEqualTo(BookingResult.BOOKED);
+        assertThat(noBay).isEqualTo(BookingResult.NO_FREE_BAY);
+        assertThat(missingCar).isEqualTo(BookingResult.CAR_NOT_FOUND);
+        assertThat(emptyWindow).isEqualTo(BookingResult.INVALID_WINDOW);
+        assertThat(requestService.filterRequestsByRequestStatusAndType(RequestStatus.NEW, RequestType.MAINTENANCE))
+                .hasSize(3);
+    }
+
+    @Test
+    @DisplayName("Test the next free slot skips busy windows of the car and the bays")
+    public void testNextFreeSlot() {
+        // Arrange
+        MaintenanceScheduler scheduler = new MaintenanceScheduler(carShopService, requestService, 1);
+        scheduler.book(user, 1, MONDAY, MONDAY.plusHours(2));
+        scheduler.book(user, 2, MONDAY.plusHours(3), MONDAY.plusHours(4));
+
+        // Act
+        LocalDateTime afterCar = scheduler.findNextFreeSlot(1, MONDAY.plusHours(1), Duration.ofHours(1));
+        LocalDateTime afterBay = scheduler.findNextFreeSlot(3, MONDAY.plusHours(2), Duration.ofHours(2));
+        LocalDateTime free = scheduler.findNextFreeSlot(3, MONDAY.plusHours(5), Duration.ofHours(1));
+
+        // Assert
+        assertThat(afterCar).isEqualTo(MONDAY.plusHours(2));
+        assertThat(afterBay).isEqualTo(MONDAY.plusHours(4));
+        assertThat(free).isEqualTo(MONDAY.plusHours(5));
+    }
+
+    @Test
+    @DisplayName("Test completed and deleted requests release their windows, and open ones are booked on start")
+    public void testReleaseAndReload() {
+        // Arrange
+        MaintenanceScheduler scheduler = new MaintenanceScheduler(carShopService, requestService, 1);
+        scheduler.book(user, 1, MONDAY, MONDAY.plusHours(1));
+        scheduler.book(user, 2, MONDAY.plusHours(1), MONDAY.plusHours(2));
+        List<Request> booked = new ArrayList<>(requestService.getAllRequests());
+        booked.sort(Comparator.comparing(Request::getId));
+
+        // Act
+        requestService.changeRequestStatus(booked.get(0).getId(), RequestStatus.PENDING);
+        requestService.changeRequestStatus(booked.get(0).getId(), RequestStatus.IN_PROGRESS);
+        requestService.changeRequestStatus(booked.get(0).getId(), RequestStatus.COMPLETED);
+        BookingResult afterCompletion = scheduler.book(user, 3, MONDAY, MONDAY.plusHours(1));
+        MaintenanceScheduler reloaded = new MaintenanceScheduler(carShopService, requestService, 1);
+        BookingResult reloadedConflict = reloaded.book(user, 4, MONDAY.plusMinutes(90), MONDAY.plusHours(3));
+        requestService.deleteRequest(booked.get(1).getId());
+        BookingResult afterDeletion = reloaded.book(user, 4, MONDAY.plusMinutes(90), MONDAY.plusHours(3));
+
+        // Assert
+        assertThat(afterCompletion).isEqualTo(BookingResult.BOOKED);
+        assertThat(reloadedConflict).isEqualTo(BookingResult.NO_FREE_BAY);
+        assertThat(afterDeletion).isEqualTo(BookingResult.BOOKED);
+    }
+
+    @Test
+    @DisplayName("Test rescheduling moves a booking past its own window but not into other bookings")
+    public void testReschedule() {
+        // Arrange
+        MaintenanceScheduler scheduler = new MaintenanceScheduler(carShopService, requestService, 1);
+        scheduler.book(user, 1, MONDAY, MONDAY.plusHours(2));
+        scheduler.book(user, 2, MONDAY.plusHours(3), MONDAY.plusHours(4));
+        int id = requestService.filterRequestsByCarAndType(1, RequestType.MAINTENANCE).iterator().next().getId();
+
+        // Act
+        BookingResult overlappingItself = scheduler.reschedule(edited(id, 1, MONDAY.plusHours(1), MONDAY.plusHours(3)));
+        BookingResult carBusy = scheduler.reschedule(edited(id, 2, MONDAY.plusMinutes(210), MONDAY.plusHours(5)));
+        BookingResult bayBusy = scheduler.reschedule(edited(id, 3, MONDAY.plusHours(3), MONDAY.plusHours(4)));
+        BookingResult freedWindow = scheduler.book(user, 4, MONDAY, MONDAY.plusHours(1));
+
+        // Assert
+        assertThat(overlappingItself).isEqualTo(BookingResult.BOOKED);
+        assertThat(carBusy).isEqualTo(BookingResult.CAR_BUSY);
+        assertThat(bayBusy).isEqualTo(BookingResult.NO_FREE_BAY);
+        assertThat(freedWindow).isEqualTo(BookingResult.BOOKED);
+        Request stored = requestService.findRequestById(id);
+        assertThat(stored.getCarId()).isEqualTo(1);
+        assertThat(stored.getCreationTime()).isEqualTo(MONDAY.plusHours(1));
+        assertThat(scheduler.book(user, 5, MONDAY.plusHours(2), MONDAY.plusMinutes(150)))
+                .isEqualTo(BookingResult.NO_FREE_BAY);
+    }
+
+    @Test
+    @DisplayName("Test concurrent bookings never overlap on a car or exceed the number of bays")
+    public void testConcurrentBookings() throws Exception {
+        // Arrange
+        int bays = 3;
+        MaintenanceScheduler scheduler = new MaintenanceScheduler(carShopService, requestService, bays);
+        ExecutorService clients = Executors.newFixedThreadPool(16);
+
+        // Act
+        List<Future<?>> attempts = new ArrayList<>();
+        for (int i = 0; i < 4000; i++) {
+            attempts.add(clients.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                LocalDateTime start = MONDAY.plusMinutes(15L * random.nextInt(200));
+                scheduler.book(user, 1 + random.nextInt(20), start, start.plusMinutes(15L * (1 + random.nextInt(8))));
+            }));
+        }
+        for (Future<?> attempt : attempts) {
+            attempt.get(30, TimeUnit.SECONDS);
+        }
+        clients.shutdown();
+
+        // Assert
+        List<Request> booked = new ArrayList<>(requestService.getAllRequests());
+        assertThat(booked).isNotEmpty();
+        Map<Integer, List<Request>> byCar = booked.stream().collect(Collectors.groupingBy(Request::getCarId));
+        for (List<Request> carRequests : byCar.values()) {
+            assertThat(maxOverlap(carRequests)).isEqualTo(1);
+        }
+        assertThat(maxOverlap(booked)).isLessThanOrEqualTo(bays);
+    }
+
+    private Request edited(int id, int carId, LocalDateTime start, LocalDateTime end) {
+        Request request = new Request(user, carId, start, end, RequestType.MAINTENANCE, RequestStatus.NEW);
+        request.setId(id);
+        return request;
+    }
+
+    private static int maxOverlap(List<Request> requests) {
+        List<long[]> events = new ArrayList<>();
+        for (Request request : requests) {
+            events.add(new long[]{request.getCreationTime().toEpochSecond(ZoneOffset.UTC), 1});
+            events.add(new long[]{request.getCompletionTime().toEpochSecond(ZoneOffset.UTC), -1});
+        }
+        events.sort(Comparator.<long[]>comparingLong(event -> event[0]).thenComparingLong(event -> event[1]));
+        int current = 0;
+        int max = 0;
+        for (long[] event : events) {
+            current += (int) event[1];
+            max = Math.max(max, current);
+        }
+        return max;
+    }
+}
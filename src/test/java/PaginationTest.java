@@ -0,0 +1,144 @@
+import org.example.carshop.model.Car;
+import org.example.carshop.model.Request;
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.RequestStatus;
+import org.example.carshop.model.enums.RequestType;
+import org.example.carshop.model.enums.UserRole;
+import org.example.carshop.persistence.Durability;
+import org.example.carshop.persistence.StorageEngine;
+import org.example.carshop.repository.CarRepository;
+import org.example.carshop.repository.CarStore;
+import org.example.carshop.repository.CompactCarRepository;
+import org.example.carshop.repository.Page;
+import org.example.carshop.repository.RequestFilter;
+import org.example.carshop.repository.RequestRepository;
+import org.example.carshop.repository.SequentialIdGenerator;
+import org.example.carshop.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Pagination Tests")
+class PaginationTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    @DisplayName("Car Pages Test")
+    void carPages() {
+        for (CarStore repository : List.of(new CarRepository(new ConcurrentHashMap<>()), new CompactCarRepository())) {
+            // Arrange
+            for (int id = 100; id > 0; id--) {
+                repository.addCar(new Car(id * 3, "M" + id % 4, id % 2 == 0 ? "BMW" : "Audi", "2020", "ok", id % 3 != 0));
+            }
+
+            // Act
+            List<Car> paged = collect((after, limit) -> repository.filterCars("BMW", null, null, true, after, limit),
+                    Car::getId, 7);
+
+            // Assert
+            List<Car> expected = new ArrayList<>(repository.filterCars("BMW", null, null, true));
+            assertThat(paged).extracting(Car::getId).containsExactlyElementsOf(expected.stream().map(Car::getId).toList());
+            assertThat(repository.streamCars("BMW", null, null, true)).extracting(Car::getId)
+                    .containsExactlyElementsOf(expected.stream().map(Car::getId).toList());
+            assertThat(repository.streamCars(null, null, null, null)).hasSize(100).isSortedAccordingTo(
+                    (a, b) -> Integer.compare(a.getId(), b.getId()));
+        }
+    }
+
+    @Test
+    @DisplayName("Request Pages Span Both Tiers Test")
+    void requestPagesSpanBothTiers() throws IOException {
+        try (StorageEngine storage = StorageEngine.open(dataDir, Durability.everyMillis(1000))) {
+            // Arrange
+            User alice = new User("alice", "secret", "Alice", UserRole.CLIENT);
+            storage.getUsers().put(alice.getUsername(), alice);
+            RequestRepository repository = new RequestRepository(storage.getRequests(), new SequentialIdGenerator(),
+                    storage, storage.getRequestArchive());
+            for (int i = 0; i < 60; i++) {
+                Request request = new Request(alice, i % 5, LocalDateTime.of(2024, 1, 1 + i % 3, 10, 0), null,
+                        i % 2 == 0 ? RequestType.ORDER : RequestType.MAINTENANCE, RequestStatus.NEW);
+                repository.addRequest(request);
+                if (i % 4 == 0) {
+                    request.changeStatus(RequestStatus.PENDING);
+                    request.changeStatus(RequestStatus.IN_PROGRESS);
+                    request.changeStatus(RequestStatus.COMPLETED);
+                }
+            }
+
+            // Act
+            List<Request> all = collect((after, limit) -> repository.findRequests(RequestFilter.all(), after, limit),
+                    Request::getId, 9);
+            List<Request> byUser = collect((after, limit) ->
+                    repository.findRequests(RequestFilter.byUser("alice", null), after, limit), Request::getId, 4);
+            List<Request> byCar = collect((after, limit) ->
+                    repository.findRequests(RequestFilter.byCar(2, RequestType.ORDER), after, limit), Request::getId, 2);
+
+            // Assert
+            assertThat(all).extracting(Request::getId).containsExactlyElementsOf(ids(60));
+            assertThat(byUser).extracting(Request::getId).containsExactlyElementsOf(ids(60));
+            assertThat(byCar).extracting(Request::getId).containsExactlyElementsOf(
+                    repository.filterRequestsByCarAndType(2, RequestType.ORDER).stream().map(Request::getId).toList());
+            assertThat(repository.streamRequests(RequestFilter.byStatus(RequestStatus.COMPLETED, RequestType.ORDER)))
+                    .extracting(Request::getId).containsExactlyElementsOf(
+                            repository.filterRequestsByRequestStatusAndType(RequestStatus.COMPLETED, RequestType.ORDER)
+                                    .stream().map(Request::getId).toList());
+        }
+    }
+
+    @Test
+    @DisplayName("User Pages Test")
+    void userPages() {
+        // Arrange
+        UserRepository repository = new UserRepository(new ConcurrentHashMap<>());
+        for (int i = 0; i < 30; i++) {
+            repository.registerUser(new User(String.format("user%02d", i), "p", "User " + i,
+                    i % 3 == 0 ? UserRole.MANAGER : UserRole.CLIENT));
+        }
+
+        // Act
+        Page<User> first = repository.filterUsers(null, null, null, 10);
+        Page<User> second = repository.filterUsers(null, null, first.last().getUsername(), 10);
+        Page<User> managers = repository.filterUsers("user1", List.of(UserRole.MANAGER, UserRole.CLIENT), "user12", 3);
+
+        // Assert
+        assertThat(first.items()).extracting(User::getUsername).startsWith("user00").endsWith("user09");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.items()).extracting(User::getUsername).startsWith("user10").endsWith("user19");
+        assertThat(managers.items()).extracting(User::getUsername).containsExactly("user13", "user14", "user15");
+        assertThat(repository.streamUsers(null, List.of(UserRole.MANAGER))).hasSize(10);
+    }
+
+    private static <T> List<T> collect(BiFunction<Integer, Integer, Page<T>> fetch, Function<T, Integer> key, int limit) {
+        List<T> items = new ArrayList<>();
+        Integer after = null;
+        Page<T> page;
+        do {
+            page = fetch.apply(after, limit);
+            assertThat(page.items().size()).isLessThanOrEqualTo(limit);
+            items.addAll(page.items());
+            after = page.items().isEmpty() ? after : key.apply(page.last());
+        } while (page.hasNext());
+        return items;
+    }
+
+    private static List<Integer> ids(int count) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 1; id <= count; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,68 @@
+import org.example.carshop.security.PasswordHasher;
+import org.example.carshop.security.SessionCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("PasswordHasher Tests")
+class PasswordHasherTest {
+
+    @Test
+    @DisplayName("Hash And Match Test")
+    void hashAndMatch() {
+        // Arrange
+        PasswordHasher hasher = new PasswordHasher(1_000);
+
+        // Act
+        String first = hasher.hash("secret");
+        String second = hasher.hash("secret");
+
+        // Assert
+        assertThat(first).isNotEqualTo(second);
+        assertThat(hasher.matches("secret", first)).isTrue();
+        assertThat(hasher.matches("secret", second)).isTrue();
+        assertThat(hasher.matches("Secret", first)).isFalse();
+        assertThat(hasher.matches("secret", "secret")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Needs Rehash Test")
+    void needsRehash() {
+        // Arrange
+        PasswordHasher cheap = new PasswordHasher(1_000);
+        PasswordHasher costly = new PasswordHasher(2_000);
+        String hash = cheap.hash("secret");
+
+        // Assert
+        assertThat(cheap.needsRehash(hash)).isFalse();
+        assertThat(costly.needsRehash(hash)).isTrue();
+        assertThat(costly.matches("secret", hash)).isTrue();
+        assertThat(cheap.needsRehash("secret")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Session Expiry Test")
+    void sessionExpiry() {
+        // Arrange
+        Instant start = Instant.parse("2024-01-01T00:00:00Z");
+        SessionCache fresh = new SessionCache(Duration.ofMinutes(1), Clock.fixed(start, ZoneOffset.UTC));
+        String token = fresh.issue("user1");
+        SessionCache expired = new SessionCache(Duration.ofMinutes(-1), Clock.fixed(start, ZoneOffset.UTC));
+        String expiredToken = expired.issue("user1");
+
+        // Act
+        String resolved = fresh.resolve(token);
+        fresh.invalidateUser("user1");
+
+        // Assert
+        assertThat(resolved).isEqualTo("user1");
+        assertThat(fresh.resolve(token)).isNull();
+        assertThat(expired.resolve(expiredToken)).isNull();
+    }
+}
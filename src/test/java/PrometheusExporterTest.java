@@ -0,0 +1,70 @@
+import org.example.carshop.metrics.MetricsRegistry;
+import org.example.carshop.metrics.PrometheusExporter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("PrometheusExporter Tests")
+public class PrometheusExporterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Test histograms are written as summaries and counters with a total suffix")
+    public void testExport() throws Exception {
+        // Arrange
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.timer("carshop_car_search", "Searches of cars.").record(2_000_000);
+        registry.histogram("carshop_car_search_results", "Numbers of cars.").record(3);
+        registry.counter("carshop_car_search_cache_hits", "Hits.").increment();
+        Path file = directory.resolve("metrics.prom");
+
+        // Act
+        new PrometheusExporter(registry, file).export();
+
+        // Assert
+        assertThat(Files.readString(file, StandardCharsets.UTF_8)).isEqualTo("""
+                # HELP carshop_car_search_seconds Searches of cars.
+                # TYPE carshop_car_search_seconds summary
+                carshop_car_search_seconds{quantile="0.5"} 0.002
+                carshop_car_search_seconds{quantile="0.99"} 0.002
+                carshop_car_search_seconds{quantile="0.999"} 0.002
+                carshop_car_search_seconds_sum 0.002
+                carshop_car_search_seconds_count 1
+                # HELP carshop_car_search_results Numbers of cars.
+                # TYPE carshop_car_search_results summary
+                carshop_car_search_results{quantile="0.5"} 3
+                carshop_car_search_results{quantile="0.99"} 3
+                carshop_car_search_results{quantile="0.999"} 3
+                carshop_car_search_results_sum 3
+                carshop_car_search_results_count 1
+                # HELP carshop_car_search_cache_hits_total Hits.
+                # TYPE carshop_car_search_cache_hits_total counter
+                carshop_car_search_cache_hits_total 1
+                """);
+        try (var files = Files.list(directory)) {
+            assertThat(files).containsExactly(file);
+        }
+    }
+
+    @Test
+    @DisplayName("Test a name is bound to one kind of metric")
+    public void testNameClash() {
+        // Arrange
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.timer("calls", "Calls.");
+
+        // Act & Assert
+        assertThat(registry.timer("calls", "Calls.")).isSameAs(registry.timer("calls", "Calls."));
+        assertThatThrownBy(() -> registry.counter("calls", "Calls.")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> registry.histogram("calls", "Calls.")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
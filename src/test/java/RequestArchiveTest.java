@@ -0,0 +1,160 @@
+import org.example.carshop.model.Request;
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.RequestStatus;
+import org.example.carshop.model.enums.RequestTimestamp;
+import org.example.carshop.model.enums.RequestType;
+import org.example.carshop.model.enums.UserRole;
+import org.example.carshop.persistence.ColumnarRequestArchive;
+import org.example.carshop.persistence.Durability;
+import org.example.carshop.persistence.StorageEngine;
+import org.example.carshop.repository.RequestFilter;
+import org.example.carshop.repository.RequestRepository;
+import org.example.carshop.repository.SequentialIdGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@DisplayName("Request archive Tests")
+public class RequestArchiveTest {
+
+    @TempDir
+    Path dataDir;
+
+    private RequestRepository openRepository(StorageEngine storage) {
+        return new RequestRepository(storage.getRequests(), new SequentialIdGenerator(), storage,
+                storage.getRequestArchive());
+    }
+
+    @Test
+    @DisplayName("Test completed requests are archived and still found by every filter")
+    public void testFiltersSpanBothTiers() throws IOException {
+        User user = new User("carol", "secret", "Carol", UserRole.CLIENT);
+        LocalDateTime creationTime = LocalDateTime.of(2024, 5, 10, 9, 30);
+
+        try (StorageEngine storage = StorageEngine.open(dataDir, Durability.perWrite())) {
+            storage.getUsers().put(user.getUsername(), user);
+            RequestRepository repository = openRepository(storage);
+
+            // Arrange
+            Request completed = new Request(user, 7, creationTime, null, RequestType.ORDER, RequestStatus.NEW);
+            Request active = new Request(user, 7, creationTime, null, RequestType.ORDER, RequestStatus.NEW);
+            repository.addRequest(completed);
+            repository.addRequest(active);
+
+            completed.changeStatus(RequestStatus.PENDING);
+            completed.changeStatus(RequestStatus.IN_PROGRESS);
+
+            // Act
+            completed.changeStatus(RequestStatus.COMPLETED);
+
+            // Assert
+            assertThat(storage.getRequests()).containsOnlyKeys(active.getId());
+            assertThat(storage.getRequestArchive().contains(completed.getId())).isTrue();
+            assertThat(repository.filterRequestsByCarAndType(7, RequestType.ORDER))
+                    .extracting(Request::getId).containsExactly(completed.getId(), active.getId());
+            assertThat(repository.filterRequestsByUserAndType(user, null))
+                    .extracting(Request::getId).containsExactly(completed.getId(), active.getId());
+            assertThat(repository.filterRequestsByDateAndType(LocalDate.of(2024, 5, 10), RequestType.ORDER))
+                    .hasSize(2);
+            assertThat(repository.filterRequestsByDateRangeAndType(LocalDate.of(2024, 5, 4), LocalDate.of(2024, 5, 10),
+                    RequestTimestamp.CREATION, RequestType.ORDER))
+                    .extracting(Request::getId).containsExactly(completed.getId(), active.getId());
+            assertThat(repository.filterRequestsByRequestStatusAndType(RequestStatus.COMPLETED, RequestType.ORDER))
+                    .extracting(Request::getId).containsExactly(completed.getId());
+            Request found = repository.findRequestById(completed.getId());
+            assertThat(found.getUser()).isSameAs(user);
+            assertThat(found.getCreationTime()).isEqualTo(creationTime);
+        }
+    }
+
+    @Test
+    @DisplayName("Test archived requests survive reopening and stay archived since they are completed")
+    public void testArchiveAfterReopen() throws IOException {
+        User user = new User("dave", "secret", "Dave", UserRole.CLIENT);
+        int id;
+        try (StorageEngine storage = StorageEngine.open(dataDir, Durability.perWrite())) {
+            storage.getUsers().put(user.getUsername(), user);
+            Request request = new Request(user, 3, null, null, RequestType.MAINTENANCE, RequestStatus.NEW);
+            openRepository(storage).addRequest(request);
+            request.changeStatus(RequestStatus.PENDING);
+            request.changeStatus(RequestStatus.IN_PROGRESS);
+            request.changeStatus(RequestStatus.COMPLETED);
+            id = request.getId();
+            storage.snapshot();
+        }
+
+        try (StorageEngine storage = StorageEngine.open(dataDir, Durability.perWrite())) {
+            // Arrange
+            RequestRepository repository = openRepository(storage);
+            assertThat(storage.getRequests()).isEmpty();
+            Request archived = repository.findRequestById(id);
+
+            // Act
+            Throwable reopened = catchThrowable(() -> archived.changeStatus(RequestStatus.IN_PROGRESS));
+            Request next = new Request(user, 3, null, null, RequestType.MAINTENANCE, RequestStatus.NEW);
+            repository.addRequest(next);
+
+            // Assert
+            assertThat(reopened).isInstanceOf(IllegalStateException.class);
+            assertThat(storage.getRequestArchive().contains(id)).isTrue();
+            assertThat(repository.findRequestById(id).getRequestStatus()).isEqualTo(RequestStatus.COMPLETED);
+            assertThat(next.getId()).isEqualTo(id + 1);
+        }
+    }
+
+    @Test
+    @DisplayName("Test removed rows are compacted away and indexed lookups survive compaction and reopening")
+    public void testCompaction() throws IOException {
+        // Arrange
+        User alice = new User("alice", "secret", "Alice", UserRole.CLIENT);
+        User bob = new User("bob", "secret", "Bob", UserRole.CLIENT);
+        Path directory = dataDir.resolve("archive");
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 12, 0);
+        try (ColumnarRequestArchive archive = ColumnarRequestArchive.open(directory, username -> alice)) {
+            for (int id = 1; id <= 3000; id++) {
+                Request request = new Request(id % 2 == 0 ? alice : bob, id % 10, start.plusDays(id % 30),
+                        start.plusDays(id % 30 + 1), id % 3 == 0 ? RequestType.ORDER : RequestType.MAINTENANCE,
+                        RequestStatus.NEW);
+                request.setId(id);
+                request.setRequestStatus(RequestStatus.COMPLETED);
+                archive.add(request);
+            }
+
+            // Act
+            for (int id = 1; id <= 2000; id++) {
+                archive.remove(id);
+            }
+            List<Request> byCar = archive.findByCar(RequestType.ORDER, 3);
+            List<Request> byUser = archive.findByUser(null, "alice");
+            List<Request> byDay = archive.findByDateRange(RequestType.MAINTENANCE, LocalDate.of(2024, 1, 5),
+                    LocalDate.of(2024, 1, 5), RequestTimestamp.CREATION);
+            List<Request> page = archive.findAfter(RequestFilter.byStatus(RequestStatus.COMPLETED, null), 2500, 10);
+
+            // Assert
+            assertThat(byCar).extracting(Request::getId).allMatch(id -> id > 2000 && id % 10 == 3 && id % 3 == 0)
+                    .hasSize(33);
+            assertThat(byUser).hasSize(500).isSortedAccordingTo(Comparator.comparingInt(Request::getId));
+            assertThat(byDay).extracting(Request::getId).allMatch(id -> id > 2000 && id % 30 == 4 && id % 3 != 0);
+            assertThat(page).extracting(Request::getId).containsExactly(2501, 2502, 2503, 2504, 2505, 2506, 2507,
+                    2508, 2509, 2510);
+            assertThat(archive.contains(2000)).isFalse();
+            assertThat(archive.find(2000)).isNull();
+        }
+        try (ColumnarRequestArchive archive = ColumnarRequestArchive.open(directory, username -> alice)) {
+            assertThat(archive.findAll()).extracting(Request::getId).hasSize(1000).startsWith(2001).endsWith(3000);
+            assertThat(archive.findByCar(RequestType.ORDER, 3)).hasSize(33);
+            assertThat(archive.maxId()).isEqualTo(3000);
+            assertThat(archive.find(2001).getCarId()).isEqualTo(1);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+import org.example.carshop.model.Request;
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.RequestStatus;
+import org.example.carshop.model.enums.RequestType;
+import org.example.carshop.model.enums.UserRole;
+import org.example.carshop.repository.BlockIdGenerator;
+import org.example.carshop.repository.RequestIdGenerator;
+import org.example.carshop.repository.RequestRepository;
+import org.example.carshop.repository.SequentialIdGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("RequestIdGenerator Tests")
+public class RequestIdGeneratorTest {
+
+    @Test
+    @DisplayName("Test sequential generator continues after advancing")
+    public void testSequentialGenerator() {
+        RequestIdGenerator generator = new SequentialIdGenerator();
+
+        assertThat(generator.nextId()).isEqualTo(1);
+        generator.advancePast(10);
+        assertThat(generator.nextId()).isEqualTo(11);
+        generator.advancePast(5);
+        assertThat(generator.nextId()).isEqualTo(12);
+    }
+
+    @Test
+    @DisplayName("Test block generator discards blocks below advanced id")
+    public void testBlockGeneratorAdvance() {
+        RequestIdGenerator generator = new BlockIdGenerator(100);
+
+        assertThat(generator.nextId()).isEqualTo(1);
+        generator.advancePast(50);
+        assertThat(generator.nextId()).isGreaterThan(50);
+    }
+
+    @Test
+    @DisplayName("Test block generator hands out unique ids to concurrent threads")
+    public void testBlockGeneratorConcurrently() throws Exception {
+        // Arrange
+        RequestIdGenerator generator = new BlockIdGenerator(16);
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    ids.add(generator.nextId());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Assert
+        assertThat(ids).hasSize(80_000);
+        assertThat(ids).allMatch(id -> id > 0);
+    }
+
+    @Test
+    @DisplayName("Test updating a request keeps the ID blocks of other threads")
+    public void testUpdateKeepsOtherBlocks() throws Exception {
+        // Arrange
+        RequestRepository repository = new RequestRepository(new ConcurrentHashMap<>(), new BlockIdGenerator(16));
+        User user = new User("alice", "secret", "Alice", UserRole.CLIENT);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Request first = new Request(user, 1, null, null, RequestType.ORDER, RequestStatus.NEW);
+        executor.submit(() -> repository.addRequest(first)).get();
+        Request second = new Request(user, 2, null, null, RequestType.ORDER, RequestStatus.NEW);
+        repository.addRequest(second);
+
+        // Act
+        executor.submit(() -> repository.updateRequest(second)).get();
+        Request third = new Request(user, 3, null, null, RequestType.ORDER, RequestStatus.NEW);
+        executor.submit(() -> repository.addRequest(third)).get();
+        executor.shutdown();
+
+        // Assert
+        assertThat(first.getId()).isEqualTo(1);
+        assertThat(second.getId()).isEqualTo(17);
+        assertThat(third.getId()).isEqualTo(2);
+    }
+}
@@ -1,7 +1,10 @@
 import org.example.carshop.model.enums.RequestStatus;
+import org.example.carshop.model.enums.RequestTimestamp;
 import org.example.carshop.model.enums.RequestType;
+import org.example.carshop.model.enums.StatusChangeResult;
 import org.example.carshop.model.Request;
 import org.example.carshop.model.User;
+import org.example.carshop.repository.RequestFilter;
 import org.example.carshop.repository.RequestRepository;
 import org.example.carshop.service.RequestService;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,11 +13,19 @@ import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 
 @DisplayName("RequestService Tests")
 public class RequestServiceTest {
@@ -61,8 +72,8 @@ public class RequestServiceTest {
         // Arrange
         Request request1 = new Request(null, 1,  LocalDateTime.now(), LocalDateTime.now().plusHours(1), RequestType.ORDER, RequestStatus.NEW);
         Request request2 = new Request(null, 2,  LocalDateTime.now(), LocalDateTime.now().plusHours(1), RequestType.ORDER, RequestStatus.NEW);
-        requestMap.put(request1.getId(), request1);
-        requestMap.put(request2.getId(), request2);
+        requestService.addRequest(request1);
+        requestService.addRequest(request2);
 
         // Act
         requestService.deleteRequest(request1.getId());
@@ -78,8 +89,8 @@ public class RequestServiceTest {
         // Arrange
         Request request1 = new Request(null, 1,  LocalDateTime.now(), LocalDateTime.now().plusHours(1), RequestType.ORDER, RequestStatus.NEW);
         Request request2 = new Request(null, 2,  LocalDateTime.now(), LocalDateTime.now().plusHours(1), RequestType.ORDER, RequestStatus.NEW);
-        requestMap.put(request1.getId(), request1);
-        requestMap.put(request2.getId(), request2);
+        requestService.addRequest(request1);
+        requestService.addRequest(request2);
 
         // Act
         Collection<Request> allReqs = requestService.getAllRequests();
@@ -96,8 +107,8 @@ public class RequestServiceTest {
         LocalDateTime newEndTime2 = LocalDateTime.of(2024, 6, 25, 11, 0);
         Request request1 = new Request(null, 1,  newStartTime1, newEndTime2, RequestType.ORDER, RequestStatus.NEW);
         Request request2 = new Request(null, 2,  LocalDateTime.now(), LocalDateTime.now().plusHours(1), RequestType.ORDER, RequestStatus.NEW);
-        requestMap.put(request1.getId(), request1);
-        requestMap.put(request2.getId(), request2);
+        requestService.addRequest(request1);
+        requestService.addRequest(request2);
 
         // Act
         Collection<Request> filteredMap = requestService.filterRequestsByDateAndType(LocalDate.from(newStartTime1), request1.getRequestType());
@@ -118,8 +129,8 @@ public class RequestServiceTest {
         Request request2 = new Request(null, 2,  LocalDateTime.now(), LocalDateTime.now().plusHours(1), RequestType.ORDER, RequestStatus.NEW);
         request1.setUser(user1);
         request2.setUser(user2);
-        requestMap.put(request1.getId(), request1);
-        requestMap.put(request2.getId(), request2);
+        requestService.addRequest(request1);
+        requestService.addRequest(request2);
 
         // Act
         Collection<Request> filteredMap = requestService.filterRequestsByUserAndType(user1, request1.getRequestType());
@@ -137,8 +148,8 @@ public class RequestServiceTest {
         RequestType requestType = RequestType.ORDER;
         Request request1 = new Request(null, 1,  LocalDateTime.now(), LocalDateTime.now().plusHours(1), RequestType.ORDER, RequestStatus.NEW);
         Request request2 = new Request(null, 2,  LocalDateTime.now(), LocalDateTime.now().plusHours(1), RequestType.ORDER, RequestStatus.NEW);
-        requestMap.put(request1.getId(), request1);
-        requestMap.put(request2.getId(), request2);
+        requestService.addRequest(request1);
+        requestService.addRequest(request2);
 
         // Act
         Collection<Request> filteredMap = requestService.filterRequestsByCarAndType(1,requestType);
@@ -155,8 +166,8 @@ public class RequestServiceTest {
         // Arrange
         Request request1 = new Request(null, 1,  LocalDateTime.now(), LocalDateTime.now().plusHours(1), RequestType.ORDER, RequestStatus.NEW);
         Request request2 = new Request(null, 2,  LocalDateTime.now(), LocalDateTime.now().plusHours(1), RequestType.ORDER, RequestStatus.NEW);
-        requestMap.put(request1.getId(), request1);
-        requestMap.put(request2.getId(), request2);
+        requestService.addRequest(request1);
+        requestService.addRequest(request2);
 
         // Act
         Request foundRequest = requestService.findRequestById(request1.getId());
@@ -165,4 +176,221 @@ public class RequestServiceTest {
         assertThat(foundRequest).isNotNull();
         assertThat(foundRequest.getId()).isEqualTo(request1.getId());
     }
+
+    @Test
+    @DisplayName("Test repository assigns ids to new requests and continues after stored ones")
+    public void testRequestIdAssignment() {
+        // Arrange
+        Request stored = new Request(null, 1,  LocalDateTime.now(), LocalDateTime.now().plusHours(1), RequestType.ORDER, RequestStatus.NEW);
+        stored.setId(41);
+        requestMap.put(stored.getId(), stored);
+        RequestService restoredService = new RequestService(new RequestRepository(requestMap));
+        Request request1 = new Request(null, 2,  LocalDateTime.now(), LocalDateTime.now().plusHours(1), RequestType.ORDER, RequestStatus.NEW);
+        Request request2 = new Request(null, 3,  LocalDateTime.now(), LocalDateTime.now().plusHours(1), RequestType.ORDER, RequestStatus.NEW);
+
+        // Act
+        restoredService.addRequest(request1);
+        restoredService.addRequest(request2);
+
+        // Assert
+        assertThat(request1.getId()).isEqualTo(42);
+        assertThat(request2.getId()).isEqualTo(43);
+        assertThat(requestMap).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("Test status changes follow the request lifecycle")
+    public void testStatusLifecycle() {
+        // Arrange
+        Request request = new Request(null, 1, LocalDateTime.now(), null, RequestType.ORDER, RequestStatus.NEW);
+        requestService.addRequest(request);
+
+        // Act
+        StatusChangeResult skipped = requestService.changeRequestStatus(request.getId(), RequestStatus.IN_PROGRESS);
+        StatusChangeResult pending = requestService.changeRequestStatus(request.getId(), RequestStatus.PENDING);
+        StatusChangeResult backwards = requestService.changeRequestStatus(request.getId(), RequestStatus.NEW);
+        StatusChangeResult missing = requestService.changeRequestStatus(request.getId() + 1, RequestStatus.PENDING);
+
+        // Assert
+        assertThat(skipped).isEqualTo(StatusChangeResult.ILLEGAL_TRANSITION);
+        assertThat(pending).isEqualTo(StatusChangeResult.CHANGED);
+        assertThat(backwards).isEqualTo(StatusChangeResult.ILLEGAL_TRANSITION);
+        assertThat(missing).isEqualTo(StatusChangeResult.REQUEST_NOT_FOUND);
+        assertThat(request.getRequestStatus()).isEqualTo(RequestStatus.PENDING);
+        assertThat(requestService.filterRequestsByRequestStatusAndType(RequestStatus.PENDING, RequestType.ORDER))
+                .containsExactly(request);
+    }
+
+    @Test
+    @DisplayName("Test concurrent managers claim every pending request exactly once, oldest first")
+    public void testConcurrentClaims() throws Exception {
+        // Arrange
+        RequestService concurrentService = new RequestService(new RequestRepository(new ConcurrentHashMap<>()));
+        List<Request> maintenance = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            RequestType requestType = i % 4 == 0 ? RequestType.ORDER : RequestType.MAINTENANCE;
+            Request request = new Request(null, i, LocalDateTime.now(), null, requestType, RequestStatus.NEW);
+            concurrentService.addRequest(request);
+            concurrentService.changeRequestStatus(request.getId(), RequestStatus.PENDING);
+            if (requestType == RequestType.MAINTENANCE) {
+                maintenance.add(request);
+            }
+        }
+        ExecutorService managers = Executors.newFixedThreadPool(8);
+
+        // Act
+        List<Future<List<Integer>>> claims = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            claims.add(managers.submit(() -> {
+                List<Integer> claimed = new ArrayList<>();
+                Request request;
+                while ((request = concurrentService.claimNextRequest(RequestType.MAINTENANCE, RequestStatus.PENDING)) != null) {
+                    claimed.add(request.getId());
+                }
+                return claimed;
+            }));
+        }
+        List<Integer> claimedIds = new ArrayList<>();
+        for (Future<List<Integer>> claim : claims) {
+            List<Integer> claimed = claim.get(30, TimeUnit.SECONDS);
+            assertThat(claimed).isSorted();
+            claimedIds.addAll(claimed);
+        }
+        managers.shutdown();
+
+        // Assert
+        assertThat(claimedIds).doesNotHaveDuplicates()
+                .containsExactlyInAnyOrderElementsOf(maintenance.stream().map(Request::getId).toList());
+        assertThat(maintenance).allMatch(request -> request.getRequestStatus() == RequestStatus.IN_PROGRESS);
+        assertThat(concurrentService.filterRequestsByRequestStatusAndType(RequestStatus.IN_PROGRESS, RequestType.MAINTENANCE))
+                .hasSize(maintenance.size());
+        assertThat(concurrentService.filterRequestsByRequestStatusAndType(RequestStatus.PENDING, RequestType.ORDER))
+                .hasSize(500);
+    }
+
+    @Test
+    @DisplayName("Test filtering requests by ranges of creation and completion dates")
+    public void testFilterByDateRange() {
+        // Arrange
+        LocalDate today = LocalDate.of(2024, 6, 12);
+        List<Request> completingSoon = new ArrayList<>();
+        for (int day = -10; day <= 10; day++) {
+            LocalDateTime completion = today.plusDays(day).atTime(15, 0);
+            Request maintenance = new Request(null, day, today.minusDays(30).atTime(9, 0), completion,
+                    RequestType.MAINTENANCE, RequestStatus.NEW);
+            Request order = new Request(null, day, today.minusDays(30).atTime(9, 0), completion,
+                    RequestType.ORDER, RequestStatus.NEW);
+            requestRepository.addRequest(maintenance);
+            requestService.addRequest(order);
+            if (day >= 0 && day < 7) {
+                completingSoon.add(maintenance);
+            }
+        }
+        Request sameDay = new Request(null, 99, today.atTime(8, 0), today.atTime(18, 0),
+                RequestType.MAINTENANCE, RequestStatus.NEW);
+        requestRepository.addRequest(sameDay);
+
+        // Act
+        Collection<Request> nextWeek = requestService.filterRequestsByDateRangeAndType(today, today.plusDays(6),
+                RequestTimestamp.COMPLETION, RequestType.MAINTENANCE);
+        Collection<Request> createdLongAgo = requestService.filterRequestsByDateRangeAndType(
+                today.minusDays(31), today.minusDays(29), RequestTimestamp.CREATION, null);
+        Collection<Request> anyToday = requestService.filterRequestsByDateAndType(today, RequestType.MAINTENANCE);
+        Collection<Request> week = requestService.filterRequestsByWeekAndType(today, RequestTimestamp.COMPLETION,
+                RequestType.ORDER);
+        List<Request> paged = requestService.streamRequests(RequestFilter.byDateRange(today, today.plusDays(6),
+                RequestTimestamp.COMPLETION, RequestType.MAINTENANCE)).toList();
+
+        // Assert
+        completingSoon.add(sameDay);
+        assertThat(nextWeek).containsExactlyElementsOf(completingSoon);
+        assertThat(paged).containsExactlyElementsOf(completingSoon);
+        assertThat(createdLongAgo).hasSize(42);
+        assertThat(anyToday).extracting(Request::getCarId).containsExactly(0, 99);
+        assertThat(week).extracting(Request::getCarId).containsExactly(-2, -1, 0, 1, 2, 3, 4);
+        assertThat(requestService.filterRequestsByDateRangeAndType(today.plusDays(1), today, null, null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Test status and user listings are cached until a request in the status or of the user changes")
+    public void testFilterCache() {
+        // Arrange
+        User alice = new User("alice", "password", "Alice", null);
+        User bob = new User("bob", "password", "Bob", null);
+        Request request = new Request(alice, 1, LocalDateTime.now(), null, RequestType.ORDER, RequestStatus.NEW);
+        requestService.addRequest(request);
+        requestService.addRequest(new Request(bob, 2, LocalDateTime.now(), null, RequestType.ORDER, RequestStatus.NEW));
+        Collection<Request> aliceRequests = requestService.filterRequestsByUserAndType(alice, RequestType.ORDER);
+        Collection<Request> bobRequests = requestService.filterRequestsByUserAndType(bob, RequestType.ORDER);
+        Collection<Request> pending = requestService.filterRequestsByRequestStatusAndType(RequestStatus.PENDING, RequestType.ORDER);
+        Collection<Request> completed = requestService.filterRequestsByRequestStatusAndType(RequestStatus.COMPLETED, RequestType.ORDER);
+
+        // Act
+        request.changeStatus(RequestStatus.PENDING);
+        Collection<Request> pendingAfterChange = requestService.filterRequestsByRequestStatusAndType(RequestStatus.PENDING, RequestType.ORDER);
+        Collection<Request> completedAfterChange = requestService.filterRequestsByRequestStatusAndType(RequestStatus.COMPLETED, RequestType.ORDER);
+        Collection<Request> aliceAfterChange = requestService.filterRequestsByUserAndType(alice, RequestType.ORDER);
+        Collection<Request> bobAfterChange = requestService.filterRequestsByUserAndType(bob, RequestType.ORDER);
+        requestService.deleteRequest(request.getId());
+        Collection<Request> pendingAfterDeletion = requestService.findRequests(
+                RequestFilter.byStatus(RequestStatus.PENDING, RequestType.ORDER), null, 10).items();
+
+        // Assert
+        assertThat(pending).isEmpty();
+        assertThat(pendingAfterChange).containsExactly(request);
+        assertThat(completedAfterChange).isSameAs(completed);
+        assertThat(aliceAfterChange).isNotSameAs(aliceRequests).containsExactly(request);
+        assertThat(bobAfterChange).isSameAs(bobRequests);
+        assertThat(pendingAfterDeletion).isEmpty();
+        assertThat(requestService.filterRequestsByUserAndType(alice, RequestType.ORDER)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Test requests are counted by status and day of creation as they are added, changed and deleted")
+    public void testCountRequests() {
+        // Arrange
+        User user = new User("user", "password", "User", null);
+        LocalDateTime monday = LocalDateTime.of(2024, 6, 10, 9, 0);
+        Request first = new Request(user, 1, monday, null, RequestType.ORDER, RequestStatus.NEW);
+        Request second = new Request(user, 2, monday, null, RequestType.ORDER, RequestStatus.NEW);
+        Request third = new Request(user, 3, monday.plusDays(2), null, RequestType.MAINTENANCE, RequestStatus.NEW);
+        requestService.addRequests(List.of(first, second, third));
+
+        // Act
+        requestService.changeRequestStatus(first.getId(), RequestStatus.PENDING);
+        second.changeStatus(RequestStatus.PENDING);
+        second.changeStatus(RequestStatus.IN_PROGRESS);
+        second.changeStatus(RequestStatus.COMPLETED);
+        requestService.deleteRequest(third.getId());
+
+        // Assert
+        assertThat(requestService.countRequests(RequestType.ORDER, RequestStatus.NEW)).isZero();
+        assertThat(requestService.countRequests(RequestType.ORDER, RequestStatus.PENDING)).isEqualTo(1);
+        assertThat(requestService.countRequests(null, RequestStatus.COMPLETED)).isEqualTo(1);
+        assertThat(requestService.countRequests(RequestType.MAINTENANCE, RequestStatus.NEW)).isZero();
+        assertThat(requestService.countRequestsByCreationDay(monday.toLocalDate(), monday.toLocalDate().plusDays(2)).values())
+                .containsExactly(2L, 0L, 0L);
+    }
+
+    @Test
+    @DisplayName("Test maintenance requests occupying a window are left to the scheduler")
+    public void testMaintenanceWindowsRejected() {
+        // Arrange
+        LocalDateTime start = LocalDateTime.of(2024, 6, 10, 9, 0);
+        Request windowed = new Request(null, 1, start, start.plusHours(2), RequestType.MAINTENANCE, RequestStatus.NEW);
+        Request withoutWindow = new Request(null, 1, start, null, RequestType.MAINTENANCE, RequestStatus.NEW);
+
+        // Act
+        requestService.addRequest(withoutWindow);
+        Throwable added = catchThrowable(() -> requestService.addRequest(windowed));
+        Throwable addedInBatch = catchThrowable(() -> requestService.addRequests(List.of(windowed)));
+        withoutWindow.setCompletionTime(start.plusHours(1));
+        Throwable updated = catchThrowable(() -> requestService.updateRequest(withoutWindow));
+
+        // Assert
+        assertThat(added).isInstanceOf(IllegalArgumentException.class);
+        assertThat(addedInBatch).isInstanceOf(IllegalArgumentException.class);
+        assertThat(updated).isInstanceOf(IllegalArgumentException.class);
+        assertThat(requestMap).containsOnlyKeys(withoutWindow.getId());
+    }
 }
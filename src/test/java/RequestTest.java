@@ -10,6 +10,7 @@ import org.mockito.MockitoAnnotations;
 import java.time.LocalDateTime;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 @DisplayName("Tests for Request clas")
@@ -33,7 +34,7 @@ public class RequestTest {
     @Test
     @DisplayName("Test constructor and getters")
     public void testConstructorAndGetters() {
-        assertThat(request.getId()).isEqualTo(14);
+        assertThat(request.getId()).isZero();
         assertThat(request.getCarId()).isEqualTo(101);
         assertThat(request.getCreationTime()).isEqualTo(LocalDateTime.of(2024, 6, 24, 10, 0));
         assertThat(request.getCompletionTime()).isEqualTo(LocalDateTime.of(2024, 6, 24, 12, 0));
@@ -65,4 +66,19 @@ public class RequestTest {
         assertThat(request.getUser()).isEqualTo(mockUser);
     }
 
+    @Test
+    @DisplayName("Test changeStatus follows the lifecycle")
+    public void testChangeStatus() {
+        request.changeStatus(RequestStatus.PENDING);
+
+        assertThat(request.getRequestStatus()).isEqualTo(RequestStatus.PENDING);
+        assertThatThrownBy(() -> request.changeStatus(RequestStatus.COMPLETED))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> request.changeStatus(RequestStatus.NEW))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> request.changeStatus(RequestStatus.PENDING))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(request.getRequestStatus()).isEqualTo(RequestStatus.PENDING);
+    }
+
 }
@@ -0,0 +1,107 @@
+import org.example.carshop.model.Car;
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.ReservationResult;
+import org.example.carshop.model.enums.UserRole;
+import org.example.carshop.repository.CarRepository;
+import org.example.carshop.service.CarShopService;
+import org.example.carshop.service.RequestService;
+import org.example.carshop.service.ReservationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@DisplayName("ReservationService Tests")
+public class ReservationServiceTest {
+
+    private CarShopService carShopService;
+    private RequestService requestService;
+    private ReservationService reservationService;
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        carShopService = new CarShopService(new CarRepository(new ConcurrentHashMap<>()));
+        requestService = mock(RequestService.class);
+        reservationService = new ReservationService(carShopService, requestService);
+        user = new User("user1", "password1", "fullname", UserRole.CLIENT);
+    }
+
+    @Test
+    @DisplayName("Test reserving an available car")
+    public void testReserveAvailableCar() {
+        // Arrange
+        carShopService.addCar(new Car(1, "Model1", "Brand1", "2020","Great", true));
+
+        // Act
+        ReservationResult result = reservationService.reserveCar(user, 1);
+
+        // Assert
+        assertThat(result).isEqualTo(ReservationResult.RESERVED);
+        assertThat(carShopService.findCarById(1).isAvailable()).isFalse();
+        assertThat(carShopService.searchCars(null, null, null, true)).isEmpty();
+        verify(requestService, times(1)).addOrderRequest(user, 1);
+    }
+
+    @Test
+    @DisplayName("Test reserving a missing or unavailable car")
+    public void testReserveMissingOrUnavailableCar() {
+        // Arrange
+        carShopService.addCar(new Car(1, "Model1", "Brand1", "2020","Great", false));
+
+        // Act & Assert
+        assertThat(reservationService.reserveCar(user, 1)).isEqualTo(ReservationResult.CAR_NOT_AVAILABLE);
+        assertThat(reservationService.reserveCar(user, 2)).isEqualTo(ReservationResult.CAR_NOT_FOUND);
+        verify(requestService, never()).addOrderRequest(any(User.class), anyInt());
+    }
+
+    @Test
+    @DisplayName("Test car is released when the order request cannot be created")
+    public void testReleaseCarOnFailure() {
+        // Arrange
+        carShopService.addCar(new Car(1, "Model1", "Brand1", "2020","Great", true));
+        when(requestService.addOrderRequest(user, 1)).thenThrow(new IllegalStateException("storage failure"));
+
+        // Act & Assert
+        assertThatThrownBy(() -> reservationService.reserveCar(user, 1)).isInstanceOf(IllegalStateException.class);
+        assertThat(carShopService.findCarById(1).isAvailable()).isTrue();
+        assertThat(carShopService.searchCars(null, null, null, true)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Test concurrent orders of the same car reserve it once")
+    public void testConcurrentReservations() throws Exception {
+        // Arrange
+        carShopService.addCar(new Car(1, "Model1", "Brand1", "2020","Great", true));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        List<Future<ReservationResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(executor.submit(() -> reservationService.reserveCar(user, 1)));
+        }
+        int reserved = 0;
+        for (Future<ReservationResult> future : futures) {
+            if (future.get() == ReservationResult.RESERVED) {
+                reserved++;
+            }
+        }
+        executor.shutdown();
+
+        // Assert
+        assertThat(reserved).isEqualTo(1);
+        verify(requestService, times(1)).addOrderRequest(user, 1);
+    }
+}
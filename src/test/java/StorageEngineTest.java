@@ -0,0 +1,290 @@
+import org.example.carshop.model.Car;
+import org.example.carshop.model.Request;
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.RequestStatus;
+import org.example.carshop.model.enums.RequestType;
+import org.example.carshop.model.enums.UserRole;
+import org.example.carshop.persistence.Durability;
+import org.example.carshop.persistence.RecordBuffer;
+import org.example.carshop.persistence.RecordType;
+import org.example.carshop.persistence.StorageEngine;
+import org.example.carshop.persistence.WriteAheadLog;
+import org.example.carshop.repository.CarRepository;
+import org.example.carshop.repository.RequestRepository;
+import org.example.carshop.repository.SequentialIdGenerator;
+import org.example.carshop.repository.UserRepository;
+import org.example.carshop.service.CarShopService;
+import org.example.carshop.service.RequestService;
+import org.example.carshop.service.ReservationService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("StorageEngine Tests")
+public class StorageEngineTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    @DisplayName("Test repositories are restored from the log after reopening")
+    public void testReplayAfterReopen() throws IOException {
+        // Arrange
+        User user = new User("alice", "secret", "Alice", UserRole.CLIENT);
+        LocalDateTime creationTime = LocalDateTime.of(2024, 3, 1, 10, 15, 30, 123_000_000);
+
+        // Act
+        try (StorageEngine storage = StorageEngine.open(dataDir, Durability.perWrite())) {
+            UserRepository userRepository = new UserRepository(storage.getUsers(), storage);
+            CarRepository carRepository = new CarRepository(storage.getCars(), storage);
+            RequestRepository requestRepository =
+                    new RequestRepository(storage.getRequests(), new SequentialIdGenerator(), storage);
+
+            userRepository.registerUser(user);
+            carRepository.addCar(new Car(1, "Model S", "Tesla", "2020", "New", true));
+            carRepository.addCar(new Car(2, "Civic", "Honda", "2018", "Used", true));
+            carRepository.removeCarById(2);
+            carRepository.reserveCar(1);
+
+            Request request = new Request(user, 1, creationTime, null, RequestType.ORDER, RequestStatus.NEW);
+            requestRepository.addRequest(request);
+            request.changeStatus(RequestStatus.PENDING);
+            request.changeStatus(RequestStatus.IN_PROGRESS);
+        }
+
+        // Assert
+        try (StorageEngine storage = StorageEngine.open(dataDir, Durability.perWrite())) {
+            assertThat(storage.getUsers()).containsOnlyKeys("alice");
+            assertThat(storage.getUsers().get("alice").getFullName()).isEqualTo("Alice");
+            assertThat(storage.getCars()).containsOnlyKeys(1);
+            assertThat(storage.getCars().get(1).isAvailable()).isFalse();
+
+            Request restored = storage.getRequests().get(1);
+            assertThat(restored.getUser()).isSameAs(storage.getUsers().get("alice"));
+            assertThat(restored.getCreationTime()).isEqualTo(creationTime);
+            assertThat(restored.getRequestStatus()).isEqualTo(RequestStatus.IN_PROGRESS);
+
+            RequestRepository requestRepository = new RequestRepository(storage.getRequests());
+            Request next = new Request(user, 1, null, null, RequestType.ORDER, RequestStatus.NEW);
+            requestRepository.addRequest(next);
+            assertThat(next.getId()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    @DisplayName("Test torn record at the end of the log is discarded")
+    public void testTruncatedTail() throws IOException {
+        // Arrange
+        try (StorageEngine storage = StorageEngine.open(dataDir, Durability.everyMillis(10))) {
+            CarRepository carRepository = new CarRepository(storage.getCars(), storage);
+            carRepository.addCar(new Car(1, "Model S", "Tesla", "2020", "New", true));
+            carRepository.addCar(new Car(2, "Civic", "Honda", "2018", "Used", true));
+        }
+        Path log;
+        try (Stream<Path> files = Files.list(dataDir)) {
+            log = files.filter(file -> file.getFileName().toString().startsWith("wal-")).findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        // Act
+        try (StorageEngine storage = StorageEngine.open(dataDir, Durability.perWrite())) {
+            new CarRepository(storage.getCars(), storage)
+                    .addCar(new Car(3, "Corolla", "Toyota", "2019", "Used", true));
+        }
+
+        // Assert
+        try (StorageEngine storage = StorageEngine.open(dataDir, Durability.perWrite())) {
+            assertThat(storage.getCars()).containsOnlyKeys(1, 3);
+        }
+    }
+
+    @Test
+    @DisplayName("Test a batch is restored as a whole and a torn batch not at all")
+    public void testBatchRestoredAsWhole() throws IOException {
+        // Arrange
+        try (StorageEngine storage = StorageEngine.open(dataDir, Durability.perWrite())) {
+            CarRepository carRepository = new CarRepository(storage.getCars(), storage);
+            carRepository.addCars(List.of(new Car(1, "Model S", "Tesla", "2020", "New", true),
+                    new Car(2, "Civic", "Honda", "2018", "Used", true)));
+            carRepository.removeCarsById(List.of(1));
+            carRepository.addCars(List.of(new Car(3, "Corolla", "Toyota", "2019", "Used", true),
+                    new Car(4, "Golf", "Volkswagen", "2017", "Used", true)));
+        }
+        Path log;
+        try (Stream<Path> files = Files.list(dataDir)) {
+            log = files.filter(file -> file.getFileName().toString().startsWith("wal-")).findFirst().orElseThrow();
+        }
+
+        // Act
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        // Assert
+        try (StorageEngine storage = StorageEngine.open(dataDir, Durability.perWrite())) {
+            assertThat(storage.getCars()).containsOnlyKeys(2);
+        }
+    }
+
+    @Test
+    @DisplayName("Test a reservation and its order are restored together or not at all")
+    public void testReservationRestoredWithOrder() throws IOException {
+        // Arrange
+        User user = new User("alice", "secret", "Alice", UserRole.CLIENT);
+        try (StorageEngine storage = StorageEngine.open(dataDir, Durability.perWrite())) {
+            new UserRepository(storage.getUsers(), storage).registerUser(user);
+            CarShopService carShopService = new CarShopService(new CarRepository(storage.getCars(), storage));
+            RequestService requestService = new RequestService(new RequestRepository(storage.getRequests(),
+                    new SequentialIdGenerator(), storage));
+            carShopService.addCar(new Car(1, "Model S", "Tesla", "2020", "New", true));
+            carShopService.addCar(new Car(2, "Civic", "Honda", "2018", "Used", true));
+            ReservationService reservationService = new ReservationService(carShopService, requestService);
+            reservationService.reserveCar(user, 1);
+            reservationService.reserveCar(user, 2);
+        }
+        Path log;
+        try (Stream<Path> files = Files.list(dataDir)) {
+            log = files.filter(file -> file.getFileName().toString().startsWith("wal-")).findFirst().orElseThrow();
+        }
+
+        // Act
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        // Assert
+        try (StorageEngine storage = StorageEngine.open(dataDir, Durability.perWrite())) {
+            assertThat(storage.getCars().get(1).isAvailable()).isFalse();
+            assertThat(storage.getCars().get(2).isAvailable()).isTrue();
+            assertThat(storage.getRequests().values()).extracting(Request::getCarId).containsExactly(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Test snapshot replaces the log history it covers")
+    public void testSnapshotCompactsLog() throws IOException {
+        // Arrange
+        User user = new User("bob", "secret", "Bob", UserRole.CLIENT);
+        try (StorageEngine storage = StorageEngine.open(dataDir, Durability.perWrite())) {
+            new UserRepository(storage.getUsers(), storage).registerUser(user);
+            CarRepository carRepository = new CarRepository(storage.getCars(), storage);
+            RequestRepository requestRepository = new RequestRepository(storage.getRequests(),
+                    new SequentialIdGenerator(), storage);
+            carRepository.addCar(new Car(1, "Model S", "Tesla", "2020", "New", true));
+            Request request = new Request(user, 1, null, null, RequestType.ORDER, RequestStatus.NEW);
+            requestRepository.addRequest(request);
+            for (int i = 0; i < 100; i++) {
+                carRepository.addCar(new Car(1, "Model S", "Tesla", "2020", "New", i % 2 == 0));
+            }
+            request.changeStatus(RequestStatus.PENDING);
+            request.changeStatus(RequestStatus.IN_PROGRESS);
+
+            // Act
+            storage.snapshot();
+            carRepository.addCar(new Car(2, "Civic", "Honda", "2018", "Used", true));
+            request.changeStatus(RequestStatus.COMPLETED);
+        }
+
+        // Assert
+        try (Stream<Path> files = Files.list(dataDir)) {
+            assertThat(files.filter(Files::isRegularFile).map(file -> file.getFileName().toString()))
+                    .hasSize(2)
+                    .anyMatch(name -> name.startsWith("snapshot-"))
+                    .anyMatch(name -> name.startsWith("wal-"));
+        }
+        try (StorageEngine storage = StorageEngine.open(dataDir, Durability.perWrite())) {
+            assertThat(storage.getCars()).containsOnlyKeys(1, 2);
+            assertThat(storage.getRequests().get(1).getRequestStatus()).isEqualTo(RequestStatus.COMPLETED);
+            assertThat(storage.getRequests().get(1).getUser()).isSameAs(storage.getUsers().get("bob"));
+        }
+    }
+
+    @Test
+    @DisplayName("Test a snapshot waits for an open batch and never holds part of it")
+    public void testSnapshotWaitsForBatch() throws Exception {
+        // Arrange
+        try (StorageEngine storage = StorageEngine.open(dataDir, Durability.perWrite())) {
+            CarRepository carRepository = new CarRepository(storage.getCars(), storage);
+            storage.beginBatch();
+            carRepository.addCar(new Car(1, "Model S", "Tesla", "2020", "New", true));
+
+            // Act
+            CompletableFuture<Void> snapshot = CompletableFuture.runAsync(() -> {
+                try {
+                    storage.snapshot();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            Thread.sleep(200);
+            boolean doneWhileOpen = snapshot.isDone();
+            carRepository.addCar(new Car(2, "Civic", "Honda", "2018", "Used", true));
+            storage.commitBatch();
+            snapshot.get(10, TimeUnit.SECONDS);
+
+            // Assert
+            assertThat(doneWhileOpen).isFalse();
+        }
+        Path log;
+        try (Stream<Path> files = Files.list(dataDir)) {
+            log = files.filter(file -> file.getFileName().toString().startsWith("wal-"))
+                    .max(Comparator.naturalOrder()).orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        try (StorageEngine storage = StorageEngine.open(dataDir, Durability.perWrite())) {
+            assertThat(storage.getCars()).containsOnlyKeys(1, 2);
+        }
+    }
+
+    @Test
+    @DisplayName("Test a corrupted segment followed by newer segments fails the open")
+    public void testCorruptedMiddleSegment() throws IOException {
+        // Arrange
+        try (WriteAheadLog log = WriteAheadLog.open(dataDir, 0, Durability.perWrite(), (type, payload) -> { })) {
+            for (int carId = 1; carId <= 3; carId++) {
+                RecordBuffer buffer = new RecordBuffer();
+                buffer.putInt(carId);
+                log.append(RecordType.CAR_REMOVE, buffer);
+                log.sync();
+                log.roll();
+            }
+        }
+        List<Long> segments = WriteAheadLog.listSegments(dataDir);
+        Path middle = dataDir.resolve(String.format("wal-%016d.log", segments.get(1)));
+        long size = Files.size(middle);
+        try (FileChannel channel = FileChannel.open(middle, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), size - 1);
+        }
+        List<Integer> replayed = new ArrayList<>();
+
+        // Act & Assert
+        assertThatThrownBy(() -> WriteAheadLog.open(dataDir, 0, Durability.perWrite(),
+                (type, payload) -> replayed.add(payload.getInt())).close())
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("corrupted");
+        assertThat(replayed).containsExactly(1);
+        assertThat(Files.size(middle)).isEqualTo(size);
+    }
+}
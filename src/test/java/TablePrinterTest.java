@@ -0,0 +1,45 @@
+import org.example.carshop.model.Car;
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.UserRole;
+import org.example.carshop.out.TablePrinter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Table printer Tests")
+public class TablePrinterTest {
+
+    @Test
+    @DisplayName("Test rows are aligned, long values are cut and a header starts every block of one type")
+    public void testFixedWidthRows() {
+        // Arrange
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, false, StandardCharsets.UTF_8);
+        TablePrinter printer = new TablePrinter(out);
+        List<Object> rows = List.of(
+                new Car(1, "Camry", "Toyota", "2020", "Новый", true),
+                new Car(12345, "Model", "Mercedes-Benz Trucks", "1999", "Б/у", false),
+                new User("alice", "secret", "Alice Smith", UserRole.CLIENT));
+
+        // Act
+        long count = printer.print(rows.iterator());
+        out.flush();
+
+        // Assert
+        String[] lines = bytes.toString(StandardCharsets.UTF_8).split(System.lineSeparator());
+        assertThat(count).isEqualTo(3);
+        assertThat(lines).hasSize(5);
+        assertThat(lines[0]).startsWith("ID      Марка         Модель");
+        assertThat(lines[1]).isEqualTo("1       Toyota        Camry           2020  Новый               да");
+        assertThat(lines[2]).startsWith("12345   Mercedes-Ben~ Model");
+        assertThat(lines[2].indexOf("Model")).isEqualTo(lines[1].indexOf("Camry"));
+        assertThat(lines[3]).startsWith("Логин");
+        assertThat(lines[4]).isEqualTo("alice               Alice Smith                     CLIENT");
+    }
+}
@@ -0,0 +1,82 @@
+import org.example.carshop.model.User;
+import org.example.carshop.model.enums.UserRole;
+import org.example.carshop.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Tests for UserRepository search")
+public class UserRepositoryTest {
+
+    private UserRepository userRepository;
+
+    @BeforeEach
+    public void setUp() {
+        userRepository = new UserRepository(new HashMap<>());
+        userRepository.registerUser(new User("ivanov", "1", "Иванов Иван", UserRole.CLIENT));
+        userRepository.registerUser(new User("ivanova", "1", "Иванова Мария", UserRole.MANAGER));
+        userRepository.registerUser(new User("petrov", "1", "Петров Пётр", UserRole.CLIENT));
+        userRepository.registerUser(new User("vanya", "1"));
+    }
+
+    @Test
+    @DisplayName("Test substring search respects the requested roles")
+    public void testFilterUsers() {
+        assertThat(userRepository.filterUsers("van", null))
+                .extracting(User::getUsername).containsExactly("ivanov", "ivanova", "vanya");
+        assertThat(userRepository.filterUsers("vano", List.of(UserRole.CLIENT)))
+                .extracting(User::getUsername).containsExactly("ivanov");
+        assertThat(userRepository.filterUsers("v", List.of(UserRole.MANAGER)))
+                .extracting(User::getUsername).containsExactly("ivanova");
+        assertThat(userRepository.filterUsers(null, List.of(UserRole.CLIENT)))
+                .extracting(User::getUsername).containsExactly("ivanov", "petrov");
+    }
+
+    @Test
+    @DisplayName("Test prefix and full name search")
+    public void testPrefixAndFullNameSearch() {
+        assertThat(userRepository.findUsersByUsernamePrefix("ivan", null))
+                .extracting(User::getUsername).containsExactly("ivanov", "ivanova");
+        assertThat(userRepository.findUsersByFullName("иванов", null))
+                .extracting(User::getUsername).containsExactly("ivanov", "ivanova");
+        assertThat(userRepository.findUsersByFullName("Пётр", List.of(UserRole.MANAGER))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Test updated users are found by their new attributes only")
+    public void testUpdateReindexes() {
+        // Act
+        userRepository.updateUser(new User("petrov", "1", "Сидоров Пётр", UserRole.ADMIN));
+
+        // Assert
+        assertThat(userRepository.filterUsers(null, List.of(UserRole.CLIENT)))
+                .extracting(User::getUsername).containsExactly("ivanov");
+        assertThat(userRepository.findUsersByFullName("петров", null)).isEmpty();
+        assertThat(userRepository.findUsersByFullName("сидоров", List.of(UserRole.ADMIN)))
+                .extracting(User::getUsername).containsExactly("petrov");
+    }
+
+    @Test
+    @DisplayName("Test a password is replaced only while it is still the expected one")
+    public void testReplacePassword() {
+        // Arrange
+        userRepository.updateUser(new User("petrov", "2", "Петров Пётр", UserRole.ADMIN));
+
+        // Act
+        boolean stale = userRepository.replacePassword("petrov", "1", "hash");
+        boolean current = userRepository.replacePassword("petrov", "2", "hash");
+
+        // Assert
+        assertThat(stale).isFalse();
+        assertThat(current).isTrue();
+        User petrov = userRepository.findUserByUsername("petrov");
+        assertThat(petrov.getPassword()).isEqualTo("hash");
+        assertThat(petrov.getRole()).isEqualTo(UserRole.ADMIN);
+        assertThat(userRepository.replacePassword("nobody", "1", "hash")).isFalse();
+    }
+}
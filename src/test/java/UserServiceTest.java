@@ -1,15 +1,24 @@
 import org.example.carshop.model.User;
 import org.example.carshop.model.enums.UserRole;
 import org.example.carshop.repository.UserRepository;
+import org.example.carshop.security.AuthenticatedSession;
+import org.example.carshop.security.CredentialService;
+import org.example.carshop.security.PasswordHasher;
+import org.example.carshop.security.SessionCache;
 import org.example.carshop.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -19,6 +28,12 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Spy
+    private CredentialService credentials = new CredentialService(new PasswordHasher(1_000), 1, 8);
+
+    @Spy
+    private SessionCache sessions = new SessionCache();
+
     @InjectMocks
     private UserService userService;
 
@@ -85,4 +100,82 @@ class UserServiceTest {
         assertThat(foundUser).isEqualTo(user);
         verify(userRepository, times(1)).findUserByUsername("user1");
     }
+
+    @Test
+    @DisplayName("Register Stores Hashed Password Test")
+    void registerStoresHashedPassword() {
+        // Arrange
+        User user = new User("user1", "password1", "fullname", UserRole.CLIENT);
+        ArgumentCaptor<User> captor = ArgumentCaptor.forClass(User.class);
+
+        // Act
+        userService.register(user);
+
+        // Assert
+        verify(userRepository).registerUser(captor.capture());
+        assertThat(captor.getValue().getPassword()).isNotEqualTo("password1").startsWith("$pbkdf2-sha256$");
+        when(userRepository.findUserByUsername("user1")).thenReturn(captor.getValue());
+        assertThat(userService.login(new User("user1", "password1"))).isTrue();
+        assertThat(userService.login(new User("user1", "password2"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Login Unknown User Test")
+    void loginUnknownUser() {
+        // Act
+        boolean result = userService.login(new User("nobody", "password1"));
+
+        // Assert
+        assertThat(result).isFalse();
+    }
+
+    @Test
+    @DisplayName("Resume Session Test")
+    void resumeSession() {
+        // Arrange
+        User user = new User("user1", "password1", "fullname", UserRole.CLIENT);
+        when(userRepository.findUserByUsername("user1")).thenReturn(user);
+        AuthenticatedSession session = userService.authenticate("user1", "password1");
+
+        // Act
+        User resumed = userService.resumeSession(session.token());
+        userService.logout(session.token());
+
+        // Assert
+        assertThat(resumed).isEqualTo(user);
+        assertThat(userService.resumeSession(session.token())).isNull();
+        assertThat(userService.authenticate("user1", "wrong")).isNull();
+    }
+
+    @Test
+    @DisplayName("Rehash Replaces Only The Verified Password Test")
+    void rehashReplacesVerifiedPassword() {
+        // Arrange
+        User user = new User("user1", "password1", "fullname", UserRole.CLIENT);
+        when(userRepository.findUserByUsername("user1")).thenReturn(user);
+
+        // Act
+        boolean result = userService.login(new User("user1", "password1"));
+
+        // Assert
+        assertThat(result).isTrue();
+        verify(userRepository).replacePassword(eq("user1"), eq("password1"), startsWith("$pbkdf2-sha256$"));
+        verify(userRepository, never()).updateUser(any(User.class));
+    }
+
+    @Test
+    @DisplayName("Overloaded Workers Are Not Reported As Wrong Credentials Test")
+    void overloadedWorkers() {
+        // Arrange
+        User user = new User("user1", "password1", "fullname", UserRole.CLIENT);
+        when(userRepository.findUserByUsername("user1")).thenReturn(user);
+        doThrow(new RejectedExecutionException("overloaded")).when(credentials).verify(any(), any());
+
+        // Act
+        Throwable thrown = catchThrowable(() -> userService.authenticate("user1", "password1"));
+
+        // Assert
+        assertThat(thrown).isInstanceOf(RejectedExecutionException.class);
+        verify(sessions, never()).issue(any());
+    }
 }